@@ -42,6 +42,7 @@ public class Settings implements PersistentStateComponent<Settings> {
 
     public static String DEFAULT_WEB_DIRECTORY = "web";
     public static String DEFAULT_APP_DIRECTORY = "app";
+    public static int DEFAULT_CACHE_MEMORY_BUDGET = 64;
 
     /**
      * @deprecated
@@ -95,6 +96,11 @@ public class Settings implements PersistentStateComponent<Settings> {
     public boolean profilerHttpEnabled = false;
     public String profilerHttpUrl = "http://127.0.0.1:8000";
 
+    /**
+     * Memory budget in MB per bounded plugin cache, eg compiled routes and translations
+     */
+    public int cacheMemoryBudget = DEFAULT_CACHE_MEMORY_BUDGET;
+
     @Nullable
     public List<TwigNamespaceSetting> twigNamespaces = new ArrayList<>();
 
@@ -71,6 +71,7 @@ public class SettingsForm implements Configurable {
 
     private JButton buttonReindex;
     private JCheckBox enableSchedulerCheckBox;
+    private JSpinner cacheMemoryBudget;
 
     public SettingsForm(@NotNull final Project project) {
         this.project = project;
@@ -111,6 +112,8 @@ public class SettingsForm implements Configurable {
 
         enableSchedulerCheckBox.setEnabled(WebDeploymentUtil.isEnabled(project));
 
+        cacheMemoryBudget.setModel(new SpinnerNumberModel(Settings.DEFAULT_CACHE_MEMORY_BUDGET, 0, 4096, 16));
+
         buttonReindex.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
@@ -129,6 +132,7 @@ public class SettingsForm implements Configurable {
             || !pathToUrlGeneratorTextField.getText().equals(getSettings().pathToUrlGenerator)
             || !pathToTranslationRootTextField.getText().equals(getSettings().pathToTranslation)
             || !enableSchedulerCheckBox.isSelected() == getSettings().remoteDevFileScheduler
+            || (Integer) cacheMemoryBudget.getValue() != getSettings().cacheMemoryBudget
 
             || !symfonyContainerTypeProvider.isSelected() == getSettings().symfonyContainerTypeProvider
             || !objectRepositoryTypeProvider.isSelected() == getSettings().objectRepositoryTypeProvider
@@ -170,6 +174,7 @@ public class SettingsForm implements Configurable {
         getSettings().pathToUrlGenerator = pathToUrlGeneratorTextField.getText();
         getSettings().pathToTranslation = pathToTranslationRootTextField.getText();
         getSettings().remoteDevFileScheduler = enableSchedulerCheckBox.isSelected();
+        getSettings().cacheMemoryBudget = (Integer) cacheMemoryBudget.getValue();
 
         getSettings().symfonyContainerTypeProvider = symfonyContainerTypeProvider.isSelected();
         getSettings().objectRepositoryTypeProvider = objectRepositoryTypeProvider.isSelected();
@@ -222,6 +227,7 @@ public class SettingsForm implements Configurable {
         pathToUrlGeneratorTextField.setText(getSettings().pathToUrlGenerator);
         pathToTranslationRootTextField.setText(getSettings().pathToTranslation);
         enableSchedulerCheckBox.setSelected(getSettings().remoteDevFileScheduler);
+        cacheMemoryBudget.setValue(getSettings().cacheMemoryBudget);
 
         symfonyContainerTypeProvider.setSelected(getSettings().symfonyContainerTypeProvider);
         objectRepositoryTypeProvider.setSelected(getSettings().objectRepositoryTypeProvider);
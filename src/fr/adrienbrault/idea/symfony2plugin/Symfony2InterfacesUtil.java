@@ -10,6 +10,8 @@ import com.jetbrains.php.lang.psi.elements.Method;
 import com.jetbrains.php.lang.psi.elements.MethodReference;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import fr.adrienbrault.idea.symfony2plugin.util.CallToSignatureRegistry;
+import fr.adrienbrault.idea.symfony2plugin.util.CallToSignatureTable;
 import fr.adrienbrault.idea.symfony2plugin.util.MethodMatcher;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import org.jetbrains.annotations.NotNull;
@@ -23,137 +25,86 @@ import java.util.*;
  */
 public class Symfony2InterfacesUtil {
 
+    private static final CallToSignatureTable CONTAINER_GET = new CallToSignatureTable(Arrays.asList(
+        new MethodMatcher.CallToSignature("\\Symfony\\Component\\DependencyInjection\\ContainerInterface", "get"),
+        new MethodMatcher.CallToSignature("\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "get")
+    ));
+
+    private static final CallToSignatureTable TEMPLATING_RENDER = new CallToSignatureTable(Arrays.asList(
+        new MethodMatcher.CallToSignature("\\Symfony\\Component\\Templating\\EngineInterface", "render"),
+        new MethodMatcher.CallToSignature("\\Symfony\\Component\\Templating\\StreamingEngineInterface", "stream"),
+        new MethodMatcher.CallToSignature("\\Symfony\\Bundle\\FrameworkBundle\\Templating\\EngineInterface", "renderResponse"),
+        new MethodMatcher.CallToSignature("\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "render"),
+        new MethodMatcher.CallToSignature("\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "renderView"),
+        new MethodMatcher.CallToSignature("\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "stream")
+    ));
+
+    private static final CallToSignatureTable TRANSLATOR = new CallToSignatureTable(Arrays.asList(
+        new MethodMatcher.CallToSignature("\\Symfony\\Component\\Translation\\TranslatorInterface", "trans"),
+        new MethodMatcher.CallToSignature("\\Symfony\\Component\\Translation\\TranslatorInterface", "transChoice")
+    ));
+
+    private static final CallToSignatureTable GET_REPOSITORY = new CallToSignatureTable(Arrays.asList(
+        new MethodMatcher.CallToSignature("\\Doctrine\\Common\\Persistence\\ManagerRegistry", "getRepository"),
+        new MethodMatcher.CallToSignature("\\Doctrine\\Common\\Persistence\\ObjectManager", "getRepository")
+    ));
+
+    private static final CallToSignatureTable FORM_BUILDER = new CallToSignatureTable(getFormBuilderInterface());
+
+    private static final CallToSignatureTable OBJECT_REPOSITORY = new CallToSignatureTable(Arrays.asList(
+        new MethodMatcher.CallToSignature("\\Doctrine\\Common\\Persistence\\ObjectRepository", "find"),
+        new MethodMatcher.CallToSignature("\\Doctrine\\Common\\Persistence\\ObjectRepository", "findOneBy"),
+        new MethodMatcher.CallToSignature("\\Doctrine\\Common\\Persistence\\ObjectRepository", "findAll"),
+        new MethodMatcher.CallToSignature("\\Doctrine\\Common\\Persistence\\ObjectRepository", "findBy")
+    ));
+
     public boolean isContainerGetCall(PsiElement e) {
-        return isCallTo(e, new Method[] {
-            getInterfaceMethod(e.getProject(), "\\Symfony\\Component\\DependencyInjection\\ContainerInterface", "get"),
-            getClassMethod(e.getProject(), "\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "get"),
-        });
+        return isCallTo(e, CONTAINER_GET);
     }
 
     public boolean isContainerGetCall(Method e) {
-        return isCallTo(e, new Method[] {
-            getInterfaceMethod(e.getProject(), "\\Symfony\\Component\\DependencyInjection\\ContainerInterface", "get"),
-            getClassMethod(e.getProject(), "\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "get"),
-        });
+        return isCallTo(e, CONTAINER_GET);
     }
 
     public boolean isTemplatingRenderCall(PsiElement e) {
-        return isCallTo(e, new Method[] {
-            getInterfaceMethod(e.getProject(), "\\Symfony\\Component\\Templating\\EngineInterface", "render"),
-            getInterfaceMethod(e.getProject(), "\\Symfony\\Component\\Templating\\StreamingEngineInterface", "stream"),
-            getInterfaceMethod(e.getProject(), "\\Symfony\\Bundle\\FrameworkBundle\\Templating\\EngineInterface", "renderResponse"),
-            getClassMethod(e.getProject(), "\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "render"),
-            getClassMethod(e.getProject(), "\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "renderView"),
-            getClassMethod(e.getProject(), "\\Symfony\\Bundle\\FrameworkBundle\\Controller\\Controller", "stream"),
-        });
+        return isCallTo(e, TEMPLATING_RENDER);
     }
 
     public boolean isTranslatorCall(PsiElement e) {
-        return isCallTo(e, new Method[] {
-                getInterfaceMethod(e.getProject(), "\\Symfony\\Component\\Translation\\TranslatorInterface", "trans"),
-                getInterfaceMethod(e.getProject(), "\\Symfony\\Component\\Translation\\TranslatorInterface", "transChoice"),
-        });
+        return isCallTo(e, TRANSLATOR);
     }
 
     public boolean isGetRepositoryCall(Method e) {
-        return isCallTo(e, new Method[] {
-            getInterfaceMethod(e.getProject(), "\\Doctrine\\Common\\Persistence\\ManagerRegistry", "getRepository"),
-            getInterfaceMethod(e.getProject(), "\\Doctrine\\Common\\Persistence\\ObjectManager", "getRepository"),
-        });
+        return isCallTo(e, GET_REPOSITORY);
     }
 
     public boolean isObjectRepositoryCall(Method e) {
-        return isCallTo(e, new Method[] {
-            getInterfaceMethod(e.getProject(), "\\Doctrine\\Common\\Persistence\\ObjectRepository", "find"),
-            getInterfaceMethod(e.getProject(), "\\Doctrine\\Common\\Persistence\\ObjectRepository", "findOneBy"),
-            getInterfaceMethod(e.getProject(), "\\Doctrine\\Common\\Persistence\\ObjectRepository", "findAll"),
-            getInterfaceMethod(e.getProject(), "\\Doctrine\\Common\\Persistence\\ObjectRepository", "findBy"),
-        });
+        return isCallTo(e, OBJECT_REPOSITORY);
     }
 
     public boolean isFormBuilderFormTypeCall(PsiElement e) {
-        List<Method> methods = getCallToSignatureInterfaceMethods(e, getFormBuilderInterface());
-        return isCallTo(e, methods.toArray( new Method[methods.size()]));
+        return isCallTo(e, FORM_BUILDER);
     }
 
-    protected boolean isCallTo(PsiElement e, Method expectedMethod) {
-        return isCallTo(e, new Method[] { expectedMethod });
+    /**
+     * Method name is checked on a precompiled table before the reference is resolved
+     *
+     * @see fr.adrienbrault.idea.symfony2plugin.util.CallToSignatureRegistry
+     */
+    public boolean isCallTo(@NotNull PsiElement e, @NotNull Collection<MethodMatcher.CallToSignature> signatures) {
+        return e instanceof MethodReference && CallToSignatureRegistry.getInstance(e.getProject()).match(e, signatures) != null;
     }
 
-    protected boolean isCallTo(PsiElement e, Method[] expectedMethods) {
-        return isCallTo(e, expectedMethods, 1);
+    public boolean isCallTo(@NotNull Method e, @NotNull Collection<MethodMatcher.CallToSignature> signatures) {
+        return CallToSignatureRegistry.getInstance(e.getProject()).match(e, signatures) != null;
     }
 
-    protected boolean isCallTo(Method e, Method[] expectedMethods) {
-
-        PhpClass methodClass = e.getContainingClass();
-        if(methodClass == null) {
-            return false;
-        }
-
-        for (Method expectedMethod : expectedMethods) {
-
-            // @TODO: its stuff from beginning times :)
-            if(expectedMethod == null) {
-                continue;
-            }
-
-            PhpClass containingClass = expectedMethod.getContainingClass();
-            if (containingClass != null && expectedMethod.getName().equals(e.getName()) && isInstanceOf(methodClass, containingClass)) {
-                return true;
-            }
-        }
-
-        return false;
+    public boolean isCallTo(@NotNull PsiElement e, @NotNull CallToSignatureTable signatures) {
+        return e instanceof MethodReference && CallToSignatureRegistry.getInstance(e.getProject()).match(e, signatures) != null;
     }
 
-
-    protected boolean isCallTo(PsiElement e, Method[] expectedMethods, int deepness) {
-        if (!(e instanceof MethodReference)) {
-            return false;
-        }
-
-        MethodReference methodRef = (MethodReference) e;
-
-        // resolve is also called on invalid php code like "use <xxx>"
-        // so double check the method name before resolve the method
-        if(!isMatchingMethodName(methodRef, expectedMethods)) {
-            return false;
-        }
-
-        PsiReference psiReference = methodRef.getReference();
-        if (null == psiReference) {
-            return false;
-        }
-
-        Method[] multiResolvedMethod = getMultiResolvedMethod(psiReference);
-        if(multiResolvedMethod == null) {
-            return false;
-        }
-
-        for (Method method : multiResolvedMethod) {
-
-            PhpClass methodClass = method.getContainingClass();
-            if(methodClass == null) {
-                continue;
-            }
-
-            for (Method expectedMethod : expectedMethods) {
-
-                // @TODO: its stuff from beginning times :)
-                if(expectedMethod == null) {
-                    continue;
-                }
-
-                PhpClass containingClass = expectedMethod.getContainingClass();
-                if (null != containingClass && expectedMethod.getName().equals(method.getName()) && isInstanceOf(methodClass, containingClass)) {
-                    return true;
-                }
-            }
-
-        }
-
-        return false;
+    public boolean isCallTo(@NotNull Method e, @NotNull CallToSignatureTable signatures) {
+        return CallToSignatureRegistry.getInstance(e.getProject()).match(e, signatures) != null;
     }
 
     /**
@@ -188,16 +139,6 @@ public class Symfony2InterfacesUtil {
         return null;
     }
 
-    protected boolean isMatchingMethodName(MethodReference methodRef, Method[] expectedMethods) {
-        for (Method expectedMethod : Arrays.asList(expectedMethods)) {
-            if(expectedMethod != null && expectedMethod.getName().equals(methodRef.getName())) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
     @Deprecated
     @Nullable
     public static String getFirstArgumentStringValue(MethodReference e) {
@@ -251,40 +192,11 @@ public class Symfony2InterfacesUtil {
      * @deprecated isCallTo with MethodReference
      */
     public boolean isCallTo(PsiElement e, String ClassInterfaceName, String methodName) {
-
-        // we need a full fqn name
-        if(ClassInterfaceName.contains("\\") && !ClassInterfaceName.startsWith("\\")) {
-            ClassInterfaceName = "\\" + ClassInterfaceName;
-        }
-
-        return isCallTo(e, new Method[] {
-            getInterfaceMethod(e.getProject(), ClassInterfaceName, methodName),
-            getClassMethod(e.getProject(), ClassInterfaceName, methodName),
-        });
+        return isCallTo(e, Collections.singletonList(new MethodMatcher.CallToSignature(ClassInterfaceName, methodName)));
     }
 
     public boolean isCallTo(Method e, String ClassInterfaceName, String methodName) {
-
-        // we need a full fqn name
-        if(ClassInterfaceName.contains("\\") && !ClassInterfaceName.startsWith("\\")) {
-            ClassInterfaceName = "\\" + ClassInterfaceName;
-        }
-
-        return isCallTo(e, new Method[] {
-            getInterfaceMethod(e.getProject(), ClassInterfaceName, methodName),
-            getClassMethod(e.getProject(), ClassInterfaceName, methodName),
-        });
-    }
-
-    private List<Method> getCallToSignatureInterfaceMethods(PsiElement e, Collection<MethodMatcher.CallToSignature> signatures) {
-        List<Method> methods = new ArrayList<>();
-        for(MethodMatcher.CallToSignature signature: signatures) {
-            Method method = getInterfaceMethod(e.getProject(), signature.getInstance(), signature.getMethod());
-            if(method != null) {
-                methods.add(method);
-            }
-        }
-        return methods;
+        return isCallTo(e, Collections.singletonList(new MethodMatcher.CallToSignature(ClassInterfaceName, methodName)));
     }
 
     public static Collection<MethodMatcher.CallToSignature> getFormBuilderInterface() {
@@ -15,9 +15,7 @@ import com.intellij.psi.PsiElement;
 import fr.adrienbrault.idea.symfony2plugin.dic.ContainerFile;
 import fr.adrienbrault.idea.symfony2plugin.extension.ServiceContainerLoader;
 import fr.adrienbrault.idea.symfony2plugin.extension.ServiceContainerLoaderParameter;
-import fr.adrienbrault.idea.symfony2plugin.routing.RouteHelper;
 import fr.adrienbrault.idea.symfony2plugin.util.IdeHelper;
-import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
 import fr.adrienbrault.idea.symfony2plugin.profiler.widget.SymfonyProfilerWidget;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -83,13 +81,7 @@ public class Symfony2ProjectComponent implements ProjectComponent {
     }
 
     public void projectClosed() {
-
-        ServiceXmlParserFactory.cleanInstance(project);
-
-        // clean routing
-        if(RouteHelper.COMPILED_CACHE.containsKey(project)) {
-            RouteHelper.COMPILED_CACHE.remove(project);
-        }
+        // project caches are released via SymfonyProjectCacheService on project dispose
     }
 
     public static Logger getLogger() {
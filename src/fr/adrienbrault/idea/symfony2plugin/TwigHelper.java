@@ -27,6 +27,8 @@ import fr.adrienbrault.idea.symfony2plugin.asset.dic.AssetDirectoryReader;
 import fr.adrienbrault.idea.symfony2plugin.asset.dic.AssetFile;
 import fr.adrienbrault.idea.symfony2plugin.extension.TwigNamespaceExtension;
 import fr.adrienbrault.idea.symfony2plugin.extension.TwigNamespaceExtensionParameter;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricsSample;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigMacroFunctionStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.templating.TemplateLookupElement;
@@ -42,6 +44,9 @@ import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import fr.adrienbrault.idea.symfony2plugin.util.SymfonyBundleUtil;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.BoundedCache;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.ProjectCacheKey;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyBundle;
 import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
@@ -73,7 +78,11 @@ public class TwigHelper {
     public static String TEMPLATE_ANNOTATION_CLASS = "\\Sensio\\Bundle\\FrameworkExtraBundle\\Configuration\\Template";
 
     private static final Key<CachedValue<TemplateFileMap>> TEMPLATE_CACHE_TWIG = new Key<>("TEMPLATE_CACHE_TWIG");
-    private static final Key<CachedValue<TemplateFileMap>> TEMPLATE_CACHE_ALL = new Key<>("TEMPLATE_CACHE_ALL");
+
+    /**
+     * Twig and PHP templates are only needed by a few features; keep this large view soft reachable only
+     */
+    private static final ProjectCacheKey<BoundedCache<String, Pair<Long, TemplateFileMap>>> TEMPLATE_CACHE_ALL = ProjectCacheKey.createSoft("TEMPLATE_CACHE_ALL");
 
     public static final String DOC_SEE_REGEX  = "\\{#[\\s]+@see[\\s]+([-@\\./\\:\\w\\\\\\[\\]]+)[\\s]*#}";
     public static final String DOC_SEE_REGEX_WITHOUT_SEE  = "\\{#[\\s]+([-@\\./\\:\\w\\\\\\[\\]]+)[\\s]*#}";
@@ -94,39 +103,36 @@ public class TwigHelper {
     }
 
     @NotNull
-    public static synchronized TemplateFileMap getTemplateMap(@NotNull Project project, boolean useTwig, final boolean usePhp) {
-
-        TemplateFileMap templateMapProxy = null;
-
-        // cache twig and all files,
-        // only PHP files we dont need to cache
-        if(useTwig && !usePhp) {
-            // cache twig files only, most use case
-            CachedValue<TemplateFileMap> cache = project.getUserData(TEMPLATE_CACHE_TWIG);
-            if (cache == null) {
-                cache = CachedValuesManager.getManager(project).createCachedValue(new MyTwigOnlyTemplateFileMapCachedValueProvider(project), false);
-                project.putUserData(TEMPLATE_CACHE_TWIG, cache);
-            }
-
-            templateMapProxy = cache.getValue();
-
-        } else if(useTwig && usePhp) {
-            // cache all files
-            CachedValue<TemplateFileMap> cache = project.getUserData(TEMPLATE_CACHE_ALL);
-            if (cache == null) {
-                cache = CachedValuesManager.getManager(project).createCachedValue(new MyAllTemplateFileMapCachedValueProvider(project), false);
-                project.putUserData(TEMPLATE_CACHE_ALL, cache);
+    public static TemplateFileMap getTemplateMap(@NotNull Project project, boolean useTwig, final boolean usePhp) {
+
+        MetricsSample sample = SymfonyMetricsService.startLookup(project, "TwigHelper.getTemplateMap");
+
+        try {
+            // cache twig and all files,
+            // only PHP files we dont need to cache
+            if(useTwig && !usePhp) {
+                // cache twig files only, most use case
+                return CachedValuesManager.getManager(project).getCachedValue(project, TEMPLATE_CACHE_TWIG, new MyTwigOnlyTemplateFileMapCachedValueProvider(project), false);
+            } else if(useTwig) {
+                // cache all files, invalidated on any psi change like the twig only cache
+                long modificationCount = PsiModificationTracker.SERVICE.getInstance(project).getModificationCount();
+
+                return SymfonyProjectCacheService.getCache(project, TEMPLATE_CACHE_ALL).get(
+                    "all",
+                    cache -> cache.getFirst() == modificationCount,
+                    key -> {
+                        sample.miss();
+                        return Pair.create(modificationCount, getTemplateMapProxy(project, true, true));
+                    }
+                ).getSecond();
             }
 
-            templateMapProxy = cache.getValue();
-        }
-
-        // cache-less calls
-        if(templateMapProxy == null) {
-            templateMapProxy = getTemplateMapProxy(project, useTwig, usePhp);
+            // cache-less calls
+            sample.miss();
+            return getTemplateMapProxy(project, useTwig, usePhp);
+        } finally {
+            sample.stop();
         }
-
-        return templateMapProxy;
     }
 
     @NotNull
@@ -1753,25 +1759,11 @@ public class TwigHelper {
         @Nullable
         @Override
         public Result<TemplateFileMap> compute() {
+            MetricsSample.computed();
             return Result.create(getTemplateMapProxy(project, true, false), PsiModificationTracker.MODIFICATION_COUNT);
         }
     }
 
-    private static class MyAllTemplateFileMapCachedValueProvider implements CachedValueProvider<TemplateFileMap> {
-
-        private final Project project;
-
-        public MyAllTemplateFileMapCachedValueProvider(Project project) {
-            this.project = project;
-        }
-
-        @Nullable
-        @Override
-        public Result<TemplateFileMap> compute() {
-            return Result.create(getTemplateMapProxy(project, true, true), PsiModificationTracker.MODIFICATION_COUNT);
-        }
-    }
-
     /**
      * Find block scope "embed" with self search or file context with foreign extends search
      *
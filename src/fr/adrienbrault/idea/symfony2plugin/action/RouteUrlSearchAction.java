@@ -0,0 +1,120 @@
+package fr.adrienbrault.idea.symfony2plugin.action;
+
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.actionSystem.impl.SimpleDataContext;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.PsiElement;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2Icons;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.profiler.widget.action.SymfonyProfilerWidgetActions;
+import fr.adrienbrault.idea.symfony2plugin.routing.Route;
+import fr.adrienbrault.idea.symfony2plugin.routing.RouteHelper;
+import fr.adrienbrault.idea.symfony2plugin.util.IdeHelper;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.datatransfer.DataFlavor;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Navigate to route and its controller for a given url: "http://localhost/app_dev.php/api/orders/1"
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class RouteUrlSearchAction extends AnAction {
+
+    @Override
+    public void actionPerformed(AnActionEvent event) {
+        Project project = event.getData(CommonDataKeys.PROJECT);
+        if(project == null) {
+            return;
+        }
+
+        String url = Messages.showInputDialog(project, "Url or path:", "Symfony: Route by Url", Symfony2Icons.ROUTE, getClipboardUrl(), null);
+        if(StringUtils.isBlank(url)) {
+            return;
+        }
+
+        // first use builds the matcher from all routes, so never block the ui on it
+        new Task.Backgroundable(project, "Symfony: Matching Route Url", true) {
+            private List<Route> routes = Collections.emptyList();
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                routes = DumbService.getInstance(project).runReadActionInSmartMode((Computable<List<Route>>) () -> RouteHelper.getRoutesForUrl(project, url));
+            }
+
+            @Override
+            public void onSuccess() {
+                if(!project.isDisposed()) {
+                    showRoutes(project, url, routes);
+                }
+            }
+        }.queue();
+    }
+
+    private static void showRoutes(@NotNull Project project, @NotNull String url, @NotNull List<Route> routes) {
+        if(routes.size() == 0) {
+            Messages.showInfoMessage(project, String.format("No route found for '%s'", url), "Symfony: Route by Url");
+            return;
+        }
+
+        if(routes.size() == 1) {
+            PsiElement[] targets = RouteHelper.getMethods(project, routes.get(0).getName());
+            if(targets.length > 0) {
+                IdeHelper.navigateToPsiElement(targets[0]);
+            }
+
+            return;
+        }
+
+        DefaultActionGroup actionGroup = new DefaultActionGroup();
+        for (Route route : routes) {
+            actionGroup.add(new SymfonyProfilerWidgetActions.RouteAction(project, route.getName()));
+        }
+
+        JBPopupFactory.getInstance()
+            .createActionGroupPopup("Symfony: Routes", actionGroup, SimpleDataContext.getProjectContext(project), JBPopupFactory.ActionSelectionAid.SPEEDSEARCH, true)
+            .showCenteredInCurrentWindow(project);
+    }
+
+    @Override
+    public void update(AnActionEvent event) {
+        Project project = event.getData(CommonDataKeys.PROJECT);
+
+        boolean visible = project != null && Symfony2ProjectComponent.isEnabled(project);
+
+        event.getPresentation().setVisible(visible);
+        event.getPresentation().setEnabled(visible && !DumbService.isDumb(project));
+    }
+
+    /**
+     * Prefill input with a copied url
+     */
+    @Nullable
+    private static String getClipboardUrl() {
+        String contents = CopyPasteManager.getInstance().getContents(DataFlavor.stringFlavor);
+        if(contents == null) {
+            return null;
+        }
+
+        contents = contents.trim();
+        if(contents.contains("\n") || !(contents.startsWith("/") || contents.startsWith("http://") || contents.startsWith("https://"))) {
+            return null;
+        }
+
+        return contents;
+    }
+}
@@ -37,7 +37,6 @@ import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigExtension;
 import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigExtensionParser;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.SymfonyCommandUtil;
-import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyCommand;
 import icons.TwigIcons;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -165,8 +164,8 @@ public class SymfonySymbolSearchAction extends GotoActionBase {
                 processor.process(name);
             }
 
-            for(SymfonyCommand command: SymfonyCommandUtil.getCommands(project)) {
-                processor.process(command.getName());
+            for(String command: SymfonyCommandUtil.getCommandNames(project)) {
+                processor.process(command);
             }
 
             // Twig Extensions
@@ -246,10 +245,8 @@ public class SymfonySymbolSearchAction extends GotoActionBase {
                 }
             }
 
-            for (SymfonyCommand symfonyCommand : SymfonyCommandUtil.getCommands(project)) {
-                if(symfonyCommand.getName().equals(name)) {
-                    processor.process(new NavigationItemEx(symfonyCommand.getPsiElement(), name, Symfony2Icons.SYMFONY, "Command"));
-                }
+            for (PsiElement psiElement : SymfonyCommandUtil.getCommandTargets(project, name)) {
+                processor.process(new NavigationItemEx(psiElement, name, Symfony2Icons.SYMFONY, "Command"));
             }
 
             // Twig Extensions
@@ -6,7 +6,6 @@ import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.psi.PsiDirectory;
-import com.jetbrains.php.PhpIndex;
 import fr.adrienbrault.idea.symfony2plugin.Settings;
 import fr.adrienbrault.idea.symfony2plugin.util.SymfonyBundleUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyBundle;
@@ -67,7 +66,7 @@ public class AssetDirectoryReader {
             return files;
         }
 
-        SymfonyBundleUtil symfonyBundleUtil = new SymfonyBundleUtil(PhpIndex.getInstance(this.project));
+        SymfonyBundleUtil symfonyBundleUtil = new SymfonyBundleUtil(this.project);
         for(final SymfonyBundle bundle : symfonyBundleUtil.getBundles()) {
 
             PsiDirectory bundleDirectory = bundle.getDirectory();
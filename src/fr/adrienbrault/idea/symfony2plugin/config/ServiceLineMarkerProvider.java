@@ -18,6 +18,7 @@ import fr.adrienbrault.idea.symfony2plugin.Symfony2InterfacesUtil;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.dic.ClassServiceDefinitionTargetLazyValue;
 import fr.adrienbrault.idea.symfony2plugin.dic.XmlServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.DoctrineModelRegistry;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.EntityHelper;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.util.DoctrineMetadataUtil;
 import fr.adrienbrault.idea.symfony2plugin.form.util.FormUtil;
@@ -146,12 +147,13 @@ public class ServiceLineMarkerProvider implements LineMarkerProvider {
         }
 
         Collection<PsiFile> psiFiles = new ArrayList<>();
-        // @TODO: use DoctrineMetadataUtil, for single resolve; we have collecting overhead here
-        for(DoctrineModel doctrineModel: EntityHelper.getModelClasses(psiElement.getProject())) {
+        String className = ((PhpClass) phpClassContext).getPresentableFQN();
+        if(className == null) {
+            return;
+        }
+
+        for(DoctrineModel doctrineModel: DoctrineModelRegistry.getInstance(psiElement.getProject()).getModels(className)) {
             PhpClass phpClass = doctrineModel.getPhpClass();
-            if(!PhpElementsUtil.isEqualClassName(phpClass, (PhpClass) phpClassContext)) {
-                continue;
-            }
 
             PsiFile psiFile = EntityHelper.getModelConfigFile(phpClass);
 
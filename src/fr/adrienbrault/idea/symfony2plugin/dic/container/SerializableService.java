@@ -54,6 +54,15 @@ public class SerializableService implements ServiceSerializable {
     @Nullable
     private String parent;
 
+    /**
+     * Text range of the definition inside its file: yaml key value or xml service tag
+     */
+    @Nullable
+    private Integer startOffset;
+
+    @Nullable
+    private Integer endOffset;
+
     public SerializableService(@NotNull String id) {
         this.id = id;
     }
@@ -169,6 +178,22 @@ public class SerializableService implements ServiceSerializable {
         return this;
     }
 
+    @Nullable
+    public Integer getStartOffset() {
+        return startOffset;
+    }
+
+    @Nullable
+    public Integer getEndOffset() {
+        return endOffset;
+    }
+
+    public SerializableService setTextRange(int startOffset, int endOffset) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        return this;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder()
@@ -184,6 +209,8 @@ public class SerializableService implements ServiceSerializable {
             .append(this.decorates)
             .append(this.decorationInnerName)
             .append(this.parent)
+            .append(this.startOffset)
+            .append(this.endOffset)
             .toHashCode()
         ;
     }
@@ -202,7 +229,9 @@ public class SerializableService implements ServiceSerializable {
             Objects.equals(((SerializableService) obj).alias, this.alias) &&
             Objects.equals(((SerializableService) obj).decorates, this.decorates) &&
             Objects.equals(((SerializableService) obj).decorationInnerName, this.decorationInnerName) &&
-            Objects.equals(((SerializableService) obj).parent, this.parent)
+            Objects.equals(((SerializableService) obj).parent, this.parent) &&
+            Objects.equals(((SerializableService) obj).startOffset, this.startOffset) &&
+            Objects.equals(((SerializableService) obj).endOffset, this.endOffset)
         ;
     }
 }
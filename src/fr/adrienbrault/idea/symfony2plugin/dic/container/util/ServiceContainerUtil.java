@@ -1,5 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.dic.container.util;
 
+import com.intellij.openapi.util.TextRange;
 import com.intellij.patterns.PlatformPatterns;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -58,7 +59,10 @@ public class ServiceContainerUtil {
                     if(value instanceof YAMLScalar) {
                         String valueText = ((YAMLScalar) value).getTextValue();
                         if(StringUtils.isNotBlank(valueText) && valueText.startsWith("@")) {
-                            services.add(new SerializableService(serviceConsumer.getServiceId()).setAlias(valueText.substring(1)));
+                            services.add(new SerializableService(serviceConsumer.getServiceId())
+                                .setAlias(valueText.substring(1))
+                                .setTextRange(yamlKeyValue.getTextRange().getStartOffset(), yamlKeyValue.getTextRange().getEndOffset())
+                            );
                             return;
                         }
                     }
@@ -112,8 +116,10 @@ public class ServiceContainerUtil {
     @NotNull
     private static SerializableService createService(@NotNull ServiceConsumer serviceConsumer) {
         AttributeValueInterface attributes = serviceConsumer.attributes();
+        TextRange textRange = serviceConsumer.getPsiElement().getTextRange();
 
         return new SerializableService(serviceConsumer.getServiceId())
+            .setTextRange(textRange.getStartOffset(), textRange.getEndOffset())
             .setAlias(attributes.getString("alias"))
             .setClassName(StringUtils.stripStart(attributes.getString("class"), "\\"))
             .setDecorates(attributes.getString("decorates"))
@@ -1,8 +1,11 @@
 package fr.adrienbrault.idea.symfony2plugin.dic.webDeployment.dict;
 
+import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileCache;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 
 /**
@@ -11,20 +14,37 @@ import java.util.Collection;
 public class ServiceParameterStorage {
 
     @NotNull
-    private final Collection<InputStream> inputStreams;
+    private final Collection<RemoteFileCache.Entry> files;
 
     private final long buildTime;
 
-    public ServiceParameterStorage(@NotNull Collection<InputStream> inputStreams) {
-        this.inputStreams = inputStreams;
+    public ServiceParameterStorage(@NotNull Collection<RemoteFileCache.Entry> files) {
+        this.files = files;
         this.buildTime = System.currentTimeMillis();
     }
 
+    /**
+     * Streams are read from the local compressed copies, so every call provides new ones
+     */
     @NotNull
     public Collection<InputStream> getInputStreams() {
+        Collection<InputStream> inputStreams = new ArrayList<>();
+
+        for (RemoteFileCache.Entry file : files) {
+            try {
+                inputStreams.add(file.openStream());
+            } catch (IOException ignored) {
+            }
+        }
+
         return inputStreams;
     }
 
+    @NotNull
+    public Collection<RemoteFileCache.Entry> getFiles() {
+        return files;
+    }
+
     public long getBuildTime() {
         return buildTime;
     }
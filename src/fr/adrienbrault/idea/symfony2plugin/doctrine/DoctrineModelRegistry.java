@@ -0,0 +1,329 @@
+package fr.adrienbrault.idea.symfony2plugin.doctrine;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.component.DocumentNamespacesParser;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.component.EntityNamesServiceParser;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelField;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineTypes;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.util.DoctrineMetadataUtil;
+import fr.adrienbrault.idea.symfony2plugin.extension.DoctrineModelProvider;
+import fr.adrienbrault.idea.symfony2plugin.extension.DoctrineModelProviderParameter;
+import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
+import fr.adrienbrault.idea.symfony2plugin.util.SymfonyBundleUtil;
+import fr.adrienbrault.idea.symfony2plugin.util.dict.DoctrineModel;
+import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyBundle;
+import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Project wide Doctrine models with lookup tables for class name and shortcut name ("FooBundle:Bar").
+ *
+ * Models and manager namespaces are collected once; repository classes and fields are resolved on first request
+ * and memoized per class. Everything is dropped on php or mapping file structure changes and on a new
+ * compiled container
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class DoctrineModelRegistry {
+
+    private static final Key<CachedValue<DoctrineModelRegistry>> MODEL_REGISTRY = new Key<>("SYMFONY_DOCTRINE_MODEL_REGISTRY");
+
+    @NotNull
+    private final Project project;
+
+    /**
+     * Bundle name to entity manager namespace: "FooBundle" => "\FooBundle\Entity"
+     */
+    @NotNull
+    private final Map<String, String> entityNamespaces = new HashMap<>();
+
+    /**
+     * Bundle name to document manager namespace: "FooBundle" => "\FooBundle\Document"
+     */
+    @NotNull
+    private final Map<String, String> documentNamespaces = new HashMap<>();
+
+    @NotNull
+    private final List<DoctrineModel> models = new ArrayList<>();
+
+    /**
+     * Class name without leading backslash to its models; one class can be known by multiple shortcut names
+     */
+    @NotNull
+    private final Map<String, List<DoctrineModel>> classModels = new HashMap<>();
+
+    /**
+     * "FooBundle:Bar" or class name if model has no shortcut
+     */
+    @NotNull
+    private final Map<String, DoctrineModel> shortcutModels = new HashMap<>();
+
+    /**
+     * Class name to repository class; classes without repository are also stored, so there is no "null" value possible
+     */
+    @NotNull
+    private final Map<String, Collection<PhpClass>> repositoryClasses = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final Map<String, Collection<DoctrineModelField>> modelFields = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final Map<String, Collection<DoctrineModelField>> modelRelations = new ConcurrentHashMap<>();
+
+    private DoctrineModelRegistry(@NotNull Project project) {
+        this.project = project;
+
+        Map<String, String> entityNameMap = ServiceXmlParserFactory.getInstance(project, EntityNamesServiceParser.class).getEntityNameMap();
+        this.entityNamespaces.putAll(entityNameMap);
+        this.entityNamespaces.putAll(EntityHelper.getWeakBundleNamespaces(project, entityNameMap, "Entity"));
+
+        Map<String, String> documentMap = ServiceXmlParserFactory.getInstance(project, DocumentNamespacesParser.class).getNamespaceMap();
+        this.documentNamespaces.putAll(documentMap);
+        this.documentNamespaces.putAll(EntityHelper.getWeakBundleNamespaces(project, documentMap, "Document"));
+
+        collectModels();
+    }
+
+    /**
+     * Compiled container is not part of the psi tree; so container maps are a dependency of their own
+     */
+    @NotNull
+    public static DoctrineModelRegistry getInstance(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, MODEL_REGISTRY, () ->
+            CachedValueProvider.Result.create(
+                new DoctrineModelRegistry(project),
+                PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT,
+                ServiceXmlParserFactory.getModificationTracker(project)
+            ), false
+        );
+    }
+
+    /**
+     * Shortcut names of bundle namespaces, class name fallback for mapping files and extension models.
+     * Class name fallback is only added for classes which are not already known by a shortcut
+     */
+    private void collectModels() {
+        Map<String, String> shortcutNames = new HashMap<>();
+        shortcutNames.putAll(ServiceXmlParserFactory.getInstance(project, EntityNamesServiceParser.class).getEntityNameMap());
+        shortcutNames.putAll(ServiceXmlParserFactory.getInstance(project, DocumentNamespacesParser.class).getNamespaceMap());
+
+        for (SymfonyBundle symfonyBundle : new SymfonyBundleUtil(project).getBundles()) {
+            for(String s : new String[] {"Entity", "Document", "CouchDocument"}) {
+                String namespace = symfonyBundle.getNamespaceName() + s;
+                if(symfonyBundle.getRelative(s) != null || PhpIndex.getInstance(project).getNamespacesByName(namespace).size() > 0) {
+                    shortcutNames.put(symfonyBundle.getName(), namespace);
+                }
+            }
+        }
+
+        for (DoctrineModel doctrineModel : EntityHelper.getModelClasses(project, shortcutNames)) {
+            addModel(doctrineModel);
+        }
+
+        // class fqn fallback
+        for (PhpClass phpClass : DoctrineMetadataUtil.getModels(project)) {
+            if(!classModels.containsKey(getClassKey(phpClass))) {
+                addModel(new DoctrineModel(phpClass));
+            }
+        }
+
+        DoctrineModelProviderParameter containerLoaderExtensionParameter = new DoctrineModelProviderParameter(project, new ArrayList<>());
+        for(DoctrineModelProvider provider : EntityHelper.MODEL_POINT_NAME.getExtensions()) {
+            for(DoctrineModelProviderParameter.DoctrineModel doctrineModel: provider.collectModels(containerLoaderExtensionParameter)) {
+                addModel(new DoctrineModel(doctrineModel.getPhpClass(), doctrineModel.getName()));
+            }
+        }
+    }
+
+    private void addModel(@NotNull DoctrineModel doctrineModel) {
+        models.add(doctrineModel);
+
+        String classKey = getClassKey(doctrineModel.getPhpClass());
+        if(classKey != null) {
+            classModels.computeIfAbsent(classKey, s -> new ArrayList<>()).add(doctrineModel);
+        }
+
+        String repositoryName = doctrineModel.getRepositoryName();
+        if(repositoryName != null && !shortcutModels.containsKey(repositoryName)) {
+            shortcutModels.put(repositoryName, doctrineModel);
+        }
+    }
+
+    /**
+     * All models in collecting order; a class is included once per shortcut name
+     */
+    @NotNull
+    public Collection<DoctrineModel> getModels() {
+        return Collections.unmodifiableList(models);
+    }
+
+    /**
+     * @param className "\Foo\Bar" or "Foo\Bar"
+     */
+    @NotNull
+    public Collection<DoctrineModel> getModels(@NotNull String className) {
+        List<DoctrineModel> doctrineModels = classModels.get(StringUtils.stripStart(className, "\\"));
+        return doctrineModels != null ? Collections.unmodifiableList(doctrineModels) : Collections.emptyList();
+    }
+
+    /**
+     * @param shortcutName "FooBundle:Bar"; class name for models without shortcut
+     */
+    @Nullable
+    public DoctrineModel getModel(@NotNull String shortcutName) {
+        return shortcutModels.get(shortcutName);
+    }
+
+    /**
+     * Bundle shortcut or class name to model class; manager namespaces are only collected once per registry
+     *
+     * @param shortcutName name as MyBundle\Entity\Model or MyBundle:Model
+     */
+    @Nullable
+    public PhpClass resolveShortcutName(@Nullable String shortcutName, DoctrineTypes.Manager... managers) {
+        if(shortcutName == null) {
+            return null;
+        }
+
+        // we dont need to resolve bundle name, use class name
+        if (!shortcutName.contains(":")) {
+            return PhpElementsUtil.getClassInterface(project, shortcutName);
+        }
+
+        // resolve:
+        // MyBundle:Model -> MyBundle\Entity\Model
+        // MyBundle:Folder\Model -> MyBundle\Entity\Folder\Model
+
+        List<DoctrineTypes.Manager> managerList = Arrays.asList(managers);
+
+        List<Map<String, String>> namespaceMaps = new ArrayList<>();
+        if(managerList.contains(DoctrineTypes.Manager.ORM)) {
+            namespaceMaps.add(entityNamespaces);
+        }
+
+        if(managerList.contains(DoctrineTypes.Manager.MONGO_DB) || managerList.contains(DoctrineTypes.Manager.COUCH_DB)) {
+            namespaceMaps.add(documentNamespaces);
+        }
+
+        // split bundle and model name
+        int firstDirectorySeparatorIndex = shortcutName.indexOf(":");
+        String bundlename = shortcutName.substring(0, firstDirectorySeparatorIndex);
+        String entityName = shortcutName.substring(firstDirectorySeparatorIndex + 1);
+
+        // conditional find namespace on manager paths
+        for(Map<String, String> map: namespaceMaps) {
+            String namespace = map.get(bundlename);
+            if(namespace == null) {
+                continue;
+            }
+
+            PhpClass classInterface = PhpElementsUtil.getClassInterface(project, namespace + "\\" + entityName);
+            if(classInterface != null) {
+                return classInterface;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param shortcutName "\Class\Name" or "FooBundle:Name"
+     */
+    @Nullable
+    public PhpClass getRepositoryClass(@NotNull String shortcutName) {
+        PhpClass phpClass = resolveShortcutName(shortcutName, DoctrineTypes.Manager.ORM, DoctrineTypes.Manager.MONGO_DB, DoctrineTypes.Manager.COUCH_DB);
+        if(phpClass == null) {
+            return null;
+        }
+
+        return getRepositoryClass(phpClass);
+    }
+
+    @Nullable
+    public PhpClass getRepositoryClass(@NotNull PhpClass phpClass) {
+        String classKey = getClassKey(phpClass);
+        if(classKey == null) {
+            return EntityHelper.findEntityRepositoryClass(project, phpClass);
+        }
+
+        Collection<PhpClass> repositoryClass = repositoryClasses.get(classKey);
+        if(repositoryClass == null) {
+            PhpClass aClass = EntityHelper.findEntityRepositoryClass(project, phpClass);
+            repositoryClass = aClass != null ? Collections.singletonList(aClass) : Collections.emptyList();
+            repositoryClasses.put(classKey, repositoryClass);
+        }
+
+        return repositoryClass.isEmpty() ? null : repositoryClass.iterator().next();
+    }
+
+    @NotNull
+    public Collection<DoctrineModelField> getModelFields(@NotNull PhpClass phpClass) {
+        String classKey = getClassKey(phpClass);
+        if(classKey == null) {
+            return EntityHelper.collectModelFields(phpClass);
+        }
+
+        // no "computeIfAbsent": mapping drivers are free to request fields of other models
+        Collection<DoctrineModelField> fields = modelFields.get(classKey);
+        if(fields == null) {
+            fields = Collections.unmodifiableCollection(EntityHelper.collectModelFields(phpClass));
+            modelFields.put(classKey, fields);
+        }
+
+        return fields;
+    }
+
+    /**
+     * Model fields with a relation type and target: "ManyToOne" => "Foo\Bar"
+     */
+    @NotNull
+    public Collection<DoctrineModelField> getModelRelations(@NotNull PhpClass phpClass) {
+        String classKey = getClassKey(phpClass);
+        if(classKey == null) {
+            return filterRelations(EntityHelper.collectModelFields(phpClass));
+        }
+
+        Collection<DoctrineModelField> relations = modelRelations.get(classKey);
+        if(relations == null) {
+            relations = Collections.unmodifiableCollection(filterRelations(getModelFields(phpClass)));
+            modelRelations.put(classKey, relations);
+        }
+
+        return relations;
+    }
+
+    @NotNull
+    private static Collection<DoctrineModelField> filterRelations(@NotNull Collection<DoctrineModelField> fields) {
+        Collection<DoctrineModelField> relations = new ArrayList<>();
+
+        for (DoctrineModelField field : fields) {
+            if(field.getRelation() != null && field.getRelationType() != null) {
+                relations.add(field);
+            }
+        }
+
+        return relations;
+    }
+
+    @Nullable
+    private static String getClassKey(@NotNull PhpClass phpClass) {
+        String presentableFQN = phpClass.getPresentableFQN();
+        if(presentableFQN == null) {
+            return null;
+        }
+
+        return StringUtils.stripStart(presentableFQN, "\\");
+    }
+}
@@ -16,18 +16,14 @@ import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocParamTag;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.jetbrains.php.lang.psi.elements.impl.PhpNamedElementImpl;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2InterfacesUtil;
-import fr.adrienbrault.idea.symfony2plugin.doctrine.component.DocumentNamespacesParser;
-import fr.adrienbrault.idea.symfony2plugin.doctrine.component.EntityNamesServiceParser;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelField;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineTypes;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.dict.DoctrineMetadataModel;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.metadata.util.DoctrineMetadataUtil;
 import fr.adrienbrault.idea.symfony2plugin.extension.DoctrineModelProvider;
-import fr.adrienbrault.idea.symfony2plugin.extension.DoctrineModelProviderParameter;
 import fr.adrienbrault.idea.symfony2plugin.util.*;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.DoctrineModel;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyBundle;
-import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlKeyFinder;
 import org.jetbrains.annotations.NotNull;
@@ -89,11 +85,14 @@ public class EntityHelper {
      */
     @Nullable
     public static PhpClass getEntityRepositoryClass(@NotNull Project project, @NotNull String shortcutName) {
+        return DoctrineModelRegistry.getInstance(project).getRepositoryClass(shortcutName);
+    }
 
-        PhpClass phpClass = resolveShortcutName(project, shortcutName);
-        if(phpClass == null) {
-            return null;
-        }
+    /**
+     * Uncached repository class search of a resolved model; use "getEntityRepositoryClass"
+     */
+    @Nullable
+    static PhpClass findEntityRepositoryClass(@NotNull Project project, @NotNull PhpClass phpClass) {
 
         String presentableFQN = phpClass.getPresentableFQN();
         PhpClass classRepository = DoctrineMetadataUtil.getClassRepository(project, presentableFQN);
@@ -115,7 +114,7 @@ public class EntityHelper {
             }
         }
 
-        SymfonyBundle symfonyBundle = new SymfonyBundleUtil(PhpIndex.getInstance(project)).getContainingBundle(phpClass);
+        SymfonyBundle symfonyBundle = new SymfonyBundleUtil(project).getContainingBundle(phpClass);
         if(symfonyBundle != null) {
             PhpClass repositoryClass = getEntityRepositoryClass(project, symfonyBundle, presentableFQN);
             if(repositoryClass != null) {
@@ -125,7 +124,7 @@ public class EntityHelper {
 
         // old __CLASS__ Repository type
         // @TODO remove this fallback when we implemented all cases
-        return resolveShortcutName(project, shortcutName + "Repository");
+        return PhpElementsUtil.getClassInterface(project, presentableFQN + "Repository");
     }
 
     public static List<DoctrineModelField> getModelFieldsSet(YAMLKeyValue yamlKeyValue) {
@@ -376,8 +375,20 @@ public class EntityHelper {
         return null;
     }
 
+    /**
+     * Fields are memoized per class until next structure change
+     */
     @NotNull
     public static Collection<DoctrineModelField> getModelFields(@NotNull PhpClass phpClass) {
+        return DoctrineModelRegistry.getInstance(phpClass.getProject()).getModelFields(phpClass);
+    }
+
+    /**
+     * Uncached fields of mapping metadata with fallback to deprecated config file and annotation parsing;
+     * use "getModelFields"
+     */
+    @NotNull
+    static Collection<DoctrineModelField> collectModelFields(@NotNull PhpClass phpClass) {
 
         // new code
         String presentableFQN = phpClass.getPresentableFQN();
@@ -560,55 +571,7 @@ public class EntityHelper {
      */
     @Nullable
     public static PhpClass resolveShortcutName(@NotNull Project project, @Nullable String shortcutName, DoctrineTypes.Manager... managers) {
-        if(shortcutName == null) {
-            return null;
-        }
-
-        // we dont need to resolve bundle name, use class name
-        if (!shortcutName.contains(":")) {
-            return PhpElementsUtil.getClassInterface(project, shortcutName);
-        }
-
-        // resolve:
-        // MyBundle:Model -> MyBundle\Entity\Model
-        // MyBundle:Folder\Model -> MyBundle\Entity\Folder\Model
-
-        List<DoctrineTypes.Manager> managerList = Arrays.asList(managers);
-
-        // collect entitymanager namespaces on bundle or container file
-        Map<String, String> em = new HashMap<>();
-        if(managerList.contains(DoctrineTypes.Manager.ORM)) {
-            Map<String, String> entityNameMap = ServiceXmlParserFactory.getInstance(project, EntityNamesServiceParser.class).getEntityNameMap();
-            em.putAll(entityNameMap);
-            em.putAll(EntityHelper.getWeakBundleNamespaces(project, entityNameMap, "Entity"));
-        }
-
-        Map<String, String> odm = new HashMap<>();
-        if(managerList.contains(DoctrineTypes.Manager.MONGO_DB) || managerList.contains(DoctrineTypes.Manager.COUCH_DB)) {
-            Map<String, String> documentMap = ServiceXmlParserFactory.getInstance(project, DocumentNamespacesParser.class).getNamespaceMap();
-            odm.putAll(documentMap);
-            odm.putAll(EntityHelper.getWeakBundleNamespaces(project, documentMap, "Document"));
-        }
-
-        // split bundle and model name
-        int firstDirectorySeparatorIndex = shortcutName.indexOf(":");
-        String bundlename = shortcutName.substring(0, firstDirectorySeparatorIndex);
-        String entityName = shortcutName.substring(firstDirectorySeparatorIndex + 1);
-
-        // conditional find namespace on manager paths
-        for(Map<String, String> map: Arrays.asList(em, odm)) {
-            String namespace = map.get(bundlename);
-            if(namespace == null) {
-                continue;
-            }
-
-            PhpClass classInterface = PhpElementsUtil.getClassInterface(project, namespace + "\\" + entityName);
-            if(classInterface != null) {
-                return classInterface;
-            }
-        }
-
-        return null;
+        return DoctrineModelRegistry.getInstance(project).resolveShortcutName(shortcutName, managers);
     }
 
     @Nullable
@@ -712,51 +675,11 @@ public class EntityHelper {
 
     /**
      * One PhpClass can have multiple targets and names @TODO: refactor
+     *
+     * @see DoctrineModelRegistry#getModels()
      */
     public static Collection<DoctrineModel> getModelClasses(final Project project) {
-
-        HashMap<String, String> shortcutNames = new HashMap<String, String>() {{
-            putAll(ServiceXmlParserFactory.getInstance(project, EntityNamesServiceParser.class).getEntityNameMap());
-            putAll(ServiceXmlParserFactory.getInstance(project, DocumentNamespacesParser.class).getNamespaceMap());
-        }};
-
-        for (SymfonyBundle symfonyBundle : new SymfonyBundleUtil(project).getBundles()) {
-            for(String s : new String[] {"Entity", "Document", "CouchDocument"}) {
-                String namespace = symfonyBundle.getNamespaceName() + s;
-                if(symfonyBundle.getRelative(s) != null || PhpIndex.getInstance(project).getNamespacesByName(namespace).size() > 0) {
-                    shortcutNames.put(symfonyBundle.getName(), namespace);
-                }
-            }
-        }
-
-        // class fqn fallback
-        Collection<DoctrineModel> doctrineModels = getModelClasses(project, shortcutNames);
-        for (PhpClass phpClass : DoctrineMetadataUtil.getModels(project)) {
-            if(containsDoctrineModelClass(doctrineModels, phpClass)) {
-                continue;
-            }
-
-            doctrineModels.add(new DoctrineModel(phpClass));
-        }
-
-        DoctrineModelProviderParameter containerLoaderExtensionParameter = new DoctrineModelProviderParameter(project, new ArrayList<>());
-        for(DoctrineModelProvider provider : EntityHelper.MODEL_POINT_NAME.getExtensions()) {
-            for(DoctrineModelProviderParameter.DoctrineModel doctrineModel: provider.collectModels(containerLoaderExtensionParameter)) {
-                doctrineModels.add(new DoctrineModel(doctrineModel.getPhpClass(), doctrineModel.getName()));
-            }
-        }
-
-        return doctrineModels;
-    }
-
-    private static boolean containsDoctrineModelClass(@NotNull Collection<DoctrineModel> models, @NotNull PhpClass phpClass) {
-        for (DoctrineModel doctrineModel : models) {
-            if(PhpElementsUtil.isEqualClassName(doctrineModel.getPhpClass(), phpClass)) {
-                return true;
-            }
-        }
-
-        return false;
+        return DoctrineModelRegistry.getInstance(project).getModels();
     }
 
     public static Collection<DoctrineModel> getModelClasses(Project project, Map<String, String> shortcutNames) {
@@ -10,6 +10,7 @@ import com.jetbrains.php.lang.psi.elements.ArrayCreationExpression;
 import com.jetbrains.php.lang.psi.elements.MethodReference;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2InterfacesUtil;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.DoctrineModelRegistry;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.EntityHelper;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.ObjectRepositoryTypeProvider;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelField;
@@ -325,10 +326,8 @@ public class QueryBuilderMethodReferenceParser {
 
         List<QueryBuilderRelation> relations = new ArrayList<>();
 
-        for(DoctrineModelField field: EntityHelper.getModelFields(phpClass)) {
-            if(field.getRelation() != null && field.getRelationType() != null) {
-                relations.add(new QueryBuilderRelation(field.getName(), field.getRelation()));
-            }
+        for(DoctrineModelField field: DoctrineModelRegistry.getInstance(phpClass.getProject()).getModelRelations(phpClass)) {
+            relations.add(new QueryBuilderRelation(field.getName(), field.getRelation()));
         }
 
         return relations;
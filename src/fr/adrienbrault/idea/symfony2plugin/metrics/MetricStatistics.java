@@ -0,0 +1,74 @@
+package fr.adrienbrault.idea.symfony2plugin.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Point in time snapshot of a single metric inside {@link MetricsRegistry}
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class MetricStatistics {
+
+    @NotNull
+    private final String name;
+
+    private final long calls;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long hits;
+    private final long misses;
+
+    public MetricStatistics(@NotNull String name, long calls, long totalNanos, long maxNanos, long hits, long misses) {
+        this.name = name;
+        this.calls = calls;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getAverageNanos() {
+        return calls > 0 ? totalNanos / calls : 0;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Cache hit ratio between 0 and 1; -1 for metrics without any lookup
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups > 0 ? (double) hits / lookups : -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: calls=%d, total=%dms, max=%dms, hits=%d, misses=%d",
+            name, calls, totalNanos / 1000000, maxNanos / 1000000, hits, misses
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package fr.adrienbrault.idea.symfony2plugin.metrics;
+
+/**
+ * Time source of metric samples; replaceable so tests do not depend on wall time
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public interface MetricsClock {
+
+    MetricsClock SYSTEM = System::nanoTime;
+
+    long nanoTime();
+}
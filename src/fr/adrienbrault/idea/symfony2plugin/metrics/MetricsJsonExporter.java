@@ -0,0 +1,75 @@
+package fr.adrienbrault.idea.symfony2plugin.metrics;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheStatistics;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * Snapshot of project metrics and plugin caches as json; times are in milliseconds
+ *
+ * {
+ *   "project": "foo",
+ *   "metrics": [{"name": "TwigHelper.getTemplateMap", "calls": 2, "totalMs": 1.5, "maxMs": 1.0, "hits": 1, "misses": 1}],
+ *   "caches": [{"name": "TranslationIndex.TRANSLATIONS", "size": 1, "hits": 4, "misses": 1}]
+ * }
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class MetricsJsonExporter {
+
+    @NotNull
+    public static String toJson(@NotNull String projectName, @NotNull Collection<MetricStatistics> metrics, @NotNull Collection<CacheStatistics> caches) {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("project", projectName);
+
+        JsonArray metricsArray = new JsonArray();
+        for (MetricStatistics metric : metrics) {
+            JsonObject item = new JsonObject();
+
+            item.addProperty("name", metric.getName());
+            item.addProperty("calls", metric.getCalls());
+            item.addProperty("totalMs", toMillis(metric.getTotalNanos()));
+            item.addProperty("maxMs", toMillis(metric.getMaxNanos()));
+            item.addProperty("averageMs", toMillis(metric.getAverageNanos()));
+
+            if(metric.getHits() + metric.getMisses() > 0) {
+                item.addProperty("hits", metric.getHits());
+                item.addProperty("misses", metric.getMisses());
+                item.addProperty("hitRatio", metric.getHitRatio());
+            }
+
+            metricsArray.add(item);
+        }
+
+        jsonObject.add("metrics", metricsArray);
+
+        JsonArray cachesArray = new JsonArray();
+        for (CacheStatistics cache : caches) {
+            JsonObject item = new JsonObject();
+
+            item.addProperty("name", cache.getName());
+            item.addProperty("size", cache.getSize());
+            item.addProperty("softSize", cache.getSoftSize());
+            item.addProperty("weight", cache.getWeight());
+            item.addProperty("budget", cache.getBudget());
+            item.addProperty("hits", cache.getHits());
+            item.addProperty("softHits", cache.getSoftHits());
+            item.addProperty("misses", cache.getMisses());
+            item.addProperty("evictions", cache.getEvictions());
+
+            cachesArray.add(item);
+        }
+
+        jsonObject.add("caches", cachesArray);
+
+        return new GsonBuilder().setPrettyPrinting().create().toJson(jsonObject);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000 / 1000.0;
+    }
+}
@@ -0,0 +1,109 @@
+package fr.adrienbrault.idea.symfony2plugin.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts, cumulative and max wall time and cache hits / misses per measured name
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class MetricsRegistry {
+
+    @NotNull
+    private final MetricsClock clock;
+
+    @NotNull
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    public MetricsRegistry() {
+        this(MetricsClock.SYSTEM);
+    }
+
+    public MetricsRegistry(@NotNull MetricsClock clock) {
+        this.clock = clock;
+    }
+
+    @NotNull
+    public MetricsClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Plain timed call
+     */
+    @NotNull
+    public MetricsSample start(@NotNull String name) {
+        return new MetricsSample(this, name, clock.nanoTime(), false);
+    }
+
+    /**
+     * Timed cache lookup; a hit if the sample is stopped without a "miss"
+     */
+    @NotNull
+    public MetricsSample startLookup(@NotNull String name) {
+        return new MetricsSample(this, name, clock.nanoTime(), true);
+    }
+
+    /**
+     * @param hit null for calls which are no cache lookup
+     */
+    void record(@NotNull String name, long nanos, @Nullable Boolean hit) {
+        Metric metric = metrics.computeIfAbsent(name, s -> new Metric());
+
+        metric.calls.increment();
+        metric.totalNanos.add(nanos);
+        metric.maxNanos.accumulateAndGet(nanos, Math::max);
+
+        if(hit != null) {
+            (hit ? metric.hits : metric.misses).increment();
+        }
+    }
+
+    /**
+     * Snapshot of all metrics; most expensive in cumulative time first
+     */
+    @NotNull
+    public List<MetricStatistics> getStatistics() {
+        List<MetricStatistics> statistics = new ArrayList<>();
+
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            Metric metric = entry.getValue();
+
+            statistics.add(new MetricStatistics(
+                entry.getKey(),
+                metric.calls.sum(),
+                metric.totalNanos.sum(),
+                metric.maxNanos.get(),
+                metric.hits.sum(),
+                metric.misses.sum()
+            ));
+        }
+
+        statistics.sort((a, b) -> a.getTotalNanos() != b.getTotalNanos()
+            ? Long.compare(b.getTotalNanos(), a.getTotalNanos())
+            : a.getName().compareTo(b.getName())
+        );
+
+        return statistics;
+    }
+
+    public void reset() {
+        metrics.clear();
+    }
+
+    private static class Metric {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+}
@@ -0,0 +1,76 @@
+package fr.adrienbrault.idea.symfony2plugin.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single measured call; must be stopped in a "finally" block.
+ *
+ * Lookup samples count a cache hit on stop, unless "miss" was called while the value was computed.
+ *
+ * Providers of a CachedValue are kept by the cached value after its first call, so they must not capture the sample
+ * of a lookup; they call "computed" and the lookup sample compares the counter of the current thread on stop
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class MetricsSample {
+
+    /**
+     * Shared sample for disabled metrics, so measured code paths do not allocate anything
+     */
+    public static final MetricsSample NOOP = new MetricsSample(null, "noop", 0, false);
+
+    /**
+     * Values computed on the current thread; CachedValue providers are computed on the thread of the lookup
+     */
+    private static final ThreadLocal<long[]> COMPUTED = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Nullable
+    private final MetricsRegistry registry;
+
+    @NotNull
+    private final String name;
+
+    private final long start;
+    private final boolean lookup;
+    private final long computed;
+
+    private boolean missed = false;
+    private boolean stopped = false;
+
+    MetricsSample(@Nullable MetricsRegistry registry, @NotNull String name, long start, boolean lookup) {
+        this.registry = registry;
+        this.name = name;
+        this.start = start;
+        this.lookup = lookup;
+        this.computed = lookup && registry != null ? COMPUTED.get()[0] : 0;
+    }
+
+    /**
+     * A cached value was computed on the current thread; counts as miss of all lookup samples running on it
+     */
+    public static void computed() {
+        COMPUTED.get()[0]++;
+    }
+
+    /**
+     * Value was not cached and needed to be computed
+     */
+    public void miss() {
+        this.missed = true;
+    }
+
+    public void stop() {
+        if(registry == null || stopped) {
+            return;
+        }
+
+        stopped = true;
+
+        if(lookup && COMPUTED.get()[0] != computed) {
+            missed = true;
+        }
+
+        registry.record(name, registry.getClock().nanoTime() - start, lookup ? (missed ? Boolean.FALSE : Boolean.TRUE) : null);
+    }
+}
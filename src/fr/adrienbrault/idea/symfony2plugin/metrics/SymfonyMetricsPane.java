@@ -0,0 +1,156 @@
+package fr.adrienbrault.idea.symfony2plugin.metrics;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.*;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.table.TableView;
+import com.intellij.util.ui.ColumnInfo;
+import com.intellij.util.ui.ListTableModel;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheStatistics;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Hot spots of the current project: measured calls first, bounded caches afterwards
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+class SymfonyMetricsPane extends SimpleToolWindowPanel {
+
+    @NotNull
+    private final Project project;
+
+    @NotNull
+    private final ListTableModel<MetricStatistics> model = new ListTableModel<>(
+        new MetricColumn<>("Name", MetricStatistics::getName),
+        new MetricColumn<>("Calls", MetricStatistics::getCalls),
+        new MetricColumn<>("Total (ms)", metric -> metric.getTotalNanos() / 1000000),
+        new MetricColumn<>("Max (ms)", metric -> metric.getMaxNanos() / 1000000),
+        new MetricColumn<>("Avg (ms)", metric -> metric.getAverageNanos() / 1000000),
+        new MetricColumn<>("Hits", MetricStatistics::getHits),
+        new MetricColumn<>("Misses", MetricStatistics::getMisses),
+        new MetricColumn<>("Hit ratio", metric -> metric.getHitRatio() < 0 ? "" : String.format("%.1f%%", metric.getHitRatio() * 100))
+    );
+
+    SymfonyMetricsPane(@NotNull Project project) {
+        super(true, true);
+        this.project = project;
+
+        DefaultActionGroup group = new DefaultActionGroup();
+        group.add(new RecordAction());
+        group.add(new RefreshAction());
+        group.add(new ResetAction());
+        group.add(new ExportAction());
+
+        setToolbar(ActionManager.getInstance().createActionToolbar("SymfonyMetrics", group, true).getComponent());
+
+        TableView<MetricStatistics> tableView = new TableView<>(model);
+        setContent(ScrollPaneFactory.createScrollPane(tableView));
+
+        refresh();
+    }
+
+    private void refresh() {
+        List<MetricStatistics> items = new ArrayList<>(SymfonyMetricsService.getInstance(project).getRegistry().getStatistics());
+
+        // bounded caches count their hits without any timing
+        for (CacheStatistics cache : SymfonyProjectCacheService.getInstance(project).getStatistics()) {
+            long hits = cache.getHits() + cache.getSoftHits();
+            items.add(new MetricStatistics("cache." + cache.getName(), hits + cache.getMisses(), 0, 0, hits, cache.getMisses()));
+        }
+
+        model.setItems(items);
+    }
+
+    private class RecordAction extends ToggleAction {
+        RecordAction() {
+            super("Record Metrics", "Record metrics for plugin caches, parsers and indexers", AllIcons.Actions.Execute);
+        }
+
+        @Override
+        public boolean isSelected(AnActionEvent e) {
+            return SymfonyMetricsService.isEnabled();
+        }
+
+        @Override
+        public void setSelected(AnActionEvent e, boolean state) {
+            SymfonyMetricsService.setEnabled(state);
+        }
+    }
+
+    private class RefreshAction extends DumbAwareAction {
+        RefreshAction() {
+            super("Refresh", "Refresh metrics", AllIcons.Actions.Refresh);
+        }
+
+        @Override
+        public void actionPerformed(AnActionEvent e) {
+            refresh();
+        }
+    }
+
+    private class ResetAction extends DumbAwareAction {
+        ResetAction() {
+            super("Reset", "Reset recorded metrics", AllIcons.Actions.GC);
+        }
+
+        @Override
+        public void actionPerformed(AnActionEvent e) {
+            SymfonyMetricsService.getInstance(project).getRegistry().reset();
+            refresh();
+        }
+    }
+
+    private class ExportAction extends DumbAwareAction {
+        ExportAction() {
+            super("Export Json", "Export metrics snapshot as json", AllIcons.Actions.Export);
+        }
+
+        @Override
+        public void actionPerformed(AnActionEvent e) {
+            VirtualFileWrapper fileWrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(new FileSaverDescriptor("Export Metrics", "Metrics snapshot as json", "json"), project)
+                .save(null, "symfony-metrics.json");
+
+            if(fileWrapper == null) {
+                return;
+            }
+
+            try {
+                FileUtil.writeToFile(fileWrapper.getFile(), SymfonyMetricsService.getInstance(project).exportJson());
+            } catch (IOException ex) {
+                Messages.showErrorDialog(project, ex.getMessage(), "Export Metrics");
+            }
+        }
+    }
+
+    private static class MetricColumn<T> extends ColumnInfo<MetricStatistics, T> {
+        @NotNull
+        private final Function<MetricStatistics, T> value;
+
+        MetricColumn(@NotNull String name, @NotNull Function<MetricStatistics, T> value) {
+            super(name);
+            this.value = value;
+        }
+
+        @Nullable
+        @Override
+        public T valueOf(MetricStatistics metric) {
+            return value.apply(metric);
+        }
+    }
+}
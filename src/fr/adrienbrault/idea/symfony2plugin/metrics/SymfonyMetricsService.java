@@ -0,0 +1,107 @@
+package fr.adrienbrault.idea.symfony2plugin.metrics;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileContent;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Project metrics of plugin caches, parsers and indexers.
+ *
+ * Recording is disabled by default and switched on in the "Symfony Metrics" tool window or with
+ * "-Dsymfony2plugin.metrics=true"; a disabled call is a single static field read without any allocation
+ *
+ * MetricsSample sample = SymfonyMetricsService.start(project, "Foo.bar");
+ * try { ... } finally { sample.stop(); }
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class SymfonyMetricsService {
+
+    private static volatile boolean enabled = Boolean.getBoolean("symfony2plugin.metrics");
+
+    @NotNull
+    private final Project project;
+
+    @NotNull
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    public SymfonyMetricsService(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    public static SymfonyMetricsService getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, SymfonyMetricsService.class);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        SymfonyMetricsService.enabled = enabled;
+    }
+
+    @NotNull
+    public static MetricsSample start(@NotNull Project project, @NotNull String name) {
+        if(!enabled || project.isDisposed()) {
+            return MetricsSample.NOOP;
+        }
+
+        return getInstance(project).registry.start(name);
+    }
+
+    /**
+     * Cache lookup; call "miss" on the sample if the value needed to be computed, or "MetricsSample.computed"
+     * inside of a CachedValue provider
+     */
+    @NotNull
+    public static MetricsSample startLookup(@NotNull Project project, @NotNull String name) {
+        if(!enabled || project.isDisposed()) {
+            return MetricsSample.NOOP;
+        }
+
+        return getInstance(project).registry.startLookup(name);
+    }
+
+    /**
+     * Times every indexed file as "index.<name>"
+     */
+    @NotNull
+    public static <K, V> DataIndexer<K, V, FileContent> indexer(@NotNull String name, @NotNull DataIndexer<K, V, FileContent> indexer) {
+        String metricName = "index." + name;
+
+        return inputData -> {
+            if(!enabled) {
+                return indexer.map(inputData);
+            }
+
+            MetricsSample sample = start(inputData.getProject(), metricName);
+            try {
+                return indexer.map(inputData);
+            } finally {
+                sample.stop();
+            }
+        };
+    }
+
+    @NotNull
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Json snapshot of all metrics and of the bounded plugin caches
+     */
+    @NotNull
+    public String exportJson() {
+        return MetricsJsonExporter.toJson(
+            project.getName(),
+            registry.getStatistics(),
+            SymfonyProjectCacheService.getInstance(project).getStatistics()
+        );
+    }
+}
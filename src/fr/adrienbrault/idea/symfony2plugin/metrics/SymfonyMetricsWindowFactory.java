@@ -0,0 +1,32 @@
+package fr.adrienbrault.idea.symfony2plugin.metrics;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentManager;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2Icons;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class SymfonyMetricsWindowFactory implements ToolWindowFactory, Condition<Project>, DumbAware {
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        ContentManager contentManager = toolWindow.getContentManager();
+        Content content = contentManager.getFactory().createContent(new SymfonyMetricsPane(project), null, false);
+        contentManager.addContent(content);
+
+        toolWindow.setIcon(Symfony2Icons.SYMFONY_TOOL_WINDOW);
+    }
+
+    @Override
+    public boolean value(Project project) {
+        return Symfony2ProjectComponent.isEnabled(project);
+    }
+}
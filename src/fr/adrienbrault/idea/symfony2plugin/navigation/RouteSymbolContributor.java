@@ -1,48 +1,65 @@
 package fr.adrienbrault.idea.symfony2plugin.navigation;
 
-import com.intellij.navigation.ChooseByNameContributor;
+import com.intellij.navigation.ChooseByNameContributorEx;
 import com.intellij.navigation.NavigationItem;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FindSymbolParameters;
+import com.intellij.util.indexing.IdFilter;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2Icons;
-import fr.adrienbrault.idea.symfony2plugin.routing.Route;
 import fr.adrienbrault.idea.symfony2plugin.routing.RouteHelper;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.*;
-
-public class RouteSymbolContributor implements ChooseByNameContributor {
+/**
+ * Route names are streamed from compiled routes and index keys; controller targets are only resolved for matched names
+ */
+public class RouteSymbolContributor implements ChooseByNameContributorEx {
 
     @NotNull
     @Override
     public String[] getNames(Project project, boolean b) {
+        CommonProcessors.CollectUniquesProcessor<String> processor = new CommonProcessors.CollectUniquesProcessor<>();
+        RouteHelper.processRouteNames(project, processor);
 
-        Set<String> routeNames = new HashSet<>();
-
-        Map<String, Route> routes = RouteHelper.getAllRoutes(project);
-
-        for (Route route : routes.values()) {
-            routeNames.add(route.getName());
-        }
-
-        return ArrayUtil.toStringArray(routeNames);
+        return ArrayUtil.toStringArray(processor.getResults());
     }
 
     @NotNull
     @Override
     public NavigationItem[] getItemsByName(String routeName, String s2, Project project, boolean b) {
+        CommonProcessors.CollectProcessor<NavigationItem> processor = new CommonProcessors.CollectProcessor<>();
+        processElementsWithName(project, routeName, processor);
 
-        List<NavigationItem> navigationItems = new ArrayList<>();
+        return processor.toArray(new NavigationItem[0]);
+    }
 
-        for (PsiElement psiElement : RouteHelper.getMethods(project, routeName)) {
-            if(psiElement instanceof NavigationItem) {
-                navigationItems.add(new NavigationItemEx(psiElement, routeName, Symfony2Icons.ROUTE, "Route"));
-            }
+    @Override
+    public void processNames(@NotNull Processor<String> processor, @NotNull GlobalSearchScope scope, @Nullable IdFilter filter) {
+        Project project = scope.getProject();
+        if(project != null) {
+            RouteHelper.processRouteNames(project, processor);
         }
+    }
 
-        return navigationItems.toArray(new NavigationItem[navigationItems.size()]);
+    @Override
+    public void processElementsWithName(@NotNull String routeName, @NotNull Processor<NavigationItem> processor, @NotNull FindSymbolParameters parameters) {
+        Project project = parameters.getSearchScope().getProject();
+        if(project != null) {
+            processElementsWithName(project, routeName, processor);
+        }
+    }
 
+    private static void processElementsWithName(@NotNull Project project, @NotNull String routeName, @NotNull Processor<NavigationItem> processor) {
+        for (PsiElement psiElement : RouteHelper.getMethods(project, routeName)) {
+            if(psiElement instanceof NavigationItem && !processor.process(new NavigationItemEx(psiElement, routeName, Symfony2Icons.ROUTE, "Route"))) {
+                return;
+            }
+        }
     }
 
 }
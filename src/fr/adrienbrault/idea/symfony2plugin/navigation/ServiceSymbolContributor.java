@@ -1,41 +1,66 @@
 package fr.adrienbrault.idea.symfony2plugin.navigation;
 
-import com.intellij.navigation.ChooseByNameContributor;
+import com.intellij.navigation.ChooseByNameContributorEx;
 import com.intellij.navigation.NavigationItem;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FindSymbolParameters;
+import com.intellij.util.indexing.IdFilter;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2Icons;
 import fr.adrienbrault.idea.symfony2plugin.stubs.ContainerCollectionResolver;
 import fr.adrienbrault.idea.symfony2plugin.stubs.ServiceIndexUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
-public class ServiceSymbolContributor implements ChooseByNameContributor {
+/**
+ * Service ids are streamed without collecting the container; definitions are only resolved for matched names
+ */
+public class ServiceSymbolContributor implements ChooseByNameContributorEx {
 
     @NotNull
     @Override
     public String[] getNames(Project project, boolean b) {
-        Collection<String> services = ContainerCollectionResolver.getServiceNames(project);
-        return ArrayUtil.toStringArray(services);
+        CommonProcessors.CollectUniquesProcessor<String> processor = new CommonProcessors.CollectUniquesProcessor<>();
+        ContainerCollectionResolver.processServiceNames(project, processor);
+
+        return ArrayUtil.toStringArray(processor.getResults());
     }
 
     @NotNull
     @Override
     public NavigationItem[] getItemsByName(String serviceName, String s2, Project project, boolean b) {
+        CommonProcessors.CollectProcessor<NavigationItem> processor = new CommonProcessors.CollectProcessor<>();
+        processElementsWithName(project, serviceName, processor);
+
+        return processor.toArray(new NavigationItem[0]);
+    }
+
+    @Override
+    public void processNames(@NotNull Processor<String> processor, @NotNull GlobalSearchScope scope, @Nullable IdFilter filter) {
+        Project project = scope.getProject();
+        if(project != null) {
+            ContainerCollectionResolver.processServiceNames(project, processor);
+        }
+    }
 
-        List<NavigationItem> navigationItems = new ArrayList<>();
+    @Override
+    public void processElementsWithName(@NotNull String serviceName, @NotNull Processor<NavigationItem> processor, @NotNull FindSymbolParameters parameters) {
+        Project project = parameters.getSearchScope().getProject();
+        if(project != null) {
+            processElementsWithName(project, serviceName, processor);
+        }
+    }
 
+    private static void processElementsWithName(@NotNull Project project, @NotNull String serviceName, @NotNull Processor<NavigationItem> processor) {
         for(PsiElement psiElement: ServiceIndexUtil.findServiceDefinitions(project, serviceName)) {
-            if(psiElement instanceof NavigationItem) {
-                navigationItems.add(new NavigationItemEx(psiElement, serviceName, Symfony2Icons.SERVICE, "Service"));
+            if(psiElement instanceof NavigationItem && !processor.process(new NavigationItemEx(psiElement, serviceName, Symfony2Icons.SERVICE, "Service"))) {
+                return;
             }
         }
-
-        return navigationItems.toArray(new NavigationItem[navigationItems.size()]);
     }
 
 }
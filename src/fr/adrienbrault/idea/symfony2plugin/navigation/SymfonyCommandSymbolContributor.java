@@ -3,16 +3,14 @@ package fr.adrienbrault.idea.symfony2plugin.navigation;
 import com.intellij.navigation.ChooseByNameContributor;
 import com.intellij.navigation.NavigationItem;
 import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
 import com.intellij.util.ArrayUtil;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2Icons;
 import fr.adrienbrault.idea.symfony2plugin.util.SymfonyCommandUtil;
-import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyCommand;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
@@ -23,12 +21,7 @@ public class SymfonyCommandSymbolContributor implements ChooseByNameContributor
     @Override
     public String[] getNames(Project project, boolean b) {
 
-        Set<String> routeNames = new HashSet<>();
-        for (SymfonyCommand symfonyCommand : SymfonyCommandUtil.getCommands(project)) {
-            routeNames.add(symfonyCommand.getName());
-        }
-
-        return ArrayUtil.toStringArray(routeNames);
+        return ArrayUtil.toStringArray(SymfonyCommandUtil.getCommandNames(project));
     }
 
     @NotNull
@@ -37,10 +30,8 @@ public class SymfonyCommandSymbolContributor implements ChooseByNameContributor
 
         List<NavigationItem> navigationItems = new ArrayList<>();
 
-        for (SymfonyCommand symfonyCommand : SymfonyCommandUtil.getCommands(project)) {
-            if(symfonyCommand.getName().equals(name)) {
-                navigationItems.add(new NavigationItemEx(symfonyCommand.getPsiElement(), name, Symfony2Icons.SYMFONY, "Command"));
-            }
+        for (PsiElement psiElement : SymfonyCommandUtil.getCommandTargets(project, name)) {
+            navigationItems.add(new NavigationItemEx(psiElement, name, Symfony2Icons.SYMFONY, "Command"));
         }
 
         return navigationItems.toArray(new NavigationItem[navigationItems.size()]);
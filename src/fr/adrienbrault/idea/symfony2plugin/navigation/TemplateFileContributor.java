@@ -1,40 +1,78 @@
 package fr.adrienbrault.idea.symfony2plugin.navigation;
 
-import com.intellij.navigation.ChooseByNameContributor;
+import com.intellij.navigation.ChooseByNameContributorEx;
 import com.intellij.navigation.NavigationItem;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FindSymbolParameters;
+import com.intellij.util.indexing.IdFilter;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
 import icons.TwigIcons;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
 import java.util.Set;
 
-public class TemplateFileContributor implements ChooseByNameContributor {
+/**
+ * Template names are streamed from the cached template map without copying it; files are only resolved for matched names
+ */
+public class TemplateFileContributor implements ChooseByNameContributorEx {
 
     @NotNull
     @Override
     public String[] getNames(Project project, boolean b) {
-        Map<String, VirtualFile> psiElements = TwigHelper.getTwigFilesByName(project);
-        Set<String> sets = psiElements.keySet();
-        return sets.toArray(new String[sets.size()]);
+        return ArrayUtil.toStringArray(TwigHelper.getTemplateMap(project, true, false).getTemplateNames().keySet());
     }
 
     @NotNull
     @Override
     public NavigationItem[] getItemsByName(String templateName, String s2, Project project, boolean b) {
+        CommonProcessors.CollectProcessor<NavigationItem> processor = new CommonProcessors.CollectProcessor<>();
+        processElementsWithName(project, templateName, processor);
 
-        PsiFile psiFile = TwigHelper.getTemplateFileByName(project, templateName);
-        if(psiFile == null) {
-            return new NavigationItem[0];
+        return processor.toArray(new NavigationItem[0]);
+    }
+
+    @Override
+    public void processNames(@NotNull Processor<String> processor, @NotNull GlobalSearchScope scope, @Nullable IdFilter filter) {
+        Project project = scope.getProject();
+        if(project == null) {
+            return;
+        }
+
+        for (String templateName : TwigHelper.getTemplateMap(project, true, false).getTemplateNames().keySet()) {
+            if(!processor.process(templateName)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void processElementsWithName(@NotNull String templateName, @NotNull Processor<NavigationItem> processor, @NotNull FindSymbolParameters parameters) {
+        Project project = parameters.getSearchScope().getProject();
+        if(project != null) {
+            processElementsWithName(project, templateName, processor);
         }
+    }
 
-        return new NavigationItemEx[]{
-            new NavigationItemEx(psiFile, templateName, TwigIcons.TwigFileIcon, "Template", false)
-        };
+    private static void processElementsWithName(@NotNull Project project, @NotNull String templateName, @NotNull Processor<NavigationItem> processor) {
+        Set<VirtualFile> virtualFiles = TwigHelper.getTemplateMap(project, true, false).getTemplateNames().get(templateName);
+        if(virtualFiles == null) {
+            return;
+        }
 
+        for (VirtualFile virtualFile : virtualFiles) {
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+            if(psiFile != null && !processor.process(new NavigationItemEx(psiFile, templateName, TwigIcons.TwigFileIcon, "Template", false))) {
+                return;
+            }
+        }
     }
 
 }
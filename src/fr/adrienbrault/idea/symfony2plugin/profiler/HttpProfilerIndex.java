@@ -40,7 +40,8 @@ public class HttpProfilerIndex implements ProfilerIndexInterface {
         }
 
         return new ArrayList<>(ProfilerUtil.collectHttpDataForRequest(
-            project, ProfilerUtil.createRequestsFromIndexHtml(this.project, content, this.url))
+            project,
+            ProfilerUtil.createRequestsFromIndexHtml(content, this.url))
         );
     }
 
@@ -1,40 +1,48 @@
 package fr.adrienbrault.idea.symfony2plugin.profiler;
 
+import com.intellij.openapi.project.Project;
 import com.intellij.util.containers.ContainerUtil;
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.ExtractedDataCollector;
 import fr.adrienbrault.idea.symfony2plugin.profiler.collector.LocalDefaultDataCollector;
 import fr.adrienbrault.idea.symfony2plugin.profiler.collector.LocalMailCollector;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.LocalProfilerRequest;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
 import fr.adrienbrault.idea.symfony2plugin.profiler.reader.ReverseFileLineReader;
+import fr.adrienbrault.idea.symfony2plugin.profiler.reader.SerializedProfileScanner;
+import fr.adrienbrault.idea.symfony2plugin.profiler.utils.ProfilerRequestCache;
 import fr.adrienbrault.idea.symfony2plugin.profiler.utils.ProfilerUtil;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class LocalProfilerIndex implements ProfilerIndexInterface {
+    @NotNull
+    private final Project project;
+
     @NotNull
     private File file;
 
     @Nullable
     private String baseUrl;
 
-    public LocalProfilerIndex(@NotNull File file) {
+    public LocalProfilerIndex(@NotNull Project project, @NotNull File file) {
+        this.project = project;
         this.file = file;
     }
 
-    public LocalProfilerIndex(@NotNull File file, @Nullable String baseUrl) {
+    public LocalProfilerIndex(@NotNull Project project, @NotNull File file, @Nullable String baseUrl) {
+        this.project = project;
         this.file = file;
         this.baseUrl = baseUrl;
     }
@@ -64,7 +72,7 @@ public class LocalProfilerIndex implements ProfilerIndexInterface {
             callable.add(new MyProfilerRequestBuilderCallable(split));
         });
 
-        return ProfilerUtil.getProfilerRequestCollectorDecorated(callable, 15);
+        return ProfilerUtil.getProfilerRequestCollectorDecorated(callable);
     }
 
     @Nullable
@@ -77,6 +85,14 @@ public class LocalProfilerIndex implements ProfilerIndexInterface {
         return ProfilerUtil.getBaseProfilerUrlFromRequest(request.getProfilerUrl());
     }
 
+    /**
+     * Profiler "index.csv" this index is reading from
+     */
+    @NotNull
+    public File getIndexFile() {
+        return file;
+    }
+
     @NotNull
     private String getPath(@NotNull String hash) {
         String[] hashSplit = hash.split("(?<=\\G.{2})");
@@ -95,26 +111,16 @@ public class LocalProfilerIndex implements ProfilerIndexInterface {
         return file;
     }
 
+    /**
+     * Only the request fields are extracted, profiles can be several MB; scanning stops when all of them are found
+     */
     @Nullable
-    private String getContentForHash(@NotNull String hash) {
-        File file = this.getFile(hash);
-        if(file == null) {
-            return  null;
-        }
-
-        StringBuilder content = new StringBuilder();
-
+    private Map<SerializedProfileScanner.Field, List<String>> scanProfile(@NotNull File file) {
         try {
-            BufferedReader in = new BufferedReader(new FileReader(file));
-            String str;
-            while ((str = in.readLine()) != null) {
-                content.append(str);
-            }
-            in.close();
-        } catch (IOException ignored) {
+            return SerializedProfileScanner.scan(file, LocalDefaultDataCollector.FIELDS);
+        } catch (IOException e) {
+            return null;
         }
-
-        return content.toString();
     }
 
     private class MyProfilerRequestBuilderCallable implements Callable<ProfilerRequestInterface> {
@@ -126,16 +132,35 @@ public class LocalProfilerIndex implements ProfilerIndexInterface {
 
         @Override
         public ProfilerRequestInterface call() throws Exception {
-            String content = getContentForHash(split[0]);
-            if(content == null) {
+            String source = file.getPath();
+
+            ProfilerRequestCache requestCache = ProfilerRequestCache.getInstance(project);
+
+            ProfilerRequestInterface cached = requestCache.getIfPresent(source, split[0]);
+            if(cached != null) {
+                return cached;
+            }
+
+            File profile = getFile(split[0]);
+            if(profile == null) {
                 return new LocalProfilerRequest(split);
             }
 
-            return new LocalProfilerRequest(
+            Map<SerializedProfileScanner.Field, List<String>> values = scanProfile(profile);
+            if(values == null) {
+                return new LocalProfilerRequest(split);
+            }
+
+            // mails are scanned on demand of the mail tab
+            ProfilerRequestInterface request = new LocalProfilerRequest(
                 split,
-                new LocalDefaultDataCollector(content),
-                new LocalMailCollector(content)
+                ExtractedDataCollector.create(new LocalDefaultDataCollector(values)),
+                new LocalMailCollector(profile)
             );
+
+            requestCache.put(source, split[0], request);
+
+            return request;
         }
     }
 }
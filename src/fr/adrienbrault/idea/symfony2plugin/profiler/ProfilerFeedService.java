@@ -0,0 +1,330 @@
+package fr.adrienbrault.idea.symfony2plugin.profiler;
+
+import com.intellij.concurrency.JobScheduler;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.DefaultDataCollectorInterface;
+import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
+import fr.adrienbrault.idea.symfony2plugin.profiler.factory.ProfilerFactoryUtil;
+import fr.adrienbrault.idea.symfony2plugin.routing.Route;
+import fr.adrienbrault.idea.symfony2plugin.routing.RouteHelper;
+import fr.adrienbrault.idea.symfony2plugin.routing.RouteUrlMatcher;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background feed of the latest profiler requests for the status bar widget.
+ *
+ * Polling starts with the first read and is rescheduled after every run: a local "index.csv" is only
+ * parsed when its size or modification time changed, remote profilers are polled with an exponential
+ * backoff which is reset as soon as new requests show up. Requests without a route from the profiler
+ * are matched against the project routes here, so the widget popup never builds a route matcher.
+ *
+ * Polling stops when nobody read the requests for some minutes or the widget is disposed; the next read starts it again
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ProfilerFeedService implements Disposable {
+
+    private static final int CAPACITY = 10;
+
+    private static final long MIN_DELAY = 2000;
+    private static final long MAX_DELAY = 60000;
+
+    /**
+     * No new tick is scheduled if requests were not read within this time
+     */
+    private static final long IDLE_TIMEOUT = 300000;
+
+    @NotNull
+    private final Project project;
+
+    @NotNull
+    private final ProfilerRequestRingBuffer buffer = new ProfilerRequestRingBuffer(CAPACITY);
+
+    /**
+     * Guards the polling chain: "scheduled", "polling", "refreshRequested" and "generation"
+     */
+    @NotNull
+    private final Object lock = new Object();
+
+    @Nullable
+    private volatile ProfilerIndexInterface index;
+
+    /**
+     * Route names of request urls the profiler did not provide a route for
+     */
+    @NotNull
+    private final Map<String, List<String>> urlRoutes = new ConcurrentHashMap<>();
+
+    /**
+     * Matcher "urlRoutes" were built with; a new instance means changed routes
+     */
+    @Nullable
+    private volatile RouteUrlMatcher routeUrlMatcher;
+
+    @Nullable
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * Only the tick of the current generation is allowed to run and to schedule the next one,
+     * so there is never more than one polling chain
+     */
+    private long generation = 0;
+
+    private boolean polling = false;
+
+    private boolean refreshRequested = false;
+
+    private volatile boolean disposed = false;
+
+    private volatile long delay = MIN_DELAY;
+
+    private volatile long lastAccess = 0;
+
+    /**
+     * "length:lastModified" of the last parsed local index file
+     */
+    @Nullable
+    private volatile String localIndexStamp;
+
+    public ProfilerFeedService(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    public static ProfilerFeedService getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, ProfilerFeedService.class);
+    }
+
+    /**
+     * Latest requests, newest first; never blocks. First call starts the background polling
+     */
+    @NotNull
+    public List<ProfilerRequestInterface> getRequests() {
+        lastAccess = System.currentTimeMillis();
+
+        synchronized (lock) {
+            if(scheduled == null && !polling) {
+                schedule(0);
+            }
+        }
+
+        return buffer.getRequests();
+    }
+
+    /**
+     * Index the current requests were collected from, to build their urls
+     */
+    @Nullable
+    public ProfilerIndexInterface getIndex() {
+        return index;
+    }
+
+    /**
+     * Route names matching the request url; empty until the url was matched in background
+     */
+    @NotNull
+    public List<String> getRoutesForUrl(@NotNull String url) {
+        List<String> routes = urlRoutes.get(url);
+        return routes != null ? routes : Collections.emptyList();
+    }
+
+    /**
+     * Request an update as soon as possible; a running update is followed directly by another one
+     */
+    public void refreshAsync() {
+        lastAccess = System.currentTimeMillis();
+
+        synchronized (lock) {
+            if(polling) {
+                refreshRequested = true;
+                return;
+            }
+
+            schedule(0);
+        }
+    }
+
+    /**
+     * Cancels the polling chain; a running tick finishes without scheduling the next one
+     */
+    public void stop() {
+        synchronized (lock) {
+            lastAccess = 0;
+            refreshRequested = false;
+            generation++;
+
+            if(scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+    }
+
+    /**
+     * Replaces a pending tick; must be called under lock
+     */
+    private void schedule(long delayMillis) {
+        if(disposed || project.isDisposed()) {
+            return;
+        }
+
+        if(scheduled != null) {
+            scheduled.cancel(false);
+        }
+
+        long current = ++generation;
+
+        scheduled = JobScheduler.getScheduler().schedule(
+            () -> ApplicationManager.getApplication().executeOnPooledThread(() -> tick(current)),
+            delayMillis,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    private void tick(long tickGeneration) {
+        synchronized (lock) {
+            // outdated tick which was not cancelled in time
+            if(disposed || project.isDisposed() || tickGeneration != generation) {
+                return;
+            }
+
+            scheduled = null;
+            polling = true;
+        }
+
+        try {
+            poll();
+            matchRoutes(buffer.getRequests());
+        } catch (RuntimeException e) {
+            Symfony2ProjectComponent.getLogger().warn("Symfony profiler feed: " + e.getMessage());
+            delay = Math.min(delay * 2, MAX_DELAY);
+        } finally {
+            synchronized (lock) {
+                polling = false;
+
+                // nobody is looking at the requests; next read starts polling again
+                if(refreshRequested) {
+                    schedule(0);
+                } else if(System.currentTimeMillis() - lastAccess < IDLE_TIMEOUT) {
+                    schedule(delay);
+                }
+
+                refreshRequested = false;
+            }
+        }
+    }
+
+    private void poll() {
+        // settings can change at any time, so never keep an index instance longer than one run
+        ProfilerIndexInterface current = ProfilerFactoryUtil.createIndex(project);
+        if(current == null) {
+            index = null;
+            buffer.clear();
+            localIndexStamp = null;
+            delay = MAX_DELAY;
+            return;
+        }
+
+        if(current instanceof LocalProfilerIndex) {
+            File file = ((LocalProfilerIndex) current).getIndexFile();
+            String stamp = file.length() + ":" + file.lastModified();
+
+            delay = MIN_DELAY;
+
+            // untouched index file; nothing to parse
+            if(stamp.equals(localIndexStamp) && index != null && index.getClass() == current.getClass()) {
+                return;
+            }
+
+            localIndexStamp = stamp;
+        } else {
+            localIndexStamp = null;
+        }
+
+        ProfilerIndexInterface previous = index;
+        if(previous != null && previous.getClass() != current.getClass()) {
+            buffer.clear();
+        }
+
+        index = current;
+
+        int added = buffer.addAll(current.getRequests());
+        if(!(current instanceof LocalProfilerIndex)) {
+            delay = added > 0 ? MIN_DELAY : Math.min(delay * 2, MAX_DELAY);
+        }
+    }
+
+    private void matchRoutes(@NotNull List<ProfilerRequestInterface> requests) {
+        Set<String> urls = new HashSet<>();
+        for (ProfilerRequestInterface request : requests) {
+            DefaultDataCollectorInterface collector = request.getCollector(DefaultDataCollectorInterface.class);
+            if((collector == null || collector.getRoute() == null) && request.getUrl() != null) {
+                urls.add(request.getUrl());
+            }
+        }
+
+        urlRoutes.keySet().retainAll(urls);
+
+        // next run tries again
+        if(urls.isEmpty() || DumbService.isDumb(project)) {
+            return;
+        }
+
+        // building the matcher compiles all routes; a write action cancels it and the next run tries again
+        ProgressIndicatorUtils.runInReadActionWithWriteActionPriority(() -> {
+            if(project.isDisposed()) {
+                return;
+            }
+
+            RouteUrlMatcher matcher = RouteHelper.getRouteUrlMatcher(project);
+            if(matcher != routeUrlMatcher) {
+                urlRoutes.clear();
+                routeUrlMatcher = matcher;
+            }
+
+            for (String url : urls) {
+                ProgressManager.checkCanceled();
+
+                if(!urlRoutes.containsKey(url)) {
+                    List<String> names = new ArrayList<>();
+                    for (Route route : matcher.match(url)) {
+                        names.add(route.getName());
+                    }
+
+                    urlRoutes.put(url, names);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (lock) {
+            disposed = true;
+
+            if(scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+
+        buffer.clear();
+        urlRoutes.clear();
+        routeUrlMatcher = null;
+        index = null;
+    }
+}
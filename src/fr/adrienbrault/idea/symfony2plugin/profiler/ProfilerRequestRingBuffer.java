@@ -0,0 +1,111 @@
+package fr.adrienbrault.idea.symfony2plugin.profiler;
+
+import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Fixed size buffer of the latest profiler requests, newest first; requests are unique by their token.
+ * A known token provided as a new instance replaces the buffered one in place, so a request which was first
+ * read with an incomplete profile is updated when its profile is read again.
+ * Readers always get an immutable snapshot, so rendering never waits for a running refresh
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ProfilerRequestRingBuffer {
+
+    private final int capacity;
+
+    @NotNull
+    private final ProfilerRequestInterface[] buffer;
+
+    /**
+     * Index of newest element
+     */
+    private int head = -1;
+    private int size = 0;
+
+    @NotNull
+    private volatile List<ProfilerRequestInterface> snapshot = Collections.emptyList();
+
+    public ProfilerRequestRingBuffer(int capacity) {
+        this.capacity = capacity;
+        this.buffer = new ProfilerRequestInterface[capacity];
+    }
+
+    /**
+     * @param requests newest first, as profiler indexes provide them
+     * @return count of tokens which were not known before
+     */
+    public synchronized int addAll(@NotNull List<ProfilerRequestInterface> requests) {
+        // token to buffer slot
+        Map<String, Integer> known = new HashMap<>();
+        for (int i = 0; i < capacity; i++) {
+            if(buffer[i] != null) {
+                known.put(buffer[i].getHash(), i);
+            }
+        }
+
+        int added = 0;
+        boolean replaced = false;
+
+        // push oldest first, so newest ends up as head
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            ProfilerRequestInterface request = requests.get(i);
+
+            Integer slot = known.get(request.getHash());
+            if(slot != null) {
+                // cached requests are the same instance; only a re-read request is a change
+                if(buffer[slot] != request) {
+                    buffer[slot] = request;
+                    replaced = true;
+                }
+
+                continue;
+            }
+
+            head = (head + 1) % capacity;
+            if(buffer[head] != null) {
+                known.remove(buffer[head].getHash());
+            }
+
+            buffer[head] = request;
+            known.put(request.getHash(), head);
+            size = Math.min(size + 1, capacity);
+            added++;
+        }
+
+        if(added > 0 || replaced) {
+            snapshot = createSnapshot();
+        }
+
+        return added;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(buffer, null);
+        head = -1;
+        size = 0;
+        snapshot = Collections.emptyList();
+    }
+
+    /**
+     * Newest first
+     */
+    @NotNull
+    public List<ProfilerRequestInterface> getRequests() {
+        return snapshot;
+    }
+
+    @NotNull
+    private List<ProfilerRequestInterface> createSnapshot() {
+        List<ProfilerRequestInterface> requests = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            requests.add(buffer[(head - i + capacity) % capacity]);
+        }
+
+        return Collections.unmodifiableList(requests);
+    }
+}
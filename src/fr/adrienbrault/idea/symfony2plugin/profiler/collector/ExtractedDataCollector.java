@@ -0,0 +1,67 @@
+package fr.adrienbrault.idea.symfony2plugin.profiler.collector;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable snapshot of the extracted request fields; source collectors may hold the whole profile content,
+ * this one is small enough to be cached for the lifetime of a profile. Mails are not part of it, see LocalMailCollector
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ExtractedDataCollector implements DefaultDataCollectorInterface {
+
+    @Nullable
+    private final String controller;
+
+    @Nullable
+    private final String route;
+
+    @Nullable
+    private final String template;
+
+    public ExtractedDataCollector(@Nullable String controller, @Nullable String route, @Nullable String template) {
+        this.controller = controller;
+        this.route = route;
+        this.template = template;
+    }
+
+    /**
+     * Extract all values once out of given collectors
+     */
+    @NotNull
+    public static ExtractedDataCollector create(@NotNull Object... collectors) {
+        String controller = null;
+        String route = null;
+        String template = null;
+
+        for (Object collector : collectors) {
+            if(collector instanceof DefaultDataCollectorInterface) {
+                DefaultDataCollectorInterface dataCollector = (DefaultDataCollectorInterface) collector;
+                controller = controller != null ? controller : dataCollector.getController();
+                route = route != null ? route : dataCollector.getRoute();
+                template = template != null ? template : dataCollector.getTemplate();
+            }
+        }
+
+        return new ExtractedDataCollector(controller, route, template);
+    }
+
+    @Nullable
+    @Override
+    public String getController() {
+        return controller;
+    }
+
+    @Nullable
+    @Override
+    public String getRoute() {
+        return route;
+    }
+
+    @Nullable
+    @Override
+    public String getTemplate() {
+        return template;
+    }
+}
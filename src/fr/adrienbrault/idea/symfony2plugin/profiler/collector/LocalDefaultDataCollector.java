@@ -1,64 +1,62 @@
 package fr.adrienbrault.idea.symfony2plugin.profiler.collector;
 
-import org.intellij.lang.annotations.RegExp;
+import fr.adrienbrault.idea.symfony2plugin.profiler.reader.SerializedProfileScanner;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.regex.Matcher;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 public class LocalDefaultDataCollector implements DefaultDataCollectorInterface {
-    @Nullable
-    private final String contents;
+
+    private static final SerializedProfileScanner.Field CONTROLLER = SerializedProfileScanner.Field.string("_controller", 1);
+    private static final SerializedProfileScanner.Field ROUTE = SerializedProfileScanner.Field.string("_route", 1);
+    private static final SerializedProfileScanner.Field TEMPLATE = SerializedProfileScanner.Field.delimited(
+        "\"template.twig (", ")\"", Pattern.compile("[^\"]*\\.html\\.\\w{2,4}"), 1
+    );
+
+    /**
+     * Profile fields this collector is reading
+     */
+    public static final List<SerializedProfileScanner.Field> FIELDS = Collections.unmodifiableList(Arrays.asList(
+        CONTROLLER, ROUTE, TEMPLATE
+    ));
+
+    @NotNull
+    private final Map<SerializedProfileScanner.Field, List<String>> values;
 
     public LocalDefaultDataCollector(@Nullable String contents) {
-        this.contents = contents;
+        this(contents != null ? SerializedProfileScanner.scan(contents, FIELDS) : Collections.emptyMap());
+    }
+
+    /**
+     * @param values already scanned profile, containing at least FIELDS
+     */
+    public LocalDefaultDataCollector(@NotNull Map<SerializedProfileScanner.Field, List<String>> values) {
+        this.values = values;
     }
 
     @Nullable
     public String getController() {
-        return this.getStringValue(this.contents, "_controller\";s:(\\d+):");
+        return this.getFirstValue(CONTROLLER);
     }
 
     @Nullable
     public String getRoute() {
-        return this.getStringValue(this.contents, "_route\";s:(\\d+):");
+        return this.getFirstValue(ROUTE);
     }
 
     @Nullable
     public String getTemplate() {
-        return this.pregMatch(this.contents, "\"template.twig \\(([^\"]*\\.html\\.\\w{2,4})\\)\"");
+        return this.getFirstValue(TEMPLATE);
     }
 
     @Nullable
-    private String pregMatch(@Nullable String content, @RegExp String regular) {
-        if(content == null) {
-            return null;
-        }
-
-        Matcher matcher = Pattern.compile(regular, Pattern.MULTILINE).matcher(content);
-        if(matcher.find()){
-            return matcher.group(1);
-        }
-
-        return null;
-    }
-
-    @Nullable
-    private String getStringValue(@Nullable String content, @RegExp String regular) {
-        if(content == null) {
-            return null;
-        }
-
-        Matcher matcher = Pattern.compile(regular, Pattern.MULTILINE).matcher(content);
-        if(matcher.find()){
-            String domain = matcher.group(1);
-
-            int start = matcher.end();
-            int end = start + Integer.parseInt(domain);
-
-            return content.substring(start + 1, end + 1);
-        }
-
-        return null;
+    private String getFirstValue(@NotNull SerializedProfileScanner.Field field) {
+        List<String> values = this.values.get(field);
+        return values != null && values.size() > 0 ? values.get(0) : null;
     }
 }
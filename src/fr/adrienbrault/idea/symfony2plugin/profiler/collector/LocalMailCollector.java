@@ -1,70 +1,85 @@
 package fr.adrienbrault.idea.symfony2plugin.profiler.collector;
 
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.MailMessage;
-import org.intellij.lang.annotations.RegExp;
+import fr.adrienbrault.idea.symfony2plugin.profiler.reader.SerializedProfileScanner;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
 
 /**
+ * Mail bodies are only needed by the mail tab; a profile file is scanned on first access and not
+ * together with the request fields, so the request list does not depend on the size of a mail
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class LocalMailCollector implements MailCollectorInterface {
 
-    @NotNull
-    private final String contents;
+    /**
+     * Swiftmailer message bodies of "MessageDataCollector"; private property names are wrapped in null bytes
+     */
+    private static final SerializedProfileScanner.Field MESSAGE_BODY = SerializedProfileScanner.Field.string("\u0000Swift_Mime_SimpleMimeEntity\u0000_body", 10);
 
-    public LocalMailCollector(@NotNull String contents) {
-        this.contents = contents;
-    }
+    /**
+     * Serialized "MessageDataCollector" object up to the next collector object
+     */
+    public static final SerializedProfileScanner.Section SECTION = SerializedProfileScanner.Section.create("\\MessageDataCollector\":", "DataCollector\":");
 
-    @NotNull
-    public Collection<MailMessage> getMessages() {
-        String messages = this.findTwice(this.contents, "MessageDataCollector\":(\\d+):");
-        if(messages == null) {
-            return Collections.emptyList();
-        }
+    /**
+     * Profile fields this collector is reading
+     */
+    public static final List<SerializedProfileScanner.Field> FIELDS = Collections.singletonList(MESSAGE_BODY);
 
-        Matcher matcher = Pattern.compile("\"\\x00Swift_Mime_SimpleMimeEntity\\x00_body\";s:(\\d+):\"", Pattern.MULTILINE).matcher(messages);
+    @Nullable
+    private final File profile;
 
-        Collection<MailMessage> mails = new ArrayList<>();
-        while(matcher.find()){
-            String domain = matcher.group(1);
-            //String array_strings = matcher.group(2);
+    @Nullable
+    private volatile Collection<MailMessage> messages;
 
-            int start = matcher.end();
-            int end = start + Integer.parseInt(domain);
+    public LocalMailCollector(@NotNull String contents) {
+        this.profile = null;
+        this.messages = createMessages(SerializedProfileScanner.scan(contents, FIELDS, SECTION));
+    }
 
-            //System.out.println(content.substring(start, end));
-            mails.add(new MailMessage(messages.substring(start, end), "aa", "aa"));
+    /**
+     * @param profile serialized profile file, scanned when messages are requested
+     */
+    public LocalMailCollector(@NotNull File profile) {
+        this.profile = profile;
+    }
 
-            //Matcher match_strings = Pattern.compile("'(.*?)'\\s=>\\s'.*?'", Pattern.MULTILINE).matcher(array_strings);
-            //while(match_strings.find()){
-            // string_map.addString(domain, match_strings.group(1));
-            //}
+    @NotNull
+    public Collection<MailMessage> getMessages() {
+        Collection<MailMessage> messages = this.messages;
+        if(messages != null) {
+            return messages;
+        }
 
+        Map<SerializedProfileScanner.Field, List<String>> values = Collections.emptyMap();
+        if(this.profile != null) {
+            try {
+                values = SerializedProfileScanner.scan(this.profile, FIELDS, SECTION);
+            } catch (IOException ignored) {
+            }
         }
 
-        return mails;
+        return this.messages = createMessages(values);
     }
 
-    @Nullable
-    private String findTwice(@NotNull String content, @RegExp String regular) {
-        Matcher matcher = Pattern.compile(regular, Pattern.MULTILINE).matcher(content);
-        if(matcher.find()){
-            String domain = matcher.group(1);
-
-            int start = matcher.end();
-            int end = start + Integer.parseInt(domain);
+    @NotNull
+    private static Collection<MailMessage> createMessages(@NotNull Map<SerializedProfileScanner.Field, List<String>> values) {
+        List<String> bodies = values.get(MESSAGE_BODY);
+        if(bodies == null) {
+            return Collections.emptyList();
+        }
 
-            return content.substring(start, end);
+        Collection<MailMessage> mails = new ArrayList<>();
+        for (String body : bodies) {
+            mails.add(new MailMessage(body, "aa", "aa"));
         }
 
-        return null;
+        return Collections.unmodifiableCollection(mails);
     }
 }
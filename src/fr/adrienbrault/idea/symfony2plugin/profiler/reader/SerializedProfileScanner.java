@@ -0,0 +1,403 @@
+package fr.adrienbrault.idea.symfony2plugin.profiler.reader;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Single forward pass over a php serialized profile which only extracts the requested fields.
+ *
+ * Local profiles are mapped instead of read, so memory does not depend on the profile size; scanning
+ * stops as soon as every field has its values. String values are decoded by their "s:N:" byte length,
+ * so multibyte content is handled and their content is never scanned for other fields.
+ * Profiles written compressed ("compress.zlib://", Symfony 4) are streamed through a gzip decoder.
+ * An optional section limits scanning to the part of one collector, eg mails of "MessageDataCollector"
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class SerializedProfileScanner {
+
+    /**
+     * Bigger values are truncated; also protects against broken length prefixes
+     */
+    private static final int MAX_VALUE_LENGTH = 1024 * 1024;
+
+    /**
+     * Longest value of a delimited field
+     */
+    private static final int MAX_DELIMITED_LENGTH = 1024;
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+
+    @NotNull
+    public static Map<Field, List<String>> scan(@NotNull File file, @NotNull Collection<Field> fields) throws IOException {
+        return scan(file, fields, null);
+    }
+
+    @NotNull
+    public static Map<Field, List<String>> scan(@NotNull File file, @NotNull Collection<Field> fields, @Nullable Section section) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if(raf.read() == GZIP_MAGIC_1 && raf.read() == GZIP_MAGIC_2) {
+                try (InputStream inputStream = new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)), 8192)) {
+                    return scan(inputStream, fields, section);
+                }
+            }
+
+            return scan(new BufferSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())), fields, section);
+        }
+    }
+
+    /**
+     * Stream is read unbuffered up to the last needed byte; callers should buffer it
+     */
+    @NotNull
+    public static Map<Field, List<String>> scan(@NotNull InputStream inputStream, @NotNull Collection<Field> fields, @Nullable Section section) throws IOException {
+        return scan(new StreamSource(inputStream), fields, section);
+    }
+
+    @NotNull
+    public static Map<Field, List<String>> scan(@NotNull String content, @NotNull Collection<Field> fields) {
+        return scan(content, fields, null);
+    }
+
+    @NotNull
+    public static Map<Field, List<String>> scan(@NotNull String content, @NotNull Collection<Field> fields, @Nullable Section section) {
+        try {
+            return scan(new BufferSource(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8))), fields, section);
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    @NotNull
+    private static Map<Field, List<String>> scan(@NotNull ByteSource source, @NotNull Collection<Field> fields, @Nullable Section section) throws IOException {
+        if(section != null && !section.start.skipTo(source)) {
+            return Collections.emptyMap();
+        }
+
+        Field[] pending = fields.toArray(new Field[fields.size()]);
+        int[] matched = new int[pending.length];
+        int sectionEnd = 0;
+
+        Map<Field, List<String>> result = new HashMap<>();
+        int open = pending.length;
+
+        int b;
+        while (open > 0 && (b = source.read()) != -1) {
+            if(section != null) {
+                sectionEnd = section.end.advance(sectionEnd, (byte) b);
+                if(sectionEnd == section.end.marker.length) {
+                    break;
+                }
+            }
+
+            for (int i = 0; i < pending.length; i++) {
+                Field field = pending[i];
+                if(field == null) {
+                    continue;
+                }
+
+                int state = field.advance(matched[i], (byte) b);
+                if(state < field.marker.length) {
+                    matched[i] = state;
+                    continue;
+                }
+
+                // marker complete: value follows directly, so other markers can not match inside of it
+                Arrays.fill(matched, 0);
+                sectionEnd = 0;
+
+                String value = field.readValue(source);
+                if(value == null) {
+                    break;
+                }
+
+                List<String> values = result.computeIfAbsent(field, f -> new ArrayList<>());
+                values.add(value);
+
+                if(values.size() >= field.limit) {
+                    pending[i] = null;
+                    open--;
+                }
+
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Part of the profile between two raw markers, eg one serialized collector object
+     */
+    public static class Section {
+        @NotNull
+        private final Field start;
+
+        @NotNull
+        private final Field end;
+
+        private Section(@NotNull String start, @NotNull String end) {
+            this.start = new Field(start, null, null, 1);
+            this.end = new Field(end, null, null, 1);
+        }
+
+        /**
+         * Scanning starts after the first "start" marker and stops on the following "end" marker
+         */
+        @NotNull
+        public static Section create(@NotNull String start, @NotNull String end) {
+            return new Section(start, end);
+        }
+    }
+
+    /**
+     * A value to extract; markers are matched on raw bytes
+     */
+    public static class Field {
+        @NotNull
+        private final byte[] marker;
+
+        /**
+         * KMP failure table of marker
+         */
+        @NotNull
+        private final int[] failure;
+
+        @Nullable
+        private final byte[] end;
+
+        @Nullable
+        private final Pattern accept;
+
+        private final int limit;
+
+        private Field(@NotNull String marker, @Nullable String end, @Nullable Pattern accept, int limit) {
+            this.marker = marker.getBytes(StandardCharsets.UTF_8);
+            this.failure = createFailure(this.marker);
+            this.end = end != null ? end.getBytes(StandardCharsets.UTF_8) : null;
+            this.accept = accept;
+            this.limit = limit;
+        }
+
+        /**
+         * Serialized string following the marker: key "_route" matches 's:6:"_route";s:9:"foo_route"'
+         */
+        @NotNull
+        public static Field string(@NotNull String key, int limit) {
+            return new Field(key + "\";s:", null, null, limit);
+        }
+
+        /**
+         * Raw bytes up to end delimiter, when they match the pattern
+         */
+        @NotNull
+        public static Field delimited(@NotNull String start, @NotNull String end, @NotNull Pattern accept, int limit) {
+            return new Field(start, end, accept, limit);
+        }
+
+        /**
+         * Consumes source up to and including the marker; false if there is none
+         */
+        private boolean skipTo(@NotNull ByteSource source) throws IOException {
+            int state = 0;
+
+            int b;
+            while ((b = source.read()) != -1) {
+                state = advance(state, (byte) b);
+                if(state == marker.length) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private int advance(int state, byte b) {
+            while (state > 0 && marker[state] != b) {
+                state = failure[state - 1];
+            }
+
+            return marker[state] == b ? state + 1 : 0;
+        }
+
+        /**
+         * Value directly after the marker; null for a non matching value
+         */
+        @Nullable
+        private String readValue(@NotNull ByteSource source) throws IOException {
+            return end == null ? readSerializedString(source) : readDelimited(source);
+        }
+
+        @Nullable
+        private String readSerializedString(@NotNull ByteSource source) throws IOException {
+            int length = 0;
+            int digits = 0;
+
+            int b;
+            while ((b = source.read()) >= '0' && b <= '9') {
+                if(++digits > 9) {
+                    return null;
+                }
+
+                length = length * 10 + (b - '0');
+            }
+
+            if(b != ':' || digits == 0 || source.read() != '"') {
+                return null;
+            }
+
+            byte[] value = new byte[Math.min(length, MAX_VALUE_LENGTH)];
+            int read = source.read(value);
+            source.skip(length - read);
+
+            return new String(value, 0, read, StandardCharsets.UTF_8);
+        }
+
+        @Nullable
+        private String readDelimited(@NotNull ByteSource source) throws IOException {
+            byte[] end = this.end;
+            if(end == null) {
+                return null;
+            }
+
+            byte[] value = new byte[MAX_DELIMITED_LENGTH];
+            int length = 0;
+
+            int b;
+            while (length < value.length && (b = source.read()) != -1) {
+                value[length++] = (byte) b;
+
+                if(endsWith(value, length, end)) {
+                    String text = new String(value, 0, length - end.length, StandardCharsets.UTF_8);
+                    return accept == null || accept.matcher(text).matches() ? text : null;
+                }
+            }
+
+            return null;
+        }
+
+        private static boolean endsWith(@NotNull byte[] value, int length, @NotNull byte[] end) {
+            if(length < end.length) {
+                return false;
+            }
+
+            for (int i = 0; i < end.length; i++) {
+                if(value[length - end.length + i] != end[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @NotNull
+        private static int[] createFailure(@NotNull byte[] marker) {
+            int[] failure = new int[marker.length];
+
+            int k = 0;
+            for (int i = 1; i < marker.length; i++) {
+                while (k > 0 && marker[i] != marker[k]) {
+                    k = failure[k - 1];
+                }
+
+                if(marker[i] == marker[k]) {
+                    k++;
+                }
+
+                failure[i] = k;
+            }
+
+            return failure;
+        }
+    }
+
+    private interface ByteSource {
+        /**
+         * Next unsigned byte or -1
+         */
+        int read() throws IOException;
+
+        /**
+         * Fills given array as far as possible; returns count of bytes read
+         */
+        int read(@NotNull byte[] bytes) throws IOException;
+
+        void skip(long count) throws IOException;
+    }
+
+    private static class BufferSource implements ByteSource {
+        @NotNull
+        private final ByteBuffer buffer;
+
+        BufferSource(@NotNull ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(@NotNull byte[] bytes) {
+            int count = Math.min(bytes.length, buffer.remaining());
+            buffer.get(bytes, 0, count);
+            return count;
+        }
+
+        @Override
+        public void skip(long count) {
+            buffer.position((int) Math.min(buffer.limit(), buffer.position() + count));
+        }
+    }
+
+    private static class StreamSource implements ByteSource {
+        @NotNull
+        private final InputStream inputStream;
+
+        StreamSource(@NotNull InputStream inputStream) {
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return inputStream.read();
+        }
+
+        @Override
+        public int read(@NotNull byte[] bytes) throws IOException {
+            int read = 0;
+            while (read < bytes.length) {
+                int count = inputStream.read(bytes, read, bytes.length - read);
+                if(count < 0) {
+                    break;
+                }
+
+                read += count;
+            }
+
+            return read;
+        }
+
+        @Override
+        public void skip(long count) throws IOException {
+            while (count > 0) {
+                long skipped = inputStream.skip(count);
+                if(skipped <= 0) {
+                    return;
+                }
+
+                count -= skipped;
+            }
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package fr.adrienbrault.idea.symfony2plugin.profiler.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Forward only tag scanner for profiler html pages; no PSI or DOM is built, so its cheap on large panels and usable on any thread
+ *
+ * Reports start tags, end tags and text between them. Comments, doctype, processing instructions and
+ * the content of "script" and "style" elements are skipped. Tag names are lower case
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class HtmlTagScanner {
+
+    public static final int EOF = 0;
+    public static final int START_TAG = 1;
+    public static final int END_TAG = 2;
+    public static final int TEXT = 3;
+
+    @NotNull
+    private final CharSequence html;
+
+    private int position = 0;
+    private int tokenStart = 0;
+    private int tokenType = EOF;
+
+    /**
+     * Range of the current text or the attribute part of the current tag
+     */
+    private int rangeStart = 0;
+    private int rangeEnd = 0;
+
+    @Nullable
+    private String tagName;
+
+    private boolean selfClosing = false;
+
+    /**
+     * Raw text element "script" / "style" whose content must be skipped on next call
+     */
+    @Nullable
+    private String rawTextElement;
+
+    public HtmlTagScanner(@NotNull CharSequence html) {
+        this.html = html;
+    }
+
+    public int getTokenType() {
+        return tokenType;
+    }
+
+    /**
+     * Lower case name for START_TAG and END_TAG
+     */
+    @Nullable
+    public String getTagName() {
+        return tagName;
+    }
+
+    public boolean isSelfClosing() {
+        return selfClosing;
+    }
+
+    public boolean isStartTag(@NotNull String name) {
+        return tokenType == START_TAG && name.equals(tagName);
+    }
+
+    public boolean isEndTag(@NotNull String name) {
+        return tokenType == END_TAG && name.equals(tagName);
+    }
+
+    /**
+     * Raw content of TEXT token; entities are not decoded
+     */
+    @NotNull
+    public CharSequence getText() {
+        return tokenType == TEXT ? html.subSequence(rangeStart, rangeEnd) : "";
+    }
+
+    /**
+     * Step back to the start of the current token, so next call reports it again
+     */
+    public void pushBack() {
+        position = tokenStart;
+        rawTextElement = null;
+    }
+
+    public int next() {
+        if(rawTextElement != null) {
+            skipRawText(rawTextElement);
+            rawTextElement = null;
+        }
+
+        tagName = null;
+        selfClosing = false;
+
+        int length = html.length();
+
+        while (position < length) {
+            tokenStart = position;
+
+            if(html.charAt(position) != '<') {
+                int end = indexOf('<', position);
+                rangeStart = position;
+                rangeEnd = end;
+                position = end;
+
+                return tokenType = TEXT;
+            }
+
+            if(startsWith(position, "<!--")) {
+                position = skipPast(position + 4, "-->");
+                continue;
+            }
+
+            char c = position + 1 < length ? html.charAt(position + 1) : 0;
+
+            // "<!DOCTYPE", "<![CDATA[" or "<?xml"
+            if(c == '!' || c == '?') {
+                position = skipPast(position + 2, ">");
+                continue;
+            }
+
+            if(c == '/') {
+                int nameEnd = readName(position + 2);
+                if(nameEnd == position + 2) {
+                    position = skipPast(position + 2, ">");
+                    continue;
+                }
+
+                tagName = html.subSequence(position + 2, nameEnd).toString().toLowerCase();
+                position = skipPast(nameEnd, ">");
+
+                return tokenType = END_TAG;
+            }
+
+            int nameEnd = readName(position + 1);
+
+            // "a < b" is text
+            if(nameEnd == position + 1) {
+                int end = indexOf('<', position + 1);
+                rangeStart = position;
+                rangeEnd = end;
+                position = end;
+
+                return tokenType = TEXT;
+            }
+
+            tagName = html.subSequence(position + 1, nameEnd).toString().toLowerCase();
+
+            int tagEnd = findTagEnd(nameEnd);
+            rangeStart = nameEnd;
+            rangeEnd = tagEnd;
+            selfClosing = tagEnd > nameEnd && html.charAt(tagEnd - 1) == '/';
+            position = Math.min(tagEnd + 1, length);
+
+            if(!selfClosing && ("script".equals(tagName) || "style".equals(tagName))) {
+                rawTextElement = tagName;
+            }
+
+            return tokenType = START_TAG;
+        }
+
+        tokenStart = position;
+        return tokenType = EOF;
+    }
+
+    /**
+     * Attribute value of current START_TAG; entities are not decoded
+     */
+    @Nullable
+    public String getAttribute(@NotNull String name) {
+        if(tokenType != START_TAG) {
+            return null;
+        }
+
+        int i = rangeStart;
+        while (i < rangeEnd) {
+            char c = html.charAt(i);
+            if(Character.isWhitespace(c) || c == '/') {
+                i++;
+                continue;
+            }
+
+            int nameStart = i;
+            while (i < rangeEnd && !Character.isWhitespace(html.charAt(i)) && html.charAt(i) != '=' && html.charAt(i) != '/') {
+                i++;
+            }
+
+            String attributeName = html.subSequence(nameStart, i).toString();
+
+            while (i < rangeEnd && Character.isWhitespace(html.charAt(i))) {
+                i++;
+            }
+
+            String value = "";
+            if(i < rangeEnd && html.charAt(i) == '=') {
+                i++;
+                while (i < rangeEnd && Character.isWhitespace(html.charAt(i))) {
+                    i++;
+                }
+
+                if(i < rangeEnd && (html.charAt(i) == '"' || html.charAt(i) == '\'')) {
+                    char quote = html.charAt(i);
+                    int end = i + 1;
+                    while (end < rangeEnd && html.charAt(end) != quote) {
+                        end++;
+                    }
+
+                    value = html.subSequence(i + 1, end).toString();
+                    i = end + 1;
+                } else {
+                    int start = i;
+                    while (i < rangeEnd && !Character.isWhitespace(html.charAt(i))) {
+                        i++;
+                    }
+
+                    value = html.subSequence(start, i).toString();
+                }
+            }
+
+            if(name.equalsIgnoreCase(attributeName)) {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Visible text up to the end tag of the current start tag, nested elements included;
+     * whitespace is collapsed and trimmed. Scanner is placed on the end tag
+     */
+    @NotNull
+    public String readElementText() {
+        String name = tagName;
+        if(tokenType != START_TAG || name == null) {
+            return "";
+        }
+
+        if(selfClosing) {
+            return "";
+        }
+
+        StringBuilder text = new StringBuilder();
+        int depth = 0;
+
+        for (int type = next(); type != EOF; type = next()) {
+            if(type == TEXT) {
+                text.append(getText());
+            } else if(type == START_TAG && name.equals(tagName) && !selfClosing) {
+                depth++;
+            } else if(type == END_TAG && name.equals(tagName) && depth-- == 0) {
+                break;
+            }
+        }
+
+        return normalizeWhitespace(text);
+    }
+
+    @NotNull
+    public static String normalizeWhitespace(@NotNull CharSequence text) {
+        StringBuilder builder = new StringBuilder(text.length());
+
+        boolean whitespace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if(Character.isWhitespace(c)) {
+                whitespace = builder.length() > 0;
+                continue;
+            }
+
+            if(whitespace) {
+                builder.append(' ');
+                whitespace = false;
+            }
+
+            builder.append(c);
+        }
+
+        return builder.toString();
+    }
+
+    private void skipRawText(@NotNull String element) {
+        String closing = "</" + element;
+
+        int length = html.length();
+        while (position < length) {
+            int end = indexOf('<', position);
+            if(end >= length) {
+                position = length;
+                return;
+            }
+
+            if(startsWithIgnoreCase(end, closing)) {
+                position = end;
+                return;
+            }
+
+            position = end + 1;
+        }
+    }
+
+    /**
+     * Position of ">" closing the tag; quoted attribute values may contain ">"
+     */
+    private int findTagEnd(int offset) {
+        int length = html.length();
+
+        char quote = 0;
+        for (int i = offset; i < length; i++) {
+            char c = html.charAt(i);
+            if(quote != 0) {
+                if(c == quote) {
+                    quote = 0;
+                }
+            } else if(c == '"' || c == '\'') {
+                quote = c;
+            } else if(c == '>') {
+                return i;
+            }
+        }
+
+        return length;
+    }
+
+    private int readName(int offset) {
+        int i = offset;
+        while (i < html.length()) {
+            char c = html.charAt(i);
+            if(!Character.isLetterOrDigit(c) && c != '-' && c != ':' && c != '_') {
+                break;
+            }
+
+            i++;
+        }
+
+        return i;
+    }
+
+    private int indexOf(char c, int offset) {
+        int length = html.length();
+        for (int i = offset; i < length; i++) {
+            if(html.charAt(i) == c) {
+                return i;
+            }
+        }
+
+        return length;
+    }
+
+    private int skipPast(int offset, @NotNull String needle) {
+        int length = html.length();
+        for (int i = offset; i < length; i++) {
+            if(startsWith(i, needle)) {
+                return i + needle.length();
+            }
+        }
+
+        return length;
+    }
+
+    private boolean startsWith(int offset, @NotNull String needle) {
+        if(offset + needle.length() > html.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < needle.length(); i++) {
+            if(html.charAt(offset + i) != needle.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean startsWithIgnoreCase(int offset, @NotNull String needle) {
+        if(offset + needle.length() > html.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < needle.length(); i++) {
+            if(Character.toLowerCase(html.charAt(offset + i)) != needle.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+package fr.adrienbrault.idea.symfony2plugin.profiler.utils;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One plugin wide executor for profiler i/o: reading profile files and downloading profiler panels.
+ *
+ * Tasks run on the shared application pool bounded to MAX_THREADS; the platform owns these threads,
+ * so a hanging dev server can never block shutdown or leak threads per refresh.
+ * Every batch has a deadline and is cancelable; results finished until then are returned.
+ *
+ * On a JDK with virtual thread support they can be used instead via "-Dsymfony2plugin.profiler.virtualThreads=true"
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ProfilerExecutor {
+
+    public static final int MAX_THREADS = 8;
+
+    /**
+     * Network deadlines for a single profiler request
+     */
+    public static final int CONNECT_TIMEOUT = 2000;
+    public static final int READ_TIMEOUT = 5000;
+
+    /**
+     * Deadline for a whole collecting run
+     */
+    public static final long BATCH_TIMEOUT = 10000;
+
+    private static final long POLL_INTERVAL = 50;
+
+    private static volatile ExecutorService EXECUTOR;
+
+    @NotNull
+    private static ExecutorService getExecutor() {
+        ExecutorService executor = EXECUTOR;
+        if(executor != null) {
+            return executor;
+        }
+
+        synchronized (ProfilerExecutor.class) {
+            if(EXECUTOR == null) {
+                EXECUTOR = createExecutor(Boolean.getBoolean("symfony2plugin.profiler.virtualThreads"));
+            }
+
+            return EXECUTOR;
+        }
+    }
+
+    @NotNull
+    static ExecutorService createExecutor(boolean virtualThreads) {
+        if(virtualThreads) {
+            try {
+                // JDK 21+ only; no compile time dependency
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                Symfony2ProjectComponent.getLogger().info("virtual threads not supported, fallback to thread pool");
+            }
+        }
+
+        return AppExecutorUtil.createBoundedApplicationPoolExecutor(MAX_THREADS);
+    }
+
+    /**
+     * Run tasks in parallel and return results in task order; failed, timed out or canceled tasks are not part of the result
+     */
+    @NotNull
+    public static <T> List<T> invokeAll(@NotNull Collection<? extends Callable<T>> tasks, @Nullable ProgressIndicator indicator) {
+        return invokeAll(getExecutor(), tasks, BATCH_TIMEOUT, indicator != null ? indicator::isCanceled : () -> false);
+    }
+
+    @NotNull
+    public static <T> List<T> invokeAll(@NotNull ExecutorService executor, @NotNull Collection<? extends Callable<T>> tasks, long timeout, @NotNull BooleanSupplier isCanceled) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+
+        long deadline = System.currentTimeMillis() + timeout;
+
+        try {
+            for (Future<T> future : futures) {
+                while (!future.isDone()) {
+                    if(isCanceled.getAsBoolean() || System.currentTimeMillis() >= deadline) {
+                        return collectDone(futures);
+                    }
+
+                    try {
+                        future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException | ExecutionException | CancellationException ignored) {
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return collectDone(futures);
+        }
+
+        return collectDone(futures);
+    }
+
+    /**
+     * Partial result of finished tasks; all others are canceled
+     */
+    @NotNull
+    private static <T> List<T> collectDone(@NotNull List<Future<T>> futures) {
+        List<T> results = new ArrayList<>();
+
+        for (Future<T> future : futures) {
+            if(!future.isDone()) {
+                future.cancel(true);
+                continue;
+            }
+
+            try {
+                T result = future.get();
+                if(result != null) {
+                    results.add(result);
+                }
+            } catch (InterruptedException | ExecutionException | CancellationException ignored) {
+            }
+        }
+
+        return results;
+    }
+}
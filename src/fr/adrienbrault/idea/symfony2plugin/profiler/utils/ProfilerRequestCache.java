@@ -0,0 +1,67 @@
+package fr.adrienbrault.idea.symfony2plugin.profiler.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.intellij.openapi.project.Project;
+import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheSizeEstimator;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.ProjectCacheKey;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Profiles are never changed after they are written, so a profiler token is a stable cache key.
+ * Only requests with extracted collector values are stored, never the raw profile or html content.
+ * Every project has its own instance, which is released on project close
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ProfilerRequestCache {
+
+    private static final int MAXIMUM_SIZE = 100;
+
+    private static final ProjectCacheKey<ProfilerRequestCache> INSTANCE = ProjectCacheKey.create(
+        "ProfilerRequestCache",
+        project -> new ProfilerRequestCache(),
+        cache -> CacheSizeEstimator.OBJECT + cache.size() * (CacheSizeEstimator.MAP_ENTRY + CacheSizeEstimator.OBJECT)
+    );
+
+    private final Cache<String, ProfilerRequestInterface> cache = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .build();
+
+    @NotNull
+    public static ProfilerRequestCache getInstance(@NotNull Project project) {
+        return SymfonyProjectCacheService.getCache(project, INSTANCE);
+    }
+
+    /**
+     * @param source profiler index identifier, eg "index.csv" path or profiler base url; tokens are only unique per source
+     * @param token profile token "18e6b8"
+     */
+    @Nullable
+    public ProfilerRequestInterface getIfPresent(@NotNull String source, @NotNull String token) {
+        return cache.getIfPresent(createKey(source, token));
+    }
+
+    /**
+     * Only store requests which were completely extracted, a failed download or read must be retried on next run
+     */
+    public void put(@NotNull String source, @NotNull String token, @NotNull ProfilerRequestInterface request) {
+        cache.put(createKey(source, token), request);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @NotNull
+    private static String createKey(@NotNull String source, @NotNull String token) {
+        return source + "#" + token;
+    }
+}
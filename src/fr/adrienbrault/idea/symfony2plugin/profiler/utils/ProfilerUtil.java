@@ -1,20 +1,13 @@
 package fr.adrienbrault.idea.symfony2plugin.profiler.utils;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.intellij.lang.html.HTMLLanguage;
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
-import com.intellij.psi.PsiFileFactory;
-import com.intellij.psi.impl.source.html.HtmlFileImpl;
-import com.intellij.psi.util.PsiTreeUtil;
-import com.intellij.psi.xml.XmlTag;
-import com.intellij.psi.xml.XmlTagValue;
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.ExtractedDataCollector;
 import fr.adrienbrault.idea.symfony2plugin.profiler.collector.HttpDefaultDataCollector;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.HttpProfilerRequest;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
 import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -35,128 +28,168 @@ import java.util.stream.Collectors;
 public class ProfilerUtil {
 
     /**
-     * Cache for url content
+     * Http profiler urls already contain the token, so they are unique on their own
      */
-    private static Cache<String, String> REQUEST_CACHE = CacheBuilder.newBuilder()
-        .maximumSize(50)
-        .expireAfterWrite(5, TimeUnit.MINUTES)
-        .build();
-
-    private static Cache<String, ProfilerRequestInterface> PROFILER_REQUEST_CACHE = CacheBuilder.newBuilder()
-        .maximumSize(15)
-        .expireAfterWrite(5, TimeUnit.MINUTES)
-        .build();
+    private static final String PROFILER_CACHE_SOURCE = "http";
 
     /**
-     * Extract "table.search-results tbody tr td"
-     * We dont have complete xpath with html support inside so reuse internal html parser
+     * Extract "table#search-results tbody tr td"
      */
     @NotNull
-    public static Collection<ProfilerRequestInterface> createRequestsFromIndexHtml(@NotNull Project project, @NotNull String html, @NotNull String baseUrl) {
-        HtmlFileImpl htmlFile = (HtmlFileImpl) PsiFileFactory.getInstance(project).createFileFromText(HTMLLanguage.INSTANCE, html);
-
-        final XmlTag[] result = new XmlTag[1];
+    public static Collection<ProfilerRequestInterface> createRequestsFromIndexHtml(@NotNull String html, @NotNull String baseUrl) {
+        HtmlTagScanner scanner = new HtmlTagScanner(html);
 
         // find table
-        PsiTreeUtil.processElements(htmlFile, psiElement -> {
-            if(psiElement instanceof XmlTag && "table".equals(((XmlTag) psiElement).getName()) && "search-results".equals(((XmlTag) psiElement).getAttributeValue("id"))) {
-                result[0] = (XmlTag) psiElement;
-                return false;
+        int type;
+        while ((type = scanner.next()) != HtmlTagScanner.EOF) {
+            if(type == HtmlTagScanner.START_TAG && "table".equals(scanner.getTagName()) && "search-results".equals(scanner.getAttribute("id"))) {
+                break;
             }
-            return true;
-        });
-
-        if(result[0] == null) {
-            return Collections.emptyList();
-        }
-
-        // find table to be our keys for Map
-        XmlTag thead = result[0].findFirstSubTag("thead");
-        if(thead == null) {
-            return Collections.emptyList();
         }
 
-        XmlTag tr1 = thead.findFirstSubTag("tr");
-        if(tr1 == null) {
+        if(type == HtmlTagScanner.EOF) {
             return Collections.emptyList();
         }
 
+        // table header to be our keys for Map
         List<String> header = new ArrayList<>();
-        for (XmlTag th : tr1.findSubTags("th")) {
-            header.add(StringUtils.trim(stripHtmlTags(th.getValue().getText())).toLowerCase());
-        }
+        List<ProfilerRequestInterface> requests = new ArrayList<>();
 
-        // we need at least this fields
-        if(!header.containsAll(Arrays.asList("token", "url"))) {
-            return Collections.emptyList();
-        }
+        boolean inHead = false;
+        int depth = 0;
 
-        XmlTag tbody = result[0].findFirstSubTag("tbody");
-        if(tbody == null) {
-            return Collections.emptyList();
+        while ((type = scanner.next()) != HtmlTagScanner.EOF) {
+            if(scanner.isStartTag("table")) {
+                depth++;
+            } else if(scanner.isEndTag("table") && depth-- == 0) {
+                break;
+            } else if(depth > 0) {
+                continue;
+            }
+
+            if(scanner.isStartTag("thead")) {
+                inHead = true;
+            } else if(scanner.isEndTag("thead")) {
+                inHead = false;
+            } else if(inHead && scanner.isStartTag("th")) {
+                header.add(scanner.readElementText().toLowerCase());
+            } else if(!inHead && scanner.isStartTag("tr")) {
+                // we need at least this fields
+                if(!header.containsAll(Arrays.asList("token", "url"))) {
+                    return Collections.emptyList();
+                }
+
+                List<TableCell> cells = readRowCells(scanner);
+
+                // "td" elements dont match header "th"
+                if(cells.size() < header.size()) {
+                    continue;
+                }
+
+                // build row map with header keys
+                Map<String, TableCell> row = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    row.put(header.get(i), cells.get(i));
+                }
+
+                requests.add(createRequestFromRow(row, baseUrl));
+
+                // secure limit
+                if(requests.size() >= 10) {
+                    break;
+                }
+            }
         }
 
-        List<ProfilerRequestInterface> requests = new ArrayList<>();
-        for (XmlTag tr : tbody.findSubTags("tr")) {
+        return requests;
+    }
 
-            // secure limit
-            if(requests.size() >= 10) {
+    /**
+     * Cells of current "tr"; scanner is placed on the row end
+     */
+    @NotNull
+    private static List<TableCell> readRowCells(@NotNull HtmlTagScanner scanner) {
+        List<TableCell> cells = new ArrayList<>();
+
+        int type;
+        while ((type = scanner.next()) != HtmlTagScanner.EOF) {
+            if(scanner.isEndTag("tr")) {
                 break;
             }
 
-            // "td" elements dont match header "th"
-            XmlTag[] findSubTags = tr.findSubTags("td");
-            if(findSubTags.length < header.size()) {
+            if(type != HtmlTagScanner.START_TAG || !"td".equals(scanner.getTagName())) {
                 continue;
             }
 
-            // build row map with header keys
-            Map<String, Pair<XmlTag, String>> row = new HashMap<>();
-            for (int i = 0; i < findSubTags.length; i++) {
-                row.put(header.get(i), Pair.create(
-                    findSubTags[i],
-                    StringUtils.trim(stripHtmlTags(findSubTags[i].getText().replaceAll("\\n", " "))).replace("\\s+", " ")
-                ));
-            }
+            StringBuilder text = new StringBuilder();
+            String firstText = null;
+            String href = null;
 
-            // extract token link to be our linked profiler url
-            String profilerUrl = null;
-            XmlTag tokenLink = row.get("token").getFirst().findFirstSubTag("a");
-            if(tokenLink != null) {
-                String href = tokenLink.getAttributeValue("href");
-                if(StringUtils.isNotBlank(href)) {
-                    profilerUrl = StringUtils.stripEnd(baseUrl, "/") + href;
+            while ((type = scanner.next()) != HtmlTagScanner.EOF) {
+                if(scanner.isEndTag("td")) {
+                    break;
                 }
-            }
 
-            // extract status code
-            int statusCode = 0;
-            if(row.containsKey("status")) {
-                try {
-                    statusCode = Integer.valueOf(row.get("status").getSecond());
-                } catch (NumberFormatException ignored) {
+                // unclosed cell
+                if(scanner.isStartTag("td") || scanner.isEndTag("tr")) {
+                    scanner.pushBack();
+                    break;
+                }
+
+                if(type == HtmlTagScanner.TEXT) {
+                    CharSequence value = scanner.getText();
+                    text.append(value);
+
+                    if(firstText == null && StringUtils.isNotBlank(value.toString())) {
+                        firstText = HtmlTagScanner.normalizeWhitespace(value);
+                    }
+                } else if(href == null && scanner.isStartTag("a")) {
+                    href = scanner.getAttribute("href");
                 }
             }
 
-            requests.add(new HttpProfilerRequest(
-                statusCode,
-                row.get("token").getSecond(),
-                profilerUrl,
-                row.containsKey("method") ? row.get("method").getSecond() : "n/a",
-                row.get("url").getSecond()
-            ));
+            cells.add(new TableCell(HtmlTagScanner.normalizeWhitespace(text), firstText != null ? firstText : "", href));
         }
 
-        return requests;
+        return cells;
+    }
+
+    @NotNull
+    private static ProfilerRequestInterface createRequestFromRow(@NotNull Map<String, TableCell> row, @NotNull String baseUrl) {
+        // extract token link to be our linked profiler url
+        String profilerUrl = null;
+        String href = row.get("token").href;
+        if(StringUtils.isNotBlank(href)) {
+            profilerUrl = StringUtils.stripEnd(baseUrl, "/") + href;
+        }
+
+        // extract status code
+        int statusCode = 0;
+        if(row.containsKey("status")) {
+            try {
+                statusCode = Integer.valueOf(row.get("status").text);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        return new HttpProfilerRequest(
+            statusCode,
+            row.get("token").text,
+            profilerUrl,
+            row.containsKey("method") ? row.get("method").text : "n/a",
+            row.get("url").text
+        );
     }
 
     @NotNull
     public static Collection<ProfilerRequestInterface> collectHttpDataForRequest(@NotNull Project project, @NotNull Collection<ProfilerRequestInterface> requests) {
+        ProfilerRequestCache requestCache = ProfilerRequestCache.getInstance(project);
+
         Collection<Callable<ProfilerRequestInterface>> callable = requests.stream().map(
-            request -> new MyProfilerRequestDecoratedCollectorCallable(project, request)).collect(Collectors.toCollection(ArrayList::new)
+            request -> new MyProfilerRequestDecoratedCollectorCallable(requestCache, request)).collect(Collectors.toCollection(ArrayList::new)
         );
 
-        return getProfilerRequestCollectorDecorated(callable, 10);
+        return getProfilerRequestCollectorDecorated(callable);
     }
 
     /**
@@ -169,106 +202,112 @@ public class ProfilerUtil {
      * </tr>
      */
     @NotNull
-    public static Map<String, String> getRequestAttributes(@NotNull Project project, @NotNull String html) {
-        HtmlFileImpl htmlFile = (HtmlFileImpl) PsiFileFactory.getInstance(project).createFileFromText(HTMLLanguage.INSTANCE, html);
-
+    public static Map<String, String> getRequestAttributes(@NotNull String html) {
         String[] keys = new String[] {"_controller", "_route"};
 
         Map<String, String> map = new HashMap<>();
-        PsiTreeUtil.processElements(htmlFile, psiElement -> {
-            if(!(psiElement instanceof XmlTag) || !"th".equals(((XmlTag) psiElement).getName())) {
-                return true;
+
+        HtmlTagScanner scanner = new HtmlTagScanner(html);
+        while (scanner.next() != HtmlTagScanner.EOF) {
+            if(!scanner.isStartTag("th")) {
+                continue;
             }
 
-            XmlTagValue keyTag = ((XmlTag) psiElement).getValue();
-            String key = StringUtils.trim(keyTag.getText());
-            if(!ArrayUtils.contains(keys, key)) {
-                return true;
+            String key = scanner.readElementText();
+            if(!ArrayUtils.contains(keys, key) || map.containsKey(key)) {
+                continue;
+            }
+
+            // value must directly follow the key
+            int type = scanner.next();
+            while (type == HtmlTagScanner.TEXT && StringUtils.isBlank(scanner.getText().toString())) {
+                type = scanner.next();
             }
 
-            XmlTag tdTag = PsiTreeUtil.getNextSiblingOfType(psiElement, XmlTag.class);
-            if(tdTag == null || !"td".equals(tdTag.getName())) {
-                return true;
+            if(!scanner.isStartTag("td")) {
+                scanner.pushBack();
+                continue;
             }
 
-            XmlTagValue valueTag = tdTag.getValue();
-            String value = valueTag.getText();
+            String value = decodeDumpedString(scanner.readElementText());
             if(StringUtils.isBlank(value)) {
-                return true;
+                continue;
             }
 
-            // Symfony 3.2 profiler debug? strip html
-            map.put(key, stripHtmlTags(value));
+            map.put(key, value);
 
             // exit if all item found
-            return map.size() != keys.length;
-        });
+            if(map.size() == keys.length) {
+                break;
+            }
+        }
 
         return map;
     }
 
     /**
-     * ["foo/foo.html.twig": 1]
+     * ["foo/foo.html.twig": 1] in render order
      *
+     * <h2>Rendered Templates</h2>
+     * <table>
      * <tr>
      *  <td>@Twig/Exception/traces_text.html.twig</td>
      *  <td class="font-normal">1</td>
      * </tr>
      */
-    public static Map<String, Integer> getRenderedElementTwigTemplates(@NotNull Project project, @NotNull String html) {
-        HtmlFileImpl htmlFile = (HtmlFileImpl) PsiFileFactory.getInstance(project).createFileFromText(HTMLLanguage.INSTANCE, html);
-
-        final XmlTag[] xmlTag = new XmlTag[1];
-        PsiTreeUtil.processElements(htmlFile, psiElement -> {
-            if(!(psiElement instanceof XmlTag) || !"h2".equals(((XmlTag) psiElement).getName())) {
-                return true;
-            }
+    @NotNull
+    public static Map<String, Integer> getRenderedElementTwigTemplates(@NotNull String html) {
+        HtmlTagScanner scanner = new HtmlTagScanner(html);
 
-            XmlTagValue keyTag = ((XmlTag) psiElement).getValue();
-            String contents = StringUtils.trim(keyTag.getText());
-            if(!"Rendered Templates".equalsIgnoreCase(contents)) {
-                return true;
+        boolean found = false;
+        while (scanner.next() != HtmlTagScanner.EOF) {
+            if(scanner.isStartTag("h2") && "Rendered Templates".equalsIgnoreCase(scanner.readElementText())) {
+                found = true;
+                break;
             }
-
-            xmlTag[0] = (XmlTag) psiElement;
-
-            return true;
-        });
-
-        if(xmlTag[0] == null) {
-            return Collections.emptyMap();
         }
 
-        XmlTag tableTag = PsiTreeUtil.getNextSiblingOfType(xmlTag[0], XmlTag.class);
-        if(tableTag == null || !"table".equals(tableTag.getName())) {
+        if(!found) {
             return Collections.emptyMap();
         }
 
-        XmlTag tbody = tableTag.findFirstSubTag("tbody");
-        if(tbody == null) {
+        // table must be the next element
+        int type;
+        do {
+            type = scanner.next();
+        } while (type == HtmlTagScanner.TEXT);
+
+        if(!scanner.isStartTag("table")) {
             return Collections.emptyMap();
         }
 
-        Map<String, Integer> templates = new HashMap<>();
+        Map<String, Integer> templates = new LinkedHashMap<>();
 
-        for (XmlTag tag : PsiTreeUtil.getChildrenOfTypeAsList(tbody, XmlTag.class)) {
-            if(!"tr".equals(tag.getName())) {
+        boolean inBody = false;
+        while ((type = scanner.next()) != HtmlTagScanner.EOF && !scanner.isEndTag("table")) {
+            if(scanner.isStartTag("tbody")) {
+                inBody = true;
                 continue;
             }
 
-            XmlTag[] tds = tag.findSubTags("td");
-            if(tds.length < 2) {
+            if(!inBody || type != HtmlTagScanner.START_TAG || !"tr".equals(scanner.getTagName())) {
                 continue;
             }
 
-            String template = stripHtmlTags(StringUtils.trim(tds[0].getValue().getText()));
+            List<TableCell> tds = readRowCells(scanner);
+            if(tds.size() < 2) {
+                continue;
+            }
+
+            // Symfony 4 appends the template path below the name
+            String template = tds.get(0).firstText;
             if(StringUtils.isBlank(template)) {
                 continue;
             }
 
             Integer count;
             try {
-                count = Integer.valueOf(stripHtmlTags(StringUtils.trim(tds[1].getValue().getText())));
+                count = Integer.valueOf(tds.get(1).text);
             } catch (NumberFormatException e) {
                 count = 0;
             }
@@ -279,10 +318,19 @@ public class ProfilerUtil {
         return templates;
     }
 
+    /**
+     * Request attributes are dumped depending on Symfony version:
+     * plain text, json encoded '"foo\\bar"' (2.x) or VarDumper html '"foo\bar"' (3.x, 4.x)
+     */
     @NotNull
-    private static String stripHtmlTags(@NotNull String text)
-    {
-        return text.replaceAll("<[^>]*>", "");
+    private static String decodeDumpedString(@NotNull String value) {
+        String decoded = StringEscapeUtils.unescapeHtml(value);
+
+        if(decoded.length() > 1 && decoded.startsWith("\"") && decoded.endsWith("\"")) {
+            decoded = decoded.substring(1, decoded.length() - 1).replace("\\\\", "\\").replace("\\/", "/");
+        }
+
+        return decoded;
     }
 
     @Nullable
@@ -291,10 +339,13 @@ public class ProfilerUtil {
         try {
             conn = new URL(url).openConnection();
         } catch (IOException e) {
-            e.printStackTrace();
             return null;
         }
 
+        // slow or hanging dev server must not block the collecting run
+        conn.setConnectTimeout(ProfilerExecutor.CONNECT_TIMEOUT);
+        conn.setReadTimeout(ProfilerExecutor.READ_TIMEOUT);
+
         try {
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
                 return reader.lines().collect(Collectors.joining("\n"));
@@ -304,9 +355,35 @@ public class ProfilerUtil {
         }
     }
 
+    private static class TableCell {
+        /**
+         * Visible text with collapsed whitespace
+         */
+        @NotNull
+        private final String text;
+
+        /**
+         * First text node only, without content of following child elements
+         */
+        @NotNull
+        private final String firstText;
+
+        /**
+         * Target of first link
+         */
+        @Nullable
+        private final String href;
+
+        TableCell(@NotNull String text, @NotNull String firstText, @Nullable String href) {
+            this.text = text;
+            this.firstText = firstText;
+            this.href = href;
+        }
+    }
+
     private static class MyProfilerRequestDecoratedCollectorCallable implements Callable<ProfilerRequestInterface> {
         @NotNull
-        private final Project project;
+        private final ProfilerRequestCache requestCache;
 
         @NotNull
         private final ProfilerRequestInterface request;
@@ -314,92 +391,62 @@ public class ProfilerUtil {
         @NotNull
         private final String profilerUrl;
 
-        MyProfilerRequestDecoratedCollectorCallable(@NotNull Project project, @NotNull ProfilerRequestInterface request) {
-            this.project = project;
+        MyProfilerRequestDecoratedCollectorCallable(@NotNull ProfilerRequestCache requestCache, @NotNull ProfilerRequestInterface request) {
+            this.requestCache = requestCache;
             this.request = request;
             this.profilerUrl = request.getProfilerUrl();
         }
 
         @Override
         public ProfilerRequestInterface call() throws Exception {
-            ProfilerRequestInterface requestCache = PROFILER_REQUEST_CACHE.getIfPresent(profilerUrl);
-            if(requestCache != null) {
-                return requestCache;
+            ProfilerRequestInterface cached = requestCache.getIfPresent(PROFILER_CACHE_SOURCE, profilerUrl);
+            if(cached != null) {
+                return cached;
             }
 
+            String requestContent = ProfilerUtil.getProfilerUrlContent(profilerUrl + "?panel=request");
+            String twigContent = ProfilerUtil.getProfilerUrlContent(profilerUrl + "?panel=twig");
+
             ProfilerRequestInterface httpProfilerRequest = new HttpProfilerRequest(
                 request,
-                new HttpDefaultDataCollector(getRequestAttributes())
+                ExtractedDataCollector.create(new HttpDefaultDataCollector(getRequestAttributes(requestContent, twigContent)))
             );
 
-            PROFILER_REQUEST_CACHE.put(profilerUrl, httpProfilerRequest);
+            // retry unreachable panels on next run
+            if(requestContent != null && twigContent != null) {
+                requestCache.put(PROFILER_CACHE_SOURCE, profilerUrl, httpProfilerRequest);
+            }
 
             return httpProfilerRequest;
         }
 
         @NotNull
-        private Map<String, String> getRequestAttributes() {
+        private Map<String, String> getRequestAttributes(@Nullable String requestContent, @Nullable String twigContent) {
             Map<String, String> requestAttributes = new HashMap<>();
 
-            String requestContent = getUrlContent(profilerUrl + "?panel=request");
-            String twigContent = getUrlContent(profilerUrl + "?panel=twig");
-
             if(requestContent != null) {
-                ApplicationManager.getApplication().runReadAction(() -> {
-                    requestAttributes.putAll(ProfilerUtil.getRequestAttributes(project, requestContent));
-                });
+                requestAttributes.putAll(ProfilerUtil.getRequestAttributes(requestContent));
             }
 
+            // first rendered template is the main one
             if(twigContent != null) {
-                ApplicationManager.getApplication().runReadAction(() -> {
-                    Map<String, Integer> templates = getRenderedElementTwigTemplates(project, twigContent);
-                    if(templates.size() > 0) {
-                        requestAttributes.put("_template", templates.keySet().iterator().next());
-                    }
-                });
+                Map<String, Integer> templates = getRenderedElementTwigTemplates(twigContent);
+                if(templates.size() > 0) {
+                    requestAttributes.put("_template", templates.keySet().iterator().next());
+                }
             }
 
             return requestAttributes;
         }
-
-        private String getUrlContent(@NotNull String url) {
-            String contents = REQUEST_CACHE.getIfPresent(url);
-
-            if(contents == null) {
-                contents = ProfilerUtil.getProfilerUrlContent(url);
-                REQUEST_CACHE.put(url, contents);
-            }
-
-            return contents;
-        }
     }
 
     /**
      * Decorated request model with loaded collector data
-     * loads data on multiple thread to be as fast as possible
+     * loads data on multiple thread to be as fast as possible; canceled by current progress or after a deadline
      */
     @NotNull
-    public static List<ProfilerRequestInterface> getProfilerRequestCollectorDecorated(@NotNull Collection<Callable<ProfilerRequestInterface>> callable, int threads) {
-        ExecutorService executor = Executors.newFixedThreadPool(threads);
-
-        List<Future<ProfilerRequestInterface>> futures;
-        try {
-            futures = executor.invokeAll(callable);
-        } catch (InterruptedException e) {
-            return Collections.emptyList();
-        }
-
-        List<ProfilerRequestInterface> requests = new ArrayList<>();
-        for (Future<ProfilerRequestInterface> future : futures) {
-            try {
-                requests.add(future.get());
-            } catch (ExecutionException | InterruptedException ignored) {
-            }
-        }
-
-        executor.shutdown();
-
-        return requests;
+    public static List<ProfilerRequestInterface> getProfilerRequestCollectorDecorated(@NotNull Collection<Callable<ProfilerRequestInterface>> callable) {
+        return ProfilerExecutor.invokeAll(callable, ProgressManager.getInstance().getProgressIndicator());
     }
 
     /**
@@ -14,10 +14,10 @@ import com.intellij.openapi.wm.StatusBarWidget;
 import com.intellij.openapi.wm.impl.status.EditorBasedWidget;
 import com.intellij.ui.popup.PopupFactoryImpl;
 import com.intellij.util.Consumer;
+import fr.adrienbrault.idea.symfony2plugin.profiler.ProfilerFeedService;
 import fr.adrienbrault.idea.symfony2plugin.profiler.ProfilerIndexInterface;
 import fr.adrienbrault.idea.symfony2plugin.profiler.collector.DefaultDataCollectorInterface;
 import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
-import fr.adrienbrault.idea.symfony2plugin.profiler.factory.ProfilerFactoryUtil;
 import fr.adrienbrault.idea.symfony2plugin.profiler.widget.action.SymfonyProfilerWidgetActions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -37,6 +37,16 @@ public class SymfonyProfilerWidget extends EditorBasedWidget implements StatusBa
         return new SymfonyProfilerWidget(getProject());
     }
 
+    @Override
+    public void dispose() {
+        // hidden widget; next popup starts polling again
+        if(!getProject().isDisposed()) {
+            ProfilerFeedService.getInstance(getProject()).stop();
+        }
+
+        super.dispose();
+    }
+
     private enum ProfilerTarget {
         TEMPLATE, ROUTE, CONTROLLER
     }
@@ -45,13 +55,16 @@ public class SymfonyProfilerWidget extends EditorBasedWidget implements StatusBa
     public DefaultActionGroup getActions(){
         DefaultActionGroup actionGroup = new DefaultActionGroup(null, false);
 
-        ProfilerIndexInterface index = ProfilerFactoryUtil.createIndex(getProject());
+        // popup must open instantly; requests are collected in background and the next popup gets the update
+        ProfilerFeedService feed = ProfilerFeedService.getInstance(getProject());
+        List<ProfilerRequestInterface> requests = feed.getRequests();
+        feed.refreshAsync();
+
+        ProfilerIndexInterface index = feed.getIndex();
         if(index == null) {
             return actionGroup;
         }
 
-        List<ProfilerRequestInterface> requests = index.getRequests();
-
         Collection<AnAction> templateActions = new ArrayList<>();
         Map<String, Integer> templateActionsMap = new HashMap<>();
 
@@ -74,6 +87,13 @@ public class SymfonyProfilerWidget extends EditorBasedWidget implements StatusBa
                 attachProfileItem(controllerActions, controllerActionsMap, collector.getController(), ProfilerTarget.CONTROLLER);
             }
 
+            // profiler did not provide a route; url was matched by the feed in background
+            if(collector == null || collector.getRoute() == null) {
+                for (String routeName : feed.getRoutesForUrl(profilerRequest.getUrl())) {
+                    attachProfileItem(routeActions, routeActionsMap, routeName, ProfilerTarget.ROUTE);
+                }
+            }
+
             // @TODO: use collector
             //String content = profilerRequest.getContent();
             //if(content != null && content.contains("Swift_Mime_Headers_MailboxHeader")) {
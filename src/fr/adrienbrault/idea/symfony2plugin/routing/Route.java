@@ -1,5 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.routing;
 
+import com.intellij.util.containers.Interner;
 import fr.adrienbrault.idea.symfony2plugin.routing.dict.RouteInterface;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -10,32 +11,50 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
+ * Flyweight route: empty collections are shared, repeated strings like token types, requirements and variable names
+ * are interned and tokens are stored as read-only array views,
+ * because route tables with thousands of compiled and indexed routes are hold in memory during the whole session
+ *
  * @author Adrien Brault <adrien.brault@gmail.com>
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class Route implements RouteInterface {
 
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{(\\w+)}");
+
+    /**
+     * Only for parts which repeat over routes; names, paths and controllers are unique and would only grow the table
+     */
+    private static final Interner<String> INTERNER = new Interner<>();
+
     @NotNull
     final private String name;
 
     @NotNull
-    private Collection<String> methods = new HashSet<>();
+    private Collection<String> methods = Collections.emptySet();
     private String controller;
     private String path;
     private Set<String> pathCache;
 
-    private HashSet<String> variables = new HashSet<>();
-    private Map<String, String> defaults = new HashMap<>();
-    private Map<String, String> requirements = new HashMap<>();
-    private List<Collection<String>> tokens = new ArrayList<>();
+    @NotNull
+    private Set<String> variables = Collections.emptySet();
+
+    @NotNull
+    private Map<String, String> defaults = Collections.emptyMap();
+
+    @NotNull
+    private Map<String, String> requirements = Collections.emptyMap();
+
+    @NotNull
+    private List<Collection<String>> tokens = Collections.emptyList();
 
     public Route(@NotNull String name, @NotNull HashSet<String> variables, @NotNull Map<String, String> defaults, @NotNull Map<String, String> requirements, @NotNull List<Collection<String>> tokens) {
         this.name = name;
 
-        this.variables = variables;
-        this.defaults = defaults;
-        this.requirements = requirements;
-        this.tokens = tokens;
+        this.variables = compactSet(variables);
+        this.defaults = compactMap(defaults, false);
+        this.requirements = compactMap(requirements, true);
+        this.tokens = compactTokens(tokens);
 
         if(defaults.containsKey("_controller")) {
             String controller = defaults.get("_controller");
@@ -57,7 +76,7 @@ public class Route implements RouteInterface {
         this.name = routeInterface.getName();
         this.controller = routeInterface.getController();
         this.path = routeInterface.getPath();
-        this.methods = routeInterface.getMethods();
+        this.methods = compactSet(routeInterface.getMethods());
     }
 
     @NotNull
@@ -84,22 +103,28 @@ public class Route implements RouteInterface {
         // possible fallback
         // /hello/{foo}/{foo1}/bar
         Set<String> hashSet = new TreeSet<>();
-        Matcher matcher = Pattern.compile("\\{(\\w+)}").matcher(this.path);
+        Matcher matcher = PATH_VARIABLE.matcher(this.path);
         while(matcher.find()){
-            hashSet.add(matcher.group(1));
+            hashSet.add(intern(matcher.group(1)));
         }
 
-        return this.pathCache = hashSet;
+        return this.pathCache = hashSet.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(hashSet);
     }
 
+    @NotNull
     public Map<String, String> getDefaults() {
         return defaults;
     }
 
+    @NotNull
     public Map<String, String> getRequirements() {
         return requirements;
     }
 
+    /**
+     * Read-only view on the compiled route tokens, eg ["text", "/foo"] or ["variable", "/", "[^/]++", "id"]
+     */
+    @NotNull
     public List<Collection<String>> getTokens() {
         return tokens;
     }
@@ -114,4 +139,80 @@ public class Route implements RouteInterface {
     public Collection<String> getMethods() {
         return this.methods;
     }
+
+    @Nullable
+    private static String intern(@Nullable String string) {
+        if(string == null) {
+            return null;
+        }
+
+        synchronized (INTERNER) {
+            return INTERNER.intern(string);
+        }
+    }
+
+    @NotNull
+    private static Set<String> compactSet(@NotNull Collection<String> strings) {
+        if(strings.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        if(strings.size() == 1) {
+            return Collections.singleton(intern(strings.iterator().next()));
+        }
+
+        Set<String> set = new HashSet<>(strings.size() * 4 / 3 + 1);
+        for (String string : strings) {
+            set.add(intern(string));
+        }
+
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * @param internValues defaults values like controllers are mostly unique; requirements repeat
+     */
+    @NotNull
+    private static Map<String, String> compactMap(@NotNull Map<String, String> map, boolean internValues) {
+        if(map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        if(map.size() == 1) {
+            Map.Entry<String, String> entry = map.entrySet().iterator().next();
+            return Collections.singletonMap(intern(entry.getKey()), internValues ? intern(entry.getValue()) : entry.getValue());
+        }
+
+        Map<String, String> compact = new HashMap<>(map.size() * 4 / 3 + 1);
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            compact.put(intern(entry.getKey()), internValues ? intern(entry.getValue()) : entry.getValue());
+        }
+
+        return Collections.unmodifiableMap(compact);
+    }
+
+    /**
+     * Views are wrapped once here, so "getTokens" does not allocate per call.
+     * The path of a "text" token is unique to its route and not interned: ["text", "/foo"]
+     */
+    @NotNull
+    private static List<Collection<String>> compactTokens(@NotNull List<Collection<String>> tokens) {
+        if(tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Collection<String>> compact = new ArrayList<>(tokens.size());
+        for (Collection<String> token : tokens) {
+            String[] values = new String[token.size()];
+            int j = 0;
+            for (String value : token) {
+                values[j] = j == 1 && "text".equals(values[0]) ? value : intern(value);
+                j++;
+            }
+
+            compact.add(Collections.unmodifiableList(Arrays.asList(values)));
+        }
+
+        return Collections.unmodifiableList(compact);
+    }
 }
@@ -3,9 +3,13 @@ package fr.adrienbrault.idea.symfony2plugin.routing;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
 import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.extensions.ExtensionPointName;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -19,6 +23,7 @@ import com.intellij.psi.util.*;
 import com.intellij.psi.xml.XmlAttribute;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.psi.xml.XmlTag;
+import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.FileBasedIndexImpl;
@@ -32,6 +37,8 @@ import fr.adrienbrault.idea.symfony2plugin.Symfony2Icons;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.extension.RoutingLoader;
 import fr.adrienbrault.idea.symfony2plugin.extension.RoutingLoaderParameter;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricsSample;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.routing.dic.ControllerClassOnShortcutReturn;
 import fr.adrienbrault.idea.symfony2plugin.routing.dic.ServiceRouteContainer;
 import fr.adrienbrault.idea.symfony2plugin.routing.dict.RouteInterface;
@@ -45,6 +52,10 @@ import fr.adrienbrault.idea.symfony2plugin.util.AnnotationBackportUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import fr.adrienbrault.idea.symfony2plugin.util.SymfonyBundleUtil;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.BoundedCache;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheSizeEstimator;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.ProjectCacheKey;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
 import fr.adrienbrault.idea.symfony2plugin.util.controller.ControllerAction;
 import fr.adrienbrault.idea.symfony2plugin.util.controller.ControllerIndex;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.ServiceUtil;
@@ -58,14 +69,45 @@ import org.jetbrains.yaml.YAMLUtil;
 import org.jetbrains.yaml.psi.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 public class RouteHelper {
 
     private static final Key<CachedValue<Map<String, Route>>> ROUTE_CACHE = new Key<>("SYMFONY:ROUTE_CACHE");
+    private static final Key<CachedValue<RouteUrlMatcher>> ROUTE_URL_MATCHER_CACHE = new Key<>("SYMFONY:ROUTE_URL_MATCHER_CACHE");
 
-    public static Map<Project, Map<String, RoutesContainer>> COMPILED_CACHE = new HashMap<>();
+    /**
+     * Compiled routes per url generator file
+     */
+    private static final ProjectCacheKey<BoundedCache<String, RoutesContainer>> COMPILED_CACHE = ProjectCacheKey.createBounded(
+        "RouteHelper.COMPILED_CACHE",
+        container -> CacheSizeEstimator.map(container.getRoutes(), RouteHelper::estimateRouteSize)
+    );
+
+    /**
+     * Url generator files which are currently parsed in background
+     */
+    private static final ProjectCacheKey<Set<String>> COMPILED_REFRESHING = ProjectCacheKey.create(
+        "RouteHelper.COMPILED_REFRESHING",
+        project -> ContainerUtil.newConcurrentSet(),
+        set -> CacheSizeEstimator.OBJECT
+    );
+
+    /**
+     * Incremented when a background parsing of an url generator file is finished, so route caches
+     * which were built on outdated or empty compiled routes are rebuilt without waiting for a psi change
+     */
+    private static final ProjectCacheKey<SimpleModificationTracker> COMPILED_TRACKER = ProjectCacheKey.create(
+        "RouteHelper.COMPILED_TRACKER",
+        project -> new SimpleModificationTracker(),
+        tracker -> CacheSizeEstimator.OBJECT
+    );
 
     private static final ExtensionPointName<RoutingLoader> ROUTING_LOADER = new ExtensionPointName<>(
         "fr.adrienbrault.idea.symfony2plugin.extension.RoutingLoader"
@@ -100,9 +142,31 @@ public class RouteHelper {
             return new Route(route);
         }
 
+        RouteInterface annotationRoute = ContainerUtil.getFirstItem(FileBasedIndex.getInstance().getValues(AnnotationRoutesStubIndex.KEY, routeName, GlobalSearchScope.allScope(project)));
+        if(annotationRoute != null) {
+            return new Route(annotationRoute);
+        }
+
         return null;
     }
 
+    /**
+     * Route names without building the route table. Index keys are streamed, so removed routes and duplicates
+     * can be part of it; "getRoute" is null for them
+     *
+     * @return false if processor stopped
+     */
+    public static boolean processRouteNames(@NotNull Project project, @NotNull Processor<String> processor) {
+        for (String routeName : RouteHelper.getCompiledRoutes(project).keySet()) {
+            if(!processor.process(routeName)) {
+                return false;
+            }
+        }
+
+        return FileBasedIndex.getInstance().processAllKeys(RoutesStubIndex.KEY, processor, project) &&
+            FileBasedIndex.getInstance().processAllKeys(AnnotationRoutesStubIndex.KEY, processor, project);
+    }
+
     public static PsiElement[] getRouteParameterPsiElements(Project project, String routeName, String parameterName) {
 
         List<PsiElement> results = new ArrayList<>();
@@ -245,14 +309,6 @@ public class RouteHelper {
         return null;
     }
 
-    private static <E> ArrayList<E> makeCollection(Iterable<E> iter) {
-        ArrayList<E> list = new ArrayList<>();
-        for (E item : iter) {
-            list.add(item);
-        }
-        return list;
-    }
-
     private static String getPath(Project project, String path) {
         if (!FileUtil.isAbsolute(path)) { // Project relative path
             path = project.getBasePath() + "/" + path;
@@ -287,44 +343,27 @@ public class RouteHelper {
             Collections.addAll(files, Settings.DEFAULT_ROUTES);
         }
 
+        BoundedCache<String, RoutesContainer> projectCache = SymfonyProjectCacheService.getCache(project, COMPILED_CACHE);
+
+        Map<String, Route> routes = new HashMap<>();
+
         for(String file: files) {
 
             File urlGeneratorFile = new File(getPath(project, file));
-            VirtualFile virtualUrlGeneratorFile = VfsUtil.findFileByIoFile(urlGeneratorFile, false);
-            if (virtualUrlGeneratorFile == null || !urlGeneratorFile.exists()) {
+            if (!urlGeneratorFile.isFile()) {
 
                 // clean file cache
-                if(COMPILED_CACHE.containsKey(project) && COMPILED_CACHE.get(project).containsKey(file)) {
-                    COMPILED_CACHE.get(project).remove(file);
-                }
+                projectCache.invalidate(file);
 
             } else {
-
-                if(!COMPILED_CACHE.containsKey(project)) {
-                    COMPILED_CACHE.put(project, new HashMap<>());
-                }
-
-                Long routesLastModified = urlGeneratorFile.lastModified();
-                if(!COMPILED_CACHE.get(project).containsKey(file) || !COMPILED_CACHE.get(project).get(file).getLastMod().equals(routesLastModified)) {
-
-                    COMPILED_CACHE.get(project).put(file, new RoutesContainer(
-                        routesLastModified,
-                        RouteHelper.getRoutesInsideUrlGeneratorFile(project, virtualUrlGeneratorFile)
-                    ));
-
-                    Symfony2ProjectComponent.getLogger().info("update routing: " + urlGeneratorFile.toString());
+                RoutesContainer container = getCompiledRoutesContainer(project, projectCache, file, urlGeneratorFile);
+                if(container != null) {
+                    routes.putAll(container.getRoutes());
                 }
             }
 
         }
 
-        Map<String, Route> routes = new HashMap<>();
-        if(COMPILED_CACHE.containsKey(project)) {
-            for (RoutesContainer container : COMPILED_CACHE.get(project).values()) {
-                routes.putAll(container.getRoutes());
-            }
-        }
-
         RoutingLoaderParameter parameter = null;
 
         for (RoutingLoader routingLoader : ROUTING_LOADER.getExtensions()) {
@@ -338,176 +377,94 @@ public class RouteHelper {
         return routes;
     }
 
-    @NotNull
-    public static Map<String, Route> getRoutesInsideUrlGeneratorFile(@NotNull Project project, @NotNull VirtualFile virtualFile) {
-        PsiFile psiFile = PsiElementUtils.virtualFileToPsiFile(project, virtualFile);
-        if(!(psiFile instanceof PhpFile)) {
-            return Collections.emptyMap();
-        }
-
-        return getRoutesInsideUrlGeneratorFile(psiFile);
-    }
-
-
     /**
-     * Temporary or remote files dont support "isInstanceOf", check for string implementation first
+     * Up-to-date check is done on file size and modification time; parsing is never done on the event dispatch thread.
+     * If there is an outdated result the refresh runs in background and the outdated routes are returned meanwhile,
+     * so completion and highlighting threads are not blocked by huge url generator files
      */
-    private static boolean isRouteClass(@NotNull PhpClass phpClass) {
-        for (ClassReference classReference : phpClass.getExtendsList().getReferenceElements()) {
-            String fqn = classReference.getFQN();
-            if(fqn != null && StringUtils.stripStart(fqn, "\\").equalsIgnoreCase("Symfony\\Component\\Routing\\Generator\\UrlGenerator")) {
-                return true;
-            }
-        }
-
-        for (PhpClass phpInterface : phpClass.getImplementedInterfaces()) {
-            String fqn = phpInterface.getFQN();
-            if( StringUtils.stripStart(fqn, "\\").equalsIgnoreCase("Symfony\\Component\\Routing\\Generator\\UrlGeneratorInterface")) {
-                return true;
-            }
-        }
-
-        return PhpElementsUtil.isInstanceOf(phpClass, "\\Symfony\\Component\\Routing\\Generator\\UrlGeneratorInterface");
-    }
-
-    @NotNull
-    public static Map<String, Route> getRoutesInsideUrlGeneratorFile(@NotNull PsiFile psiFile) {
-
-        Map<String, Route> routes = new HashMap<>();
-
-        // heavy stuff here, to get nested routing array :)
-        // list($variables, $defaults, $requirements, $tokens, $hostTokens)
-        Collection<PhpClass> phpClasses = PsiTreeUtil.findChildrenOfType(psiFile, PhpClass.class);
-        for(PhpClass phpClass: phpClasses) {
-            if(!isRouteClass(phpClass)) {
-                continue;
-            }
-
-            // Symfony < 2.8
-            // static private $declaredRoutes = array(...)
-            for(Field field: phpClass.getFields()) {
-                if(!field.getName().equals("declaredRoutes")) {
-                    continue;
-                }
+    @Nullable
+    private static RoutesContainer getCompiledRoutesContainer(@NotNull Project project, @NotNull BoundedCache<String, RoutesContainer> projectCache, @NotNull String file, @NotNull File urlGeneratorFile) {
+        long lastModified = urlGeneratorFile.lastModified();
+        long size = urlGeneratorFile.length();
 
-                PsiElement defaultValue = field.getDefaultValue();
-                if(!(defaultValue instanceof ArrayCreationExpression)) {
-                    continue;
-                }
+        Predicate<RoutesContainer> isValid = c -> c.getLastMod() == lastModified && c.getSize() == size;
 
-                collectRoutesOnArrayCreation(routes, (ArrayCreationExpression) defaultValue);
-            }
+        RoutesContainer container = projectCache.get(file);
+        if(container != null && isValid.test(container)) {
+            return container;
+        }
 
-            // Symfony >= 2.8
-            // if (null === self::$declaredRoutes) {
-            //   self::$declaredRoutes = array()
-            // }
-            Method constructor = phpClass.getConstructor();
-            if(constructor == null) {
-                continue;
-            }
+        RoutesContainer outdated = container;
 
-            for (FieldReference fieldReference : PsiTreeUtil.collectElementsOfType(constructor, FieldReference.class)) {
-                String canonicalText = fieldReference.getCanonicalText();
-                if(!"declaredRoutes".equals(canonicalText)) {
-                    continue;
-                }
+        // single-flight per file: concurrent callers wait for the same parsing result,
+        // other files and projects are not blocked
+        Runnable refresh = () -> projectCache.get(file, isValid, key -> {
+            Symfony2ProjectComponent.getLogger().info("update routing: " + urlGeneratorFile.toString());
+            return createRoutesContainer(urlGeneratorFile, outdated);
+        });
 
-                PsiElement assignExpression = fieldReference.getParent();
-                if(!(assignExpression instanceof AssignmentExpression)) {
-                    continue;
-                }
+        Application application = ApplicationManager.getApplication();
+        if(application.isUnitTestMode() || (outdated == null && !application.isDispatchThread())) {
+            refresh.run();
+            return projectCache.get(file);
+        }
 
-                PhpPsiElement value = ((AssignmentExpression) assignExpression).getValue();
-                if(!(value instanceof ArrayCreationExpression)) {
-                    continue;
+        Set<String> refreshing = SymfonyProjectCacheService.getCache(project, COMPILED_REFRESHING);
+        if(refreshing.add(file)) {
+            application.executeOnPooledThread(() -> {
+                try {
+                    refresh.run();
+                } finally {
+                    refreshing.remove(file);
+                    SymfonyProjectCacheService.getCache(project, COMPILED_TRACKER).incModificationCount();
                 }
-
-                collectRoutesOnArrayCreation(routes, (ArrayCreationExpression) value);
-            }
+            });
         }
 
-        return routes;
-    }
-
-    /**
-     * Collects routes in:
-     *
-     * array(
-     *  _wdt' => array(..)
-     * }
-     *
-     */
-    private static void collectRoutesOnArrayCreation(@NotNull Map<String, Route> routes, @NotNull ArrayCreationExpression defaultValue) {
-        for(ArrayHashElement arrayHashElement: defaultValue.getHashElements()) {
-            PsiElement hashKey = arrayHashElement.getKey();
-            if(!(hashKey instanceof StringLiteralExpression)) {
-                continue;
-            }
-
-            String routeName = ((StringLiteralExpression) hashKey).getContents();
-            if(!isProductionRouteName(routeName)) {
-                continue;
-            }
-
-            routeName = convertLanguageRouteName(routeName);
-            PsiElement hashValue = arrayHashElement.getValue();
-            if(hashValue instanceof ArrayCreationExpression) {
-                routes.put(routeName, convertRouteConfig(routeName, (ArrayCreationExpression) hashValue));
-            }
-        }
+        return outdated;
     }
 
-    private static Route convertRouteConfig(String routeName, ArrayCreationExpression hashValue) {
-        List<ArrayHashElement> hashElementCollection = makeCollection(hashValue.getHashElements());
+    @NotNull
+    private static RoutesContainer createRoutesContainer(@NotNull File urlGeneratorFile, @Nullable RoutesContainer outdated) {
+        // file time before reading content, so a concurrent write is detected on next run
+        long lastModified = urlGeneratorFile.lastModified();
 
-        HashSet<String> variables = new HashSet<>();
-        if(hashElementCollection.size() >= 1 && hashElementCollection.get(0).getValue() instanceof ArrayCreationExpression) {
-            variables.addAll(PhpElementsUtil.getArrayKeyValueMap((ArrayCreationExpression) hashElementCollection.get(0).getValue()).values());
+        byte[] content;
+        try {
+            content = Files.readAllBytes(urlGeneratorFile.toPath());
+        } catch (IOException e) {
+            return new RoutesContainer(lastModified, urlGeneratorFile.length(), -1, Collections.emptyMap());
         }
 
-        HashMap<String, String> defaults = new HashMap<>();
-        if(hashElementCollection.size() >= 2 && hashElementCollection.get(1).getValue() instanceof ArrayCreationExpression) {
-            defaults = PhpElementsUtil.getArrayKeyValueMap((ArrayCreationExpression) hashElementCollection.get(1).getValue());
-        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        long hash = crc32.getValue();
 
-        HashMap<String, String>requirements = new HashMap<>();
-        if(hashElementCollection.size() >= 3 && hashElementCollection.get(2).getValue() instanceof ArrayCreationExpression) {
-            requirements = PhpElementsUtil.getArrayKeyValueMap((ArrayCreationExpression) hashElementCollection.get(2).getValue());
+        // file was only touched eg on cache warmup
+        if(outdated != null && outdated.getHash() == hash && outdated.getSize() == content.length) {
+            return new RoutesContainer(lastModified, content.length, hash, outdated.getRoutes());
         }
 
-        ArrayList<Collection<String>> tokens = new ArrayList<>();
-        if(hashElementCollection.size() >= 4 && hashElementCollection.get(3).getValue() instanceof ArrayCreationExpression) {
-            ArrayCreationExpression tokenArray = (ArrayCreationExpression) hashElementCollection.get(3).getValue();
-            if(tokenArray != null) {
-                for(ArrayHashElement tokenArrayConfig: tokenArray.getHashElements()) {
-                    if(tokenArrayConfig.getValue() instanceof ArrayCreationExpression) {
-                        HashMap<String, String> arrayKeyValueMap = PhpElementsUtil.getArrayKeyValueMap((ArrayCreationExpression) tokenArrayConfig.getValue());
-                        tokens.add(arrayKeyValueMap.values());
-                    }
-                }
-            }
-
-        }
-
-        // hostTokens = 4 need them?
-        return new Route(routeName, variables, defaults, requirements, tokens);
-    }
-
-    private static boolean isProductionRouteName(String routeName) {
-        return !routeName.matches("_assetic_[0-9a-z]+[_\\d+]*");
+        return new RoutesContainer(
+            lastModified,
+            content.length,
+            hash,
+            UrlGeneratorRouteParser.parse(new String(content, StandardCharsets.UTF_8))
+        );
     }
 
-    /**
-     * support I18nRoutingBundle
-     */
-    private static String convertLanguageRouteName(String routeName) {
-
-        if(routeName.matches("^[a-z]{2}__RG__.*$")) {
-            routeName = routeName.replaceAll("^[a-z]{2}+__RG__", "");
+    @NotNull
+    public static Map<String, Route> getRoutesInsideUrlGeneratorFile(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+        try {
+            return UrlGeneratorRouteParser.parse(VfsUtil.loadText(virtualFile));
+        } catch (IOException e) {
+            return Collections.emptyMap();
         }
+    }
 
-        return routeName;
+    @NotNull
+    public static Map<String, Route> getRoutesInsideUrlGeneratorFile(@NotNull PsiFile psiFile) {
+        return UrlGeneratorRouteParser.parse(psiFile.getViewProvider().getContents());
     }
 
     /**
@@ -860,12 +817,14 @@ public class RouteHelper {
             // copy, we are not allowed to mod list
             List<String> list = new ArrayList<>(token);
 
-            if(list.size() >= 2 && list.get(1).equals("text")) {
-                url = url.concat(list.get(0));
+            // ["text", "/foo"]
+            if(list.size() >= 2 && list.get(0).equals("text")) {
+                url = url.concat(list.get(1));
             }
 
-            if(list.size() >= 4 && list.get(3).equals("variable")) {
-                url = url.concat(list.get(2) + "{" + list.get(0) + "}");
+            // ["variable", "/", "[^/]++", "id"]
+            if(list.size() >= 4 && list.get(0).equals("variable")) {
+                url = url.concat(list.get(1) + "{" + list.get(3) + "}");
             }
 
         }
@@ -930,18 +889,59 @@ public class RouteHelper {
     }
 
     @NotNull
-    synchronized public static Map<String, Route> getAllRoutes(final @NotNull Project project) {
-
-        CachedValue<Map<String, Route>> cache = project.getUserData(ROUTE_CACHE);
-        if (cache == null) {
-            cache = CachedValuesManager.getManager(project).createCachedValue(() ->
-                CachedValueProvider.Result.create(getAllRoutesProxy(project), PsiModificationTracker.MODIFICATION_COUNT),
+    public static Map<String, Route> getAllRoutes(final @NotNull Project project) {
+        MetricsSample sample = SymfonyMetricsService.startLookup(project, "RouteHelper.getAllRoutes");
+
+        try {
+            return CachedValuesManager.getManager(project).getCachedValue(
+                project,
+                ROUTE_CACHE,
+                () -> {
+                    MetricsSample.computed();
+                    return CachedValueProvider.Result.create(
+                        getAllRoutesProxy(project),
+                        PsiModificationTracker.MODIFICATION_COUNT,
+                        getCompiledRoutesTracker(project)
+                    );
+                },
                 false
             );
-            project.putUserData(ROUTE_CACHE, cache);
+        } finally {
+            sample.stop();
         }
+    }
 
-        return cache.getValue();
+    /**
+     * Dependency for caches which are built on compiled routes; changes when a background parsing is finished
+     */
+    @NotNull
+    public static ModificationTracker getCompiledRoutesTracker(@NotNull Project project) {
+        return SymfonyProjectCacheService.getCache(project, COMPILED_TRACKER);
+    }
+
+    /**
+     * Url to route matcher on all known routes; invalidated together with route table
+     */
+    @NotNull
+    public static RouteUrlMatcher getRouteUrlMatcher(final @NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(
+            project,
+            ROUTE_URL_MATCHER_CACHE,
+            () -> CachedValueProvider.Result.create(
+                new RouteUrlMatcher(getAllRoutes(project).values()),
+                PsiModificationTracker.MODIFICATION_COUNT,
+                getCompiledRoutesTracker(project)
+            ),
+            false
+        );
+    }
+
+    /**
+     * "http://localhost/app_dev.php/api/orders/1" => "api_order"
+     */
+    @NotNull
+    public static List<Route> getRoutesForUrl(@NotNull Project project, @NotNull String url) {
+        return getRouteUrlMatcher(project).match(url);
     }
 
     @NotNull
@@ -983,6 +983,16 @@ public class RouteHelper {
         return routes;
     }
 
+    private static long estimateRouteSize(@NotNull Route route) {
+        return CacheSizeEstimator.OBJECT
+            + CacheSizeEstimator.string(route.getName())
+            + CacheSizeEstimator.string(route.getController())
+            + CacheSizeEstimator.string(route.getPath())
+            + CacheSizeEstimator.strings(route.getMethods())
+            + CacheSizeEstimator.stringMap(route.getDefaults())
+            + CacheSizeEstimator.stringMap(route.getRequirements());
+    }
+
     @NotNull
     private static String normalizeRouteController(@NotNull String string) {
         return string.replace("/", "\\");
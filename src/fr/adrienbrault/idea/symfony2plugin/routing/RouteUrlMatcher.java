@@ -0,0 +1,270 @@
+package fr.adrienbrault.idea.symfony2plugin.routing;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Finds routes for a request url, eg out of profiler rows or pasted urls.
+ *
+ * Routes are stored in a trie of their static path prefix "/api/v2/orders/"; on matching only the routes along
+ * the path walk are candidates, which are then checked against a pattern build out of tokens and requirements.
+ * So lookup cost depends on path length and not on the size of the route table
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class RouteUrlMatcher {
+
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{(\\w+)}");
+    private static final Pattern FRONT_CONTROLLER = Pattern.compile("^/?[\\w-]+\\.php(/|$)");
+    private static final String DEFAULT_REQUIREMENT = "[^/]++";
+
+    @NotNull
+    private final Node root = new Node();
+
+    public RouteUrlMatcher(@NotNull Collection<Route> routes) {
+        for (Route route : routes) {
+            add(route);
+        }
+    }
+
+    /**
+     * @param url absolute url or path: "http://localhost/app_dev.php/api/orders/1?foo=bar", "/api/orders/1"
+     * @return matching routes, more specific static prefix first
+     */
+    @NotNull
+    public List<Route> match(@NotNull String url) {
+        String path = getPath(url);
+
+        List<Route> routes = new ArrayList<>();
+
+        Node node = root;
+        collect(node, path, routes);
+
+        for (int i = 0; i < path.length() && node != null; i++) {
+            node = node.children.get(path.charAt(i));
+            if(node != null) {
+                collect(node, path, routes);
+            }
+        }
+
+        return routes;
+    }
+
+    /**
+     * Deeper nodes have a longer static prefix, so their routes are prepended
+     */
+    private void collect(@NotNull Node node, @NotNull String path, @NotNull List<Route> routes) {
+        int index = 0;
+        for (Entry entry : node.entries) {
+            if(entry.pattern.matcher(path).matches()) {
+                routes.add(index++, entry.route);
+            }
+        }
+    }
+
+    private void add(@NotNull Route route) {
+        List<String[]> tokens = getPathTokens(route);
+        if(tokens == null) {
+            return;
+        }
+
+        StringBuilder prefix = new StringBuilder();
+        StringBuilder regex = new StringBuilder();
+
+        boolean isStatic = true;
+        int optional = 0;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String[] token = tokens.get(i);
+
+            if("text".equals(token[0])) {
+                if(isStatic) {
+                    prefix.append(token[1]);
+                }
+
+                regex.append(Pattern.quote(token[1]));
+                continue;
+            }
+
+            String variable = token[3];
+            String requirement = normalizeRequirement(route.getRequirements().containsKey(variable) ? route.getRequirements().get(variable) : token[2]);
+
+            // trailing variables with defaults are optional: "/blog/{page}"
+            if(isOptionalVariable(route, tokens, i)) {
+                regex.append("(?:");
+                optional++;
+            }
+
+            if(StringUtils.isNotBlank(token[1])) {
+                regex.append(Pattern.quote(token[1]));
+            }
+
+            regex.append("(").append(requirement).append(")");
+            isStatic = false;
+        }
+
+        for (int i = 0; i < optional; i++) {
+            regex.append(")?");
+        }
+
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex.toString());
+        } catch (PatternSyntaxException e) {
+            return;
+        }
+
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+        }
+
+        node.entries.add(new Entry(route, pattern));
+    }
+
+    /**
+     * Tokens in path order; compiled routes provide them in reverse order, indexed routes only know their path
+     */
+    @Nullable
+    private static List<String[]> getPathTokens(@NotNull Route route) {
+        List<Collection<String>> routeTokens = route.getTokens();
+
+        if(routeTokens.size() > 0) {
+            List<String[]> tokens = new ArrayList<>();
+
+            for (Collection<String> routeToken : routeTokens) {
+                String[] token = routeToken.toArray(new String[routeToken.size()]);
+                if(token.length >= 2 && "text".equals(token[0])) {
+                    tokens.add(token);
+                } else if(token.length >= 4 && "variable".equals(token[0])) {
+                    tokens.add(token);
+                }
+            }
+
+            Collections.reverse(tokens);
+            return tokens;
+        }
+
+        String path = route.getPath();
+        if(path == null) {
+            return null;
+        }
+
+        // "/hello/{name}" => ["text", "/hello"], ["variable", "/", "[^/]++", "name"]
+        List<String[]> tokens = new ArrayList<>();
+
+        int start = 0;
+        Matcher matcher = PATH_VARIABLE.matcher(path);
+        while (matcher.find()) {
+            String text = path.substring(start, matcher.start());
+
+            String separator = "";
+            if(text.endsWith("/") || text.endsWith(".") || text.endsWith("-")) {
+                separator = text.substring(text.length() - 1);
+                text = text.substring(0, text.length() - 1);
+            }
+
+            if(text.length() > 0) {
+                tokens.add(new String[] {"text", text});
+            }
+
+            // "{name}.{_format}": variable must stop on next separator
+            String requirement = DEFAULT_REQUIREMENT;
+            if(matcher.end() < path.length() && "-.".indexOf(path.charAt(matcher.end())) >= 0) {
+                requirement = "[^/" + path.charAt(matcher.end()) + "]++";
+            }
+
+            tokens.add(new String[] {"variable", separator, requirement, matcher.group(1)});
+            start = matcher.end();
+        }
+
+        if(start < path.length()) {
+            tokens.add(new String[] {"text", path.substring(start)});
+        }
+
+        return tokens;
+    }
+
+    private static boolean isOptionalVariable(@NotNull Route route, @NotNull List<String[]> tokens, int index) {
+        for (int i = index; i < tokens.size(); i++) {
+            String[] token = tokens.get(i);
+            if(!"variable".equals(token[0]) || !route.getDefaults().containsKey(token[3])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compiled requirements are php single quoted string contents: ".[a-zA-Z0-9\\-]+"
+     */
+    @NotNull
+    private static String normalizeRequirement(@Nullable String requirement) {
+        if(StringUtils.isBlank(requirement)) {
+            return DEFAULT_REQUIREMENT;
+        }
+
+        return requirement.replace("\\\\", "\\").replace("\\'", "'");
+    }
+
+    /**
+     * Strip scheme, host, query, fragment and front controller
+     */
+    @NotNull
+    public static String getPath(@NotNull String url) {
+        String path = url.trim();
+
+        int schemeEnd = path.indexOf("://");
+        if(schemeEnd > 0) {
+            int pathStart = path.indexOf('/', schemeEnd + 3);
+            path = pathStart < 0 ? "/" : path.substring(pathStart);
+        }
+
+        for (char c : new char[] {'?', '#'}) {
+            int end = path.indexOf(c);
+            if(end >= 0) {
+                path = path.substring(0, end);
+            }
+        }
+
+        // "/app_dev.php/foo", "/index.php/foo"
+        Matcher matcher = FRONT_CONTROLLER.matcher(path);
+        if(matcher.find()) {
+            path = path.substring(matcher.end() - matcher.group(1).length());
+        }
+
+        if(!path.startsWith("/")) {
+            path = "/" + path;
+        }
+
+        return path;
+    }
+
+    private static class Node {
+        @NotNull
+        private final Map<Character, Node> children = new HashMap<>(4);
+
+        @NotNull
+        private final List<Entry> entries = new ArrayList<>(1);
+    }
+
+    private static class Entry {
+        @NotNull
+        private final Route route;
+
+        @NotNull
+        private final Pattern pattern;
+
+        private Entry(@NotNull Route route, @NotNull Pattern pattern) {
+            this.route = route;
+            this.pattern = pattern;
+        }
+    }
+}
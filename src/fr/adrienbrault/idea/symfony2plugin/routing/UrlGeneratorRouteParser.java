@@ -0,0 +1,252 @@
+package fr.adrienbrault.idea.symfony2plugin.routing;
+
+import fr.adrienbrault.idea.symfony2plugin.util.PhpArrayLexer;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming parser for "declaredRoutes" of a compiled url generator "appDevUrlGenerator.php"; Symfony 2.x and 3.x.
+ * Routes are created directly out of the token stream, only one route config is hold in memory at a time
+ *
+ * Symfony < 2.8: static private $declaredRoutes = array(...)
+ * Symfony >= 2.8: self::$declaredRoutes = array(...)
+ *
+ * '_wdt' => array(
+ *   0 => array(...variables),
+ *   1 => array(...defaults),
+ *   2 => array(...requirements),
+ *   3 => array(array(...token), ...),
+ *   4 => array(...hostTokens),
+ * ),
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class UrlGeneratorRouteParser {
+
+    private static final Pattern ASSETIC_ROUTE = Pattern.compile("_assetic_[0-9a-z]+[_\\d+]*");
+    private static final Pattern I18N_ROUTE = Pattern.compile("^[a-z]{2}+__RG__");
+
+    @NotNull
+    private final PhpArrayLexer lexer;
+
+    private UrlGeneratorRouteParser(@NotNull CharSequence content) {
+        // string contents are kept escaped same as the former psi "getContents" implementation
+        this.lexer = new PhpArrayLexer(content, true);
+    }
+
+    @NotNull
+    public static Map<String, Route> parse(@NotNull CharSequence content) {
+        Map<String, Route> routes = new HashMap<>();
+        new UrlGeneratorRouteParser(content).parse(routes);
+        return routes;
+    }
+
+    private void parse(@NotNull Map<String, Route> routes) {
+        while (lexer.next() != PhpArrayLexer.EOF) {
+            if(lexer.getTokenType() != PhpArrayLexer.VARIABLE || !"declaredRoutes".equals(lexer.getTokenText())) {
+                continue;
+            }
+
+            if(lexer.next() != PhpArrayLexer.OTHER || !"=".equals(lexer.getTokenText()) || !lexer.nextIsArrayOpen()) {
+                continue;
+            }
+
+            parseRoutes(routes);
+        }
+    }
+
+    private void parseRoutes(@NotNull Map<String, Route> routes) {
+        while (true) {
+            int type = lexer.next();
+            if(type == PhpArrayLexer.EOF || type == PhpArrayLexer.CLOSE) {
+                return;
+            }
+
+            if(type == PhpArrayLexer.OPEN) {
+                lexer.pushBack();
+                lexer.skipValue();
+                continue;
+            }
+
+            String routeName = lexer.getTokenText();
+            if(type != PhpArrayLexer.STRING || routeName == null) {
+                continue;
+            }
+
+            if(lexer.next() != PhpArrayLexer.ARROW) {
+                lexer.pushBack();
+                continue;
+            }
+
+            if(!lexer.nextIsArrayOpen()) {
+                lexer.pushBack();
+                lexer.skipValue();
+                continue;
+            }
+
+            if(!isProductionRouteName(routeName)) {
+                lexer.pushBack();
+                lexer.skipValue();
+                continue;
+            }
+
+            routeName = convertLanguageRouteName(routeName);
+            routes.put(routeName, createRoute(routeName, readArray()));
+        }
+    }
+
+    /**
+     * Reads array elements after its opening bracket; keys without "=>" are indexed.
+     * Values are String for string literals, Map for nested arrays and null for any other expression
+     */
+    @NotNull
+    private Map<String, Object> readArray() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        int index = 0;
+
+        while (true) {
+            int type = lexer.next();
+            if(type == PhpArrayLexer.EOF || type == PhpArrayLexer.CLOSE) {
+                return values;
+            }
+
+            if(type == PhpArrayLexer.COMMA) {
+                continue;
+            }
+
+            String keyText = lexer.getTokenText();
+            Object value = readValue(type);
+
+            String key;
+            int next = lexer.next();
+            if(next == PhpArrayLexer.ARROW && keyText != null) {
+                key = keyText;
+                value = readValue(lexer.next());
+                next = lexer.next();
+            } else {
+                key = String.valueOf(index++);
+            }
+
+            values.put(key, value);
+
+            if(next == PhpArrayLexer.EOF || next == PhpArrayLexer.CLOSE) {
+                return values;
+            }
+
+            if(next != PhpArrayLexer.COMMA) {
+                lexer.pushBack();
+                lexer.skipValue();
+            }
+        }
+    }
+
+    @Nullable
+    private Object readValue(int type) {
+        if(type == PhpArrayLexer.STRING) {
+            return lexer.getTokenText();
+        }
+
+        if(type == PhpArrayLexer.OPEN && "[".equals(lexer.getTokenText())) {
+            return readArray();
+        }
+
+        if(type == PhpArrayLexer.IDENTIFIER && "array".equalsIgnoreCase(lexer.getTokenText())) {
+            if(lexer.next() == PhpArrayLexer.OPEN) {
+                return readArray();
+            }
+
+            lexer.pushBack();
+        }
+
+        return null;
+    }
+
+    @NotNull
+    private static Route createRoute(@NotNull String routeName, @NotNull Map<String, Object> config) {
+        List<Object> parts = new ArrayList<>(config.values());
+
+        HashSet<String> variables = new HashSet<>();
+        if(parts.size() >= 1 && parts.get(0) instanceof Map) {
+            variables.addAll(getKeyValueMap(parts.get(0)).values());
+        }
+
+        HashMap<String, String> defaults = new HashMap<>();
+        if(parts.size() >= 2 && parts.get(1) instanceof Map) {
+            defaults = getKeyValueMap(parts.get(1));
+        }
+
+        HashMap<String, String> requirements = new HashMap<>();
+        if(parts.size() >= 3 && parts.get(2) instanceof Map) {
+            requirements = getKeyValueMap(parts.get(2));
+        }
+
+        ArrayList<Collection<String>> tokens = new ArrayList<>();
+        if(parts.size() >= 4 && parts.get(3) instanceof Map) {
+            for (Object token : ((Map) parts.get(3)).values()) {
+                if(token instanceof Map) {
+                    tokens.add(getStringValues(token));
+                }
+            }
+        }
+
+        // hostTokens = 4 need them?
+        return new Route(routeName, variables, defaults, requirements, tokens);
+    }
+
+    /**
+     * Non blank string values with non blank keys, same as PhpElementsUtil.getArrayKeyValueMap
+     */
+    @NotNull
+    private static HashMap<String, String> getKeyValueMap(@NotNull Object array) {
+        HashMap<String, String> keys = new HashMap<>();
+
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) array).entrySet()) {
+            Object value = entry.getValue();
+            String key = (String) entry.getKey();
+
+            if(StringUtils.isBlank(key) || !(value instanceof String) || StringUtils.isBlank((String) value)) {
+                continue;
+            }
+
+            keys.put(key, (String) value);
+        }
+
+        return keys;
+    }
+
+    /**
+     * Token values must keep their position: ["variable", "", "[^/]++", "id"]
+     */
+    @NotNull
+    private static List<String> getStringValues(@NotNull Object array) {
+        List<String> values = new ArrayList<>();
+
+        for (Object value : ((Map<?, ?>) array).values()) {
+            if(value instanceof String) {
+                values.add((String) value);
+            }
+        }
+
+        return values;
+    }
+
+    private static boolean isProductionRouteName(@NotNull String routeName) {
+        return !ASSETIC_ROUTE.matcher(routeName).matches();
+    }
+
+    /**
+     * support I18nRoutingBundle
+     */
+    @NotNull
+    private static String convertLanguageRouteName(@NotNull String routeName) {
+        if(routeName.length() > 6 && routeName.startsWith("__RG__", 2)) {
+            return I18N_ROUTE.matcher(routeName).replaceFirst("");
+        }
+
+        return routeName;
+    }
+}
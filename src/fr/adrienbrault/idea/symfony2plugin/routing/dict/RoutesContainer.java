@@ -8,6 +8,8 @@ import java.util.Map;
 public class RoutesContainer {
 
     private final Long lastMod;
+    private final long size;
+    private final long hash;
     private Map<String, Route> routes = new HashMap<>();
 
     public RoutesContainer(Long lastMod, Map<String, Route> routes) {
@@ -16,13 +18,36 @@ public class RoutesContainer {
     }
 
     public RoutesContainer(Long lastMod) {
+        this(lastMod, -1, -1);
+    }
+
+    /**
+     * @param size file size in bytes
+     * @param hash content checksum, so a touched but unchanged file dont need a new parsing run
+     */
+    public RoutesContainer(Long lastMod, long size, long hash, Map<String, Route> routes) {
+        this(lastMod, size, hash);
+        this.routes = routes;
+    }
+
+    private RoutesContainer(Long lastMod, long size, long hash) {
         this.lastMod = lastMod;
+        this.size = size;
+        this.hash = hash;
     }
 
     public Long getLastMod() {
         return lastMod;
     }
 
+    public long getSize() {
+        return size;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
     public Map<String, Route> getRoutes() {
         return routes;
     }
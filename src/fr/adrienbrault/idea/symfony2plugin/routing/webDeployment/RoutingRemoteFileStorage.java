@@ -5,17 +5,17 @@ import com.intellij.openapi.util.io.StreamUtil;
 import com.intellij.psi.PsiFileFactory;
 import com.intellij.util.containers.HashMap;
 import com.jetbrains.php.lang.PhpFileType;
-import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import fr.adrienbrault.idea.symfony2plugin.Settings;
 import fr.adrienbrault.idea.symfony2plugin.routing.Route;
-import fr.adrienbrault.idea.symfony2plugin.routing.RouteHelper;
+import fr.adrienbrault.idea.symfony2plugin.routing.UrlGeneratorRouteParser;
+import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileCache;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileStorageInterface;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.utils.RemoteWebServerUtil;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.vfs2.FileObject;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Map;
 
@@ -33,14 +33,14 @@ public class RoutingRemoteFileStorage implements RemoteFileStorageInterface<Map<
     }
 
     @Override
-    public void build(@NotNull Project project, @NotNull Collection<FileObject> fileObjects) {
+    public void build(@NotNull Project project, @NotNull Collection<RemoteFileCache.Entry> files) {
         Map<String, Route> routeMap = new HashMap<>();
 
-        for (FileObject file : fileObjects) {
+        for (RemoteFileCache.Entry file : files) {
 
             String content;
-            try {
-                content = StreamUtil.readText(file.getContent().getInputStream(), "UTF-8");
+            try (InputStream inputStream = file.openStream()) {
+                content = StreamUtil.readText(inputStream, "UTF-8");
             } catch (IOException e) {
                 continue;
             }
@@ -49,9 +49,7 @@ public class RoutingRemoteFileStorage implements RemoteFileStorageInterface<Map<
                 continue;
             }
 
-            routeMap.putAll(RouteHelper.getRoutesInsideUrlGeneratorFile(
-                PhpPsiElementFactory.createPsiFileFromText(project, content)
-            ));
+            routeMap.putAll(UrlGeneratorRouteParser.parse(content));
         }
 
         this.routeMap = routeMap;
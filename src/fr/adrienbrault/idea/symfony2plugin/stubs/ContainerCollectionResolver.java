@@ -5,6 +5,8 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValue;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.FileBasedIndexImpl;
 import fr.adrienbrault.idea.symfony2plugin.config.component.parser.ParameterServiceParser;
 import fr.adrienbrault.idea.symfony2plugin.dic.ContainerParameter;
@@ -41,6 +43,38 @@ public class ContainerCollectionResolver {
         return ServiceCollector.create(project).getNames();
     }
 
+    /**
+     * Service ids without collecting the container. Index keys are streamed, so removed definitions and duplicates
+     * can be part of it; callers resolving the name must handle a missing service
+     *
+     * @return false if processor stopped
+     */
+    public static boolean processServiceNames(@NotNull Project project, @NotNull Processor<String> processor) {
+
+        // local filesystem
+        for (String serviceName : ServiceXmlParserFactory.getInstance(project, XmlServiceParser.class).getServiceMap().getMap().keySet()) {
+            if(!processor.process(serviceName)) {
+                return false;
+            }
+        }
+
+        // Extension points
+        Collection<String> extensionNames = new ArrayList<>();
+        ServiceCollectorParameter.Id parameter = new ServiceCollectorParameter.Id(project, extensionNames);
+        for (fr.adrienbrault.idea.symfony2plugin.extension.ServiceCollector collectorEx : EXTENSIONS.getExtensions()) {
+            collectorEx.collectIds(parameter);
+        }
+
+        for (String serviceName : extensionNames) {
+            if(!processor.process(serviceName)) {
+                return false;
+            }
+        }
+
+        // index
+        return FileBasedIndex.getInstance().processAllKeys(ServicesDefinitionStubIndex.KEY, processor, project);
+    }
+
     public static boolean hasServiceNames(@NotNull Project project, @NotNull String serviceName) {
         // @TODO: we dont need a collection here; stop on first match
         return ServiceCollector.create(project).getNames().contains(serviceName);
@@ -5,7 +5,7 @@ import com.intellij.openapi.extensions.ExtensionPointName;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.NotNullLazyValue;
-import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
@@ -15,19 +15,24 @@ import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.xml.XmlFile;
-import com.intellij.util.indexing.FileBasedIndexImpl;
+import com.intellij.psi.xml.XmlTag;
+import com.intellij.util.indexing.FileBasedIndex;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import fr.adrienbrault.idea.symfony2plugin.config.xml.XmlHelper;
 import fr.adrienbrault.idea.symfony2plugin.dic.ClassServiceDefinitionTargetLazyValue;
 import fr.adrienbrault.idea.symfony2plugin.dic.ContainerService;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.SerializableService;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.ServiceSerializable;
 import fr.adrienbrault.idea.symfony2plugin.extension.ServiceDefinitionLocator;
 import fr.adrienbrault.idea.symfony2plugin.extension.ServiceDefinitionLocatorParameter;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesDefinitionStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.yaml.YAMLFileType;
 import org.jetbrains.yaml.psi.YAMLFile;
+import org.jetbrains.yaml.psi.YAMLKeyValue;
 
 import java.util.*;
 
@@ -39,43 +44,70 @@ public class ServiceIndexUtil {
         "fr.adrienbrault.idea.symfony2plugin.extension.ServiceDefinitionLocator"
     );
 
-    private static VirtualFile[] findServiceDefinitionFiles(@NotNull Project project, @NotNull String serviceName) {
+    /**
+     * Resolve service definition of an index value by its stored text range. Yaml service ids are case sensitive;
+     * old index values or a file changed after indexing fall back to visiting the file
+     */
+    @Nullable
+    private static PsiElement getServiceDefinitionTarget(@NotNull PsiFile psiFile, @NotNull ServiceSerializable service, @NotNull String serviceName) {
+        if(psiFile instanceof YAMLFile) {
+            if(!serviceName.equals(service.getId())) {
+                return null;
+            }
 
-        final List<VirtualFile> virtualFiles = new ArrayList<>();
+            PsiElement psiElement = getElementByIndexRange(psiFile, service);
+            if(psiElement instanceof YAMLKeyValue) {
+                return psiElement;
+            }
 
-        FileBasedIndexImpl.getInstance().getFilesWithKey(ServicesDefinitionStubIndex.KEY, new HashSet<>(Collections.singletonList(serviceName.toLowerCase())), virtualFile -> {
-            virtualFiles.add(virtualFile);
-            return true;
-        }, GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.allScope(project), XmlFileType.INSTANCE, YAMLFileType.YML));
+            return YamlHelper.getLocalServiceName(psiFile, serviceName);
+        }
 
-        return virtualFiles.toArray(new VirtualFile[virtualFiles.size()]);
+        if(psiFile instanceof XmlFile) {
+            PsiElement psiElement = getElementByIndexRange(psiFile, service);
+            if(psiElement instanceof XmlTag) {
+                return psiElement;
+            }
 
+            return XmlHelper.getLocalServiceName(psiFile, serviceName);
+        }
+
+        return null;
     }
 
-    public static List<PsiElement> findServiceDefinitions(@NotNull Project project, @NotNull String serviceName) {
+    @Nullable
+    private static PsiElement getElementByIndexRange(@NotNull PsiFile psiFile, @NotNull ServiceSerializable service) {
+        if(!(service instanceof SerializableService)) {
+            return null;
+        }
 
-        List<PsiElement> items = new ArrayList<>();
+        Integer startOffset = ((SerializableService) service).getStartOffset();
+        Integer endOffset = ((SerializableService) service).getEndOffset();
+        if(startOffset == null || endOffset == null) {
+            return null;
+        }
 
-        VirtualFile[] twigVirtualFiles = ServiceIndexUtil.findServiceDefinitionFiles(project, serviceName);
+        return PsiElementUtils.getElementByTextRange(psiFile, new TextRange(startOffset, endOffset));
+    }
 
-        for (VirtualFile twigVirtualFile : twigVirtualFiles) {
-            PsiFile psiFile = PsiManager.getInstance(project).findFile(twigVirtualFile);
+    public static List<PsiElement> findServiceDefinitions(@NotNull Project project, @NotNull String serviceName) {
 
-            if(psiFile instanceof YAMLFile) {
-                PsiElement servicePsiElement = YamlHelper.getLocalServiceName(psiFile, serviceName);
-                if(servicePsiElement != null) {
-                    items.add(servicePsiElement);
-                }
+        List<PsiElement> items = new ArrayList<>();
+
+        // index knows the definition range; so we dont need to visit the whole file
+        FileBasedIndex.getInstance().processValues(ServicesDefinitionStubIndex.KEY, serviceName.toLowerCase(), null, (virtualFile, service) -> {
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+            if(psiFile == null) {
+                return true;
             }
 
-            if(psiFile instanceof XmlFile) {
-                PsiElement servicePsiElement = XmlHelper.getLocalServiceName(psiFile, serviceName);
-                if(servicePsiElement != null) {
-                    items.add(servicePsiElement);
-                }
+            PsiElement servicePsiElement = getServiceDefinitionTarget(psiFile, service, serviceName);
+            if(servicePsiElement != null) {
+                items.add(servicePsiElement);
             }
 
-        }
+            return true;
+        }, getRestrictedFileTypesScope(project));
 
         // extension points
         ServiceDefinitionLocator[] extensions = EXTENSIONS.getExtensions();
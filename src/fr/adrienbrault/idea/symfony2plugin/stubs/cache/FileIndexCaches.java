@@ -21,6 +21,8 @@ import java.util.Set;
  * All FileBasedIndex are slow and cross project data, we need them every often
  * Cache values as long nothing globally change in our project.
  *
+ * CachedValue registration is lock-free, so concurrent readers of different keys never wait on each other
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class FileIndexCaches {
@@ -29,78 +31,55 @@ public class FileIndexCaches {
      * @param dataHolderKey Main data to cache
      * @param dataHolderNames Cache extracted name Set
      */
-    static public synchronized <T> Map<String, List<T>> getSetDataCache(@NotNull final Project project, @NotNull Key<CachedValue<Map<String, List<T>>>> dataHolderKey, final @NotNull Key<CachedValue<Set<String>>> dataHolderNames, @NotNull final ID<String, T> ID, @NotNull final GlobalSearchScope scope) {
-
-        CachedValue<Map<String, List<T>>> cache = project.getUserData(dataHolderKey);
-
-        if(cache == null) {
-            cache = CachedValuesManager.getManager(project).createCachedValue(() -> {
-                Map<String, List<T>> items = new HashMap<>();
+    static public <T> Map<String, List<T>> getSetDataCache(@NotNull final Project project, @NotNull Key<CachedValue<Map<String, List<T>>>> dataHolderKey, final @NotNull Key<CachedValue<Set<String>>> dataHolderNames, @NotNull final ID<String, T> ID, @NotNull final GlobalSearchScope scope) {
 
-                final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+        return CachedValuesManager.getManager(project).getCachedValue(project, dataHolderKey, () -> {
+            Map<String, List<T>> items = new HashMap<>();
 
-                getIndexKeysCache(project, dataHolderNames, ID).stream().forEach(service -> {
-                    items.put(service, fileBasedIndex.getValues(ID, service, scope));
-                });
+            final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
 
-                return CachedValueProvider.Result.create(items, PsiModificationTracker.MODIFICATION_COUNT);
-            }, false);
+            getIndexKeysCache(project, dataHolderNames, ID).stream().forEach(service -> {
+                items.put(service, fileBasedIndex.getValues(ID, service, scope));
+            });
 
-            project.putUserData(dataHolderKey, cache);
-        }
-
-        return cache.getValue();
+            return CachedValueProvider.Result.create(items, PsiModificationTracker.MODIFICATION_COUNT);
+        }, false);
     }
 
     /**
      * @param dataHolderKey Main data to cache
      * @param dataHolderNames Cache extracted name Set
      */
-    static public synchronized Map<String, List<String>> getStringDataCache(@NotNull final Project project, @NotNull Key<CachedValue<Map<String, List<String>>>> dataHolderKey, final @NotNull Key<CachedValue<Set<String>>> dataHolderNames, @NotNull final ID<String, String> ID, @NotNull final GlobalSearchScope scope) {
-
-        CachedValue<Map<String, List<String>>> cache = project.getUserData(dataHolderKey);
-        if(cache == null) {
-            cache = CachedValuesManager.getManager(project).createCachedValue(() -> {
+    static public Map<String, List<String>> getStringDataCache(@NotNull final Project project, @NotNull Key<CachedValue<Map<String, List<String>>>> dataHolderKey, final @NotNull Key<CachedValue<Set<String>>> dataHolderNames, @NotNull final ID<String, String> ID, @NotNull final GlobalSearchScope scope) {
 
-                Map<String, List<String>> strings = new HashMap<>();
+        return CachedValuesManager.getManager(project).getCachedValue(project, dataHolderKey, () -> {
 
-                final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
-                getIndexKeysCache(project, dataHolderNames, ID).stream().forEach(parameterName -> {
-                    // just for secure
-                    if(parameterName == null) {
-                        return;
-                    }
+            Map<String, List<String>> strings = new HashMap<>();
 
-                    strings.put(parameterName, fileBasedIndex.getValues(ID, parameterName, scope));
-                });
+            final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+            getIndexKeysCache(project, dataHolderNames, ID).stream().forEach(parameterName -> {
+                // just for secure
+                if(parameterName == null) {
+                    return;
+                }
 
-                return CachedValueProvider.Result.create(strings, PsiModificationTracker.MODIFICATION_COUNT);
-            }, false);
+                strings.put(parameterName, fileBasedIndex.getValues(ID, parameterName, scope));
+            });
 
-            project.putUserData(dataHolderKey, cache);
-        }
-
-        return cache.getValue();
+            return CachedValueProvider.Result.create(strings, PsiModificationTracker.MODIFICATION_COUNT);
+        }, false);
     }
 
     /**
      * There several methods that just need to check for names, as they also needed for value extraction, so cache them also
      */
-    static public synchronized Set<String> getIndexKeysCache(@NotNull final Project project, @NotNull Key<CachedValue<Set<String>>> dataHolderKey, @NotNull final ID<String, ?> ID) {
-
-        CachedValue<Set<String>> cache = project.getUserData(dataHolderKey);
-
-        if(cache == null) {
-            cache = CachedValuesManager.getManager(project).createCachedValue(() -> {
-                SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeys = new SymfonyProcessors.CollectProjectUniqueKeys(project, ID);
-                FileBasedIndex.getInstance().processAllKeys(ID, projectUniqueKeys, project);
-                return CachedValueProvider.Result.create(projectUniqueKeys.getResult(), PsiModificationTracker.MODIFICATION_COUNT);
-            }, false);
-
-            project.putUserData(dataHolderKey, cache);
-        }
+    static public Set<String> getIndexKeysCache(@NotNull final Project project, @NotNull Key<CachedValue<Set<String>>> dataHolderKey, @NotNull final ID<String, ?> ID) {
 
-        return cache.getValue();
+        return CachedValuesManager.getManager(project).getCachedValue(project, dataHolderKey, () -> {
+            SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeys = new SymfonyProcessors.CollectProjectUniqueKeys(project, ID);
+            FileBasedIndex.getInstance().processAllKeys(ID, projectUniqueKeys, project);
+            return CachedValueProvider.Result.create(projectUniqueKeys.getResult(), PsiModificationTracker.MODIFICATION_COUNT);
+        }, false);
     }
 
 }
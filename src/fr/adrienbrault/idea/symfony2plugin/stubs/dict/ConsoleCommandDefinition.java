@@ -0,0 +1,62 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.dict;
+
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Console command implementation and text range of the command name: "setName('foo')" or tag "command" attribute
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ConsoleCommandDefinition implements Serializable {
+
+    /**
+     * Class name without leading backslash: "Foo\FooCommand"; for services it can also be a parameter "%foo.class%"
+     */
+    @Nullable
+    private final String className;
+
+    private final int startOffset;
+    private final int endOffset;
+
+    public ConsoleCommandDefinition(@Nullable String className, int startOffset, int endOffset) {
+        this.className = className;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    @Nullable
+    public String getClassName() {
+        return className;
+    }
+
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+            .append(this.className)
+            .append(this.startOffset)
+            .append(this.endOffset)
+            .toHashCode()
+        ;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ConsoleCommandDefinition &&
+            Objects.equals(((ConsoleCommandDefinition) obj).className, this.className) &&
+            ((ConsoleCommandDefinition) obj).startOffset == this.startOffset &&
+            ((ConsoleCommandDefinition) obj).endOffset == this.endOffset
+        ;
+    }
+}
@@ -0,0 +1,109 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.dict;
+
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Variables render calls or "@Template" methods of a file pass to a template;
+ * types are raw PHP type signatures, so they need to be completed on usage
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TemplateVariableUsage implements Serializable {
+
+    /**
+     * Function scopes: "Foo\BarController.fooAction", "foo"
+     */
+    @NotNull
+    private final Set<String> scopes;
+
+    @NotNull
+    private final Map<String, Variable> variables;
+
+    public TemplateVariableUsage(@NotNull Collection<String> scopes, @NotNull Map<String, Variable> variables) {
+        this.scopes = new TreeSet<>(scopes);
+        this.variables = new TreeMap<>(variables);
+    }
+
+    @NotNull
+    public Set<String> getScopes() {
+        return scopes;
+    }
+
+    @NotNull
+    public Map<String, Variable> getVariables() {
+        return variables;
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+            .append(this.scopes)
+            .append(this.variables)
+            .toHashCode()
+        ;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof TemplateVariableUsage &&
+            Objects.equals(((TemplateVariableUsage) obj).scopes, this.scopes) &&
+            Objects.equals(((TemplateVariableUsage) obj).variables, this.variables)
+        ;
+    }
+
+    /**
+     * Type signatures and text range of the value expression inside the php file
+     */
+    public static class Variable implements Serializable {
+        @NotNull
+        private final Set<String> types;
+
+        private final int startOffset;
+        private final int endOffset;
+
+        public Variable(@NotNull Collection<String> types, int startOffset, int endOffset) {
+            this.types = new TreeSet<>(types);
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+        }
+
+        @NotNull
+        public Set<String> getTypes() {
+            return types;
+        }
+
+        /**
+         * -1 if there is no value: "$template['foo'];"
+         */
+        public int getStartOffset() {
+            return startOffset;
+        }
+
+        public int getEndOffset() {
+            return endOffset;
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                .append(this.types)
+                .append(this.startOffset)
+                .append(this.endOffset)
+                .toHashCode()
+            ;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Variable &&
+                Objects.equals(((Variable) obj).types, this.types) &&
+                ((Variable) obj).startOffset == this.startOffset &&
+                ((Variable) obj).endOffset == this.endOffset
+            ;
+        }
+    }
+}
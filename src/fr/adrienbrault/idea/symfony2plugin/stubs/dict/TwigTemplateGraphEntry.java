@@ -0,0 +1,91 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.dict;
+
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+
+/**
+ * Outgoing template references and block names of a single Twig file
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TwigTemplateGraphEntry implements Serializable {
+
+    /**
+     * {% extends 'foo' %}
+     */
+    @NotNull
+    private final Collection<String> extendsTemplates;
+
+    /**
+     * {% use 'foo' %}
+     */
+    @NotNull
+    private final Collection<String> useTemplates;
+
+    /**
+     * {% include 'foo' %}, {{ include('foo') }}, {{ source('foo') }}, {% embed 'foo' %}
+     */
+    @NotNull
+    private final Collection<String> includeTemplates;
+
+    /**
+     * {% block foo %}
+     */
+    @NotNull
+    private final Collection<String> blocks;
+
+    public TwigTemplateGraphEntry(@NotNull Collection<String> extendsTemplates, @NotNull Collection<String> useTemplates, @NotNull Collection<String> includeTemplates, @NotNull Collection<String> blocks) {
+        // keep declaration order; first parent wins on block lookup
+        this.extendsTemplates = new ArrayList<>(new LinkedHashSet<>(extendsTemplates));
+        this.useTemplates = new ArrayList<>(new LinkedHashSet<>(useTemplates));
+        this.includeTemplates = new ArrayList<>(new LinkedHashSet<>(includeTemplates));
+        this.blocks = new ArrayList<>(new LinkedHashSet<>(blocks));
+    }
+
+    @NotNull
+    public Collection<String> getExtendsTemplates() {
+        return extendsTemplates;
+    }
+
+    @NotNull
+    public Collection<String> getUseTemplates() {
+        return useTemplates;
+    }
+
+    @NotNull
+    public Collection<String> getIncludeTemplates() {
+        return includeTemplates;
+    }
+
+    @NotNull
+    public Collection<String> getBlocks() {
+        return blocks;
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+            .append(this.extendsTemplates)
+            .append(this.useTemplates)
+            .append(this.includeTemplates)
+            .append(this.blocks)
+            .toHashCode()
+        ;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof TwigTemplateGraphEntry &&
+            Objects.equals(((TwigTemplateGraphEntry) obj).extendsTemplates, this.extendsTemplates) &&
+            Objects.equals(((TwigTemplateGraphEntry) obj).useTemplates, this.useTemplates) &&
+            Objects.equals(((TwigTemplateGraphEntry) obj).includeTemplates, this.includeTemplates) &&
+            Objects.equals(((TwigTemplateGraphEntry) obj).blocks, this.blocks)
+        ;
+    }
+}
@@ -18,6 +18,7 @@ import com.jetbrains.php.lang.psi.PhpFile;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.jetbrains.php.lang.psi.stubs.indexes.PhpConstantNameIndex;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.StubIndexedRoute;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
 import fr.adrienbrault.idea.symfony2plugin.util.AnnotationBackportUtil;
@@ -48,7 +49,7 @@ public class AnnotationRoutesStubIndex extends FileBasedIndexExtension<String, S
     @NotNull
     @Override
     public DataIndexer<String, StubIndexedRoute, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("AnnotationRoutesStubIndex", inputData -> {
             final Map<String, StubIndexedRoute> map = new THashMap<>();
 
             PsiFile psiFile = inputData.getPsiFile();
@@ -67,7 +68,7 @@ public class AnnotationRoutesStubIndex extends FileBasedIndexExtension<String, S
             psiFile.accept(new MyPsiRecursiveElementWalkingVisitor(map));
 
             return map;
-        };
+        });
     }
 
     @NotNull
@@ -0,0 +1,271 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes;
+
+import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.xml.XmlAttribute;
+import com.intellij.psi.xml.XmlAttributeValue;
+import com.intellij.psi.xml.XmlFile;
+import com.intellij.psi.xml.XmlTag;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.*;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.ConsoleCommandDefinition;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
+import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
+import gnu.trove.THashMap;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.yaml.YAMLFileType;
+import org.jetbrains.yaml.psi.YAMLFile;
+import org.jetbrains.yaml.psi.YAMLKeyValue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Console command name to its implementation:
+ * "setName" calls inside "configure" of command classes and "console.command" tagged services with a "command" attribute.
+ * Names are resolved on index time, so command lookups do not need to visit any class
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ConsoleCommandStubIndex extends FileBasedIndexExtension<String, ConsoleCommandDefinition> {
+
+    public static final ID<String, ConsoleCommandDefinition> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.console_command");
+
+    public static final String COMMAND_TAG = "console.command";
+
+    private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
+    private static ObjectStreamDataExternalizer<ConsoleCommandDefinition> EXTERNALIZER = new ObjectStreamDataExternalizer<>();
+
+    @NotNull
+    @Override
+    public ID<String, ConsoleCommandDefinition> getName() {
+        return KEY;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, ConsoleCommandDefinition, FileContent> getIndexer() {
+        return SymfonyMetricsService.indexer("ConsoleCommandStubIndex", inputData -> {
+            Map<String, ConsoleCommandDefinition> map = new THashMap<>();
+
+            PsiFile psiFile = inputData.getPsiFile();
+            if(!Symfony2ProjectComponent.isEnabledForIndex(psiFile.getProject())) {
+                return map;
+            }
+
+            if(psiFile instanceof PhpFile) {
+                if(PhpTwigTemplateUsageStubIndex.isValidForIndex(inputData)) {
+                    visitPhpFile((PhpFile) psiFile, map);
+                }
+            } else if(ServicesDefinitionStubIndex.isValidForIndex(inputData, psiFile)) {
+                if(psiFile instanceof YAMLFile) {
+                    visitYamlFile((YAMLFile) psiFile, map);
+                } else if(psiFile instanceof XmlFile) {
+                    visitXmlFile((XmlFile) psiFile, map);
+                }
+            }
+
+            return map;
+        });
+    }
+
+    /**
+     * protected function configure() { $this->setName('foo'); }
+     */
+    private static void visitPhpFile(@NotNull PhpFile phpFile, @NotNull Map<String, ConsoleCommandDefinition> map) {
+        for (PhpClass phpClass : PsiTreeUtil.findChildrenOfType(phpFile, PhpClass.class)) {
+            if(phpClass.isAbstract() || phpClass.isInterface() || phpClass.getSuperName() == null) {
+                continue;
+            }
+
+            // no hierarchy on index time; only filter by name like "PhpElementsUtil.isTestClass"
+            String fqn = StringUtils.stripStart(phpClass.getFQN(), "\\");
+            if(fqn.contains("\\Test\\") || fqn.contains("\\Tests\\")) {
+                continue;
+            }
+
+            Method method = phpClass.findOwnMethodByName("configure");
+            if(method == null) {
+                continue;
+            }
+
+            for (MethodReference methodReference : PsiTreeUtil.findChildrenOfType(method, MethodReference.class)) {
+                if(!"setName".equals(methodReference.getName())) {
+                    continue;
+                }
+
+                PsiElement parameter = PsiElementUtils.getMethodParameterPsiElementAt(methodReference, 0);
+                if(parameter == null) {
+                    continue;
+                }
+
+                String name = getLocalStringValue(phpClass, parameter);
+                if(StringUtils.isNotBlank(name) && !map.containsKey(name)) {
+                    map.put(name, new ConsoleCommandDefinition(fqn, parameter.getTextRange().getStartOffset(), parameter.getTextRange().getEndOffset()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Only values defined inside the class itself, everything else is not stable on index time:
+     * 'foo', self::FOO, static::FOO, $this->name
+     */
+    @Nullable
+    private static String getLocalStringValue(@NotNull PhpClass phpClass, @NotNull PsiElement psiElement) {
+        if(psiElement instanceof StringLiteralExpression) {
+            return ((StringLiteralExpression) psiElement).getContents();
+        }
+
+        Field field = null;
+
+        if(psiElement instanceof ClassConstantReference) {
+            PhpExpression classReference = ((ClassConstantReference) psiElement).getClassReference();
+            String name = ((ClassConstantReference) psiElement).getName();
+            if(name != null && classReference != null && Arrays.asList("self", "static", phpClass.getName()).contains(classReference.getText())) {
+                field = phpClass.findOwnFieldByName(name, true);
+            }
+        } else if(psiElement instanceof FieldReference) {
+            PhpExpression classReference = ((FieldReference) psiElement).getClassReference();
+            String name = ((FieldReference) psiElement).getName();
+            if(name != null && classReference != null && "$this".equals(classReference.getText())) {
+                field = phpClass.findOwnFieldByName(name, false);
+            }
+        }
+
+        if(field != null && field.getDefaultValue() instanceof StringLiteralExpression) {
+            return ((StringLiteralExpression) field.getDefaultValue()).getContents();
+        }
+
+        return null;
+    }
+
+    /**
+     * services:
+     *   foo:
+     *     class: Foo\FooCommand
+     *     tags:
+     *       - { name: console.command, command: foo }
+     */
+    private static void visitYamlFile(@NotNull YAMLFile yamlFile, @NotNull Map<String, ConsoleCommandDefinition> map) {
+        for (YAMLKeyValue serviceKeyValue : YamlHelper.getQualifiedKeyValuesInFile(yamlFile, "services")) {
+            String serviceClass = YamlHelper.getYamlKeyValueAsString(serviceKeyValue, "class");
+
+            YamlHelper.visitTagsOnServiceDefinition(serviceKeyValue, tag -> {
+                if(!COMMAND_TAG.equals(tag.getName())) {
+                    return;
+                }
+
+                YAMLKeyValue command = YamlHelper.getYamlKeyValue(tag.getYamlMapping(), "command");
+                if(command == null || command.getValue() == null) {
+                    return;
+                }
+
+                String name = command.getValueText();
+                if(StringUtils.isNotBlank(name) && !map.containsKey(name)) {
+                    map.put(name, new ConsoleCommandDefinition(
+                        getServiceClass(serviceKeyValue.getKeyText(), serviceClass),
+                        command.getValue().getTextRange().getStartOffset(),
+                        command.getValue().getTextRange().getEndOffset()
+                    ));
+                }
+            });
+        }
+    }
+
+    /**
+     * <service id="foo" class="Foo\FooCommand">
+     *   <tag name="console.command" command="foo"/>
+     * </service>
+     */
+    private static void visitXmlFile(@NotNull XmlFile xmlFile, @NotNull Map<String, ConsoleCommandDefinition> map) {
+        XmlTag rootTag = xmlFile.getRootTag();
+        if(rootTag == null || !"container".equals(rootTag.getName())) {
+            return;
+        }
+
+        for (XmlTag servicesTag : rootTag.findSubTags("services")) {
+            for (XmlTag serviceTag : servicesTag.findSubTags("service")) {
+                for (XmlTag tag : serviceTag.findSubTags("tag")) {
+                    if(!COMMAND_TAG.equals(tag.getAttributeValue("name"))) {
+                        continue;
+                    }
+
+                    XmlAttribute command = tag.getAttribute("command");
+                    if(command == null) {
+                        continue;
+                    }
+
+                    String name = command.getValue();
+                    XmlAttributeValue valueElement = command.getValueElement();
+                    if(StringUtils.isBlank(name) || valueElement == null || map.containsKey(name)) {
+                        continue;
+                    }
+
+                    map.put(name, new ConsoleCommandDefinition(
+                        getServiceClass(serviceTag.getAttributeValue("id"), serviceTag.getAttributeValue("class")),
+                        valueElement.getTextRange().getStartOffset(),
+                        valueElement.getTextRange().getEndOffset()
+                    ));
+                }
+            }
+        }
+    }
+
+    /**
+     * Service class or id for class named services: "Foo\FooCommand"
+     */
+    @Nullable
+    private static String getServiceClass(@Nullable String serviceId, @Nullable String serviceClass) {
+        if(StringUtils.isNotBlank(serviceClass)) {
+            return StringUtils.stripStart(serviceClass, "\\");
+        }
+
+        if(serviceId != null && serviceId.contains("\\")) {
+            return StringUtils.stripStart(serviceId, "\\");
+        }
+
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return this.myKeyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<ConsoleCommandDefinition> getValueExternalizer() {
+        return EXTERNALIZER;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return file ->
+            file.getFileType() == PhpFileType.INSTANCE || file.getFileType() == XmlFileType.INSTANCE || file.getFileType() == YAMLFileType.YML;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+}
@@ -17,6 +17,7 @@ import com.jetbrains.php.lang.psi.elements.*;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2InterfacesUtil;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.dict.ContainerBuilderCall;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
 import gnu.trove.THashMap;
 import org.apache.commons.lang.StringUtils;
@@ -57,7 +58,7 @@ public class ContainerBuilderStubIndex extends FileBasedIndexExtension<String, C
     @Override
     public DataIndexer<String, ContainerBuilderCall, FileContent> getIndexer() {
 
-        return inputData -> {
+        return SymfonyMetricsService.indexer("ContainerBuilderStubIndex", inputData -> {
 
             Map<String, ContainerBuilderCall> map = new THashMap<>();
 
@@ -73,7 +74,7 @@ public class ContainerBuilderStubIndex extends FileBasedIndexExtension<String, C
             psiFile.accept(new MyPsiRecursiveElementWalkingVisitor(map));
 
             return map;
-        };
+        });
     }
 
     @NotNull
@@ -9,6 +9,7 @@ import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.config.xml.XmlHelper;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.yaml.YAMLFileType;
@@ -31,7 +32,7 @@ public class ContainerParameterStubIndex extends FileBasedIndexExtension<String,
     @NotNull
     @Override
     public DataIndexer<String, String, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("ContainerParameterStubIndex", inputData -> {
             Map<String, String> map = new HashMap<>();
 
             PsiFile psiFile = inputData.getPsiFile();
@@ -50,7 +51,7 @@ public class ContainerParameterStubIndex extends FileBasedIndexExtension<String,
             }
 
             return map;
-        };
+        });
     }
 
     /**
@@ -13,6 +13,7 @@ import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.DoctrineUtil;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModel;
 import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelSerializable;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
 import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
@@ -67,7 +68,7 @@ public class DoctrineMetadataFileStubIndex extends FileBasedIndexExtension<Strin
     @NotNull
     @Override
     public DataIndexer<String, DoctrineModelSerializable, FileContent> getIndexer() {
-        return new MyStringStringFileContentDataIndexer();
+        return SymfonyMetricsService.indexer("DoctrineMetadataFileStubIndex", new MyStringStringFileContentDataIndexer());
     }
 
     @NotNull
@@ -19,6 +19,7 @@ import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import com.jetbrains.php.lang.psi.elements.impl.ClassConstImpl;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.DispatcherEvent;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
 import fr.adrienbrault.idea.symfony2plugin.stubs.util.EventDispatcherUtil;
@@ -44,7 +45,7 @@ public class EventAnnotationStubIndex extends FileBasedIndexExtension<String, Di
     @NotNull
     @Override
     public DataIndexer<String, DispatcherEvent, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("EventAnnotationStubIndex", inputData -> {
             Map<String, DispatcherEvent> map = new HashMap<>();
 
             PsiFile psiFile = inputData.getPsiFile();
@@ -55,7 +56,7 @@ public class EventAnnotationStubIndex extends FileBasedIndexExtension<String, Di
             psiFile.accept(new MyPsiRecursiveElementWalkingVisitor(map));
 
             return map;
-        };
+        });
 
     }
 
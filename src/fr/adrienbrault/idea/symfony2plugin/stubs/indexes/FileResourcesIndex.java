@@ -7,6 +7,7 @@ import com.intellij.util.io.DataExternalizer;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.FileResource;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
 import fr.adrienbrault.idea.symfony2plugin.util.FileResourceVisitorUtil;
@@ -34,7 +35,7 @@ public class FileResourcesIndex extends FileBasedIndexExtension<String, FileReso
     @NotNull
     @Override
     public DataIndexer<String, FileResource, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("FileResourcesIndex", inputData -> {
             PsiFile psiFile = inputData.getPsiFile();
             if(!Symfony2ProjectComponent.isEnabledForIndex(psiFile.getProject()) || !isValidForIndex(inputData, psiFile)) {
                 return Collections.emptyMap();
@@ -47,7 +48,7 @@ public class FileResourcesIndex extends FileBasedIndexExtension<String, FileReso
             );
 
             return items;
-        };
+        });
     }
 
     @NotNull
@@ -17,6 +17,7 @@ import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import com.jetbrains.php.lang.psi.stubs.indexes.PhpConstantNameIndex;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TemplateUsage;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
 import fr.adrienbrault.idea.symfony2plugin.util.AnnotationBackportUtil;
@@ -47,7 +48,7 @@ public class PhpTwigTemplateUsageStubIndex extends FileBasedIndexExtension<Strin
     @NotNull
     @Override
     public DataIndexer<String, TemplateUsage, FileContent> getIndexer() {
-        return new DataIndexer<String, TemplateUsage, FileContent>() {
+        return SymfonyMetricsService.indexer("PhpTwigTemplateUsageStubIndex", new DataIndexer<String, TemplateUsage, FileContent>() {
             @NotNull
             @Override
             public Map<String, TemplateUsage> map(@NotNull FileContent inputData) {
@@ -146,7 +147,7 @@ public class PhpTwigTemplateUsageStubIndex extends FileBasedIndexExtension<Strin
 
                 return map;
             }
-        };
+        });
     }
 
     @NotNull
@@ -0,0 +1,198 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocTag;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.jetbrains.php.lang.psi.stubs.indexes.PhpConstantNameIndex;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TemplateVariableUsage;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.templating.util.PhpMethodVariableResolveUtil;
+import fr.adrienbrault.idea.symfony2plugin.templating.variable.dict.PsiVariable;
+import fr.adrienbrault.idea.symfony2plugin.util.AnnotationBackportUtil;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Template name to the variables a render call or "@Template" controller passes to it.
+ * Types are stored as raw signatures, so typing inside a template does not need to visit any controller
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class PhpTwigTemplateVariableStubIndex extends FileBasedIndexExtension<String, TemplateVariableUsage> {
+
+    public static final ID<String, TemplateVariableUsage> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.twig_php_variable");
+    private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
+    private static ObjectStreamDataExternalizer<TemplateVariableUsage> EXTERNALIZER = new ObjectStreamDataExternalizer<>();
+
+    @NotNull
+    @Override
+    public ID<String, TemplateVariableUsage> getName() {
+        return KEY;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, TemplateVariableUsage, FileContent> getIndexer() {
+        return SymfonyMetricsService.indexer("PhpTwigTemplateVariableStubIndex", inputData -> {
+            PsiFile psiFile = inputData.getPsiFile();
+            if(!Symfony2ProjectComponent.isEnabledForIndex(psiFile.getProject())) {
+                return Collections.emptyMap();
+            }
+
+            if(!(psiFile instanceof PhpFile) || !PhpTwigTemplateUsageStubIndex.isValidForIndex(inputData)) {
+                return Collections.emptyMap();
+            }
+
+            Map<String, Set<String>> scopes = new HashMap<>();
+            Map<String, Map<String, TemplateVariableUsage.Variable>> variables = new HashMap<>();
+
+            psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+                @Override
+                public void visitElement(PsiElement element) {
+                    if(element instanceof MethodReference) {
+                        visitMethodReference((MethodReference) element);
+                    } else if(element instanceof PhpDocTag) {
+                        visitPhpDocTag((PhpDocTag) element);
+                    }
+                    super.visitElement(element);
+                }
+
+                /**
+                 * "$this->render('foo.html.twig', array('foo' => $foo))"
+                 */
+                private void visitMethodReference(@NotNull MethodReference methodReference) {
+                    if(!PhpTwigTemplateUsageStubIndex.RENDER_METHODS.contains(methodReference.getName())) {
+                        return;
+                    }
+
+                    PsiElement[] parameters = methodReference.getParameters();
+                    if(parameters.length < 2 || !(parameters[0] instanceof StringLiteralExpression)) {
+                        return;
+                    }
+
+                    String contents = ((StringLiteralExpression) parameters[0]).getContents();
+                    if(StringUtils.isBlank(contents) || !contents.endsWith(".html.twig")) {
+                        return;
+                    }
+
+                    Function function = PsiTreeUtil.getParentOfType(methodReference, Function.class);
+                    if(function == null) {
+                        return;
+                    }
+
+                    addVariables(contents, function, PhpMethodVariableResolveUtil.collectTemplateArrayVariables(function, parameters[1]));
+                }
+
+                /**
+                 * "@Template("foobar.html.twig")"
+                 * "@Template(template="foobar.html.twig")"
+                 */
+                private void visitPhpDocTag(@NotNull PhpDocTag phpDocTag) {
+                    if(AnnotationBackportUtil.NON_ANNOTATION_TAGS.contains(phpDocTag.getName())) {
+                        return;
+                    }
+
+                    Map<String, String> fileImports = AnnotationBackportUtil.getUseImportMap(phpDocTag);
+                    if(fileImports.size() == 0) {
+                        return;
+                    }
+
+                    String annotationFqnName = AnnotationRoutesStubIndex.getClassNameReference(phpDocTag, fileImports);
+                    if(!"Sensio\\Bundle\\FrameworkExtraBundle\\Configuration\\Template".equals(StringUtils.stripStart(annotationFqnName, "\\"))) {
+                        return;
+                    }
+
+                    String template = AnnotationBackportUtil.getDefaultOrPropertyContents(phpDocTag, "template");
+                    if(template == null || !template.endsWith(".html.twig")) {
+                        return;
+                    }
+
+                    Method method = AnnotationBackportUtil.getMethodScope(phpDocTag);
+                    if(method == null) {
+                        return;
+                    }
+
+                    Map<String, PsiVariable> methodVariables = new HashMap<>();
+                    for (PsiElement templateArray : PhpMethodVariableResolveUtil.collectReturnTemplateArrays(method)) {
+                        methodVariables.putAll(PhpMethodVariableResolveUtil.collectTemplateArrayVariables(method, templateArray));
+                    }
+
+                    addVariables(template, method, methodVariables);
+                }
+
+                private void addVariables(@NotNull String template, @NotNull Function function, @NotNull Map<String, PsiVariable> psiVariables) {
+                    if(psiVariables.size() == 0) {
+                        return;
+                    }
+
+                    String templateName = TwigHelper.normalizeTemplateName(template);
+
+                    scopes.computeIfAbsent(templateName, s -> new HashSet<>()).add(StringUtils.stripStart(function.getFQN(), "\\"));
+
+                    Map<String, TemplateVariableUsage.Variable> templateVariables = variables.computeIfAbsent(templateName, s -> new HashMap<>());
+                    for (Map.Entry<String, PsiVariable> entry : psiVariables.entrySet()) {
+                        PsiElement value = entry.getValue().getElement();
+
+                        templateVariables.put(entry.getKey(), new TemplateVariableUsage.Variable(
+                            entry.getValue().getTypes(),
+                            value != null ? value.getTextRange().getStartOffset() : -1,
+                            value != null ? value.getTextRange().getEndOffset() : -1
+                        ));
+                    }
+                }
+            });
+
+            Map<String, TemplateVariableUsage> map = new HashMap<>();
+
+            for (Map.Entry<String, Map<String, TemplateVariableUsage.Variable>> entry : variables.entrySet()) {
+                map.put(entry.getKey(), new TemplateVariableUsage(scopes.get(entry.getKey()), entry.getValue()));
+            }
+
+            return map;
+        });
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return this.myKeyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<TemplateVariableUsage> getValueExternalizer() {
+        return EXTERNALIZER;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return PhpConstantNameIndex.PHP_INPUT_FILTER;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+}
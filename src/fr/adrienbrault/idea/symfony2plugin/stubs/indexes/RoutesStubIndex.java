@@ -10,6 +10,7 @@ import com.intellij.util.io.DataExternalizer;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.routing.RouteHelper;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.StubIndexedRoute;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
@@ -36,7 +37,7 @@ public class RoutesStubIndex extends FileBasedIndexExtension<String, StubIndexed
     @NotNull
     @Override
     public DataIndexer<String, StubIndexedRoute, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("RoutesStubIndex", inputData -> {
             Map<String, StubIndexedRoute> map = new THashMap<>();
 
             PsiFile psiFile = inputData.getPsiFile();
@@ -69,7 +70,7 @@ public class RoutesStubIndex extends FileBasedIndexExtension<String, StubIndexed
             }
 
             return map;
-        };
+        });
 
     }
 
@@ -10,6 +10,7 @@ import com.intellij.util.io.KeyDescriptor;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.ServiceSerializable;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.util.ServiceContainerUtil;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ArrayDataExternalizer;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
 import gnu.trove.THashMap;
@@ -33,7 +34,7 @@ public class ServicesDefinitionStubIndex extends FileBasedIndexExtension<String,
     @Override
     public DataIndexer<String, ServiceSerializable, FileContent> getIndexer() {
 
-        return inputData -> {
+        return SymfonyMetricsService.indexer("ServicesDefinitionStubIndex", inputData -> {
 
             Map<String, ServiceSerializable> map = new THashMap<>();
 
@@ -47,7 +48,7 @@ public class ServicesDefinitionStubIndex extends FileBasedIndexExtension<String,
             }
 
             return map;
-        };
+        });
     }
 
     @NotNull
@@ -82,7 +83,7 @@ public class ServicesDefinitionStubIndex extends FileBasedIndexExtension<String,
 
     @Override
     public int getVersion() {
-        return 4;
+        return 5;
     }
 
     /**
@@ -9,6 +9,7 @@ import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.form.util.FormUtil;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.StringSetDataExternalizer;
 import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
@@ -28,7 +29,7 @@ public class ServicesTagStubIndex extends FileBasedIndexExtension<String, Set<St
     @Override
     public DataIndexer<String, Set<String>, FileContent> getIndexer() {
 
-        return inputData -> {
+        return SymfonyMetricsService.indexer("ServicesTagStubIndex", inputData -> {
 
             Map<String, Set<String>> map = new THashMap<>();
 
@@ -50,7 +51,7 @@ public class ServicesTagStubIndex extends FileBasedIndexExtension<String, Set<St
             }
 
             return map;
-        };
+        });
     }
 
     @NotNull
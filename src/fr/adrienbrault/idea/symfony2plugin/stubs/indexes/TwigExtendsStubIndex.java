@@ -13,6 +13,7 @@ import com.jetbrains.twig.TwigFileType;
 import com.jetbrains.twig.elements.TwigExtendsTag;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
 
@@ -32,7 +33,7 @@ public class TwigExtendsStubIndex extends FileBasedIndexExtension<String, Void>
     @NotNull
     @Override
     public DataIndexer<String, Void, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("TwigExtendsStubIndex", inputData -> {
             Map<String, Void> map = new THashMap<>();
 
             PsiFile psiFile = inputData.getPsiFile();
@@ -62,7 +63,7 @@ public class TwigExtendsStubIndex extends FileBasedIndexExtension<String, Void>
             }
 
             return map;
-        };
+        });
 
     }
 
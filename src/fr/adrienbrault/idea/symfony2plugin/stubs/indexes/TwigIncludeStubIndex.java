@@ -14,6 +14,7 @@ import com.jetbrains.twig.elements.TwigElementTypes;
 import com.jetbrains.twig.elements.TwigTagWithFileReference;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import gnu.trove.THashMap;
 import org.apache.commons.lang.StringUtils;
@@ -35,7 +36,7 @@ public class TwigIncludeStubIndex extends FileBasedIndexExtension<String, Void>
     @NotNull
     @Override
     public DataIndexer<String, Void, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("TwigIncludeStubIndex", inputData -> {
             final Map<String, Void> map = new THashMap<>();
 
             PsiFile psiFile = inputData.getPsiFile();
@@ -81,7 +82,7 @@ public class TwigIncludeStubIndex extends FileBasedIndexExtension<String, Void>
             });
 
             return map;
-        };
+        });
 
     }
 
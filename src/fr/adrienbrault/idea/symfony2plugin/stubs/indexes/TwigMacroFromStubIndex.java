@@ -13,6 +13,7 @@ import com.jetbrains.twig.TwigFileType;
 import com.jetbrains.twig.elements.TwigTagWithFileReference;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import gnu.trove.THashMap;
 import org.apache.commons.lang.StringUtils;
@@ -34,7 +35,7 @@ public class TwigMacroFromStubIndex extends FileBasedIndexExtension<String, Void
     @NotNull
     @Override
     public DataIndexer<String, Void, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("TwigMacroFromStubIndex", inputData -> {
             final Map<String, Void> map = new THashMap<>();
 
             PsiFile psiFile = inputData.getPsiFile();
@@ -66,7 +67,7 @@ public class TwigMacroFromStubIndex extends FileBasedIndexExtension<String, Void
             });
 
             return map;
-        };
+        });
 
     }
 
@@ -14,6 +14,7 @@ import com.jetbrains.twig.elements.TwigCompositeElement;
 import com.jetbrains.twig.elements.TwigElementTypes;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import gnu.trove.THashMap;
 import org.apache.commons.lang.StringUtils;
@@ -35,7 +36,7 @@ public class TwigMacroFunctionStubIndex extends FileBasedIndexExtension<String,
     @NotNull
     @Override
     public DataIndexer<String, Void, FileContent> getIndexer() {
-        return inputData -> {
+        return SymfonyMetricsService.indexer("TwigMacroFunctionStubIndex", inputData -> {
             final Map<String, Void> map = new THashMap<>();
 
             PsiFile psiFile = inputData.getPsiFile();
@@ -63,7 +64,7 @@ public class TwigMacroFunctionStubIndex extends FileBasedIndexExtension<String,
             });
 
             return map;
-        };
+        });
 
     }
 
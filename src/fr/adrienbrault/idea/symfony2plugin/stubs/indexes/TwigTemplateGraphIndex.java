@@ -0,0 +1,155 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.twig.TwigFile;
+import com.jetbrains.twig.TwigFileType;
+import com.jetbrains.twig.elements.TwigCompositeElement;
+import com.jetbrains.twig.elements.TwigElementTypes;
+import com.jetbrains.twig.elements.TwigExtendsTag;
+import com.jetbrains.twig.elements.TwigTagWithFileReference;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigTemplateGraphEntry;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.ObjectStreamDataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigBlock;
+import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
+import gnu.trove.THashMap;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Inheritance and include edges plus block names of every Twig file, stored under a single key;
+ * so the whole template graph is build without opening any PSI file
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TwigTemplateGraphIndex extends FileBasedIndexExtension<String, TwigTemplateGraphEntry> {
+
+    public static final ID<String, TwigTemplateGraphEntry> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.twig_template_graph");
+
+    /**
+     * Every file is stored on this key
+     */
+    public static final String GRAPH_KEY = "graph";
+
+    private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
+    private static ObjectStreamDataExternalizer<TwigTemplateGraphEntry> EXTERNALIZER = new ObjectStreamDataExternalizer<>();
+
+    @NotNull
+    @Override
+    public ID<String, TwigTemplateGraphEntry> getName() {
+        return KEY;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, TwigTemplateGraphEntry, FileContent> getIndexer() {
+        return SymfonyMetricsService.indexer("TwigTemplateGraphIndex", inputData -> {
+            Map<String, TwigTemplateGraphEntry> map = new THashMap<>();
+
+            PsiFile psiFile = inputData.getPsiFile();
+            if(!Symfony2ProjectComponent.isEnabledForIndex(psiFile.getProject())) {
+                return map;
+            }
+
+            if(!(psiFile instanceof TwigFile)) {
+                return map;
+            }
+
+            Collection<String> extendsTemplates = new ArrayList<>();
+            Collection<String> useTemplates = new ArrayList<>();
+            Collection<String> includeTemplates = new ArrayList<>();
+
+            PsiTreeUtil.collectElements(psiFile, psiElement -> {
+                // {% extends 'foo' %}
+                if(psiElement instanceof TwigExtendsTag) {
+                    for (String templateName : TwigHelper.getTwigExtendsTagTemplates((TwigExtendsTag) psiElement)) {
+                        addTemplateName(extendsTemplates, templateName);
+                    }
+                }
+
+                // {% use 'foo' %}
+                if(TwigHelper.getTwigTagUseNamePattern().accepts(psiElement)) {
+                    addTemplateName(useTemplates, PsiElementUtils.trimQuote(psiElement.getText()));
+                }
+
+                // {% include 'foo' %}
+                if(psiElement instanceof TwigTagWithFileReference && psiElement.getNode().getElementType() == TwigElementTypes.INCLUDE_TAG) {
+                    for (String templateName : TwigHelper.getIncludeTagStrings((TwigTagWithFileReference) psiElement)) {
+                        addTemplateName(includeTemplates, templateName);
+                    }
+                }
+
+                if(psiElement instanceof TwigCompositeElement) {
+                    // {{ include('foo') }}
+                    PsiElement includeTag = PsiElementUtils.getChildrenOfType(psiElement, TwigHelper.getPrintBlockFunctionPattern("include", "source"));
+                    if(includeTag != null) {
+                        addTemplateName(includeTemplates, includeTag.getText());
+                    }
+
+                    // {% embed 'foo' %}
+                    PsiElement embedTag = PsiElementUtils.getChildrenOfType(psiElement, TwigHelper.getEmbedPattern());
+                    if(embedTag != null) {
+                        addTemplateName(includeTemplates, embedTag.getText());
+                    }
+                }
+
+                return false;
+            });
+
+            Collection<String> blocks = new ArrayList<>();
+            for (TwigBlock twigBlock : TwigHelper.getBlocksInFile((TwigFile) psiFile)) {
+                blocks.add(twigBlock.getName());
+            }
+
+            map.put(GRAPH_KEY, new TwigTemplateGraphEntry(extendsTemplates, useTemplates, includeTemplates, blocks));
+
+            return map;
+        });
+    }
+
+    private static void addTemplateName(@NotNull Collection<String> templates, @NotNull String templateName) {
+        if(StringUtils.isNotBlank(templateName)) {
+            templates.add(TwigHelper.normalizeTemplateName(templateName));
+        }
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return this.myKeyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<TwigTemplateGraphEntry> getValueExternalizer() {
+        return EXTERNALIZER;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return file -> file.getFileType() == TwigFileType.INSTANCE;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+}
@@ -1,43 +1,45 @@
 package fr.adrienbrault.idea.symfony2plugin.stubs.indexes;
 
 import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.util.indexing.*;
 import com.intellij.util.io.DataExternalizer;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
-import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.StringSetDataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer.StringIntegerMapDataExternalizer;
+import fr.adrienbrault.idea.symfony2plugin.translation.collector.XliffTranslationVisitor;
 import fr.adrienbrault.idea.symfony2plugin.translation.collector.YamlTranslationVistor;
-import fr.adrienbrault.idea.symfony2plugin.translation.dict.TranslationUtil;
 import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.yaml.YAMLFileType;
 import org.jetbrains.yaml.psi.YAMLFile;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 
-public class YamlTranslationStubIndex extends FileBasedIndexExtension<String, Set<String>> {
+/**
+ * Translation domain to its keys including their text offset inside the file,
+ * so navigation can directly jump to a key without walking the file
+ */
+public class YamlTranslationStubIndex extends FileBasedIndexExtension<String, Map<String, Integer>> {
 
-    public static final ID<String, Set<String>> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.translations");
+    public static final ID<String, Map<String, Integer>> KEY = ID.create("fr.adrienbrault.idea.symfony2plugin.translations");
     private final KeyDescriptor<String> myKeyDescriptor = new EnumeratorStringDescriptor();
 
     @NotNull
     @Override
-    public DataIndexer<String, Set<String>, FileContent> getIndexer() {
+    public DataIndexer<String, Map<String, Integer>, FileContent> getIndexer() {
 
-        return new DataIndexer<String, Set<String>, FileContent>() {
+        return SymfonyMetricsService.indexer("YamlTranslationStubIndex", new DataIndexer<String, Map<String, Integer>, FileContent>() {
             @NotNull
             @Override
-            public Map<String, Set<String>> map(@NotNull FileContent inputData) {
+            public Map<String, Map<String, Integer>> map(@NotNull FileContent inputData) {
 
-                Map<String, Set<String>> map = new THashMap<>();
+                Map<String, Map<String, Integer>> map = new THashMap<>();
 
                 if(!Symfony2ProjectComponent.isEnabledForIndex(inputData.getProject())) {
                     return map;
@@ -63,17 +65,19 @@ public class YamlTranslationStubIndex extends FileBasedIndexExtension<String, Se
                     return map;
                 }
 
-                final Set<String> translationKeySet = new HashSet<>();
+                final Map<String, Integer> translationKeys = new THashMap<>();
                 YamlTranslationVistor.collectFileTranslations((YAMLFile) psiFile, (keyName, yamlKeyValue) -> {
-                    translationKeySet.add(keyName);
+                    // multiline "line values" are not resolve properly on psiElements use key as fallback target
+                    PsiElement value = yamlKeyValue.getValue();
+                    translationKeys.put(keyName, value != null ? value.getTextOffset() : yamlKeyValue.getTextOffset());
                     return true;
                 });
 
-                if(translationKeySet.size() == 0) {
+                if(translationKeys.size() == 0) {
                     return map;
                 }
 
-                map.put(domainName, translationKeySet);
+                map.put(domainName, translationKeys);
 
                 return map;
 
@@ -97,7 +101,7 @@ public class YamlTranslationStubIndex extends FileBasedIndexExtension<String, Se
                 return false;
             }
 
-            private Map<String, Set<String>> getXlfStringMap(FileContent inputData, Map<String, Set<String>> map) {
+            private Map<String, Map<String, Integer>> getXlfStringMap(FileContent inputData, Map<String, Map<String, Integer>> map) {
 
                 // testing files are not that nice
                 String relativePath = VfsUtil.getRelativePath(inputData.getFile(), inputData.getProject().getBaseDir(), '/');
@@ -110,16 +114,15 @@ public class YamlTranslationStubIndex extends FileBasedIndexExtension<String, Se
                     return map;
                 }
 
-                InputStream inputStream;
-                try {
-                    inputStream = inputData.getFile().getInputStream();
-                } catch (IOException e) {
-                    return map;
-                }
+                // already loaded content, dont hit the filesystem again
+                Map<String, Integer> keys = new THashMap<>();
+                XliffTranslationVisitor.visit(inputData.getContentAsText(), (keyName, offset) -> {
+                    keys.put(keyName, Math.max(0, offset));
+                    return true;
+                });
 
-                Set<String> set = TranslationUtil.getXliffTranslations(inputStream);
-                if(set.size() > 0) {
-                    map.put(domainName, set);
+                if(keys.size() > 0) {
+                    map.put(domainName, keys);
                 }
 
                 return map;
@@ -137,12 +140,12 @@ public class YamlTranslationStubIndex extends FileBasedIndexExtension<String, Se
                 return fileName.substring(0, domainSplit);
             }
 
-        };
+        });
     }
 
     @NotNull
     @Override
-    public ID<String, Set<String>> getName() {
+    public ID<String, Map<String, Integer>> getName() {
         return KEY;
     }
 
@@ -154,8 +157,8 @@ public class YamlTranslationStubIndex extends FileBasedIndexExtension<String, Se
     }
 
     @NotNull
-    public DataExternalizer<Set<String>> getValueExternalizer() {
-        return new StringSetDataExternalizer();
+    public DataExternalizer<Map<String, Integer>> getValueExternalizer() {
+        return new StringIntegerMapDataExternalizer();
     }
 
     @NotNull
@@ -172,7 +175,7 @@ public class YamlTranslationStubIndex extends FileBasedIndexExtension<String, Se
 
     @Override
     public int getVersion() {
-        return 4;
+        return 6;
     }
 
 }
@@ -0,0 +1,42 @@
+package fr.adrienbrault.idea.symfony2plugin.stubs.indexes.externalizer;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * String to positive integer map, eg key to text offset; integers are stored variable length
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class StringIntegerMapDataExternalizer implements DataExternalizer<Map<String, Integer>> {
+
+    @Override
+    public void save(@NotNull DataOutput out, Map<String, Integer> value) throws IOException {
+        DataInputOutputUtil.writeINT(out, value.size());
+
+        for (Map.Entry<String, Integer> entry : value.entrySet()) {
+            EnumeratorStringDescriptor.INSTANCE.save(out, entry.getKey());
+            DataInputOutputUtil.writeINT(out, entry.getValue());
+        }
+    }
+
+    @Override
+    public Map<String, Integer> read(@NotNull DataInput in) throws IOException {
+        int size = DataInputOutputUtil.readINT(in);
+        Map<String, Integer> map = new THashMap<>(size);
+
+        for(int r = size; r > 0; --r) {
+            map.put(EnumeratorStringDescriptor.INSTANCE.read(in), DataInputOutputUtil.readINT(in));
+        }
+
+        return map;
+    }
+}
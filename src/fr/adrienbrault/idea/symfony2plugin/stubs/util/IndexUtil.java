@@ -10,12 +10,14 @@ public class IndexUtil {
 
         ID<?,?>[] indexIds = new ID<?,?>[] {
             AnnotationRoutesStubIndex.KEY,
+            ConsoleCommandStubIndex.KEY,
             ContainerBuilderStubIndex.KEY,
             ContainerParameterStubIndex.KEY,
             DoctrineMetadataFileStubIndex.KEY,
             EventAnnotationStubIndex.KEY,
             FileResourcesIndex.KEY,
             PhpTwigTemplateUsageStubIndex.KEY,
+            PhpTwigTemplateVariableStubIndex.KEY,
             RoutesStubIndex.KEY,
             ServicesDefinitionStubIndex.KEY,
             ServicesTagStubIndex.KEY,
@@ -23,6 +25,7 @@ public class IndexUtil {
             TwigIncludeStubIndex.KEY,
             TwigMacroFromStubIndex.KEY,
             TwigMacroFunctionStubIndex.KEY,
+            TwigTemplateGraphIndex.KEY,
             YamlTranslationStubIndex.KEY,
         };
 
@@ -1,7 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.templating;
 
 import com.intellij.codeInsight.lookup.LookupElement;
-import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
@@ -9,9 +8,8 @@ import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionContributor
 import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionProvider;
 import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionRegistrar;
 import fr.adrienbrault.idea.symfony2plugin.codeInsight.GotoCompletionRegistrarParameter;
-import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigBlock;
 import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigBlockLookupElement;
-import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigBlockParser;
+import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigTemplateGraphUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -58,14 +56,9 @@ public class BlockCompletionRegistrar implements GotoCompletionRegistrar {
 
             Collection<LookupElement> lookupElements = new ArrayList<>();
 
-            Map<String, VirtualFile> twigFilesByName = TwigHelper.getTwigFilesByName(getElement().getProject());
-            List<TwigBlock> blocks = new TwigBlockParser(twigFilesByName).withSelfBlocks(true).walk(getElement().getContainingFile());
-            List<String> uniqueList = new ArrayList<>();
-            for (TwigBlock block : blocks) {
-                if(!uniqueList.contains(block.getName())) {
-                    uniqueList.add(block.getName());
-                    lookupElements.add(new TwigBlockLookupElement(block));
-                }
+            // block names are taken from index, no template is opened
+            for (Map.Entry<String, String> block : TwigTemplateGraphUtil.getBlockNames(getElement().getContainingFile(), true).entrySet()) {
+                lookupElements.add(new TwigBlockLookupElement(block.getKey(), block.getValue()));
             }
 
             return lookupElements;
@@ -6,24 +6,20 @@ import com.intellij.codeInsight.daemon.RelatedItemLineMarkerInfo;
 import com.intellij.codeInsight.navigation.NavigationGutterIconBuilder;
 import com.intellij.navigation.GotoRelatedItem;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiManager;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ConstantFunction;
-import com.intellij.util.indexing.FileBasedIndexImpl;
 import com.jetbrains.php.PhpIcons;
 import com.jetbrains.php.lang.psi.elements.Function;
 import com.jetbrains.php.lang.psi.elements.Method;
 import com.jetbrains.twig.TwigFile;
-import com.jetbrains.twig.TwigFileType;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2Icons;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
 import fr.adrienbrault.idea.symfony2plugin.dic.RelatedPopupGotoLineMarker;
-import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigIncludeStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.templating.dict.TemplateFileMap;
+import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigTemplateGraphUtil;
 import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigUtil;
 import icons.TwigIcons;
 import org.jetbrains.annotations.NotNull;
@@ -117,22 +113,16 @@ public class TwigControllerLineMarkerProvider implements LineMarkerProvider {
 
         TemplateFileMap files = getTemplateFilesByName(twigFile.getProject());
 
-        final Collection<PsiFile> targets = new ArrayList<>();
-        for(String templateName: TwigUtil.getTemplateName(twigFile.getVirtualFile(), files)) {
-
-            final Project project = twigFile.getProject();
-            FileBasedIndexImpl.getInstance().getFilesWithKey(TwigIncludeStubIndex.KEY, new HashSet<>(Arrays.asList(templateName)), virtualFile -> {
-                PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
-
-                if(psiFile != null) {
-                    targets.add(psiFile);
-                }
-
-                return true;
-            }, GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.allScope(project), TwigFileType.INSTANCE));
-
+        VirtualFile virtualFile = twigFile.getVirtualFile();
+        if(virtualFile == null) {
+            return null;
         }
 
+        final Collection<PsiFile> targets = TwigTemplateGraphUtil.getPsiFiles(
+            twigFile.getProject(),
+            TwigTemplateGraphUtil.getGraph(twigFile.getProject()).getIncludingTemplates(virtualFile)
+        );
+
         if(targets.size() == 0) {
             return null;
         }
@@ -185,7 +175,7 @@ public class TwigControllerLineMarkerProvider implements LineMarkerProvider {
     private LineMarkerInfo attachFromIncludes(TwigFile twigFile) {
         TemplateFileMap files = getTemplateFilesByName(twigFile.getProject());
 
-        final Collection<PsiFile> targets = TwigUtil.getImplementationsForExtendsTag(twigFile, files);
+        final Collection<PsiFile> targets = TwigUtil.getImplementationsForExtendsTag(twigFile);
         if(targets.size() == 0) {
             return null;
         }
@@ -225,28 +215,14 @@ public class TwigControllerLineMarkerProvider implements LineMarkerProvider {
             return null;
         }
 
-        TemplateFileMap files = getTemplateFilesByName(psiElement.getProject());
-
-        Collection<PsiFile> twigChild = TwigUtil.getTemplateFileReferences(psiFile, files);
-        if(twigChild.size() == 0) {
-            return null;
-        }
-
-        final String blockName = psiElement.getText();
-
-        List<PsiElement> blockTargets = new ArrayList<>();
-        for(PsiFile psiFile1: twigChild) {
-
-            blockTargets.addAll(Arrays.asList(PsiTreeUtil.collectElements(psiFile1, psiElement1 ->
-                TwigHelper.getBlockTagPattern().accepts(psiElement1) && blockName.equals(psiElement1.getText())))
-            );
-
-        }
-
+        // only inheriting templates which define the block are opened
+        Collection<PsiElement> blockTargets = TwigTemplateGraphUtil.getBlockImplementations(psiFile, psiElement.getText());
         if(blockTargets.size() == 0) {
             return null;
         }
 
+        TemplateFileMap files = getTemplateFilesByName(psiElement.getProject());
+
         List<GotoRelatedItem> gotoRelatedItems = new ArrayList<>();
         for(PsiElement blockTag: blockTargets) {
             gotoRelatedItems.add(new RelatedPopupGotoLineMarker.PopupGotoRelatedItem(blockTag, TwigUtil.getPresentableTemplateName(files.getTemplates(), blockTag, true)).withIcon(TwigIcons.TwigFileIcon, Symfony2Icons.TWIG_LINE_MARKER));
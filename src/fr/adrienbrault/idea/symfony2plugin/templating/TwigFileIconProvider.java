@@ -1,20 +1,18 @@
 package fr.adrienbrault.idea.symfony2plugin.templating;
 
 import com.intellij.openapi.util.Iconable;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.ui.LayeredIcon;
 import com.jetbrains.twig.TwigFile;
 import com.jetbrains.twig.elements.TwigExtendsTag;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2Icons;
-import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
-import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigUtil;
+import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigTemplateGraphUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.util.Collection;
 
 public class TwigFileIconProvider extends com.intellij.ide.IconProvider {
     @Nullable
@@ -29,8 +27,8 @@ public class TwigFileIconProvider extends com.intellij.ide.IconProvider {
             return wrapIcon(((TwigFile) psiElement), Symfony2Icons.TWIG_IMPLEMENTS_FILE);
         }
 
-        Collection<PsiFile> twigChild = TwigUtil.getTemplateFileReferences((TwigFile) psiElement, TwigHelper.getTemplateMap(psiElement.getProject(), true, false));
-        if(twigChild.size() > 0) {
+        VirtualFile virtualFile = ((TwigFile) psiElement).getVirtualFile();
+        if(virtualFile != null && TwigTemplateGraphUtil.getGraph(psiElement.getProject()).getChildren(virtualFile).size() > 0) {
             return wrapIcon((TwigFile) psiElement, Symfony2Icons.TWIG_EXTENDS_FILE);
         }
 
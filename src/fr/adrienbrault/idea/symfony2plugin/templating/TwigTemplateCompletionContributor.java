@@ -30,6 +30,7 @@ import fr.adrienbrault.idea.symfony2plugin.templating.globals.TwigGlobalEnum;
 import fr.adrienbrault.idea.symfony2plugin.templating.globals.TwigGlobalVariable;
 import fr.adrienbrault.idea.symfony2plugin.templating.globals.TwigGlobalsServiceParser;
 import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigExtensionParser;
+import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigTemplateGraphUtil;
 import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigTypeResolveUtil;
 import fr.adrienbrault.idea.symfony2plugin.templating.util.TwigUtil;
 import fr.adrienbrault.idea.symfony2plugin.templating.variable.TwigTypeContainer;
@@ -632,18 +633,13 @@ public class TwigTemplateCompletionContributor extends CompletionContributor {
             // collect blocks in all related files
             Pair<PsiFile[], Boolean> scopedContext = TwigHelper.findScopedFile(position);
 
-            List<TwigBlock> blocks = new TwigBlockParser(TwigHelper.getTwigFilesByName(position.getProject()))
-                .withSelfBlocks(scopedContext.getSecond())
-                .visit(scopedContext.getFirst());
-
             Set<String> uniqueList = new HashSet<>();
-            for (TwigBlock block : blocks) {
-                if(uniqueList.contains(block.getName())) {
-                    continue;
+            for (PsiFile psiFile : scopedContext.getFirst()) {
+                for (Map.Entry<String, String> block : TwigTemplateGraphUtil.getBlockNames(psiFile, scopedContext.getSecond()).entrySet()) {
+                    if(uniqueList.add(block.getKey())) {
+                        myResultSet.addElement(new TwigBlockLookupElement(block.getKey(), block.getValue()));
+                    }
                 }
-
-                uniqueList.add(block.getName());
-                myResultSet.addElement(new TwigBlockLookupElement(block));
             }
         }
     }
@@ -4,24 +4,34 @@ import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementPresentation;
 import icons.TwigIcons;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class TwigBlockLookupElement extends LookupElement {
 
-    private TwigBlock twigBlock;
+    @NotNull
+    private final String blockName;
+
+    @Nullable
+    private final String shortcutName;
 
     public TwigBlockLookupElement(TwigBlock twigBlock) {
-        this.twigBlock = twigBlock;
+        this(twigBlock.getName(), twigBlock.getShortcutName());
+    }
+
+    public TwigBlockLookupElement(@NotNull String blockName, @Nullable String shortcutName) {
+        this.blockName = blockName;
+        this.shortcutName = shortcutName;
     }
 
     @NotNull
     @Override
     public String getLookupString() {
-        return twigBlock.getName();
+        return blockName;
     }
 
     public void renderElement(LookupElementPresentation presentation) {
         presentation.setItemText(getLookupString());
-        presentation.setTypeText(twigBlock.getShortcutName());
+        presentation.setTypeText(shortcutName);
         presentation.setTypeGrayed(true);
         presentation.setIcon(TwigIcons.TwigFileIcon);
     }
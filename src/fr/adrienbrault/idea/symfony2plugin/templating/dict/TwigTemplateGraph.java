@@ -0,0 +1,413 @@
+package fr.adrienbrault.idea.symfony2plugin.templating.dict;
+
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigTemplateGraphEntry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Project wide template graph of "extends", "use" and "include" edges with block name tables.
+ *
+ * Edges are resolved once in both directions, so children and includes of a template are direct lookups.
+ * Every template gets a lazy table of the blocks visible from its parents, pointing to the nearest
+ * template defining them. A table only holds the blocks added by its template on top of the parent
+ * table and is flattened every few levels, so lookups are bounded and deep chains do not copy all
+ * blocks on every level. Block lookups no longer walk the inheritance chain and only touch the
+ * templates which define the block
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TwigTemplateGraph<T> {
+
+    @NotNull
+    private final Map<T, TwigTemplateGraphEntry> entries;
+
+    @NotNull
+    private final Map<String, ? extends Collection<T>> templateFiles;
+
+    @NotNull
+    private final Map<T, Set<String>> templateNames = new HashMap<>();
+
+    @NotNull
+    private final Map<T, Set<String>> blocks = new HashMap<>();
+
+    /**
+     * "extends" and "use" targets in declaration order
+     */
+    @NotNull
+    private final Map<T, List<T>> parents = new HashMap<>();
+
+    @NotNull
+    private final Map<T, Set<T>> children = new HashMap<>();
+
+    @NotNull
+    private final Map<T, Set<T>> includedBy = new HashMap<>();
+
+    /**
+     * Block name to nearest parent template defining it; filled on demand
+     */
+    @NotNull
+    private final Map<T, BlockTable<T>> inheritedBlocks = new HashMap<>();
+
+    /**
+     * Inherited blocks plus own blocks of a template
+     */
+    @NotNull
+    private final Map<T, BlockTable<T>> visibleBlocks = new HashMap<>();
+
+    public TwigTemplateGraph(@NotNull Map<T, TwigTemplateGraphEntry> entries, @NotNull Map<String, ? extends Collection<T>> templateFiles) {
+        this.entries = entries;
+        this.templateFiles = templateFiles;
+
+        for (Map.Entry<String, ? extends Collection<T>> entry : templateFiles.entrySet()) {
+            for (T file : entry.getValue()) {
+                templateNames.computeIfAbsent(file, f -> new TreeSet<>()).add(entry.getKey());
+            }
+        }
+
+        for (Map.Entry<T, TwigTemplateGraphEntry> entry : entries.entrySet()) {
+            T file = entry.getKey();
+            TwigTemplateGraphEntry graphEntry = entry.getValue();
+
+            if(graphEntry.getBlocks().size() > 0) {
+                blocks.put(file, new HashSet<>(graphEntry.getBlocks()));
+            }
+
+            Set<T> fileParents = new LinkedHashSet<>();
+            fileParents.addAll(resolve(graphEntry.getExtendsTemplates()));
+            fileParents.addAll(resolve(graphEntry.getUseTemplates()));
+            fileParents.remove(file);
+
+            if(fileParents.size() > 0) {
+                parents.put(file, new ArrayList<>(fileParents));
+                for (T parent : fileParents) {
+                    children.computeIfAbsent(parent, f -> new LinkedHashSet<>()).add(file);
+                }
+            }
+
+            for (T included : resolve(graphEntry.getIncludeTemplates())) {
+                includedBy.computeIfAbsent(included, f -> new LinkedHashSet<>()).add(file);
+            }
+        }
+    }
+
+    @NotNull
+    private Collection<T> resolve(@NotNull Collection<String> templateNames) {
+        Collection<T> files = new LinkedHashSet<>();
+
+        for (String templateName : templateNames) {
+            Collection<T> resolved = templateFiles.get(templateName);
+            if(resolved != null) {
+                files.addAll(resolved);
+            }
+        }
+
+        return files;
+    }
+
+    @Nullable
+    public TwigTemplateGraphEntry getEntry(@NotNull T file) {
+        return entries.get(file);
+    }
+
+    /**
+     * All names a template is reachable with; "@Foo/bar.html.twig", "FooBundle::bar.html.twig"
+     */
+    @NotNull
+    public Collection<String> getTemplateNames(@NotNull T file) {
+        Set<String> names = templateNames.get(file);
+        return names != null ? names : Collections.emptySet();
+    }
+
+    @NotNull
+    public Collection<T> getTemplateFiles(@NotNull String templateName) {
+        Collection<T> files = templateFiles.get(templateName);
+        return files != null ? files : Collections.emptySet();
+    }
+
+    /**
+     * Direct "extends" and "use" targets
+     */
+    @NotNull
+    public Collection<T> getParents(@NotNull T file) {
+        List<T> files = parents.get(file);
+        return files != null ? files : Collections.emptyList();
+    }
+
+    /**
+     * All parents up to the root templates; nearest first
+     */
+    @NotNull
+    public Collection<T> getAncestors(@NotNull T file) {
+        return walk(file, parents);
+    }
+
+    /**
+     * Templates which directly "extends" or "use" the given one
+     */
+    @NotNull
+    public Collection<T> getChildren(@NotNull T file) {
+        Set<T> files = children.get(file);
+        return files != null ? files : Collections.emptySet();
+    }
+
+    /**
+     * All templates inheriting from the given one; nearest first
+     */
+    @NotNull
+    public Collection<T> getDescendants(@NotNull T file) {
+        return walk(file, children);
+    }
+
+    /**
+     * Templates which "include", "embed" or "source" the given one
+     */
+    @NotNull
+    public Collection<T> getIncludingTemplates(@NotNull T file) {
+        Set<T> files = includedBy.get(file);
+        return files != null ? files : Collections.emptySet();
+    }
+
+    /**
+     * Block names visible in template pointing to their nearest definition
+     *
+     * @param withSelf include blocks of the template itself
+     */
+    @NotNull
+    public Map<String, T> getBlocks(@NotNull T file, boolean withSelf) {
+        BlockTable<T> inherited = getInheritedBlocks(file);
+        if(!withSelf) {
+            return inherited.toMap();
+        }
+
+        synchronized (this) {
+            return visibleBlocks.get(file).toMap();
+        }
+    }
+
+    /**
+     * Templates defining the block in inheritance order; nearest first.
+     * Only the defining templates are visited, not the whole chain
+     */
+    @NotNull
+    public Collection<T> getBlockDefinitions(@NotNull T file, @NotNull String blockName, boolean withSelf) {
+        Set<T> definitions = new LinkedHashSet<>();
+
+        T current = withSelf && hasBlock(file, blockName) ? file : getInheritedBlocks(file).get(blockName);
+        while (current != null && definitions.add(current)) {
+            current = getInheritedBlocks(current).get(blockName);
+        }
+
+        return definitions;
+    }
+
+    /**
+     * Inheriting templates which overwrite the block
+     */
+    @NotNull
+    public Collection<T> getBlockImplementations(@NotNull T file, @NotNull String blockName) {
+        Collection<T> implementations = new ArrayList<>();
+
+        for (T descendant : getDescendants(file)) {
+            if(hasBlock(descendant, blockName)) {
+                implementations.add(descendant);
+            }
+        }
+
+        return implementations;
+    }
+
+    public boolean hasBlock(@NotNull T file, @NotNull String blockName) {
+        Set<String> own = blocks.get(file);
+        return own != null && own.contains(blockName);
+    }
+
+    @NotNull
+    private Collection<T> walk(@NotNull T file, @NotNull Map<T, ? extends Collection<T>> edges) {
+        Set<T> visited = new LinkedHashSet<>();
+
+        Deque<T> queue = new ArrayDeque<>();
+        queue.add(file);
+
+        while (!queue.isEmpty()) {
+            Collection<T> next = edges.get(queue.poll());
+            if(next == null) {
+                continue;
+            }
+
+            for (T t : next) {
+                if(!t.equals(file) && visited.add(t)) {
+                    queue.add(t);
+                }
+            }
+        }
+
+        return visited;
+    }
+
+    /**
+     * Blocks of all parents; tables are build bottom up without recursion, so deep chains are no problem.
+     * A cycle is cut at the template where it was entered
+     */
+    @NotNull
+    private synchronized BlockTable<T> getInheritedBlocks(@NotNull T file) {
+        BlockTable<T> cached = inheritedBlocks.get(file);
+        if(cached != null) {
+            return cached;
+        }
+
+        Set<T> expanded = new HashSet<>();
+
+        Deque<T> stack = new ArrayDeque<>();
+        stack.push(file);
+
+        while (!stack.isEmpty()) {
+            T current = stack.peek();
+            if(inheritedBlocks.containsKey(current)) {
+                stack.pop();
+                continue;
+            }
+
+            if(expanded.add(current)) {
+                for (T parent : getParents(current)) {
+                    if(!inheritedBlocks.containsKey(parent) && !expanded.contains(parent)) {
+                        stack.push(parent);
+                    }
+                }
+
+                continue;
+            }
+
+            stack.pop();
+
+            BlockTable<T> inherited = mergeParentBlocks(current);
+            inheritedBlocks.put(current, inherited);
+            visibleBlocks.put(current, createVisibleBlocks(current, inherited));
+        }
+
+        return inheritedBlocks.get(file);
+    }
+
+    @NotNull
+    private BlockTable<T> mergeParentBlocks(@NotNull T file) {
+        Collection<T> fileParents = getParents(file);
+        if(fileParents.size() == 0) {
+            return BlockTable.empty();
+        }
+
+        // single parent: its table is shared
+        if(fileParents.size() == 1) {
+            BlockTable<T> parentBlocks = visibleBlocks.get(fileParents.iterator().next());
+            return parentBlocks != null ? parentBlocks : BlockTable.empty();
+        }
+
+        // first parent wins
+        Map<String, T> merged = new HashMap<>();
+        for (T parent : fileParents) {
+            BlockTable<T> parentBlocks = visibleBlocks.get(parent);
+            if(parentBlocks != null) {
+                for (Map.Entry<String, T> entry : parentBlocks.toMap().entrySet()) {
+                    merged.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return new BlockTable<>(merged, null, 0);
+    }
+
+    /**
+     * Table children of the template see; only templates with own blocks need a new one
+     */
+    @NotNull
+    private BlockTable<T> createVisibleBlocks(@NotNull T file, @NotNull BlockTable<T> inherited) {
+        Set<String> own = blocks.get(file);
+        if(own == null) {
+            return inherited;
+        }
+
+        Map<String, T> ownBlocks = new HashMap<>();
+        for (String block : own) {
+            ownBlocks.put(block, file);
+        }
+
+        return inherited.with(ownBlocks);
+    }
+
+    /**
+     * Blocks added on top of a parent table; nearest table wins
+     */
+    private static class BlockTable<T> {
+
+        /**
+         * Longest chain of tables before it is flattened
+         */
+        private static final int MAX_DEPTH = 16;
+
+        private static final BlockTable<Object> EMPTY = new BlockTable<>(Collections.emptyMap(), null, 0);
+
+        @NotNull
+        private final Map<String, T> blocks;
+
+        @Nullable
+        private final BlockTable<T> parent;
+
+        private final int depth;
+
+        private BlockTable(@NotNull Map<String, T> blocks, @Nullable BlockTable<T> parent, int depth) {
+            this.blocks = blocks;
+            this.parent = parent;
+            this.depth = depth;
+        }
+
+        @NotNull
+        @SuppressWarnings("unchecked")
+        private static <T> BlockTable<T> empty() {
+            return (BlockTable<T>) EMPTY;
+        }
+
+        @NotNull
+        private BlockTable<T> with(@NotNull Map<String, T> blocks) {
+            if(this == EMPTY) {
+                return new BlockTable<>(blocks, null, 0);
+            }
+
+            if(depth + 1 < MAX_DEPTH) {
+                return new BlockTable<>(blocks, this, depth + 1);
+            }
+
+            Map<String, T> flat = toMap();
+            flat.putAll(blocks);
+
+            return new BlockTable<>(flat, null, 0);
+        }
+
+        @Nullable
+        private T get(@NotNull String name) {
+            for (BlockTable<T> table = this; table != null; table = table.parent) {
+                T file = table.blocks.get(name);
+                if(file != null) {
+                    return file;
+                }
+            }
+
+            return null;
+        }
+
+        @NotNull
+        private Map<String, T> toMap() {
+            Deque<BlockTable<T>> tables = new ArrayDeque<>();
+            for (BlockTable<T> table = this; table != null; table = table.parent) {
+                tables.push(table);
+            }
+
+            // farthest first, so nearer tables overwrite
+            Map<String, T> map = new HashMap<>();
+            for (BlockTable<T> table : tables) {
+                map.putAll(table.blocks);
+            }
+
+            return map;
+        }
+    }
+}
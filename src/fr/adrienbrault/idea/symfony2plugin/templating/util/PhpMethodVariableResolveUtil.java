@@ -1,15 +1,23 @@
 package fr.adrienbrault.idea.symfony2plugin.templating.util;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.NullableLazyValue;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiReference;
-import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
-import com.intellij.util.CommonProcessors;
-import com.jetbrains.php.lang.psi.PhpPsiUtil;
+import com.intellij.util.indexing.FileBasedIndex;
 import com.jetbrains.php.lang.psi.elements.*;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2InterfacesUtil;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TemplateVariableUsage;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.PhpTwigTemplateVariableStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.templating.variable.dict.PsiVariable;
 import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -24,22 +32,33 @@ public class PhpMethodVariableResolveUtil {
 
         List<PsiElement> psiElements = collectPossibleTemplateArrays(method);
         for(PsiElement templateVariablePsi: psiElements) {
+            collectedTypes.putAll(collectTemplateArrayVariables(method, templateVariablePsi));
+        }
 
-            if(templateVariablePsi instanceof ArrayCreationExpression) {
-                // "return array(...)" we dont need any parsing
-                collectedTypes.putAll(getTypesOnArrayHash((ArrayCreationExpression) templateVariablePsi));
+        return collectedTypes;
+    }
 
-            } else if(templateVariablePsi instanceof Variable) {
-                // we need variable declaration line so resolve it and search for references which attach other values to array
-                // find definition and search for references on it
-                PsiElement resolvedVariable = ((Variable) templateVariablePsi).resolve();
-                if(resolvedVariable instanceof Variable) {
-                    collectedTypes.putAll(collectOnVariableReferences(method.getUseScope(), (Variable) resolvedVariable));
-                }
+    /**
+     * Variables of a template array inside the function; only the function itself is visited
+     *
+     * "return array(...)", "$twig->render('foo', $vars)"
+     */
+    @NotNull
+    public static Map<String, PsiVariable> collectTemplateArrayVariables(@NotNull Function function, @NotNull PsiElement templateVariablePsi) {
+        if(templateVariablePsi instanceof ArrayCreationExpression) {
+            // "return array(...)" we dont need any parsing
+            return getTypesOnArrayHash((ArrayCreationExpression) templateVariablePsi);
+        }
+
+        if(templateVariablePsi instanceof Variable) {
+            // we need variable declaration line, so collect all usages which attach other values to array
+            String variableName = ((Variable) templateVariablePsi).getName();
+            if(variableName != null) {
+                return collectOnVariableAssignments(function, variableName);
             }
         }
 
-        return collectedTypes;
+        return Collections.emptyMap();
     }
 
     /**
@@ -51,17 +70,7 @@ public class PhpMethodVariableResolveUtil {
 
         // Annotation controller
         // @TODO: check for phpdoc tag
-        for(PhpReturn phpReturn : PsiTreeUtil.findChildrenOfType(method, PhpReturn.class)) {
-            PhpPsiElement returnPsiElement = phpReturn.getFirstPsiChild();
-
-            // @TODO: think of support all types here
-            // return $template
-            // return array('foo' => $var)
-            if(returnPsiElement instanceof Variable || returnPsiElement instanceof ArrayCreationExpression) {
-                collectedTemplateVariables.add(returnPsiElement);
-            }
-
-        }
+        collectedTemplateVariables.addAll(collectReturnTemplateArrays(method));
 
         // twig render calls:
         // $twig->render('foo', $vars);
@@ -77,39 +86,58 @@ public class PhpMethodVariableResolveUtil {
         return collectedTemplateVariables;
     }
 
+    /**
+     * Template arrays of "@Template" controllers; psi only, so also usable on indexing
+     *
+     * "return $template", "return array('foo' => $var)"
+     */
+    @NotNull
+    public static List<PsiElement> collectReturnTemplateArrays(@NotNull Function method) {
+
+        List<PsiElement> collectedTemplateVariables = new ArrayList<>();
+
+        for(PhpReturn phpReturn : PsiTreeUtil.findChildrenOfType(method, PhpReturn.class)) {
+            PhpPsiElement returnPsiElement = phpReturn.getFirstPsiChild();
+
+            // @TODO: think of support all types here
+            if(returnPsiElement instanceof Variable || returnPsiElement instanceof ArrayCreationExpression) {
+                collectedTemplateVariables.add(returnPsiElement);
+            }
+        }
+
+        return collectedTemplateVariables;
+    }
 
     /**
-     * search for references of variable declaration and collect the types
+     * search for usages of the variable inside the function and collect the types;
+     * variables are function scoped, so no reference search is needed
      *
-     * @param searchScope should be method scope
-     * @param variable the variable declaration psi $var = array();
+     * @param function method or function scope
+     * @param variableName template array variable: "$var = array();"
      */
-    private static Map<String, PsiVariable> collectOnVariableReferences(SearchScope searchScope, Variable variable) {
+    private static Map<String, PsiVariable> collectOnVariableAssignments(@NotNull Function function, @NotNull String variableName) {
 
         final Map<String, PsiVariable> collectedTypes = new HashMap<>();
 
-        PhpPsiUtil.hasReferencesInSearchScope(searchScope, variable, new CommonProcessors.FindProcessor<PsiReference>() {
-            @Override
-            protected boolean accept(PsiReference psiReference) {
-                if (psiReference.getElement() instanceof Variable) {
-                    PsiElement parent = psiReference.getElement().getParent();
+        for (Variable variable : PsiTreeUtil.findChildrenOfType(function, Variable.class)) {
+            if(!variableName.equals(variable.getName())) {
+                continue;
+            }
 
-                    // $template['variable'] = $foo
-                    if (parent instanceof ArrayAccessExpression) {
-                        collectedTypes.putAll(getTypesOnArrayIndex((ArrayAccessExpression) parent));
-                    }
+            PsiElement parent = variable.getParent();
 
-                    // array('foo' => $var)
-                    if (parent instanceof AssignmentExpression) {
-                        if (((AssignmentExpression) parent).getValue() instanceof ArrayCreationExpression) {
-                            collectedTypes.putAll(getTypesOnArrayHash((ArrayCreationExpression) ((AssignmentExpression) parent).getValue()));
-                        }
-                    }
-                }
+            // $template['variable'] = $foo
+            if (parent instanceof ArrayAccessExpression) {
+                collectedTypes.putAll(getTypesOnArrayIndex((ArrayAccessExpression) parent));
+            }
 
-                return false;
+            // array('foo' => $var)
+            if (parent instanceof AssignmentExpression) {
+                if (((AssignmentExpression) parent).getValue() instanceof ArrayCreationExpression) {
+                    collectedTypes.putAll(getTypesOnArrayHash((ArrayCreationExpression) ((AssignmentExpression) parent).getValue()));
+                }
             }
-        });
+        }
 
         return collectedTypes;
     }
@@ -170,4 +198,68 @@ public class PhpMethodVariableResolveUtil {
 
         return collectedTypes;
     }
+
+    /**
+     * Variables passed to given templates; collected on indexing, so no controller is visited.
+     * Types are raw signatures, the value target is only resolved on access
+     */
+    @NotNull
+    public static Map<String, PsiVariable> getTemplateVariablesOnIndex(@NotNull Project project, @NotNull Collection<String> templateNames) {
+        Map<String, PsiVariable> collectedTypes = new HashMap<>();
+
+        for (String templateName : templateNames) {
+            FileBasedIndex.getInstance().processValues(PhpTwigTemplateVariableStubIndex.KEY, templateName, null, (virtualFile, usage) -> {
+                for (Map.Entry<String, TemplateVariableUsage.Variable> entry : usage.getVariables().entrySet()) {
+                    TemplateVariableUsage.Variable variable = entry.getValue();
+
+                    // types are extended by resolvers, so use a copy
+                    Set<String> types = new HashSet<>(variable.getTypes());
+                    if(variable.getStartOffset() < 0) {
+                        collectedTypes.put(entry.getKey(), new PsiVariable(types, (PsiElement) null));
+                    } else {
+                        collectedTypes.put(entry.getKey(), new PsiVariable(types, new IndexedValueLazyElement(project, virtualFile, variable)));
+                    }
+                }
+
+                return true;
+            }, GlobalSearchScope.allScope(project));
+        }
+
+        return collectedTypes;
+    }
+
+    /**
+     * Value expression of an indexed variable, by its text range
+     */
+    private static class IndexedValueLazyElement extends NullableLazyValue<PsiElement> {
+        @NotNull
+        private final Project project;
+
+        @NotNull
+        private final VirtualFile virtualFile;
+
+        @NotNull
+        private final TextRange textRange;
+
+        IndexedValueLazyElement(@NotNull Project project, @NotNull VirtualFile virtualFile, @NotNull TemplateVariableUsage.Variable variable) {
+            this.project = project;
+            this.virtualFile = virtualFile;
+            this.textRange = new TextRange(variable.getStartOffset(), variable.getEndOffset());
+        }
+
+        @Nullable
+        @Override
+        protected PsiElement compute() {
+            if(!virtualFile.isValid()) {
+                return null;
+            }
+
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+            if(psiFile == null) {
+                return null;
+            }
+
+            return PsiElementUtils.getElementByTextRange(psiFile, textRange);
+        }
+    }
 }
@@ -0,0 +1,147 @@
+package fr.adrienbrault.idea.symfony2plugin.templating.util;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.jetbrains.twig.TwigFile;
+import com.jetbrains.twig.TwigFileType;
+import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigTemplateGraphEntry;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigTemplateGraphIndex;
+import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigBlock;
+import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigTemplateGraph;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TwigTemplateGraphUtil {
+
+    private static final Key<CachedValue<TwigTemplateGraph<VirtualFile>>> TEMPLATE_GRAPH = new Key<>("SYMFONY_TWIG_TEMPLATE_GRAPH");
+
+    /**
+     * Graph of all Twig files; build from index and rebuild on next psi change
+     */
+    @NotNull
+    public static TwigTemplateGraph<VirtualFile> getGraph(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, TEMPLATE_GRAPH, () ->
+            CachedValueProvider.Result.create(createGraph(project), PsiModificationTracker.MODIFICATION_COUNT), false
+        );
+    }
+
+    @NotNull
+    private static TwigTemplateGraph<VirtualFile> createGraph(@NotNull Project project) {
+        Map<VirtualFile, TwigTemplateGraphEntry> entries = new HashMap<>();
+
+        FileBasedIndex.getInstance().processValues(TwigTemplateGraphIndex.KEY, TwigTemplateGraphIndex.GRAPH_KEY, null, (virtualFile, entry) -> {
+            entries.put(virtualFile, entry);
+            return true;
+        }, GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.allScope(project), TwigFileType.INSTANCE));
+
+        return new TwigTemplateGraph<>(entries, TwigHelper.getTemplateMap(project, true, false).getTemplateNames());
+    }
+
+    /**
+     * "{% block foo %}" targets of all parent templates; only templates defining the block are opened
+     */
+    @NotNull
+    public static Collection<PsiElement> getBlockDefinitions(@NotNull PsiFile psiFile, @NotNull String blockName, boolean withSelf) {
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        if(virtualFile == null) {
+            return Collections.emptyList();
+        }
+
+        return getBlockTargets(psiFile.getProject(), getGraph(psiFile.getProject()).getBlockDefinitions(virtualFile, blockName, withSelf), blockName);
+    }
+
+    /**
+     * "{% block foo %}" targets of all inheriting templates overwriting the block
+     */
+    @NotNull
+    public static Collection<PsiElement> getBlockImplementations(@NotNull PsiFile psiFile, @NotNull String blockName) {
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        if(virtualFile == null) {
+            return Collections.emptyList();
+        }
+
+        return getBlockTargets(psiFile.getProject(), getGraph(psiFile.getProject()).getBlockImplementations(virtualFile, blockName), blockName);
+    }
+
+    /**
+     * Block names visible in the file with the short name of the template defining them
+     */
+    @NotNull
+    public static Map<String, String> getBlockNames(@NotNull PsiFile psiFile, boolean withSelf) {
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        if(virtualFile == null) {
+            return Collections.emptyMap();
+        }
+
+        TwigTemplateGraph<VirtualFile> graph = getGraph(psiFile.getProject());
+
+        Map<String, String> blocks = new HashMap<>();
+        for (Map.Entry<String, VirtualFile> entry : graph.getBlocks(virtualFile, withSelf).entrySet()) {
+            VirtualFile definition = entry.getValue();
+            blocks.put(entry.getKey(), definition.equals(virtualFile) ? "self" : getShortcutName(graph, definition));
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Folded template name for presentation like "::base"; file name for templates without a name
+     */
+    @NotNull
+    public static String getShortcutName(@NotNull TwigTemplateGraph<VirtualFile> graph, @NotNull VirtualFile virtualFile) {
+        Iterator<String> names = graph.getTemplateNames(virtualFile).iterator();
+        return names.hasNext() ? TwigUtil.getFoldingTemplateNameOrCurrent(names.next()) : virtualFile.getName();
+    }
+
+    @NotNull
+    private static Collection<PsiElement> getBlockTargets(@NotNull Project project, @NotNull Collection<VirtualFile> virtualFiles, @NotNull String blockName) {
+        Collection<PsiElement> targets = new ArrayList<>();
+
+        for (VirtualFile virtualFile : virtualFiles) {
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+            if(!(psiFile instanceof TwigFile)) {
+                continue;
+            }
+
+            for (TwigBlock twigBlock : TwigHelper.getBlocksInFile((TwigFile) psiFile)) {
+                if(blockName.equals(twigBlock.getName())) {
+                    Collections.addAll(targets, twigBlock.getBlock());
+                }
+            }
+        }
+
+        return targets;
+    }
+
+    /**
+     * Resolve graph results to psi files
+     */
+    @NotNull
+    public static Collection<PsiFile> getPsiFiles(@NotNull Project project, @NotNull Collection<VirtualFile> virtualFiles) {
+        Collection<PsiFile> psiFiles = new ArrayList<>();
+
+        for (VirtualFile virtualFile : virtualFiles) {
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+            if(psiFile != null) {
+                psiFiles.add(psiFile);
+            }
+        }
+
+        return psiFiles;
+    }
+}
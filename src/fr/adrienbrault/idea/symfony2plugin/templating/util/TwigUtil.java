@@ -30,7 +30,6 @@ import com.jetbrains.twig.elements.TwigExtendsTag;
 import fr.adrienbrault.idea.symfony2plugin.TwigHelper;
 import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TemplateUsage;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.PhpTwigTemplateUsageStubIndex;
-import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigExtendsStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigMacroFromStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.templating.dict.*;
 import fr.adrienbrault.idea.symfony2plugin.templating.path.TwigPath;
@@ -71,7 +70,7 @@ public class TwigUtil {
             return null;
         }
 
-        SymfonyBundleUtil symfonyBundleUtil = new SymfonyBundleUtil(PhpIndex.getInstance(method.getProject()));
+        SymfonyBundleUtil symfonyBundleUtil = new SymfonyBundleUtil(method.getProject());
         SymfonyBundle symfonyBundle = symfonyBundleUtil.getContainingBundle(phpClass);
         if(symfonyBundle == null) {
             return null;
@@ -441,9 +440,8 @@ public class TwigUtil {
             vars.putAll(PhpMethodVariableResolveUtil.collectMethodVariables(method));
         }
 
-        for(Function methodIndex : getTwigFileMethodUsageOnIndex(twigFile)) {
-            vars.putAll(PhpMethodVariableResolveUtil.collectMethodVariables(methodIndex));
-        }
+        // render calls and "@Template" controllers are collected on indexing
+        vars.putAll(PhpMethodVariableResolveUtil.getTemplateVariablesOnIndex(twigFile.getProject(), getTemplateName(twigFile)));
 
         return vars;
 
@@ -770,9 +768,14 @@ public class TwigUtil {
      * Find files which implements then given file
      */
     @NotNull
-    public static Collection<PsiFile> getImplementationsForExtendsTag(@NotNull TwigFile twigFile, @NotNull TemplateFileMap files) {
+    public static Collection<PsiFile> getImplementationsForExtendsTag(@NotNull TwigFile twigFile) {
+        VirtualFile twigVirtualFile = twigFile.getVirtualFile();
+        if(twigVirtualFile == null) {
+            return Collections.emptyList();
+        }
+
         final Collection<PsiFile> targets = new ArrayList<>();
-        for(String templateName: files.getNames(twigFile.getVirtualFile())) {
+        for(String templateName: TwigTemplateGraphUtil.getGraph(twigFile.getProject()).getTemplateNames(twigVirtualFile)) {
 
             final Project project = twigFile.getProject();
             FileBasedIndexImpl.getInstance().getFilesWithKey(TwigMacroFromStubIndex.KEY, new HashSet<>(Collections.singletonList(templateName)), virtualFile -> {
@@ -791,47 +794,15 @@ public class TwigUtil {
     }
 
     /**
-     * Collects all files that include, extends, ... a given files
+     * Collects all files that "extends" or "use" a given file, also over multiple levels
      */
     @NotNull
-    public static Collection<PsiFile> getTemplateFileReferences(@NotNull final PsiFile psiFile, @NotNull TemplateFileMap files) {
-        List<PsiFile> twigChild = new ArrayList<>();
-        getTemplateFileReferences(files.getTemplates(), psiFile, twigChild, 8);
-        return twigChild;
-    }
-
-    private static void getTemplateFileReferences(@NotNull Map<String, VirtualFile> files, @NotNull final PsiFile psiFile, @NotNull final List<PsiFile> twigChild, int depth) {
-        if(depth <= 0) {
-            return;
-        }
-
-        // use set here, we have multiple shortcut on one file, but only one is required
-        final HashSet<VirtualFile> virtualFiles = new LinkedHashSet<>();
-
-        for(Map.Entry<String, VirtualFile> entry: files.entrySet()) {
-
-            // getFilesWithKey dont support keyset with > 1 items (bug?), so we cant merge calls
-            if(entry.getValue().equals(psiFile.getVirtualFile())) {
-                String key = entry.getKey();
-                FileBasedIndexImpl.getInstance().getFilesWithKey(TwigExtendsStubIndex.KEY, new HashSet<>(Collections.singletonList(key)), virtualFile -> {
-                    virtualFiles.add(virtualFile);
-                    return true;
-                }, GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.allScope(psiFile.getProject()), TwigFileType.INSTANCE));
-
-            }
-
-        }
-
-        // finally resolve virtual file to twig files
-        for(VirtualFile virtualFile: virtualFiles) {
-
-            PsiFile resolvedPsiFile = PsiManager.getInstance(psiFile.getProject()).findFile(virtualFile);
-            if(resolvedPsiFile != null) {
-                twigChild.add(resolvedPsiFile);
-                getTemplateFileReferences(files, resolvedPsiFile, twigChild, --depth);
-            }
-
+    public static Collection<PsiFile> getTemplateFileReferences(@NotNull final PsiFile psiFile) {
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        if(virtualFile == null) {
+            return Collections.emptyList();
         }
 
+        return TwigTemplateGraphUtil.getPsiFiles(psiFile.getProject(), TwigTemplateGraphUtil.getGraph(psiFile.getProject()).getDescendants(virtualFile));
     }
 }
@@ -1,6 +1,8 @@
 package fr.adrienbrault.idea.symfony2plugin.templating.variable.dict;
 
+import com.intellij.openapi.util.NullableLazyValue;
 import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Set;
@@ -10,11 +12,22 @@ public class PsiVariable {
     final private Set<String> types;
     private PsiElement psiElement;
 
+    /**
+     * Target from index; only resolved if someone needs it
+     */
+    @Nullable
+    private NullableLazyValue<PsiElement> lazyElement;
+
     public PsiVariable(Set<String> types, @Nullable PsiElement psiElement) {
         this.types = types;
         this.psiElement = psiElement;
     }
 
+    public PsiVariable(Set<String> types, @NotNull NullableLazyValue<PsiElement> lazyElement) {
+        this.types = types;
+        this.lazyElement = lazyElement;
+    }
+
     public PsiVariable(Set<String> types) {
         this.types = types;
     }
@@ -25,6 +38,11 @@ public class PsiVariable {
 
     @Nullable
     public PsiElement getElement() {
+        if(psiElement == null && lazyElement != null) {
+            psiElement = lazyElement.getValue();
+            lazyElement = null;
+        }
+
         return psiElement;
     }
 
@@ -1,64 +1,186 @@
 package fr.adrienbrault.idea.symfony2plugin.translation;
 
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.io.FileUtil;
 import fr.adrienbrault.idea.symfony2plugin.Settings;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
-import fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationPsiParser;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricsSample;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
+import fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationCatalogueParser;
 import fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationStringMap;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.BoundedCache;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheSizeEstimator;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.ProjectCacheKey;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TranslationIndex {
 
-    protected static Map<Project, TranslationIndex> instance = new HashMap<>();
+    private static final ProjectCacheKey<TranslationIndex> INSTANCE = ProjectCacheKey.create(
+        "TranslationIndex",
+        TranslationIndex::new,
+        translationIndex -> CacheSizeEstimator.OBJECT
+    );
+
+    /**
+     * Parsed translation catalogues per translation directory, bounded by project memory budget
+     */
+    private static final ProjectCacheKey<BoundedCache<String, TranslationStringMap>> TRANSLATIONS = ProjectCacheKey.createBounded(
+        "TranslationIndex.TRANSLATIONS",
+        TranslationIndex::getRetainedSize
+    );
+
+    /**
+     * Parsed single catalogue files, so only changed files of a translation directory need a new parsing run
+     */
+    private static final ProjectCacheKey<BoundedCache<String, TranslationStringMap>> CATALOGUES = ProjectCacheKey.createSoft(
+        "TranslationIndex.CATALOGUES"
+    );
 
     protected Project project;
 
-    @Nullable
-    private TranslationStringMap translationStringMap;
-    private Long translationStringMapModified;
+    private volatile Long translationStringMapModified;
 
     public static TranslationIndex getInstance(Project project){
+        return SymfonyProjectCacheService.getCache(project, INSTANCE);
+    }
+
+    public TranslationIndex(Project project) {
+        this.project = project;
+    }
+
+
+    public TranslationStringMap getTranslationMap() {
 
-        TranslationIndex projectInstance = instance.get(project);
-        if(projectInstance != null) {
-          return projectInstance;
+        File translationDirectory = this.getTranslationRoot();
+        if(null == translationDirectory) {
+            return new TranslationStringMap();
         }
 
-        projectInstance = new TranslationIndex(project);
-        instance.put(project, projectInstance);
+        MetricsSample sample = SymfonyMetricsService.startLookup(project, "TranslationIndex.getTranslationMap");
 
-        return projectInstance;
+        try {
+            return SymfonyProjectCacheService.getCache(project, TRANSLATIONS).get(translationDirectory.getPath(), this::isCacheValid, path -> {
+                Symfony2ProjectComponent.getLogger().info("translations changed: " + translationDirectory.toString());
+                sample.miss();
 
+                this.translationStringMapModified = translationDirectory.lastModified();
+                return parseCatalogues(translationDirectory);
+            });
+        } finally {
+            sample.stop();
+        }
     }
 
-    public TranslationIndex(Project project) {
-        this.project = project;
-    }
+    /**
+     * Merge all "catalogue*.php" files of the translation directory; only new or changed files are parsed again,
+     * others are taken from the per file cache. Parsing is spread over multiple threads
+     */
+    @NotNull
+    private TranslationStringMap parseCatalogues(@NotNull File translationDirectory) {
+        TranslationStringMap translationStringMap = new TranslationStringMap();
+
+        File[] files = translationDirectory.listFiles();
+        if(null == files) {
+            return translationStringMap;
+        }
+
+        BoundedCache<String, TranslationStringMap> catalogueCache = SymfonyProjectCacheService.getCache(project, CATALOGUES);
 
+        Map<File, TranslationStringMap> catalogues = new LinkedHashMap<>();
+        List<File> changedFiles = new ArrayList<>();
+
+        for (File fileEntry : files) {
+            String fileName = fileEntry.getName();
+            if(fileEntry.isDirectory() || !fileName.startsWith("catalogue") || !fileName.endsWith("php")) {
+                continue;
+            }
 
-    synchronized public TranslationStringMap getTranslationMap() {
+            catalogues.put(fileEntry, null);
 
-        if(this.translationStringMap != null && this.isCacheValid()) {
-            return this.translationStringMap;
+            TranslationStringMap catalogue = catalogueCache.get(fileEntry.getPath());
+            if(catalogue != null && Long.valueOf(fileEntry.lastModified()).equals(catalogue.getFileNames().get(fileName))) {
+                catalogues.put(fileEntry, catalogue);
+            } else {
+                changedFiles.add(fileEntry);
+            }
         }
 
-        File translationDirectory = this.getTranslationRoot();
-        if(null == translationDirectory) {
-            return new TranslationStringMap();
+        if(changedFiles.size() > 0) {
+            Map<File, TranslationStringMap> parsed = new ConcurrentHashMap<>();
+
+            JobLauncher.getInstance().invokeConcurrentlyUnderProgress(changedFiles, ProgressManager.getInstance().getProgressIndicator(), false, file -> {
+                TranslationStringMap catalogue = parseCatalogue(file);
+                if(catalogue != null) {
+                    parsed.put(file, catalogue);
+                }
+                return true;
+            });
+
+            for (Map.Entry<File, TranslationStringMap> entry : parsed.entrySet()) {
+                catalogueCache.put(entry.getKey().getPath(), entry.getValue());
+                catalogues.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // removed catalogues or files of a previous translation directory
+        Set<String> paths = new HashSet<>();
+        for (File file : catalogues.keySet()) {
+            paths.add(file.getPath());
         }
 
-        Symfony2ProjectComponent.getLogger().info("translations changed: " + translationDirectory.toString());
+        catalogueCache.retainAll(paths);
 
-        this.translationStringMapModified = translationDirectory.lastModified();
-        return this.translationStringMap = new TranslationPsiParser(project).parsePathMatcher(translationDirectory.getPath());
+        for (TranslationStringMap catalogue : catalogues.values()) {
+            if(catalogue != null) {
+                translationStringMap.addAll(catalogue);
+            }
+        }
+
+        return translationStringMap;
+    }
+
+    @Nullable
+    private static TranslationStringMap parseCatalogue(@NotNull File file) {
+        // file time before reading content, so a concurrent write is detected on next run
+        long lastModified = file.lastModified();
+
+        String content;
+        try {
+            content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Symfony2ProjectComponent.getLogger().info("invalid translation catalogue: " + file.getPath());
+            return null;
+        }
+
+        Symfony2ProjectComponent.getLogger().info("update translations: " + file.getPath());
+
+        TranslationStringMap translationStringMap = TranslationCatalogueParser.parse(content);
+        translationStringMap.addFile(file.getName(), lastModified);
+
+        return translationStringMap;
+    }
+
+    private static long getRetainedSize(@NotNull TranslationStringMap translationStringMap) {
+        long size = CacheSizeEstimator.OBJECT;
+        for (String domain : translationStringMap.getDomainList()) {
+            size += CacheSizeEstimator.MAP_ENTRY + CacheSizeEstimator.string(domain) + CacheSizeEstimator.strings(translationStringMap.getDomainMap(domain));
+        }
+
+        return size;
     }
 
-    protected boolean isCacheValid() {
+    protected boolean isCacheValid(@NotNull TranslationStringMap translationStringMap) {
 
         // symfony2 recreates translation file on change, so folder modtime is caching indicator
         File translationRootPath = this.getTranslationRoot();
@@ -73,42 +195,35 @@ public class TranslationIndex {
 
         // @TODO make this more abstract
         // we check for possible file modifications here per translation file
-        if(this.translationStringMap != null) {
+        File file = new File(translationRootPath.getPath());
 
+        // use cache in any i/o error
+        File[] files = file.listFiles();
+        if(null == files) {
+            return true;
+        }
 
-            File file = new File(translationRootPath.getPath());
-
-            // use cache in any i/o error
-            File[] files = file.listFiles();
-            if(null == files) {
-                return true;
-            }
-
-            // directory is empty or not exits, before and after instance
-            Map<String, Long> fileNames = this.translationStringMap.getFileNames();
-            if(files.length == 0 && fileNames.size() == 0) {
-                return true;
-            }
-
-            for (File fileEntry : files) {
-                if (!fileEntry.isDirectory()) {
-                    String fileName = fileEntry.getName();
-                    if(fileName.startsWith("catalogue") && fileName.endsWith("php")) {
-
+        // directory is empty or not exits, before and after instance
+        Map<String, Long> fileNames = translationStringMap.getFileNames();
+        if(files.length == 0 && fileNames.size() == 0) {
+            return true;
+        }
 
-                        if(!fileNames.containsKey(fileName)) {
-                            return false;
-                        }
+        for (File fileEntry : files) {
+            if (!fileEntry.isDirectory()) {
+                String fileName = fileEntry.getName();
+                if(fileName.startsWith("catalogue") && fileName.endsWith("php")) {
 
-                        if(!fileNames.get(fileName).equals(fileEntry.lastModified())) {
-                            return false;
-                        }
+                    if(!fileNames.containsKey(fileName)) {
+                        return false;
+                    }
 
+                    if(!fileNames.get(fileName).equals(fileEntry.lastModified())) {
+                        return false;
                     }
+
                 }
             }
-
-
         }
 
         return true;
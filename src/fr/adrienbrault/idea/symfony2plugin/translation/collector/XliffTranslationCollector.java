@@ -0,0 +1,14 @@
+package fr.adrienbrault.idea.symfony2plugin.translation.collector;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public interface XliffTranslationCollector {
+    /**
+     * @param offset text offset of the key inside the file; -1 if visiting a stream without text
+     * @return false to stop visiting
+     */
+    boolean collect(@NotNull String keyName, int offset);
+}
@@ -0,0 +1,231 @@
+package fr.adrienbrault.idea.symfony2plugin.translation.collector;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streaming XLIFF 1.2 and 2.0 reader, it extracts translation keys in one forward pass without building a DOM
+ *
+ * 1.2: xliff/file/body/(group/)trans-unit/source; "resname" attribute wins over source like Symfony XliffFileLoader
+ * 2.0: xliff/file/(group/)unit/segment/source
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class XliffTranslationVisitor {
+
+    /**
+     * Factories are expensive to lookup and not guaranteed to be thread-safe, so keep one per indexing thread
+     */
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+
+        // translation files never need them; also prevents external entity lookups while indexing
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+
+        return factory;
+    });
+
+    /**
+     * Key offsets are not available on streams, collector gets "-1"
+     */
+    public static void visit(@NotNull InputStream content, @NotNull XliffTranslationCollector collector) {
+        XMLStreamReader reader;
+        try {
+            reader = INPUT_FACTORY.get().createXMLStreamReader(content);
+        } catch (XMLStreamException e) {
+            return;
+        }
+
+        visit(reader, null, collector);
+    }
+
+    public static void visit(@NotNull CharSequence content, @NotNull XliffTranslationCollector collector) {
+        Reader stringReader = new StringReader(content.toString());
+
+        XMLStreamReader reader;
+        try {
+            reader = INPUT_FACTORY.get().createXMLStreamReader(stringReader);
+        } catch (XMLStreamException e) {
+            return;
+        }
+
+        visit(reader, new LineOffsets(content), collector);
+    }
+
+    @NotNull
+    public static Set<String> getTranslationKeys(@NotNull InputStream content) {
+        Set<String> keys = new HashSet<>();
+
+        visit(content, (keyName, offset) -> {
+            keys.add(keyName);
+            return true;
+        });
+
+        return keys;
+    }
+
+    private static void visit(@NotNull XMLStreamReader reader, @Nullable LineOffsets lineOffsets, @NotNull XliffTranslationCollector collector) {
+        // element path; only local names so namespace and version dont matter
+        List<String> path = new ArrayList<>();
+
+        String resname = null;
+        StringBuilder source = null;
+        int sourceDepth = -1;
+        int sourceOffset = -1;
+
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if(event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+
+                    // root must be "xliff" otherwise its not a translation file
+                    if(path.size() == 0 && !"xliff".equals(name)) {
+                        return;
+                    }
+
+                    path.add(name);
+
+                    if(source != null) {
+                        // inline markup inside source eg "<g>"
+                        continue;
+                    }
+
+                    if("trans-unit".equals(name)) {
+                        resname = reader.getAttributeValue(null, "resname");
+                    } else if("source".equals(name) && isSourcePath(path)) {
+                        source = new StringBuilder();
+                        sourceDepth = path.size();
+                        sourceOffset = lineOffsets != null ? lineOffsets.getOffset(reader.getLocation().getLineNumber(), reader.getLocation().getColumnNumber()) : -1;
+                    }
+
+                } else if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    if(source != null) {
+                        source.append(reader.getText());
+                    }
+                } else if(event == XMLStreamConstants.END_ELEMENT) {
+                    if(source != null && path.size() == sourceDepth) {
+                        String keyName = StringUtils.isNotBlank(resname) ? resname : source.toString();
+                        source = null;
+
+                        if(StringUtils.isNotBlank(keyName) && !collector.collect(keyName, sourceOffset)) {
+                            return;
+                        }
+                    }
+
+                    if("trans-unit".equals(reader.getLocalName())) {
+                        resname = null;
+                    }
+
+                    if(path.size() > 0) {
+                        path.remove(path.size() - 1);
+                    }
+                }
+            }
+        } catch (XMLStreamException ignored) {
+            // invalid xml; keep already collected keys
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+            }
+        }
+    }
+
+    /**
+     * xliff/file/body/trans-unit/source
+     * xliff/file/body/group/trans-unit/source
+     * xliff/file/unit/segment/source
+     * xliff/file/group/unit/segment/source
+     */
+    private static boolean isSourcePath(@NotNull List<String> path) {
+        if(path.size() < 4 || !"file".equals(path.get(1))) {
+            return false;
+        }
+
+        String parent = path.get(path.size() - 2);
+        if("trans-unit".equals(parent)) {
+            return "body".equals(path.get(2));
+        }
+
+        return "segment".equals(parent) && "unit".equals(path.get(path.size() - 3));
+    }
+
+    /**
+     * StAX only provides reliable line and column numbers, map them back to a text offset
+     */
+    private static class LineOffsets {
+
+        @NotNull
+        private final CharSequence content;
+
+        @Nullable
+        private int[] lineStarts;
+
+        private LineOffsets(@NotNull CharSequence content) {
+            this.content = content;
+        }
+
+        private int getOffset(int line, int column) {
+            if(line < 1 || column < 1) {
+                return -1;
+            }
+
+            if(lineStarts == null) {
+                lineStarts = buildLineStarts(content);
+            }
+
+            if(line > lineStarts.length) {
+                return -1;
+            }
+
+            return Math.min(lineStarts[line - 1] + column - 1, content.length());
+        }
+
+        @NotNull
+        private static int[] buildLineStarts(@NotNull CharSequence content) {
+            int[] starts = new int[16];
+            int lines = 1;
+
+            for (int i = 0; i < content.length(); i++) {
+                char c = content.charAt(i);
+
+                // "\r\n" and "\r" are single line breaks for the xml parser
+                if(c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+                    continue;
+                }
+
+                if(c == '\n' || c == '\r') {
+                    if(lines == starts.length) {
+                        int[] grow = new int[starts.length * 2];
+                        System.arraycopy(starts, 0, grow, 0, starts.length);
+                        starts = grow;
+                    }
+
+                    starts[lines++] = i + 1;
+                }
+            }
+
+            int[] result = new int[lines];
+            System.arraycopy(starts, 0, result, 0, lines);
+
+            return result;
+        }
+    }
+}
@@ -5,11 +5,14 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.util.PsiTreeUtil;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlHelper;
 import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.yaml.YAMLUtil;
 import org.jetbrains.yaml.psi.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedList;
 import java.util.List;
 
 public class YamlTranslationVistor {
@@ -88,6 +91,25 @@ public class YamlTranslationVistor {
         return translationCollector.collect(StringUtils.join(copyLevels, "."), yamlKeyValue);
     }
 
+    /**
+     * Full dotted translation key of a key-value, same as it is collected: "foo.bar" for "foo: { bar: 'baz' }"
+     */
+    @Nullable
+    public static String getTranslationKey(@NotNull YAMLKeyValue yamlKeyValue) {
+        LinkedList<String> levels = new LinkedList<>();
+
+        for(YAMLKeyValue parent = yamlKeyValue; parent != null; parent = PsiTreeUtil.getParentOfType(parent, YAMLKeyValue.class)) {
+            String keyText = keyNormalizer(parent.getKeyText());
+            if(StringUtils.isBlank(keyText)) {
+                return null;
+            }
+
+            levels.addFirst(keyText);
+        }
+
+        return StringUtils.join(levels, ".");
+    }
+
     /**
      * Translation key allow quoted values and also space before and after
      */
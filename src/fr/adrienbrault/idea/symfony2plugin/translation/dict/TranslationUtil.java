@@ -10,13 +10,14 @@ import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.FileBasedIndexImpl;
 import com.jetbrains.php.PhpIndex;
 import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.YamlTranslationStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.translation.TranslationIndex;
 import fr.adrienbrault.idea.symfony2plugin.translation.TranslatorLookupElement;
-import fr.adrienbrault.idea.symfony2plugin.translation.collector.YamlTranslationCollector;
+import fr.adrienbrault.idea.symfony2plugin.translation.collector.XliffTranslationVisitor;
 import fr.adrienbrault.idea.symfony2plugin.translation.collector.YamlTranslationVistor;
 import fr.adrienbrault.idea.symfony2plugin.translation.parser.DomainMappings;
 import fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationStringMap;
@@ -24,23 +25,12 @@ import fr.adrienbrault.idea.symfony2plugin.util.PsiElementUtils;
 import fr.adrienbrault.idea.symfony2plugin.util.service.ServiceXmlParserFactory;
 import fr.adrienbrault.idea.symfony2plugin.util.yaml.YamlKeyFinder;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.yaml.YAMLFileType;
 import org.jetbrains.yaml.psi.YAMLDocument;
 import org.jetbrains.yaml.psi.YAMLFile;
 import org.jetbrains.yaml.psi.YAMLKeyValue;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-import java.io.IOException;
+
 import java.io.InputStream;
 import java.util.*;
 
@@ -65,15 +55,34 @@ public class TranslationUtil {
 
     public static PsiElement[] getTranslationPsiElements(final Project project, final String translationKey, final String domain) {
 
-
         final List<PsiElement> psiFoundElements = new ArrayList<>();
-        final List<VirtualFile> virtualFilesFound = new ArrayList<>();
+        final Set<VirtualFile> indexedFiles = new HashSet<>();
+
+        // collect on index; it knows the key offset per file so we dont need to walk the files
+        FileBasedIndex.getInstance().processValues(YamlTranslationStubIndex.KEY, domain, null, (virtualFile, keys) -> {
+            indexedFiles.add(virtualFile);
+
+            Integer offset = keys.get(translationKey);
+            if(offset == null) {
+                return true;
+            }
+
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+            if(psiFile != null) {
+                PsiElement target = getTranslationTarget(psiFile, translationKey, offset);
+                if(target != null) {
+                    psiFoundElements.add(target);
+                }
+            }
+
+            return true;
+        }, GlobalSearchScope.allScope(project));
 
         // @TODO: completely remove this? support translation paths from service compiler
-        // search for available domain files
+        // search for available domain files, which are not known by index
         for(VirtualFile translationVirtualFile : getDomainFilePsiElements(project, domain)) {
 
-            if(translationVirtualFile.getFileType() != YAMLFileType.YML) {
+            if(translationVirtualFile.getFileType() != YAMLFileType.YML || indexedFiles.contains(translationVirtualFile)) {
                 continue;
             }
 
@@ -86,7 +95,6 @@ public class TranslationUtil {
                         // multiline are line values are not resolve properly on psiElements use key as fallback target
                         PsiElement valuePsiElement = goToPsi.getValue();
                         psiFoundElements.add(valuePsiElement != null ? valuePsiElement : goToPsi);
-                        virtualFilesFound.add(translationVirtualFile);
                     }
                 }
 
@@ -94,44 +102,50 @@ public class TranslationUtil {
 
         }
 
-        // collect on index
-        final YamlTranslationCollector translationCollector = (keyName, yamlKeyValue) -> {
-            if (keyName.equals(translationKey)) {
-
-                // multiline "line values" are not resolve properly on psiElements use key as fallback target
-                PsiElement valuePsiElement = yamlKeyValue.getValue();
-                psiFoundElements.add(valuePsiElement != null ? valuePsiElement : yamlKeyValue);
+        return psiFoundElements.toArray(new PsiElement[psiFoundElements.size()]);
+    }
 
-                return false;
-            }
+    /**
+     * Resolve target on indexed offset; on outdated index for yaml we fallback to walk the file
+     */
+    @Nullable
+    private static PsiElement getTranslationTarget(@NotNull PsiFile psiFile, @NotNull String translationKey, int offset) {
+        if(psiFile instanceof YAMLFile) {
+            YAMLKeyValue yamlKeyValue = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), YAMLKeyValue.class, false);
+            // suffix is not enough: "foo.bar" would also match "bar" or "baz.bar", so compare the full key path
+            if(yamlKeyValue == null || !translationKey.equals(YamlTranslationVistor.getTranslationKey(yamlKeyValue))) {
+                final YAMLKeyValue[] found = {null};
+                YamlTranslationVistor.collectFileTranslations((YAMLFile) psiFile, (keyName, keyValue) -> {
+                    if (keyName.equals(translationKey)) {
+                        found[0] = keyValue;
+                        return false;
+                    }
 
-            return true;
-        };
+                    return true;
+                });
 
-        FileBasedIndexImpl.getInstance().getFilesWithKey(YamlTranslationStubIndex.KEY, new HashSet<>(Arrays.asList(domain)), virtualFile -> {
-            // prevent duplicate targets and dont walk same file twice
-            if(virtualFilesFound.contains(virtualFile)) {
-                return true;
+                yamlKeyValue = found[0];
             }
 
-            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
-            if(psiFile instanceof YAMLFile) {
-                YamlTranslationVistor.collectFileTranslations((YAMLFile) psiFile, translationCollector);
-            } else if("xlf".equalsIgnoreCase(virtualFile.getExtension()) && psiFile != null) {
-                // xlf are plain text because not supported by jetbrains
-                // for now we can only set file target
-                for(Set<String> string: FileBasedIndexImpl.getInstance().getValues(YamlTranslationStubIndex.KEY, domain, GlobalSearchScope.filesScope(project, Arrays.asList(virtualFile)))) {
-                    if(string.contains(translationKey)) {
-                        psiFoundElements.add(psiFile);
-                    }
-                }
+            if(yamlKeyValue == null) {
+                return null;
             }
 
-            return true;
-        }, GlobalSearchScope.allScope(project));
+            // multiline "line values" are not resolve properly on psiElements use key as fallback target
+            PsiElement valuePsiElement = yamlKeyValue.getValue();
+            return valuePsiElement != null ? valuePsiElement : yamlKeyValue;
+        }
 
+        // xlf are plain text because not supported by jetbrains, so there is no element for the offset;
+        // if its a xml file target is the source content of the trans-unit
+        if(offset < psiFile.getTextLength()) {
+            PsiElement psiElement = psiFile.findElementAt(offset);
+            if(psiElement != null && psiElement.getTextLength() < psiFile.getTextLength()) {
+                return psiElement;
+            }
+        }
 
-        return psiFoundElements.toArray(new PsiElement[psiFoundElements.size()]);
+        return psiFile;
     }
 
     public static boolean hasDomain(Project project, String domainName) {
@@ -154,8 +168,8 @@ public class TranslationUtil {
             return true;
         }
 
-        for(Set<String> keys: FileBasedIndexImpl.getInstance().getValues(YamlTranslationStubIndex.KEY, domainName, GlobalSearchScope.allScope(project))){
-            if(keys.contains(keyName)) {
+        for(Map<String, Integer> keys: FileBasedIndexImpl.getInstance().getValues(YamlTranslationStubIndex.KEY, domainName, GlobalSearchScope.allScope(project))){
+            if(keys.containsKey(keyName)) {
                 return true;
             }
         }
@@ -167,9 +181,9 @@ public class TranslationUtil {
     public static List<LookupElement> getTranslationLookupElementsOnDomain(Project project, String domainName) {
 
         Set<String> keySet = new HashSet<>();
-        List<Set<String>> test = FileBasedIndexImpl.getInstance().getValues(YamlTranslationStubIndex.KEY, domainName, GlobalSearchScope.allScope(project));
-        for(Set<String> keys: test ){
-            keySet.addAll(keys);
+        List<Map<String, Integer>> test = FileBasedIndexImpl.getInstance().getValues(YamlTranslationStubIndex.KEY, domainName, GlobalSearchScope.allScope(project));
+        for(Map<String, Integer> keys: test ){
+            keySet.addAll(keys.keySet());
         }
 
         List<LookupElement> lookupElements = new ArrayList<>();
@@ -260,54 +274,6 @@ public class TranslationUtil {
 
     @NotNull
     public static Set<String> getXliffTranslations(InputStream content) {
-
-        Set<String> set = new HashSet<>();
-
-        Document document;
-
-        try {
-            DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            document = documentBuilder.parse(content);
-        } catch (ParserConfigurationException e) {
-            return set;
-        } catch (SAXException e) {
-            return set;
-        } catch (IOException e) {
-            return set;
-        }
-
-        if(document == null) {
-            return set;
-        }
-
-        for (String s : new String[]{"//xliff/file/body/trans-unit/source", "//xliff/file/group/unit/segment/source", "//xliff/file/unit/segment/source"}) {
-            visitNodes(s, set, document);
-        }
-
-        return set;
-    }
-
-    private static void visitNodes(@NotNull String xpath, @NotNull Set<String> set, @NotNull Document document) {
-        Object result;
-        try {
-            // @TODO: xpath should not use "file/body"
-            XPathExpression xPathExpr = XPathFactory.newInstance().newXPath().compile(xpath);
-            result = xPathExpr.evaluate(document, XPathConstants.NODESET);
-        } catch (XPathExpressionException e) {
-            return;
-        }
-
-        if(!(result instanceof NodeList)) {
-            return;
-        }
-
-        NodeList nodeList = (NodeList) result;
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Element node = (Element) nodeList.item(i);
-            String textContent = node.getTextContent();
-            if(org.apache.commons.lang.StringUtils.isNotBlank(textContent)) {
-                set.add(textContent);
-            }
-        }
+        return XliffTranslationVisitor.getTranslationKeys(content);
     }
 }
@@ -0,0 +1,130 @@
+package fr.adrienbrault.idea.symfony2plugin.translation.parser;
+
+import fr.adrienbrault.idea.symfony2plugin.util.PhpArrayLexer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Token based parser for compiled translation catalogues "app/cache/dev/translations/catalogue.*.php",
+ * without building any PSI or resolving classes
+ *
+ * $catalogue = new MessageCatalogue('de', array (
+ *   'validators' => array (
+ *     'This value should be false.' => 'Dieser Wert sollte false sein.',
+ *   ),
+ * ));
+ *
+ * Every "new *MessageCatalogue(locale, array(...))" is visited, so fallback catalogues inside the same file are also collected.
+ * Short array syntax is supported.
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class TranslationCatalogueParser {
+
+    @NotNull
+    private final PhpArrayLexer lexer;
+
+    private TranslationCatalogueParser(@NotNull CharSequence content) {
+        // keys are kept escaped same as the former psi "getContents" implementation; completion and navigation compare raw literals
+        this.lexer = new PhpArrayLexer(content, true);
+    }
+
+    public static void parse(@NotNull CharSequence content, @NotNull TranslationStringMap translationStringMap) {
+        new TranslationCatalogueParser(content).parse(translationStringMap);
+    }
+
+    @NotNull
+    public static TranslationStringMap parse(@NotNull CharSequence content) {
+        TranslationStringMap translationStringMap = new TranslationStringMap();
+        parse(content, translationStringMap);
+        return translationStringMap;
+    }
+
+    private void parse(@NotNull TranslationStringMap translationStringMap) {
+        while (lexer.next() != PhpArrayLexer.EOF) {
+            if(lexer.getTokenType() != PhpArrayLexer.IDENTIFIER || !"new".equalsIgnoreCase(lexer.getTokenText())) {
+                continue;
+            }
+
+            // new MessageCatalogue, new \Symfony\Component\Translation\MessageCatalogue
+            if(lexer.next() != PhpArrayLexer.IDENTIFIER || lexer.getTokenText() == null || !lexer.getTokenText().endsWith("MessageCatalogue")) {
+                continue;
+            }
+
+            // ('de', array (
+            if(lexer.next() != PhpArrayLexer.OPEN || lexer.next() != PhpArrayLexer.STRING || lexer.next() != PhpArrayLexer.COMMA || !lexer.nextIsArrayOpen()) {
+                continue;
+            }
+
+            parseDomains(translationStringMap);
+        }
+    }
+
+    /**
+     * 'domain' => array ( ... ),
+     */
+    private void parseDomains(@NotNull TranslationStringMap translationStringMap) {
+        while (true) {
+            int type = lexer.next();
+            if(type == PhpArrayLexer.EOF || type == PhpArrayLexer.CLOSE) {
+                return;
+            }
+
+            if(type == PhpArrayLexer.OPEN) {
+                // value without key
+                lexer.pushBack();
+                lexer.skipValue();
+                continue;
+            }
+
+            String domain = lexer.getTokenText();
+            if(type != PhpArrayLexer.STRING || domain == null) {
+                continue;
+            }
+
+            if(lexer.next() != PhpArrayLexer.ARROW) {
+                lexer.pushBack();
+                continue;
+            }
+
+            if(!lexer.nextIsArrayOpen()) {
+                lexer.skipValue();
+                continue;
+            }
+
+            translationStringMap.addDomain(domain);
+            parseKeys(translationStringMap, domain);
+        }
+    }
+
+    /**
+     * 'key' => 'value',
+     */
+    private void parseKeys(@NotNull TranslationStringMap translationStringMap, @NotNull String domain) {
+        while (true) {
+            int type = lexer.next();
+            if(type == PhpArrayLexer.EOF || type == PhpArrayLexer.CLOSE) {
+                return;
+            }
+
+            if(type == PhpArrayLexer.OPEN) {
+                // value without key
+                lexer.pushBack();
+                lexer.skipValue();
+                continue;
+            }
+
+            String key = lexer.getTokenText();
+            if(type != PhpArrayLexer.STRING || key == null) {
+                continue;
+            }
+
+            if(lexer.next() != PhpArrayLexer.ARROW) {
+                lexer.pushBack();
+                continue;
+            }
+
+            translationStringMap.addString(domain, key);
+            lexer.skipValue();
+        }
+    }
+}
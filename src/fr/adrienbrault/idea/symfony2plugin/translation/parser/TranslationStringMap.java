@@ -1,5 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.translation.parser;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
@@ -60,5 +61,17 @@ public class TranslationStringMap {
         this.fileNames.put(filename, changed);
     }
 
+    /**
+     * Merge domains, keys and file states of another catalogue map into this one
+     */
+    public void addAll(@NotNull TranslationStringMap translationStringMap) {
+        for (Map.Entry<String, Set<String>> entry : translationStringMap.domainMap.entrySet()) {
+            addDomain(entry.getKey());
+            domainMap.get(entry.getKey()).addAll(entry.getValue());
+        }
+
+        this.fileNames.putAll(translationStringMap.fileNames);
+    }
+
 }
 
@@ -0,0 +1,213 @@
+package fr.adrienbrault.idea.symfony2plugin.util;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2InterfacesUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Project wide matcher for "CallToSignature" lists.
+ *
+ * Signature lists are matched on their method name table, so a method reference with a foreign name
+ * is rejected by a single hash lookup before anything is resolved. Expected classes and "is-a" checks
+ * between class names are memoized until the next php structure change
+ *
+ * @see CallToSignatureTable
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class CallToSignatureRegistry {
+
+    private static final Key<CachedValue<CallToSignatureRegistry>> SIGNATURE_REGISTRY = new Key<>("SYMFONY_CALL_TO_SIGNATURE_REGISTRY");
+
+    @NotNull
+    private final Project project;
+
+    /**
+     * Classes the signature method is defined in; interface and class lookup
+     */
+    @NotNull
+    private final Map<MethodMatcher.CallToSignature, Set<String>> expectedClasses = new ConcurrentHashMap<>();
+
+    /**
+     * "subject\nexpected" class names to instance check result
+     */
+    @NotNull
+    private final Map<String, Boolean> instanceOf = new ConcurrentHashMap<>();
+
+    private CallToSignatureRegistry(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    public static CallToSignatureRegistry getInstance(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, SIGNATURE_REGISTRY, () ->
+            CachedValueProvider.Result.create(new CallToSignatureRegistry(project), PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT), false
+        );
+    }
+
+    /**
+     * Table is built on every call; use a static CallToSignatureTable for hot paths
+     */
+    @Nullable
+    public MethodMatcher.CallToSignature match(@NotNull PsiElement psiElement, @NotNull Collection<MethodMatcher.CallToSignature> signatures) {
+        return match(psiElement, new CallToSignatureTable(signatures));
+    }
+
+    /**
+     * First signature in list order the method reference is a call to
+     */
+    @Nullable
+    public MethodMatcher.CallToSignature match(@NotNull PsiElement psiElement, @NotNull CallToSignatureTable signatures) {
+        if(!(psiElement instanceof MethodReference)) {
+            return null;
+        }
+
+        // resolve is also called on invalid php code like "use <xxx>"; so name lookup first
+        List<MethodMatcher.CallToSignature> candidates = signatures.get(((MethodReference) psiElement).getName());
+        if(candidates == null) {
+            return null;
+        }
+
+        PsiReference psiReference = psiElement.getReference();
+        if(psiReference == null) {
+            return null;
+        }
+
+        Method[] methods = Symfony2InterfacesUtil.getMultiResolvedMethod(psiReference);
+        if(methods == null) {
+            return null;
+        }
+
+        for (MethodMatcher.CallToSignature signature : candidates) {
+            for (Method method : methods) {
+                if(isMethodOf(method, signature)) {
+                    return signature;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Table is built on every call; use a static CallToSignatureTable for hot paths
+     */
+    @Nullable
+    public MethodMatcher.CallToSignature match(@NotNull Method method, @NotNull Collection<MethodMatcher.CallToSignature> signatures) {
+        return match(method, new CallToSignatureTable(signatures));
+    }
+
+    /**
+     * First signature in list order the method declaration implements
+     */
+    @Nullable
+    public MethodMatcher.CallToSignature match(@NotNull Method method, @NotNull CallToSignatureTable signatures) {
+        List<MethodMatcher.CallToSignature> candidates = signatures.get(method.getName());
+        if(candidates == null) {
+            return null;
+        }
+
+        for (MethodMatcher.CallToSignature signature : candidates) {
+            if(isMethodOf(method, signature)) {
+                return signature;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Memoized "PhpElementsUtil.isInstanceOf"; class names with leading backslash
+     */
+    public boolean isInstanceOf(@NotNull String subjectClass, @NotNull String expectedClass) {
+        if(subjectClass.equals(expectedClass)) {
+            return true;
+        }
+
+        String key = subjectClass + "\n" + expectedClass;
+
+        Boolean result = instanceOf.get(key);
+        if(result == null) {
+            result = PhpElementsUtil.isInstanceOf(project, subjectClass, expectedClass);
+            instanceOf.put(key, result);
+        }
+
+        return result;
+    }
+
+    private boolean isMethodOf(@NotNull Method method, @NotNull MethodMatcher.CallToSignature signature) {
+        PhpClass methodClass = method.getContainingClass();
+        if(methodClass == null || !signature.getMethod().equals(method.getName())) {
+            return false;
+        }
+
+        String methodClassName = methodClass.getFQN();
+        if(methodClassName == null) {
+            return false;
+        }
+
+        for (String expectedClass : getExpectedClasses(signature)) {
+            if(isInstanceOf(methodClassName, expectedClass)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Class defining the signature method; it can also be a parent of the signature class
+     */
+    @NotNull
+    private Set<String> getExpectedClasses(@NotNull MethodMatcher.CallToSignature signature) {
+        Set<String> classes = expectedClasses.get(signature);
+        if(classes != null) {
+            return classes;
+        }
+
+        // we need a full fqn name
+        String instance = signature.getInstance();
+        if(instance.contains("\\") && !instance.startsWith("\\")) {
+            instance = "\\" + instance;
+        }
+
+        classes = new LinkedHashSet<>();
+
+        Collection<PhpClass> interfaces = PhpIndex.getInstance(project).getInterfacesByFQN(instance);
+        if(interfaces.size() > 0) {
+            addContainingClass(classes, interfaces.iterator().next().findMethodByName(signature.getMethod()));
+        }
+
+        addContainingClass(classes, PhpElementsUtil.getClassMethod(project, instance, signature.getMethod()));
+
+        expectedClasses.put(signature, classes);
+
+        return classes;
+    }
+
+    private static void addContainingClass(@NotNull Set<String> classes, @Nullable Method method) {
+        if(method == null) {
+            return;
+        }
+
+        PhpClass containingClass = method.getContainingClass();
+        if(containingClass != null && containingClass.getFQN() != null) {
+            classes.add(containingClass.getFQN());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package fr.adrienbrault.idea.symfony2plugin.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Method name table of a "CallToSignature" list, so a method reference with a foreign name is rejected
+ * by a single hash lookup.
+ *
+ * Tables are immutable and project independent: keep them in a static field next to the signature list.
+ * Signature arrays are mostly static already, their table is shared on the array instance
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class CallToSignatureTable {
+
+    /**
+     * Arrays have identity equals and hashCode; weak keys do not hold arrays of callers
+     */
+    private static final Map<MethodMatcher.CallToSignature[], CallToSignatureTable> ARRAY_TABLES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @NotNull
+    private final Map<String, List<MethodMatcher.CallToSignature>> table = new HashMap<>();
+
+    public CallToSignatureTable(@NotNull Collection<MethodMatcher.CallToSignature> signatures) {
+        for (MethodMatcher.CallToSignature signature : signatures) {
+            if(signature.getMethod() != null && signature.getInstance() != null) {
+                table.computeIfAbsent(signature.getMethod(), s -> new ArrayList<>()).add(signature);
+            }
+        }
+    }
+
+    /**
+     * Table shared by every caller of the same array instance
+     */
+    @NotNull
+    public static CallToSignatureTable of(@NotNull MethodMatcher.CallToSignature[] signatures) {
+        CallToSignatureTable table = ARRAY_TABLES.get(signatures);
+        if(table == null) {
+            table = new CallToSignatureTable(Arrays.asList(signatures));
+            ARRAY_TABLES.put(signatures, table);
+        }
+
+        return table;
+    }
+
+    /**
+     * Signatures of the method name in list order
+     */
+    @Nullable
+    public List<MethodMatcher.CallToSignature> get(@Nullable String methodName) {
+        return methodName != null ? table.get(methodName) : null;
+    }
+
+    public int size() {
+        return table.size();
+    }
+}
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 public class MethodMatcher {
 
@@ -60,6 +61,19 @@ public class MethodMatcher {
         public String getMethod() {
             return method;
         }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(instance, method);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CallToSignature &&
+                Objects.equals(((CallToSignature) obj).instance, this.instance) &&
+                Objects.equals(((CallToSignature) obj).method, this.method)
+            ;
+        }
     }
 
     public static class MethodMatchParameter {
@@ -271,6 +285,12 @@ public class MethodMatcher {
         final protected int parameterIndex;
         final protected PsiElement psiElement;
 
+        /**
+         * Method name table of signatures; shared if they are a single array
+         */
+        @Nullable
+        private CallToSignatureTable table;
+
         public AbstractMethodParameterMatcher(PsiElement psiElement, int parameterIndex) {
             this.signatures = new ArrayList<>();
             this.parameterIndex = parameterIndex;
@@ -279,30 +299,30 @@ public class MethodMatcher {
 
         public AbstractMethodParameterMatcher withSignature(String instance, String method) {
             this.signatures.add(new CallToSignature(instance, method));
+            this.table = null;
             return this;
         }
 
         public AbstractMethodParameterMatcher withSignature(Collection<CallToSignature> signatures) {
             this.signatures.addAll(signatures);
+            this.table = null;
             return this;
         }
 
         public AbstractMethodParameterMatcher withSignature(CallToSignature[] callToSignatures) {
+            boolean single = this.signatures.isEmpty();
             this.signatures.addAll(Arrays.asList(callToSignatures));
+            this.table = single ? CallToSignatureTable.of(callToSignatures) : null;
             return this;
         }
 
         @Nullable
         protected CallToSignature isCallTo(MethodReference methodReference) {
-            Symfony2InterfacesUtil interfacesUtil = new Symfony2InterfacesUtil();
-
-            for(CallToSignature signature: this.signatures) {
-                if(interfacesUtil.isCallTo(methodReference, signature.getInstance(), signature.getMethod())) {
-                    return signature;
-                }
+            if(this.table == null) {
+                this.table = new CallToSignatureTable(this.signatures);
             }
 
-            return null;
+            return CallToSignatureRegistry.getInstance(methodReference.getProject()).match(methodReference, this.table);
         }
     }
 }
@@ -0,0 +1,314 @@
+package fr.adrienbrault.idea.symfony2plugin.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Minimal PHP token scanner for generated cache files which are mostly nested array literals,
+ * like compiled translation catalogues or url generators. No PSI is built, so its usable on any thread and on huge files
+ *
+ * Strings, identifiers (including numbers and namespaced names), variables, "=>", brackets and commas are reported,
+ * whitespace and comments are skipped. Everything else is reported as OTHER
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class PhpArrayLexer {
+
+    public static final int EOF = 0;
+    public static final int STRING = 1;
+    public static final int IDENTIFIER = 2;
+    public static final int VARIABLE = 3;
+    public static final int ARROW = 4;
+    public static final int OPEN = 5;
+    public static final int CLOSE = 6;
+    public static final int COMMA = 7;
+    public static final int OTHER = 8;
+
+    @NotNull
+    private final CharSequence content;
+
+    /**
+     * Keep string escapes as they are like "StringLiteralExpression.getContents" does
+     */
+    private final boolean rawStrings;
+
+    private int position = 0;
+    private int tokenStart = 0;
+    private int tokenType = EOF;
+
+    @Nullable
+    private String tokenText;
+
+    public PhpArrayLexer(@NotNull CharSequence content, boolean rawStrings) {
+        this.content = content;
+        this.rawStrings = rawStrings;
+    }
+
+    public PhpArrayLexer(@NotNull CharSequence content) {
+        this(content, false);
+    }
+
+    public int getTokenType() {
+        return tokenType;
+    }
+
+    /**
+     * String content, identifier or variable name without "$"; for brackets "(" or "[" / ")" or "]"
+     */
+    @Nullable
+    public String getTokenText() {
+        return tokenText;
+    }
+
+    /**
+     * Step back to the start of the current token, so next call reports it again
+     */
+    public void pushBack() {
+        position = tokenStart;
+    }
+
+    /**
+     * "array (" or "["
+     */
+    public boolean nextIsArrayOpen() {
+        int type = next();
+        if(type == OPEN && "[".equals(tokenText)) {
+            return true;
+        }
+
+        return type == IDENTIFIER && "array".equalsIgnoreCase(tokenText) && next() == OPEN;
+    }
+
+    /**
+     * Skip value until "," or closing bracket of the current level; nested arrays are skipped completely.
+     * A closing bracket of the current level is not consumed
+     */
+    public void skipValue() {
+        int depth = 0;
+
+        while (true) {
+            int type = next();
+            if(type == EOF) {
+                return;
+            }
+
+            if(type == OPEN) {
+                depth++;
+            } else if(type == CLOSE) {
+                if(depth == 0) {
+                    pushBack();
+                    return;
+                }
+                depth--;
+            } else if(type == COMMA && depth == 0) {
+                return;
+            }
+        }
+    }
+
+    public int next() {
+        tokenText = null;
+
+        int length = content.length();
+        while (position < length) {
+            char c = content.charAt(position);
+            tokenStart = position;
+
+            if(Character.isWhitespace(c)) {
+                position++;
+                continue;
+            }
+
+            // comments
+            if(c == '#' || (c == '/' && peek(1) == '/')) {
+                while (position < length && content.charAt(position) != '\n') {
+                    position++;
+                }
+                continue;
+            }
+
+            if(c == '/' && peek(1) == '*') {
+                int end = indexOf("*/", position + 2);
+                position = end < 0 ? length : end + 2;
+                continue;
+            }
+
+            // php open tag
+            if(c == '<' && peek(1) == '?') {
+                position += 2;
+                while (position < length && Character.isLetter(content.charAt(position))) {
+                    position++;
+                }
+                continue;
+            }
+
+            if(c == '\'' || c == '"') {
+                tokenText = readString(c);
+                return tokenType = STRING;
+            }
+
+            if(c == '=' && peek(1) == '>') {
+                position += 2;
+                return tokenType = ARROW;
+            }
+
+            if(c == '(' || c == '[') {
+                tokenText = c == '[' ? "[" : "(";
+                position++;
+                return tokenType = OPEN;
+            }
+
+            if(c == ')' || c == ']') {
+                tokenText = c == ']' ? "]" : ")";
+                position++;
+                return tokenType = CLOSE;
+            }
+
+            if(c == ',') {
+                position++;
+                return tokenType = COMMA;
+            }
+
+            if(c == '$' && position + 1 < length && isIdentifierPart(content.charAt(position + 1))) {
+                position++;
+                tokenText = readIdentifier();
+                return tokenType = VARIABLE;
+            }
+
+            if(isIdentifierPart(c) || c == '\\') {
+                tokenText = readIdentifier();
+                return tokenType = IDENTIFIER;
+            }
+
+            tokenText = String.valueOf(c);
+            position++;
+            return tokenType = OTHER;
+        }
+
+        tokenStart = position;
+        return tokenType = EOF;
+    }
+
+    @NotNull
+    private String readIdentifier() {
+        int start = position;
+        while (position < content.length()) {
+            char current = content.charAt(position);
+            if(!isIdentifierPart(current) && current != '\\') {
+                break;
+            }
+            position++;
+        }
+
+        return content.subSequence(start, position).toString();
+    }
+
+    /**
+     * Single quoted: only \' and \\ are escapes; double quoted: common escapes, variables are kept as they are
+     */
+    @NotNull
+    private String readString(char quote) {
+        int length = content.length();
+
+        position++;
+        int start = position;
+
+        if(rawStrings) {
+            while (position < length) {
+                char c = content.charAt(position);
+                if(c == '\\') {
+                    position += 2;
+                    continue;
+                }
+
+                if(c == quote) {
+                    break;
+                }
+
+                position++;
+            }
+
+            int end = Math.min(position, length);
+            position = Math.min(position + 1, length);
+
+            return content.subSequence(start, end).toString();
+        }
+
+        StringBuilder builder = new StringBuilder();
+        while (position < length) {
+            char c = content.charAt(position++);
+
+            if(c == quote) {
+                break;
+            }
+
+            if(c == '\\' && position < length) {
+                char escaped = content.charAt(position);
+
+                if(quote == '\'') {
+                    if(escaped == '\'' || escaped == '\\') {
+                        builder.append(escaped);
+                        position++;
+                        continue;
+                    }
+                } else {
+                    String replacement = getDoubleQuoteEscape(escaped);
+                    if(replacement != null) {
+                        builder.append(replacement);
+                        position++;
+                        continue;
+                    }
+                }
+            }
+
+            builder.append(c);
+        }
+
+        return builder.toString();
+    }
+
+    @Nullable
+    private static String getDoubleQuoteEscape(char c) {
+        switch (c) {
+            case 'n': return "\n";
+            case 't': return "\t";
+            case 'r': return "\r";
+            case 'v': return "\u000B";
+            case 'e': return "\u001B";
+            case 'f': return "\f";
+            case '\\': return "\\";
+            case '$': return "$";
+            case '"': return "\"";
+            default: return null;
+        }
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private char peek(int offset) {
+        int index = position + offset;
+        return index < content.length() ? content.charAt(index) : 0;
+    }
+
+    private int indexOf(@NotNull String search, int from) {
+        int max = content.length() - search.length();
+
+        for (int i = from; i <= max; i++) {
+            boolean found = true;
+            for (int j = 0; j < search.length(); j++) {
+                if(content.charAt(i + j) != search.charAt(j)) {
+                    found = false;
+                    break;
+                }
+            }
+
+            if(found) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -2,6 +2,7 @@ package fr.adrienbrault.idea.symfony2plugin.util;
 
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.patterns.ElementPattern;
 import com.intellij.patterns.PlatformPatterns;
@@ -360,4 +361,22 @@ public class PsiElementUtils {
         return psiFiles;
     }
 
+    /**
+     * Element with exactly the given range; for offsets stored in an index. Null if the file changed after indexing
+     */
+    @Nullable
+    public static PsiElement getElementByTextRange(@NotNull PsiFile psiFile, @NotNull TextRange textRange) {
+        for (PsiElement element = psiFile.findElementAt(textRange.getStartOffset()); element != null && !(element instanceof PsiFile); element = element.getParent()) {
+            TextRange elementRange = element.getTextRange();
+            if(elementRange.equals(textRange)) {
+                return element;
+            }
+
+            if(elementRange.getStartOffset() != textRange.getStartOffset() || elementRange.getEndOffset() > textRange.getEndOffset()) {
+                return null;
+            }
+        }
+
+        return null;
+    }
 }
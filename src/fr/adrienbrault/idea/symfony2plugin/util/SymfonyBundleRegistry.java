@@ -0,0 +1,102 @@
+package fr.adrienbrault.idea.symfony2plugin.util;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import fr.adrienbrault.idea.symfony2plugin.util.dict.PathPrefixTrie;
+import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyBundle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Project wide bundles with lookup tables for bundle name, bundle directory and namespace.
+ * Containing bundle lookups are resolved on path segments, so they only depend on the path depth
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class SymfonyBundleRegistry {
+
+    private static final Key<CachedValue<SymfonyBundleRegistry>> BUNDLE_REGISTRY = new Key<>("SYMFONY_BUNDLE_REGISTRY");
+
+    @NotNull
+    private final Map<String, SymfonyBundle> bundles = new HashMap<>();
+
+    @NotNull
+    private final PathPrefixTrie<SymfonyBundle> directories = new PathPrefixTrie<>('/');
+
+    @NotNull
+    private final PathPrefixTrie<SymfonyBundle> namespaces = new PathPrefixTrie<>('\\');
+
+    public SymfonyBundleRegistry(@NotNull Collection<PhpClass> phpClasses) {
+        for (PhpClass phpClass : phpClasses) {
+            this.bundles.put(phpClass.getName(), new SymfonyBundle(phpClass));
+        }
+
+        for (SymfonyBundle bundle : this.bundles.values()) {
+            this.namespaces.put(bundle.getNamespaceName(), bundle);
+
+            VirtualFile directory = bundle.getVirtualDirectory();
+            if(directory != null) {
+                this.directories.put(directory.getPath(), bundle);
+            }
+        }
+    }
+
+    /**
+     * Bundles only change with php classes; so cache is only dropped on structure changes and not on typing inside methods
+     */
+    @NotNull
+    public static SymfonyBundleRegistry getInstance(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, BUNDLE_REGISTRY, () ->
+            CachedValueProvider.Result.create(create(PhpIndex.getInstance(project)), PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT), false
+        );
+    }
+
+    /**
+     * Uncached registry; use "getInstance" if there is a project
+     */
+    @NotNull
+    public static SymfonyBundleRegistry create(@NotNull PhpIndex phpIndex) {
+        return new SymfonyBundleRegistry(phpIndex.getAllSubclasses("\\Symfony\\Component\\HttpKernel\\Bundle\\Bundle"));
+    }
+
+    /**
+     * Bundle name to bundle: "FooBundle"
+     */
+    @NotNull
+    public Map<String, SymfonyBundle> getBundles() {
+        return Collections.unmodifiableMap(this.bundles);
+    }
+
+    @Nullable
+    public SymfonyBundle getBundle(@NotNull String bundleName) {
+        return this.bundles.get(bundleName);
+    }
+
+    /**
+     * Nearest bundle directory the file is located in; bundle directory itself included
+     */
+    @Nullable
+    public SymfonyBundle getContainingBundle(@NotNull VirtualFile virtualFile) {
+        return this.directories.findLongestPrefix(virtualFile.getPath());
+    }
+
+    /**
+     * Nearest bundle namespace: "\Foo\BarBundle\Controller"
+     */
+    @Nullable
+    public SymfonyBundle getContainingBundle(@NotNull String namespaceName) {
+        return this.namespaces.findLongestPrefix(namespaceName);
+    }
+}
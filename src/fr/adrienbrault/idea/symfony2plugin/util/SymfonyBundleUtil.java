@@ -17,26 +17,26 @@ import java.util.Map;
 public class SymfonyBundleUtil {
 
     protected PhpIndex phpIndex;
-    protected HashMap<String, SymfonyBundle> symfonyBundles;
+    protected Map<String, SymfonyBundle> symfonyBundles;
 
+    @NotNull
+    private final SymfonyBundleRegistry bundleRegistry;
+
+    /**
+     * Bundles are collected on every call; prefer the project constructor which shares the project registry
+     */
     public SymfonyBundleUtil(PhpIndex phpIndex) {
-        this.phpIndex = phpIndex;
-        this.loadBundles();
+        this(phpIndex, SymfonyBundleRegistry.create(phpIndex));
     }
 
     public SymfonyBundleUtil(Project project) {
-        this(PhpIndex.getInstance(project));
+        this(PhpIndex.getInstance(project), SymfonyBundleRegistry.getInstance(project));
     }
 
-    protected void loadBundles() {
-
-        this.symfonyBundles = new HashMap<>();
-        Collection<PhpClass> phpClasses = this.phpIndex.getAllSubclasses("\\Symfony\\Component\\HttpKernel\\Bundle\\Bundle");
-
-        for (PhpClass phpClass : phpClasses) {
-            this.symfonyBundles.put(phpClass.getName(), new SymfonyBundle(phpClass));
-        }
-
+    private SymfonyBundleUtil(@NotNull PhpIndex phpIndex, @NotNull SymfonyBundleRegistry bundleRegistry) {
+        this.phpIndex = phpIndex;
+        this.bundleRegistry = bundleRegistry;
+        this.symfonyBundles = bundleRegistry.getBundles();
     }
 
     public Collection<SymfonyBundle> getBundles() {
@@ -77,63 +77,33 @@ public class SymfonyBundleUtil {
             return null;
         }
 
-        String bundleName = bundleShortcutName.substring(1, stripedBundlePos);
-        for(SymfonyBundle bundle : this.getBundles()) {
-            if(bundle.getName().equals(bundleName)) {
-                return bundle;
-            }
-        }
-
-        return null;
+        return this.symfonyBundles.get(bundleShortcutName.substring(1, stripedBundlePos));
     }
 
 
     @Nullable
     public SymfonyBundle getContainingBundle(PhpClass phpClass) {
-
-        for(SymfonyBundle bundle : this.getBundles()) {
-            if(bundle.isInBundle(phpClass)) {
-                return bundle;
-            }
-        }
-
-        return null;
+        return this.bundleRegistry.getContainingBundle(phpClass.getNamespaceName());
     }
 
     @Nullable
     public SymfonyBundle getContainingBundle(PsiFile psiFile) {
-
-        for(SymfonyBundle bundle : this.getBundles()) {
-            if(bundle.isInBundle(psiFile)) {
-                return bundle;
-            }
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        if(virtualFile == null) {
+            return null;
         }
 
-        return null;
+        return this.bundleRegistry.getContainingBundle(virtualFile);
     }
 
     @Nullable
     public SymfonyBundle getContainingBundle(@NotNull VirtualFile virtualFile) {
-
-        for(SymfonyBundle bundle : this.getBundles()) {
-            if(bundle.isInBundle(virtualFile)) {
-                return bundle;
-            }
-        }
-
-        return null;
+        return this.bundleRegistry.getContainingBundle(virtualFile);
     }
 
     @Nullable
     public SymfonyBundle getContainingBundle(PsiDirectory directory) {
-
-        for(SymfonyBundle bundle : this.getBundles()) {
-            if(bundle.isInBundle(directory.getVirtualFile())) {
-                return bundle;
-            }
-        }
-
-        return null;
+        return this.bundleRegistry.getContainingBundle(directory.getVirtualFile());
     }
 
 }
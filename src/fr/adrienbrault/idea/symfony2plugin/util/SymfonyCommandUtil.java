@@ -1,65 +1,114 @@
 package fr.adrienbrault.idea.symfony2plugin.util;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.util.PsiTreeUtil;
-import com.jetbrains.php.PhpIndex;
-import com.jetbrains.php.lang.psi.elements.Method;
-import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexImpl;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
+import fr.adrienbrault.idea.symfony2plugin.stubs.SymfonyProcessors;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.ConsoleCommandDefinition;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ConsoleCommandStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyCommand;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.*;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class SymfonyCommandUtil {
 
+    private static final String COMMAND_CLASS = "\\Symfony\\Component\\Console\\Command\\Command";
+
+    /**
+     * All commands with their name target; prefer "getCommandNames" if no target is needed
+     */
     @NotNull
     public static Collection<SymfonyCommand> getCommands(@NotNull Project project) {
 
         Collection<SymfonyCommand> symfonyCommands = new ArrayList<>();
 
-        for (PhpClass phpClass : PhpIndex.getInstance(project).getAllSubclasses("\\Symfony\\Component\\Console\\Command\\Command")) {
-
-            if(PhpElementsUtil.isTestClass(phpClass)) {
-                continue;
+        for (String name : getCommandNames(project)) {
+            for (PsiElement psiElement : getCommandTargets(project, name)) {
+                symfonyCommands.add(new SymfonyCommand(name, psiElement));
             }
+        }
 
-            Method method = phpClass.findOwnMethodByName("configure");
-            if(method == null) {
-                continue;
-            }
+        return symfonyCommands;
+    }
 
-            PsiElement[] psiElements = PsiTreeUtil.collectElements(method, psiElement ->
-                psiElement instanceof MethodReference && "setName".equals(((MethodReference) psiElement).getName())
-            );
+    /**
+     * Command names on index; "setName" is indexed without class hierarchy, so classes are checked
+     * to be a command here, once per class
+     */
+    @NotNull
+    public static Set<String> getCommandNames(@NotNull Project project) {
+        SymfonyProcessors.CollectProjectUniqueKeys projectUniqueKeys = new SymfonyProcessors.CollectProjectUniqueKeys(project, ConsoleCommandStubIndex.KEY);
+        FileBasedIndexImpl.getInstance().processAllKeys(ConsoleCommandStubIndex.KEY, projectUniqueKeys, project);
+
+        Map<String, Boolean> commandClasses = new HashMap<>();
+        GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+
+        Set<String> names = new HashSet<>();
+        for (String name : projectUniqueKeys.getResult()) {
+            for (ConsoleCommandDefinition definition : FileBasedIndex.getInstance().getValues(ConsoleCommandStubIndex.KEY, name, scope)) {
+                if(isCommand(project, definition, commandClasses)) {
+                    names.add(name);
+                    break;
+                }
+            }
+        }
 
-            for (PsiElement psiElement : psiElements) {
+        return names;
+    }
 
-                if(!(psiElement instanceof MethodReference)) {
-                    continue;
-                }
+    /**
+     * Command name literal inside "configure" or the "command" attribute of a tagged service
+     */
+    @NotNull
+    public static Collection<PsiElement> getCommandTargets(@NotNull Project project, @NotNull String name) {
+        Collection<PsiElement> targets = new ArrayList<>();
+        Map<String, Boolean> commandClasses = new HashMap<>();
 
-                PsiElement psiMethodParameter = PsiElementUtils.getMethodParameterPsiElementAt((MethodReference) psiElement, 0);
-                if(psiMethodParameter == null) {
-                    continue;
-                }
+        FileBasedIndex.getInstance().processValues(ConsoleCommandStubIndex.KEY, name, null, (virtualFile, definition) -> {
+            if(!isCommand(project, definition, commandClasses)) {
+                return true;
+            }
 
-                String stringValue = PhpElementsUtil.getStringValue(psiMethodParameter);
-                if(stringValue == null) {
-                    continue;
-                }
+            PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+            if(psiFile == null) {
+                return true;
+            }
 
-                symfonyCommands.add(new SymfonyCommand(stringValue, psiElement));
+            PsiElement psiElement = PsiElementUtils.getElementByTextRange(psiFile, new TextRange(definition.getStartOffset(), definition.getEndOffset()));
+            if(psiElement != null) {
+                targets.add(psiElement);
             }
 
+            return true;
+        }, GlobalSearchScope.allScope(project));
+
+        return targets;
+    }
+
+    /**
+     * Any class with a "setName" call in "configure" is indexed; only instances of the console command are commands.
+     * Tagged services are commands by their tag, if their class is unknown or a parameter
+     */
+    private static boolean isCommand(@NotNull Project project, @NotNull ConsoleCommandDefinition definition, @NotNull Map<String, Boolean> commandClasses) {
+        String className = definition.getClassName();
+        if(className == null || className.contains("%")) {
+            return true;
         }
 
-        return symfonyCommands;
+        return commandClasses.computeIfAbsent(className, key -> {
+            PhpClass phpClass = PhpElementsUtil.getClassInterface(project, key);
+            return phpClass == null || PhpElementsUtil.isInstanceOf(phpClass, COMMAND_CLASS);
+        });
     }
 
 }
@@ -0,0 +1,311 @@
+package fr.adrienbrault.idea.symfony2plugin.util.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Weight bounded LRU cache for large per project data.
+ *
+ * If the summed weight of all entries exceeds the memory budget the least recently used
+ * entries are evicted; with soft fallback enabled evicted values are kept behind a SoftReference,
+ * so they only vanish on memory pressure. A "soft" cache stores every value behind a SoftReference
+ * right away, which is the right mode for big but rarely used views.
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class BoundedCache<K, V> {
+
+    @NotNull
+    private final String name;
+
+    @NotNull
+    private final LongSupplier budget;
+
+    @NotNull
+    private final ToLongFunction<V> weigher;
+
+    private final boolean softFallback;
+
+    /**
+     * Values are never strong reachable; no weight accounting and eviction
+     */
+    private final boolean softOnly;
+
+    /**
+     * access ordered, so iteration starts with the least recently used entry
+     */
+    @NotNull
+    private final LinkedHashMap<K, WeightedValue<V>> strong = new LinkedHashMap<>(16, 0.75f, true);
+
+    @NotNull
+    private final Map<K, SoftReference<V>> soft = new HashMap<>();
+
+    @NotNull
+    private final Map<K, Object> computeLocks = new ConcurrentHashMap<>();
+
+    private long weight = 0;
+    private long hits = 0;
+    private long softHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public BoundedCache(@NotNull String name, @NotNull LongSupplier budget, @NotNull ToLongFunction<V> weigher, boolean softFallback) {
+        this(name, budget, weigher, softFallback, false);
+    }
+
+    private BoundedCache(@NotNull String name, @NotNull LongSupplier budget, @NotNull ToLongFunction<V> weigher, boolean softFallback, boolean softOnly) {
+        this.name = name;
+        this.budget = budget;
+        this.weigher = weigher;
+        this.softFallback = softFallback;
+        this.softOnly = softOnly;
+    }
+
+    /**
+     * Values are only reachable via SoftReference, they are dropped first if the ide runs low on memory
+     */
+    @NotNull
+    public static <K, V> BoundedCache<K, V> soft(@NotNull String name) {
+        return new BoundedCache<>(name, () -> 0, v -> 0, true, true);
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public V get(@NotNull K key) {
+        return getIfValid(key, v -> true);
+    }
+
+    /**
+     * Hit is only counted for a value the check accepts; an outdated value is a miss.
+     * The check runs outside of the cache lock, so checks with disk access do not serialize other lookups
+     *
+     * @param isValid check for cached value eg file modification time
+     */
+    @Nullable
+    public V getIfValid(@NotNull K key, @NotNull Predicate<V> isValid) {
+        V value;
+        boolean fromSoft = false;
+
+        synchronized (this) {
+            WeightedValue<V> strongValue = strong.get(key);
+            if(strongValue != null) {
+                value = strongValue.value;
+            } else {
+                SoftReference<V> reference = soft.get(key);
+                value = reference != null ? reference.get() : null;
+
+                if(reference != null && value == null) {
+                    soft.remove(key);
+                }
+
+                fromSoft = value != null;
+            }
+
+            if(value == null) {
+                misses++;
+                return null;
+            }
+        }
+
+        boolean valid = isValid.test(value);
+
+        synchronized (this) {
+            if(!valid) {
+                misses++;
+                return null;
+            }
+
+            if(!fromSoft) {
+                hits++;
+                return value;
+            }
+
+            softHits++;
+
+            // recently used again, so it is worth to be strong reachable; unless it was replaced in the meantime
+            if(!softOnly) {
+                SoftReference<V> reference = soft.get(key);
+                if(reference != null && reference.get() == value) {
+                    soft.remove(key);
+                    putInternal(key, value);
+                }
+            }
+
+            return value;
+        }
+    }
+
+    /**
+     * Single-flight computation per key: concurrent callers of the same key wait for one loader call,
+     * all other keys are not blocked while the loader is running
+     *
+     * @param isValid check for cached value eg file modification time
+     */
+    @NotNull
+    public V get(@NotNull K key, @NotNull Predicate<V> isValid, @NotNull Function<K, V> loader) {
+        V value = getIfValid(key, isValid);
+        if(value != null) {
+            return value;
+        }
+
+        Object lock = computeLocks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                // another thread was faster
+                value = peek(key);
+                if(value != null && isValid.test(value)) {
+                    return value;
+                }
+
+                value = loader.apply(key);
+                put(key, value);
+
+                return value;
+            }
+        } finally {
+            // waiting callers still hold the lock instance; new callers find the computed value
+            computeLocks.remove(key, lock);
+        }
+    }
+
+    @NotNull
+    public V get(@NotNull K key, @NotNull Function<K, V> loader) {
+        return get(key, v -> true, loader);
+    }
+
+    public synchronized void put(@NotNull K key, @NotNull V value) {
+        soft.remove(key);
+        putInternal(key, value);
+    }
+
+    public synchronized void invalidate(@NotNull K key) {
+        WeightedValue<V> removed = strong.remove(key);
+        if(removed != null) {
+            weight -= removed.weight;
+        }
+
+        soft.remove(key);
+    }
+
+    /**
+     * Evict every key which is not part of given keys, eg files which were removed
+     */
+    public synchronized void retainAll(@NotNull Collection<K> keys) {
+        for (Iterator<Map.Entry<K, WeightedValue<V>>> iterator = strong.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<K, WeightedValue<V>> entry = iterator.next();
+            if(!keys.contains(entry.getKey())) {
+                weight -= entry.getValue().weight;
+                iterator.remove();
+            }
+        }
+
+        soft.keySet().retainAll(keys);
+    }
+
+    public synchronized void invalidateAll() {
+        strong.clear();
+        soft.clear();
+        weight = 0;
+    }
+
+    @NotNull
+    public synchronized Set<K> keySet() {
+        Set<K> keys = new HashSet<>(strong.keySet());
+
+        for (Map.Entry<K, SoftReference<V>> entry : soft.entrySet()) {
+            if(entry.getValue().get() != null) {
+                keys.add(entry.getKey());
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Summed weight of all strong reachable values
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    @NotNull
+    public synchronized CacheStatistics getStatistics() {
+        int softSize = 0;
+        for (SoftReference<V> reference : soft.values()) {
+            if(reference.get() != null) {
+                softSize++;
+            }
+        }
+
+        return new CacheStatistics(name, strong.size(), softSize, weight, budget.getAsLong(), hits, softHits, misses, evictions);
+    }
+
+    @Nullable
+    private synchronized V peek(@NotNull K key) {
+        WeightedValue<V> value = strong.get(key);
+        if(value != null) {
+            return value.value;
+        }
+
+        SoftReference<V> reference = soft.get(key);
+        return reference != null ? reference.get() : null;
+    }
+
+    private void putInternal(@NotNull K key, @NotNull V value) {
+        if(softOnly) {
+            soft.put(key, new SoftReference<>(value));
+            return;
+        }
+
+        WeightedValue<V> previous = strong.put(key, new WeightedValue<>(value, weigher.applyAsLong(value)));
+        if(previous != null) {
+            weight -= previous.weight;
+        }
+
+        weight += strong.get(key).weight;
+
+        evict();
+    }
+
+    private void evict() {
+        long maxWeight = budget.getAsLong();
+
+        Iterator<Map.Entry<K, WeightedValue<V>>> iterator = strong.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Map.Entry<K, WeightedValue<V>> eldest = iterator.next();
+            iterator.remove();
+
+            weight -= eldest.getValue().weight;
+            evictions++;
+
+            if(softFallback) {
+                soft.put(eldest.getKey(), new SoftReference<>(eldest.getValue().value));
+            }
+        }
+    }
+
+    private static class WeightedValue<V> {
+
+        @NotNull
+        private final V value;
+
+        private final long weight;
+
+        private WeightedValue(@NotNull V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
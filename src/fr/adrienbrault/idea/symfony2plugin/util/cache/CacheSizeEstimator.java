@@ -0,0 +1,72 @@
+package fr.adrienbrault.idea.symfony2plugin.util.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Rough shallow estimation of retained heap for cache diagnostics;
+ * values are in bytes based on a 64bit jvm with compressed oops
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class CacheSizeEstimator {
+
+    public static final long OBJECT = 16;
+    public static final long MAP_ENTRY = 32;
+    public static final long COLLECTION_ENTRY = 16;
+
+    public static long string(@Nullable String value) {
+        if(value == null) {
+            return 0;
+        }
+
+        // String object + char[] header + chars
+        return 24 + 16 + (value.length() * 2);
+    }
+
+    public static long strings(@Nullable Collection<String> values) {
+        if(values == null) {
+            return 0;
+        }
+
+        long size = OBJECT;
+        for (String value : values) {
+            size += COLLECTION_ENTRY + string(value);
+        }
+
+        return size;
+    }
+
+    public static long stringMap(@Nullable Map<String, String> values) {
+        if(values == null) {
+            return 0;
+        }
+
+        long size = OBJECT;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            size += MAP_ENTRY + string(entry.getKey()) + string(entry.getValue());
+        }
+
+        return size;
+    }
+
+    public static <T> long map(@Nullable Map<String, T> values, @NotNull ToLongFunction<T> valueSize) {
+        if(values == null) {
+            return 0;
+        }
+
+        long size = OBJECT;
+        for (Map.Entry<String, T> entry : values.entrySet()) {
+            size += MAP_ENTRY + string(entry.getKey());
+            if(entry.getValue() != null) {
+                size += valueSize.applyAsLong(entry.getValue());
+            }
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,86 @@
+package fr.adrienbrault.idea.symfony2plugin.util.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Point in time snapshot of a {@link BoundedCache}
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class CacheStatistics {
+
+    @NotNull
+    private final String name;
+
+    private final int size;
+    private final int softSize;
+    private final long weight;
+    private final long budget;
+    private final long hits;
+    private final long softHits;
+    private final long misses;
+    private final long evictions;
+
+    public CacheStatistics(@NotNull String name, int size, int softSize, long weight, long budget, long hits, long softHits, long misses, long evictions) {
+        this.name = name;
+        this.size = size;
+        this.softSize = softSize;
+        this.weight = weight;
+        this.budget = budget;
+        this.hits = hits;
+        this.softHits = softHits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Strong reachable entries
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Evicted entries which are still alive behind a SoftReference
+     */
+    public int getSoftSize() {
+        return softSize;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getSoftHits() {
+        return softHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: size=%d, soft=%d, weight=%d/%d, hits=%d, softHits=%d, misses=%d, evictions=%d",
+            name, size, softSize, weight, budget, hits, softHits, misses, evictions
+        );
+    }
+}
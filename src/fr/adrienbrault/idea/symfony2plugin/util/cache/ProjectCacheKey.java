@@ -0,0 +1,76 @@
+package fr.adrienbrault.idea.symfony2plugin.util.cache;
+
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Typed key of a cache owned by {@link SymfonyProjectCacheService}
+ *
+ * private static final ProjectCacheKey<Foo> CACHE = ProjectCacheKey.create("Foo", Foo::new, Foo::getSize);
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class ProjectCacheKey<T> {
+
+    @NotNull
+    private final String name;
+
+    @NotNull
+    private final Function<Project, T> factory;
+
+    @NotNull
+    private final ToLongFunction<T> sizeEstimator;
+
+    private ProjectCacheKey(@NotNull String name, @NotNull Function<Project, T> factory, @NotNull ToLongFunction<T> sizeEstimator) {
+        this.name = name;
+        this.factory = factory;
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    @NotNull
+    T create(@NotNull Project project) {
+        return factory.apply(project);
+    }
+
+    long estimateSize(@NotNull T value) {
+        return sizeEstimator.applyAsLong(value);
+    }
+
+    /**
+     * Bounded cache with project memory budget, weight of the cache is its retained size
+     */
+    @NotNull
+    public static <K, V> ProjectCacheKey<BoundedCache<K, V>> createBounded(@NotNull String name, @NotNull ToLongFunction<V> weigher) {
+        return new ProjectCacheKey<>(
+            name,
+            project -> new BoundedCache<>(name, () -> SymfonyProjectCacheService.getMemoryBudget(project), weigher, true),
+            BoundedCache::getWeight
+        );
+    }
+
+    /**
+     * Cache only holding values via SoftReference, for large but rarely used views
+     */
+    @NotNull
+    public static <K, V> ProjectCacheKey<BoundedCache<K, V>> createSoft(@NotNull String name) {
+        return new ProjectCacheKey<>(name, project -> BoundedCache.soft(name), BoundedCache::getWeight);
+    }
+
+    @NotNull
+    public static <T> ProjectCacheKey<T> create(@NotNull String name, @NotNull Function<Project, T> factory, @NotNull ToLongFunction<T> sizeEstimator) {
+        return new ProjectCacheKey<>(name, factory, sizeEstimator);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,138 @@
+package fr.adrienbrault.idea.symfony2plugin.util.cache;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import fr.adrienbrault.idea.symfony2plugin.Settings;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owner of all plugin caches which are bound to a project instance.
+ *
+ * The platform disposes project services on project close, so no cache survives its project
+ * and nothing needs to be cleaned up in "projectClosed" anymore
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class SymfonyProjectCacheService implements Disposable {
+
+    @NotNull
+    private final Project project;
+
+    @NotNull
+    private final Map<ProjectCacheKey<?>, Object> caches = new ConcurrentHashMap<>();
+
+    private volatile boolean disposed = false;
+
+    public SymfonyProjectCacheService(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    public static SymfonyProjectCacheService getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, SymfonyProjectCacheService.class);
+    }
+
+    /**
+     * Shortcut for callers which only hold the project; a disposed project gets a throw away instance
+     */
+    @NotNull
+    public static <T> T getCache(@NotNull Project project, @NotNull ProjectCacheKey<T> key) {
+        if(project.isDisposed()) {
+            return key.create(project);
+        }
+
+        return getInstance(project).get(key);
+    }
+
+    @NotNull
+    public <T> T get(@NotNull ProjectCacheKey<T> key) {
+        if(disposed) {
+            return key.create(project);
+        }
+
+        //noinspection unchecked
+        return (T) caches.computeIfAbsent(key, k -> key.create(project));
+    }
+
+    @Nullable
+    public <T> T getIfPresent(@NotNull ProjectCacheKey<T> key) {
+        //noinspection unchecked
+        return (T) caches.get(key);
+    }
+
+    public void remove(@NotNull ProjectCacheKey<?> key) {
+        if(caches.remove(key) != null) {
+            Symfony2ProjectComponent.getLogger().info("clean " + key.getName() + " for " + project.getName());
+        }
+    }
+
+    public void clear() {
+        caches.clear();
+    }
+
+    /**
+     * Estimated retained size in bytes of every cache currently alive, for diagnostic output
+     */
+    @NotNull
+    public Map<String, Long> getRetainedSizes() {
+        Map<String, Long> sizes = new TreeMap<>();
+
+        for (Map.Entry<ProjectCacheKey<?>, Object> entry : caches.entrySet()) {
+            sizes.put(entry.getKey().getName(), estimateSize(entry.getKey(), entry.getValue()));
+        }
+
+        return sizes;
+    }
+
+    /**
+     * Statistics of all bounded caches currently alive
+     */
+    @NotNull
+    public List<CacheStatistics> getStatistics() {
+        List<CacheStatistics> statistics = new ArrayList<>();
+
+        for (Object cache : caches.values()) {
+            if(cache instanceof BoundedCache) {
+                statistics.add(((BoundedCache) cache).getStatistics());
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Memory budget in bytes for a single bounded cache, user configurable and applied on next insert
+     */
+    public static long getMemoryBudget(@NotNull Project project) {
+        if(project.isDisposed()) {
+            return 0;
+        }
+
+        return Math.max(0, Settings.getInstance(project).cacheMemoryBudget) * 1024L * 1024L;
+    }
+
+    private static <T> long estimateSize(@NotNull ProjectCacheKey<T> key, @NotNull Object value) {
+        //noinspection unchecked
+        return key.estimateSize((T) value);
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+
+        if(caches.size() > 0) {
+            Symfony2ProjectComponent.getLogger().info("release plugin caches for " + project.getName() + ": " + getRetainedSizes());
+        }
+
+        caches.clear();
+    }
+}
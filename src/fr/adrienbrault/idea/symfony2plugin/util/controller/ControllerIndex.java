@@ -33,7 +33,7 @@ public class ControllerIndex {
     public List<ControllerAction> getActions() {
 
         List<ControllerAction> actions = new ArrayList<>();
-        SymfonyBundleUtil symfonyBundleUtil = new SymfonyBundleUtil(phpIndex);
+        SymfonyBundleUtil symfonyBundleUtil = new SymfonyBundleUtil(project);
 
         for (SymfonyBundle symfonyBundle : symfonyBundleUtil.getBundles()) {
             actions.addAll(this.getActionMethods(symfonyBundle));
@@ -0,0 +1,117 @@
+package fr.adrienbrault.idea.symfony2plugin.util.dict;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values stored on path segments: "/foo/bar" or "\Foo\Bar".
+ * Lookups walk the segments of the given path once and return the value of the deepest stored prefix;
+ * so cost only depends on path depth and not on the number of values
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class PathPrefixTrie<T> {
+
+    private final char separator;
+
+    @NotNull
+    private final Node<T> root = new Node<>();
+
+    private int size = 0;
+
+    public PathPrefixTrie(char separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * Empty segments are ignored, so "/foo//bar/" and "foo/bar" are the same path.
+     * First value on a path wins
+     */
+    public void put(@NotNull String path, @NotNull T value) {
+        Node<T> node = root;
+
+        int length = path.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = path.indexOf(separator, start);
+            if(end == -1) {
+                end = length;
+            }
+
+            if(end > start) {
+                node = node.getOrCreateChild(path.substring(start, end));
+            }
+
+            start = end + 1;
+        }
+
+        if(node.value == null) {
+            node.value = value;
+            size++;
+        }
+    }
+
+    /**
+     * Value of the deepest stored path the given path starts with; path itself included
+     */
+    @Nullable
+    public T findLongestPrefix(@NotNull String path) {
+        Node<T> node = root;
+        T match = root.value;
+
+        int length = path.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = path.indexOf(separator, start);
+            if(end == -1) {
+                end = length;
+            }
+
+            if(end > start) {
+                if(node.children == null) {
+                    return match;
+                }
+
+                node = node.children.get(path.substring(start, end));
+                if(node == null) {
+                    return match;
+                }
+
+                if(node.value != null) {
+                    match = node.value;
+                }
+            }
+
+            start = end + 1;
+        }
+
+        return match;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static class Node<T> {
+
+        @Nullable
+        private Map<String, Node<T>> children;
+
+        @Nullable
+        private T value;
+
+        @NotNull
+        private Node<T> getOrCreateChild(@NotNull String segment) {
+            if(children == null) {
+                children = new HashMap<>();
+            }
+
+            return children.computeIfAbsent(segment, s -> new Node<>());
+        }
+    }
+}
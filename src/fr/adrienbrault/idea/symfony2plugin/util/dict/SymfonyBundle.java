@@ -6,6 +6,9 @@ import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.GlobalSearchScopes;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
 import org.jetbrains.annotations.NotNull;
@@ -179,7 +182,12 @@ public class SymfonyBundle {
 
     @Nullable
     public String getParentBundleName() {
-        return PhpElementsUtil.getMethodReturnAsString(this.getPhpClass(), "getParent");
+        // bundles are shared by the project registry, which only follows out of code block changes;
+        // the "getParent" return is inside a code block, so cache it on the class for any psi change
+        return CachedValuesManager.getCachedValue(this.phpClass, () -> CachedValueProvider.Result.create(
+            PhpElementsUtil.getMethodReturnAsString(this.phpClass, "getParent"),
+            PsiModificationTracker.MODIFICATION_COUNT
+        ));
     }
 
 }
\ No newline at end of file
@@ -2,22 +2,56 @@ package fr.adrienbrault.idea.symfony2plugin.util.service;
 
 import com.intellij.openapi.extensions.ExtensionPointName;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.extension.CompiledServiceBuilderFactory;
 import fr.adrienbrault.idea.symfony2plugin.extension.CompiledServiceBuilderArguments;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricsSample;
+import fr.adrienbrault.idea.symfony2plugin.metrics.SymfonyMetricsService;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheSizeEstimator;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.ProjectCacheKey;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ServiceXmlParserFactory {
 
-    protected static Map<Project, Map<Class, ServiceXmlParserFactory>> instance = new HashMap<>();
+    private static final ProjectCacheKey<Map<Class, ServiceXmlParserFactory>> INSTANCES = ProjectCacheKey.create(
+        "ServiceXmlParserFactory",
+        project -> new ConcurrentHashMap<>(),
+        factories -> {
+            // parsers are opaque, so use the size of the parsed container files as approximation
+            long size = CacheSizeEstimator.OBJECT;
+            for (ServiceXmlParserFactory factory : factories.values()) {
+                size += factory.parsedSize;
+            }
+            return size;
+        }
+    );
+
+    /**
+     * Incremented on every re-parse of any parser, so caches on container data do not need to call the factory for checks
+     */
+    private static final ProjectCacheKey<SimpleModificationTracker> PARSER_TRACKER = ProjectCacheKey.create(
+        "ServiceXmlParserFactory.PARSER_TRACKER",
+        project -> new SimpleModificationTracker(),
+        tracker -> CacheSizeEstimator.OBJECT
+    );
 
     protected Project project;
     protected ServiceParserInterface serviceParserInstance;
 
-    protected HashMap<String, Long> serviceFiles = new HashMap<>();
+    protected volatile HashMap<String, Long> serviceFiles = new HashMap<>();
+
+    /**
+     * Bytes of the container files of the last parse; recorded there, so size estimation needs no disk access
+     */
+    private volatile long parsedSize = 0;
 
     private Collection<CompiledServiceBuilderFactory.Builder> extensions = new ArrayList<>();
     private static final ExtensionPointName<CompiledServiceBuilderFactory> EXTENSIONS = new ExtensionPointName<>(
@@ -57,8 +91,26 @@ public class ServiceXmlParserFactory {
         return false;
     }
 
+    /**
+     * Sample is taken outside of the parser lock, so lookups waiting on a concurrent re-parse are timed too
+     */
     @Nullable
-    synchronized public <T extends ServiceParserInterface> T parser(Class<T> serviceParser) {
+    public <T extends ServiceParserInterface> T parser(Class<T> serviceParser) {
+
+        // no name building for disabled metrics
+        MetricsSample sample = SymfonyMetricsService.isEnabled()
+            ? SymfonyMetricsService.startLookup(this.project, "ServiceXmlParserFactory." + serviceParser.getSimpleName())
+            : MetricsSample.NOOP;
+
+        try {
+            return parserInner(serviceParser, sample);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    @Nullable
+    synchronized private <T extends ServiceParserInterface> T parserInner(Class<T> serviceParser, @NotNull MetricsSample sample) {
 
         Symfony2ProjectComponent symfony2ProjectComponent = this.project.getComponent(Symfony2ProjectComponent.class);
 
@@ -68,6 +120,8 @@ public class ServiceXmlParserFactory {
             return (T) this.serviceParserInstance;
         }
 
+        sample.miss();
+
         try {
             this.serviceParserInstance = serviceParser.newInstance();
             Symfony2ProjectComponent.getLogger().info("new instance: " + serviceParser.getName());
@@ -88,7 +142,8 @@ public class ServiceXmlParserFactory {
                 }
             }
 
-            this.serviceFiles = new HashMap<>();
+            HashMap<String, Long> serviceFiles = new HashMap<>();
+            long parsedSize = 0;
             for(File settingsServiceFile: settingsServiceFiles) {
                 if(!settingsServiceFile.exists()) {
                     continue;
@@ -101,7 +156,12 @@ public class ServiceXmlParserFactory {
                 }
 
                 serviceFiles.put(settingsServiceFile.getAbsolutePath(), settingsServiceFile.lastModified());
+                parsedSize += settingsServiceFile.length();
             }
+
+            this.serviceFiles = serviceFiles;
+            this.parsedSize = parsedSize;
+            SymfonyProjectCacheService.getCache(project, PARSER_TRACKER).incModificationCount();
         }
 
         Symfony2ProjectComponent.getLogger().info("update: " + serviceParser.getName());
@@ -113,36 +173,34 @@ public class ServiceXmlParserFactory {
         this.serviceFiles = new HashMap<>();
     }
 
-    synchronized public static <T extends ServiceParserInterface> T getInstance(Project project, Class<T> serviceParser){
+    /**
+     * Factories are resolved lock-free per project and parser class; only callers of the same parser wait on each other
+     */
+    public static <T extends ServiceParserInterface> T getInstance(Project project, Class<T> serviceParser){
 
-        Map<Class, ServiceXmlParserFactory> projectInstance = instance.get(project);
+        Map<Class, ServiceXmlParserFactory> projectInstance = SymfonyProjectCacheService.getCache(project, INSTANCES);
 
-        if(projectInstance == null) {
-            projectInstance = new HashMap<>();
-            instance.put(project, projectInstance);
-        }
-
-        ServiceXmlParserFactory serviceXmlParserFactory = projectInstance.get(serviceParser);
-        if(serviceXmlParserFactory == null) {
-            serviceXmlParserFactory = new ServiceXmlParserFactory(project);
+        ServiceXmlParserFactory serviceXmlParserFactory = projectInstance.computeIfAbsent(serviceParser, aClass -> {
+            ServiceXmlParserFactory factory = new ServiceXmlParserFactory(project);
 
             // add extension for new instance
             for (CompiledServiceBuilderFactory ext : EXTENSIONS.getExtensions()) {
-                serviceXmlParserFactory.extensions.add(ext.create());
+                factory.extensions.add(ext.create());
             }
 
-            projectInstance.put(serviceParser, serviceXmlParserFactory);
-        }
+            return factory;
+        });
 
         return serviceXmlParserFactory.parser(serviceParser);
 
     }
 
-    synchronized public static void cleanInstance(Project project){
-        if(instance.containsKey(project)) {
-            Symfony2ProjectComponent.getLogger().info("clean ServiceXmlParserFactory for " + project.getName());
-            instance.remove(project);
-        }
+    /**
+     * Stamp of parsed container files; only changes after a parser was rebuilt by one of its consumers
+     */
+    @NotNull
+    public static ModificationTracker getModificationTracker(@NotNull Project project) {
+        return SymfonyProjectCacheService.getCache(project, PARSER_TRACKER);
     }
 
 }
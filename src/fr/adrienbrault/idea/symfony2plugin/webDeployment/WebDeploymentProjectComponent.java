@@ -53,9 +53,6 @@ public class WebDeploymentProjectComponent implements ProjectComponent {
     }
 
     public void projectClosed() {
-        if(RemoteWebServerUtil.STORAGE_INSTANCES.containsKey(project)) {
-            RemoteWebServerUtil.STORAGE_INSTANCES.remove(project);
-        }
     }
 
     private class MyTimerTask extends TimerTask {
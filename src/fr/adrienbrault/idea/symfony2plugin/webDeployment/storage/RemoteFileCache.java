@@ -0,0 +1,263 @@
+package fr.adrienbrault.idea.symfony2plugin.webDeployment.storage;
+
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local compressed copies of remote files.
+ *
+ * A remote file is only downloaded when its size or modification time changed; the download is streamed
+ * into a gzip file, so no content is held on heap. Content hashes let callers skip rebuilding their
+ * state when a downloaded file turned out to be identical.
+ *
+ * The entry index lives in memory only, so copies of a former session can never be reused:
+ * they are dropped when a cache is created for the directory and on "clear"
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class RemoteFileCache {
+
+    @NotNull
+    private final File directory;
+
+    /**
+     * Remote path to its local copy
+     */
+    @NotNull
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Owner to content hashes its state was built from; a recreated owner needs a new build
+     */
+    @NotNull
+    private final Map<Object, String> signatures = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public RemoteFileCache(@NotNull File directory) {
+        this.directory = directory;
+
+        // leftovers of a crashed or killed session
+        deleteFiles();
+    }
+
+    /**
+     * Local copy of a vfs file; "sftp://", "ftp://" or "file://" are all the same
+     */
+    @NotNull
+    public Entry sync(@NotNull String path, @NotNull FileObject fileObject) throws IOException {
+        FileContent content = fileObject.getContent();
+
+        long lastModified;
+        try {
+            lastModified = content.getLastModifiedTime();
+        } catch (FileSystemException e) {
+            // not supported by all protocols; so every run needs a download
+            lastModified = -1;
+        }
+
+        return sync(path, content.getSize(), lastModified, content::getInputStream);
+    }
+
+    /**
+     * @param lastModified -1 if unknown
+     */
+    @NotNull
+    public Entry sync(@NotNull String path, long size, long lastModified, @NotNull Callable<InputStream> opener) throws IOException {
+        Entry previous = entries.get(path);
+        if(previous != null && lastModified > 0 && previous.size == size && previous.lastModified == lastModified && previous.file.isFile()) {
+            return previous;
+        }
+
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can not create cache directory: " + directory);
+        }
+
+        File temp = File.createTempFile("remote", ".tmp", directory);
+
+        String hash;
+        try {
+            hash = download(opener, temp);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+
+        // content did not change; only remember new file stamp
+        if(previous != null && previous.hash.equals(hash) && previous.file.isFile()) {
+            temp.delete();
+
+            Entry entry = new Entry(path, previous.file, size, lastModified, hash);
+            entries.put(path, entry);
+
+            return entry;
+        }
+
+        File file = new File(directory, sha1(path) + ".gz");
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        Entry entry = new Entry(path, file, size, lastModified, hash);
+        entries.put(path, entry);
+
+        return entry;
+    }
+
+    /**
+     * Store hashes of the files a state is built from
+     *
+     * @return false if the owner was already built from the same contents
+     */
+    public boolean updateSignature(@NotNull Object owner, @NotNull Collection<Entry> entries) {
+        StringBuilder signature = new StringBuilder();
+        for (Entry entry : entries) {
+            signature.append(entry.path).append('#').append(entry.hash).append('\n');
+        }
+
+        String previous = signatures.put(owner, signature.toString());
+        return !signature.toString().equals(previous);
+    }
+
+    /**
+     * Forget all entries and delete the local copies including the cache directory
+     */
+    public void clear() {
+        entries.clear();
+        signatures.clear();
+
+        deleteFiles();
+        directory.delete();
+    }
+
+    private void deleteFiles() {
+        File[] files = directory.listFiles();
+        if(files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if(file.isFile()) {
+                file.delete();
+            }
+        }
+    }
+
+    @NotNull
+    private static String download(@NotNull Callable<InputStream> opener, @NotNull File target) throws IOException {
+        MessageDigest digest = createDigest();
+
+        InputStream remote;
+        try {
+            remote = opener.call();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+
+        try (InputStream inputStream = new DigestInputStream(remote, digest);
+             OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(target), 8192)) {
+
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    @NotNull
+    private static String sha1(@NotNull String value) {
+        MessageDigest digest = createDigest();
+        return toHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @NotNull
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    private static String toHex(@NotNull byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Downloaded remote file
+     */
+    public static class Entry {
+        @NotNull
+        private final String path;
+
+        @NotNull
+        private final File file;
+
+        private final long size;
+        private final long lastModified;
+
+        @NotNull
+        private final String hash;
+
+        private Entry(@NotNull String path, @NotNull File file, long size, long lastModified, @NotNull String hash) {
+            this.path = path;
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        @NotNull
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Uncompressed size of remote file
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * SHA-1 of remote content
+         */
+        @NotNull
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * New stream of remote content for every call; caller must close it
+         */
+        @NotNull
+        public InputStream openStream() throws IOException {
+            return new GZIPInputStream(new FileInputStream(file), 8192);
+        }
+    }
+}
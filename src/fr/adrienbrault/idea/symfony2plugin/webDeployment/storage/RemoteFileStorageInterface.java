@@ -1,7 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.webDeployment.storage;
 
 import com.intellij.openapi.project.Project;
-import org.apache.commons.vfs2.FileObject;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
@@ -13,7 +12,10 @@ public interface RemoteFileStorageInterface<V> {
     @NotNull
     Collection<String> files(@NotNull Project project);
 
-    void build(@NotNull Project project, @NotNull Collection<FileObject> fileObjects);
+    /**
+     * Called only if remote contents changed since last build
+     */
+    void build(@NotNull Project project, @NotNull Collection<RemoteFileCache.Entry> files);
 
     @NotNull
     V getState();
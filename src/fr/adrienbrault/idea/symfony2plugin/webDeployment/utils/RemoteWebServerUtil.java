@@ -1,8 +1,10 @@
 package fr.adrienbrault.idea.symfony2plugin.webDeployment.utils;
 
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.util.Function;
 import com.intellij.util.containers.*;
 import com.intellij.util.containers.HashMap;
@@ -12,46 +14,71 @@ import com.jetbrains.plugins.webDeployment.config.PublishConfig;
 import com.jetbrains.plugins.webDeployment.config.WebServerConfig;
 import com.jetbrains.plugins.webDeployment.connections.RemoteConnection;
 import com.jetbrains.plugins.webDeployment.connections.RemoteConnectionManager;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2ProjectComponent;
 import fr.adrienbrault.idea.symfony2plugin.dic.webDeployment.ServiceContainerRemoteFileStorage;
+import fr.adrienbrault.idea.symfony2plugin.dic.webDeployment.dict.ServiceParameterStorage;
 import fr.adrienbrault.idea.symfony2plugin.routing.webDeployment.RoutingRemoteFileStorage;
 import fr.adrienbrault.idea.symfony2plugin.ui.dict.UiFilePathInterface;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheSizeEstimator;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.ProjectCacheKey;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
+import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileCache;
 import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileStorageInterface;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
 public class RemoteWebServerUtil {
 
-    public static Map<Project, RemoteFileStorageInterface[]> STORAGE_INSTANCES = new ConcurrentHashMap<>();
-
-    @NotNull
-    public synchronized static RemoteFileStorageInterface[] getExtension(@NotNull Project project) {
-        if(STORAGE_INSTANCES.containsKey(project)) {
-            return STORAGE_INSTANCES.get(project);
-        }
-
-        STORAGE_INSTANCES.put(project, new RemoteFileStorageInterface[] {
+    private static final ProjectCacheKey<RemoteFileStorageInterface[]> STORAGE_INSTANCES = ProjectCacheKey.create(
+        "RemoteWebServerUtil.STORAGE_INSTANCES",
+        project -> new RemoteFileStorageInterface[] {
             new ServiceContainerRemoteFileStorage(),
             new RoutingRemoteFileStorage(),
-        });
+        },
+        RemoteWebServerUtil::estimateStorageSize
+    );
+
+    private static final ProjectCacheKey<RemoteFileCache> FILE_CACHE = ProjectCacheKey.create(
+        "RemoteWebServerUtil.FILE_CACHE",
+        project -> {
+            RemoteFileCache cache = new RemoteFileCache(new File(PathManager.getSystemPath(), "symfony2-remote-files/" + project.getLocationHash()));
+
+            // local copies are useless without their in memory index, so they must not survive the project
+            if(!project.isDisposed()) {
+                Disposer.register(project, cache::clear);
+            }
+
+            return cache;
+        },
+        cache -> CacheSizeEstimator.OBJECT
+    );
 
-        return STORAGE_INSTANCES.get(project);
+    @NotNull
+    public static RemoteFileStorageInterface[] getExtension(@NotNull Project project) {
+        return SymfonyProjectCacheService.getCache(project, STORAGE_INSTANCES);
     }
 
     @Nullable
     public static <T> T getExtensionInstance(@Nullable Project project, @NotNull Class<T> aClass) {
-        if(!STORAGE_INSTANCES.containsKey(project)) {
+        if(project == null || project.isDisposed()) {
+            return null;
+        }
+
+        RemoteFileStorageInterface[] storages = SymfonyProjectCacheService.getInstance(project).getIfPresent(STORAGE_INSTANCES);
+        if(storages == null) {
             return null;
         }
 
-        for (RemoteFileStorageInterface remoteFileStorage : STORAGE_INSTANCES.get(project)) {
+        for (RemoteFileStorageInterface remoteFileStorage : storages) {
             if(aClass.isInstance(remoteFileStorage)) {
                 return (T) remoteFileStorage;
             }
@@ -73,25 +100,33 @@ public class RemoteWebServerUtil {
             return;
         }
 
+        RemoteFileCache fileCache = SymfonyProjectCacheService.getCache(project, FILE_CACHE);
+
         for (final RemoteFileStorageInterface fileStorage : RemoteWebServerUtil.getExtension(project)) {
-            final Collection<FileObject> contents = new ArrayList<>();
+            final Collection<RemoteFileCache.Entry> files = new ArrayList<>();
 
             for (Object s : fileStorage.files(project)) {
+                String path = (String) s;
 
-                FileObject file;
                 try {
-                    file = defaultServer.findFile(connection.getFileSystem(), new WebServerConfig.RemotePath((String) s));
-                } catch (FileSystemException e) {
-                    continue;
+                    FileObject file = defaultServer.findFile(connection.getFileSystem(), new WebServerConfig.RemotePath(path));
+
+                    // unchanged remote files are not downloaded again
+                    files.add(fileCache.sync(path, file));
+                } catch (IOException e) {
+                    Symfony2ProjectComponent.getLogger().info("Remote file not synced: " + path + " " + e.getMessage());
                 }
+            }
 
-                contents.add(file);
+            // same contents as last time; keep current state
+            if(!fileCache.updateSignature(fileStorage, files)) {
+                continue;
             }
 
             fileStorage.clear();
 
             ApplicationManager.getApplication().runReadAction(() -> {
-                fileStorage.build(project, contents);
+                fileStorage.build(project, files);
             });
         }
 
@@ -117,6 +152,22 @@ public class RemoteWebServerUtil {
         });
     }
 
+    private static long estimateStorageSize(@NotNull RemoteFileStorageInterface[] storages) {
+        long size = CacheSizeEstimator.OBJECT;
+
+        for (RemoteFileStorageInterface storage : storages) {
+            Object state = storage.getState();
+            if(state instanceof ServiceParameterStorage) {
+                // streams are opened from disk; so only their meta data is retained
+                size += CacheSizeEstimator.OBJECT * ((ServiceParameterStorage) state).getFiles().size();
+            } else if(state instanceof Map) {
+                size += CacheSizeEstimator.MAP_ENTRY * ((Map) state).size();
+            }
+        }
+
+        return size;
+    }
+
     public static boolean hasConfiguredRemoteFile(@NotNull Project project) {
         for (RemoteFileStorageInterface remoteFileStorage : getExtension(project)) {
             if(remoteFileStorage.files(project).size() > 0) {
@@ -6,5 +6,6 @@ import javax.swing.*;
 public class SymfonyIcons {
     public static final Icon Symfony = Symfony2Icons.SYMFONY;
     public static final Icon FormType = Symfony2Icons.FORM_TYPE;
+    public static final Icon Route = Symfony2Icons.ROUTE;
     public static final Icon SymfonyToolWindow = Symfony2Icons.SYMFONY_TOOL_WINDOW;
 }
@@ -0,0 +1,199 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Benchmark timings in milliseconds and their comparison against a previous run.
+ *
+ * {"scale": 1.0, "entities": 200, "results": [{"name": "completion.service", "iterations": 5, "firstMs": 120, "medianMs": 40, "maxMs": 55}]}
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class BenchmarkReport {
+
+    private final double scale;
+
+    /**
+     * Generated entity count; Doctrine timings are only comparable on the same model count. 0 for unknown
+     */
+    private int entities = 0;
+
+    @NotNull
+    private final Map<String, Result> results = new LinkedHashMap<>();
+
+    public BenchmarkReport(double scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * @param timings of all runs in milliseconds; first one is the cold run
+     */
+    public void add(@NotNull String name, @NotNull List<Long> timings) {
+        if(timings.size() == 0) {
+            throw new IllegalArgumentException("no timings for " + name);
+        }
+
+        List<Long> sorted = new ArrayList<>(timings);
+        Collections.sort(sorted);
+
+        results.put(name, new Result(name, timings.size(), timings.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1)));
+    }
+
+    @NotNull
+    public Collection<Result> getResults() {
+        return results.values();
+    }
+
+    @Nullable
+    public Result getResult(@NotNull String name) {
+        return results.get(name);
+    }
+
+    /**
+     * Results which are slower than the baseline by more than the relative tolerance and at least the absolute minimum;
+     * small timings are too noisy to compare them only relatively
+     */
+    @NotNull
+    public List<String> getRegressions(@NotNull BenchmarkReport baseline, double tolerance, long minDeltaMs) {
+        List<String> regressions = new ArrayList<>();
+
+        for (Result result : results.values()) {
+            Result previous = baseline.getResult(result.getName());
+            if(previous == null) {
+                continue;
+            }
+
+            long delta = result.getMedianMs() - previous.getMedianMs();
+            if(delta >= minDeltaMs && result.getMedianMs() > previous.getMedianMs() * (1 + tolerance)) {
+                regressions.add(String.format("%s: %dms, baseline %dms", result.getName(), result.getMedianMs(), previous.getMedianMs()));
+            }
+        }
+
+        return regressions;
+    }
+
+    @NotNull
+    public String toJson() {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("scale", scale);
+        if(entities > 0) {
+            jsonObject.addProperty("entities", entities);
+        }
+
+        JsonArray items = new JsonArray();
+        for (Result result : results.values()) {
+            JsonObject item = new JsonObject();
+            item.addProperty("name", result.getName());
+            item.addProperty("iterations", result.getIterations());
+            item.addProperty("firstMs", result.getFirstMs());
+            item.addProperty("medianMs", result.getMedianMs());
+            item.addProperty("maxMs", result.getMaxMs());
+            items.add(item);
+        }
+
+        jsonObject.add("results", items);
+
+        return new GsonBuilder().setPrettyPrinting().create().toJson(jsonObject);
+    }
+
+    @NotNull
+    public static BenchmarkReport fromJson(@NotNull String json) {
+        JsonObject jsonObject = new JsonParser().parse(json).getAsJsonObject();
+
+        BenchmarkReport report = new BenchmarkReport(jsonObject.has("scale") ? jsonObject.get("scale").getAsDouble() : 1);
+        if(jsonObject.has("entities")) {
+            report.setEntities(jsonObject.get("entities").getAsInt());
+        }
+
+        JsonElement items = jsonObject.get("results");
+        if(items != null && items.isJsonArray()) {
+            for (JsonElement element : items.getAsJsonArray()) {
+                JsonObject item = element.getAsJsonObject();
+
+                String name = item.get("name").getAsString();
+                report.results.put(name, new Result(
+                    name,
+                    item.get("iterations").getAsInt(),
+                    item.get("firstMs").getAsLong(),
+                    item.get("medianMs").getAsLong(),
+                    item.get("maxMs").getAsLong()
+                ));
+            }
+        }
+
+        return report;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    @NotNull
+    public BenchmarkReport setEntities(int entities) {
+        this.entities = entities;
+        return this;
+    }
+
+    public int getEntities() {
+        return entities;
+    }
+
+    /**
+     * Baseline was generated with the same project size; an unknown entity count is not compared
+     */
+    public boolean isComparable(@NotNull BenchmarkReport baseline) {
+        return baseline.scale == scale && (baseline.entities == 0 || entities == 0 || baseline.entities == entities);
+    }
+
+    public static class Result {
+        @NotNull
+        private final String name;
+
+        private final int iterations;
+        private final long firstMs;
+        private final long medianMs;
+        private final long maxMs;
+
+        Result(@NotNull String name, int iterations, long firstMs, long medianMs, long maxMs) {
+            this.name = name;
+            this.iterations = iterations;
+            this.firstMs = firstMs;
+            this.medianMs = medianMs;
+            this.maxMs = maxMs;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public long getFirstMs() {
+            return firstMs;
+        }
+
+        public long getMedianMs() {
+            return medianMs;
+        }
+
+        public long getMaxMs() {
+            return maxMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: first=%dms, median=%dms, max=%dms (%d runs)", name, firstMs, medianMs, maxMs, iterations);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.benchmark;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see BenchmarkReport
+ */
+public class BenchmarkReportTest extends Assert {
+
+    @Test
+    public void testFirstMedianAndMaxOfTimings() {
+        BenchmarkReport report = new BenchmarkReport(1);
+        report.add("completion.service", Arrays.asList(120L, 40L, 30L, 55L, 35L));
+
+        BenchmarkReport.Result result = report.getResult("completion.service");
+        assertNotNull(result);
+        assertEquals(5, result.getIterations());
+        assertEquals(120, result.getFirstMs());
+        assertEquals(40, result.getMedianMs());
+        assertEquals(120, result.getMaxMs());
+    }
+
+    @Test
+    public void testJsonRoundTrip() {
+        BenchmarkReport report = new BenchmarkReport(2).setEntities(400);
+        report.add("indexing.services", Collections.singletonList(300L));
+        report.add("completion.route", Arrays.asList(50L, 10L, 12L));
+
+        BenchmarkReport parsed = BenchmarkReport.fromJson(report.toJson());
+
+        assertEquals(2, parsed.getScale(), 0);
+        assertEquals(400, parsed.getEntities());
+        assertEquals(2, parsed.getResults().size());
+        assertEquals(300, parsed.getResult("indexing.services").getMedianMs());
+        assertEquals(12, parsed.getResult("completion.route").getMedianMs());
+        assertEquals(50, parsed.getResult("completion.route").getFirstMs());
+    }
+
+    @Test
+    public void testBaselineNeedsSameScaleAndEntityCount() {
+        BenchmarkReport report = new BenchmarkReport(1).setEntities(2000);
+
+        assertTrue(report.isComparable(new BenchmarkReport(1).setEntities(2000)));
+        assertTrue(report.isComparable(new BenchmarkReport(1)));
+        assertFalse(report.isComparable(new BenchmarkReport(1).setEntities(200)));
+        assertFalse(report.isComparable(new BenchmarkReport(2).setEntities(2000)));
+    }
+
+    @Test
+    public void testRegressionsNeedRelativeAndAbsoluteSlowdown() {
+        BenchmarkReport baseline = new BenchmarkReport(1);
+        baseline.add("slow", Collections.singletonList(100L));
+        baseline.add("noise", Collections.singletonList(2L));
+        baseline.add("stable", Collections.singletonList(100L));
+
+        BenchmarkReport current = new BenchmarkReport(1);
+        current.add("slow", Collections.singletonList(200L));
+        current.add("noise", Collections.singletonList(10L));
+        current.add("stable", Collections.singletonList(120L));
+        current.add("new", Collections.singletonList(1000L));
+
+        List<String> regressions = current.getRegressions(baseline, 0.5, 20);
+
+        assertEquals(1, regressions.size());
+        assertEquals("slow: 200ms, baseline 100ms", regressions.get(0));
+    }
+}
@@ -0,0 +1,325 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generator for a synthetic Symfony project: file path relative to project root and its content.
+ *
+ * Names are predictable, so benchmarks can reference any generated element:
+ * "app.yml_service_<n>", "app.xml_service_<n>", "app_route_<n>", "template_<chain>_<depth>.html.twig",
+ * "key_<n>" inside every translation domain, "AppBundle\Entity\Entity<n>" and "Foo<n>Bundle"
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ */
+public class SyntheticProject {
+
+    /**
+     * Elements per generated file, like a real world project splits its configuration
+     */
+    private static final int PER_FILE = 100;
+
+    private static final String[] LOCALES = new String[] {"en", "de"};
+
+    private int services = 2000;
+    private int routes = 1000;
+    private int templateChains = 50;
+    private int templateDepth = 10;
+    private int translationDomains = 5;
+    private int translationKeys = 400;
+    private int entities = 200;
+
+    /**
+     * Bundles next to "AppBundle"; none by default, so reports of the default project are not changed
+     */
+    private int bundles = 0;
+
+    /**
+     * All counts multiplied by the given factor
+     */
+    @NotNull
+    public SyntheticProject scale(double factor) {
+        services = (int) Math.max(1, services * factor);
+        routes = (int) Math.max(1, routes * factor);
+        templateChains = (int) Math.max(1, templateChains * factor);
+        translationKeys = (int) Math.max(1, translationKeys * factor);
+        entities = (int) Math.max(1, entities * factor);
+        bundles = bundles > 0 ? (int) Math.max(1, bundles * factor) : 0;
+        return this;
+    }
+
+    /**
+     * Services split in equal parts between xml and yaml files
+     */
+    @NotNull
+    public SyntheticProject setServices(int services) {
+        this.services = services;
+        return this;
+    }
+
+    @NotNull
+    public SyntheticProject setRoutes(int routes) {
+        this.routes = routes;
+        return this;
+    }
+
+    /**
+     * Independent "extends" chains with the given depth each
+     */
+    @NotNull
+    public SyntheticProject setTemplates(int chains, int depth) {
+        this.templateChains = chains;
+        this.templateDepth = depth;
+        return this;
+    }
+
+    /**
+     * Keys per domain; every domain exists for each locale
+     */
+    @NotNull
+    public SyntheticProject setTranslations(int domains, int keys) {
+        this.translationDomains = domains;
+        this.translationKeys = keys;
+        return this;
+    }
+
+    @NotNull
+    public SyntheticProject setEntities(int entities) {
+        this.entities = entities;
+        return this;
+    }
+
+    public int getServices() {
+        return services;
+    }
+
+    public int getRoutes() {
+        return routes;
+    }
+
+    public int getTemplateChains() {
+        return templateChains;
+    }
+
+    public int getTemplateDepth() {
+        return templateDepth;
+    }
+
+    public int getTranslationDomains() {
+        return translationDomains;
+    }
+
+    public int getTranslationKeys() {
+        return translationKeys;
+    }
+
+    public int getEntities() {
+        return entities;
+    }
+
+    /**
+     * Every second bundle is a vendor bundle, with a template inside "Resources/views/Default"
+     */
+    @NotNull
+    public SyntheticProject setBundles(int bundles) {
+        this.bundles = bundles;
+        return this;
+    }
+
+    public int getBundles() {
+        return bundles;
+    }
+
+    /**
+     * Directory of "Foo<n>Bundle" relative to the project root
+     */
+    @NotNull
+    public static String getBundleDirectory(int bundle) {
+        return bundle % 2 == 0 ? "src/Acme/Foo" + bundle + "Bundle" : "vendor/acme/foo" + bundle + "-bundle/Foo" + bundle + "Bundle";
+    }
+
+    @NotNull
+    public Map<String, String> generate() {
+        Map<String, String> files = new LinkedHashMap<>();
+
+        files.put("src/classes.php", createFrameworkClasses());
+        files.put("src/AppBundle/AppBundle.php", "<?php\nnamespace AppBundle;\n\nuse Symfony\\Component\\HttpKernel\\Bundle\\Bundle;\n\nclass AppBundle extends Bundle {}\n");
+
+        addServices(files);
+        addRoutes(files);
+        addTemplates(files);
+        addTranslations(files);
+        addEntities(files);
+        addBundles(files);
+
+        return files;
+    }
+
+    private void addServices(@NotNull Map<String, String> files) {
+        int yamlServices = services / 2;
+        int xmlServices = services - yamlServices;
+
+        for (int file = 0; file * PER_FILE < yamlServices; file++) {
+            StringBuilder content = new StringBuilder("services:\n");
+            for (int i = file * PER_FILE; i < Math.min(yamlServices, (file + 1) * PER_FILE); i++) {
+                content.append("    app.yml_service_").append(i).append(":\n")
+                    .append("        class: AppBundle\\Service\\Service").append(i).append("\n")
+                    .append("        arguments: ['@app.yml_service_").append(Math.max(0, i - 1)).append("', '%kernel.root_dir%']\n")
+                    .append("        tags:\n")
+                    .append("            - { name: app.tag_").append(i % 10).append(" }\n");
+            }
+
+            files.put("src/AppBundle/Resources/config/services_" + file + ".yml", content.toString());
+        }
+
+        for (int file = 0; file * PER_FILE < xmlServices; file++) {
+            StringBuilder content = new StringBuilder("<?xml version=\"1.0\" ?>\n<container>\n    <services>\n");
+            for (int i = file * PER_FILE; i < Math.min(xmlServices, (file + 1) * PER_FILE); i++) {
+                content.append("        <service id=\"app.xml_service_").append(i).append("\" class=\"AppBundle\\Service\\Service").append(i).append("\">\n")
+                    .append("            <argument type=\"service\" id=\"app.xml_service_").append(Math.max(0, i - 1)).append("\"/>\n")
+                    .append("            <tag name=\"app.tag_").append(i % 10).append("\"/>\n")
+                    .append("        </service>\n");
+            }
+
+            files.put("src/AppBundle/Resources/config/services_" + file + ".xml", content.append("    </services>\n</container>\n").toString());
+        }
+
+        for (int file = 0; file * PER_FILE < services; file++) {
+            StringBuilder content = new StringBuilder("<?php\nnamespace AppBundle\\Service;\n\n");
+            for (int i = file * PER_FILE; i < Math.min(services, (file + 1) * PER_FILE); i++) {
+                content.append("class Service").append(i).append(" {}\n");
+            }
+
+            files.put("src/AppBundle/Service/Services" + file + ".php", content.toString());
+        }
+    }
+
+    private void addRoutes(@NotNull Map<String, String> files) {
+        for (int file = 0; file * PER_FILE < routes; file++) {
+            StringBuilder content = new StringBuilder();
+            for (int i = file * PER_FILE; i < Math.min(routes, (file + 1) * PER_FILE); i++) {
+                content.append("app_route_").append(i).append(":\n")
+                    .append("    path: /app/").append(i).append("/{id}\n")
+                    .append("    defaults: { _controller: AppBundle:Default:index").append(i % PER_FILE).append(" }\n");
+            }
+
+            files.put("src/AppBundle/Resources/config/routing_" + file + ".yml", content.toString());
+        }
+    }
+
+    /**
+     * template_<chain>_0 is the layout, every deeper template extends its predecessor and overwrites one more block
+     */
+    private void addTemplates(@NotNull Map<String, String> files) {
+        for (int chain = 0; chain < templateChains; chain++) {
+            for (int depth = 0; depth < templateDepth; depth++) {
+                StringBuilder content = new StringBuilder();
+
+                if(depth > 0) {
+                    content.append("{% extends '").append(getTemplateName(chain, depth - 1)).append("' %}\n");
+                }
+
+                for (int block = 0; block <= depth; block++) {
+                    content.append("{% block block_").append(block).append(" %}")
+                        .append("{{ 'key_").append(block).append("'|trans({}, 'domain_0') }}")
+                        .append("{% endblock %}\n");
+                }
+
+                if(depth > 0) {
+                    content.append("{% block include_").append(depth).append(" %}{% include '").append(getTemplateName((chain + 1) % templateChains, 0)).append("' %}{% endblock %}\n");
+                }
+
+                files.put("app/Resources/views/" + getTemplateName(chain, depth), content.toString());
+            }
+        }
+    }
+
+    private void addTranslations(@NotNull Map<String, String> files) {
+        for (int domain = 0; domain < translationDomains; domain++) {
+            for (String locale : LOCALES) {
+                StringBuilder content = new StringBuilder();
+                for (int i = 0; i < translationKeys; i++) {
+                    content.append("key_").append(i).append(": 'Translation ").append(i).append(" ").append(locale).append("'\n");
+                }
+
+                files.put("src/AppBundle/Resources/translations/domain_" + domain + "." + locale + ".yml", content.toString());
+            }
+        }
+    }
+
+    private void addBundles(@NotNull Map<String, String> files) {
+        for (int i = 0; i < bundles; i++) {
+            String directory = getBundleDirectory(i);
+
+            files.put(directory + "/Foo" + i + "Bundle.php", "<?php\nnamespace Acme\\Foo" + i + "Bundle;\n\nuse Symfony\\Component\\HttpKernel\\Bundle\\Bundle;\n\nclass Foo" + i + "Bundle extends Bundle {}\n");
+            files.put(directory + "/Resources/views/Default/index.html.twig", "{% block content %}{% endblock %}\n");
+        }
+    }
+
+    /**
+     * Annotated entities, every second one also has a yaml mapping
+     */
+    private void addEntities(@NotNull Map<String, String> files) {
+        for (int i = 0; i < entities; i++) {
+            files.put("src/AppBundle/Entity/Entity" + i + ".php", "<?php\n" +
+                "namespace AppBundle\\Entity;\n\n" +
+                "use Doctrine\\ORM\\Mapping as ORM;\n\n" +
+                "/**\n * @ORM\\Entity(repositoryClass=\"AppBundle\\Repository\\Entity" + i + "Repository\")\n */\n" +
+                "class Entity" + i + "\n{\n" +
+                "    /**\n     * @ORM\\Column(type=\"string\")\n     */\n    private $name;\n\n" +
+                "    /**\n     * @ORM\\ManyToOne(targetEntity=\"Entity" + Math.max(0, i - 1) + "\")\n     */\n    private $parent;\n" +
+                "}\n"
+            );
+
+            if(i % 2 == 0) {
+                files.put("src/AppBundle/Resources/config/doctrine/Model" + i + ".orm.yml", "" +
+                    "AppBundle\\Model\\Model" + i + ":\n" +
+                    "    type: entity\n" +
+                    "    table: model_" + i + "\n" +
+                    "    fields:\n" +
+                    "        name:\n" +
+                    "            type: string\n"
+                );
+            }
+        }
+    }
+
+    @NotNull
+    public static String getTemplateName(int chain, int depth) {
+        return "template_" + chain + "_" + depth + ".html.twig";
+    }
+
+    /**
+     * Minimal framework api the plugin is matching against
+     */
+    @NotNull
+    private static String createFrameworkClasses() {
+        return "<?php\n" +
+            "namespace Symfony\\Component\\DependencyInjection {\n" +
+            "    interface ContainerInterface { public function get($id); public function has($id); }\n" +
+            "}\n" +
+            "namespace Symfony\\Component\\HttpKernel\\Bundle {\n" +
+            "    class Bundle {}\n" +
+            "}\n" +
+            "namespace Symfony\\Component\\Routing\\Generator {\n" +
+            "    interface UrlGeneratorInterface { public function generate($name, $parameters = array()); }\n" +
+            "}\n" +
+            "namespace Symfony\\Component\\Translation {\n" +
+            "    interface TranslatorInterface { public function trans($id, array $parameters = array(), $domain = null); }\n" +
+            "}\n" +
+            "namespace Doctrine\\Common\\Persistence {\n" +
+            "    interface ObjectRepository { public function findBy(array $criteria); }\n" +
+            "    interface ObjectManager {\n" +
+            "        /** @return \\Doctrine\\Common\\Persistence\\ObjectRepository */\n" +
+            "        public function getRepository($className);\n" +
+            "    }\n" +
+            "}\n" +
+            "namespace Doctrine\\ORM\\Mapping {\n" +
+            "    class Entity {}\n" +
+            "    class Column {}\n" +
+            "    class ManyToOne {}\n" +
+            "}\n";
+    }
+}
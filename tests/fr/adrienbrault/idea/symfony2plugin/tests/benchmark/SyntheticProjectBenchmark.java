@@ -0,0 +1,459 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.benchmark;
+
+import com.intellij.codeInsight.daemon.LineMarkerInfo;
+import com.intellij.codeInsight.daemon.LineMarkerProvider;
+import com.intellij.codeInsight.daemon.LineMarkerProviders;
+import com.intellij.codeInsight.daemon.impl.AnnotationHolderImpl;
+import com.intellij.lang.LanguageAnnotators;
+import com.intellij.lang.annotation.AnnotationSession;
+import com.intellij.lang.annotation.Annotator;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileTypes.LanguageFileType;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.twig.TwigFileType;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.EntityHelper;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.*;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
+import fr.adrienbrault.idea.symfony2plugin.util.SymfonyBundleUtil;
+import fr.adrienbrault.idea.symfony2plugin.util.dict.SymfonyBundle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times indexing, completion, annotators and line markers on a generated large project.
+ *
+ * Not part of the default test run, use "ant -f build-test.xml benchmark". Results are written as json to
+ * "symfony2plugin.benchmark.output"; if "symfony2plugin.benchmark.baseline" points to a previous result file
+ * every scenario slower than "symfony2plugin.benchmark.tolerance" (relative, default 0.5) fails the run.
+ * Project size is controlled by "symfony2plugin.benchmark.scale" (default 1).
+ *
+ * Doctrine models run on a project of their own with {@link #DOCTRINE_ENTITIES} entities, bundle lookups on one
+ * with {@link #BUNDLES} bundles; their reports and baselines are the same files with a ".doctrine" or ".bundles"
+ * suffix before the extension
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see SyntheticProject
+ */
+public class SyntheticProjectBenchmark extends SymfonyLightCodeInsightFixtureTestCase {
+
+    private static final int ITERATIONS = 6;
+
+    /**
+     * Timings below this difference are noise, even if they are relative regressions
+     */
+    private static final long MIN_REGRESSION_MS = 20;
+
+    /**
+     * Model count of the Doctrine scenarios, multiplied by the scale
+     */
+    private static final int DOCTRINE_ENTITIES = 2000;
+
+    /**
+     * Bundle count of the containing bundle scenarios, multiplied by the scale
+     */
+    private static final int BUNDLES = 200;
+
+    /**
+     * Every bundle file is resolved this often per iteration, so a single run is measurable
+     */
+    private static final int BUNDLE_LOOKUP_ROUNDS = 20;
+
+    private double scale;
+    private SyntheticProject project;
+    private BenchmarkReport report;
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        scale = Double.parseDouble(System.getProperty("symfony2plugin.benchmark.scale", "1"));
+    }
+
+    public void testSyntheticProject() throws IOException {
+        project = new SyntheticProject().scale(scale);
+        report = new BenchmarkReport(scale).setEntities(project.getEntities());
+
+        benchmarkIndexing();
+        benchmarkCompletion();
+        benchmarkAnnotator();
+        benchmarkLineMarker();
+
+        finish(null);
+    }
+
+    public void testDoctrineModels() throws IOException {
+        project = new SyntheticProject().setEntities(DOCTRINE_ENTITIES).scale(scale);
+        report = new BenchmarkReport(scale).setEntities(project.getEntities());
+
+        addFiles();
+        benchmarkDoctrineModels();
+
+        finish("doctrine");
+    }
+
+    public void testBundleLookup() throws IOException {
+        project = new SyntheticProject().setBundles(BUNDLES).scale(scale);
+        report = new BenchmarkReport(scale).setEntities(project.getEntities());
+
+        addFiles();
+        benchmarkBundleLookup();
+
+        finish("bundles");
+    }
+
+    /**
+     * Prints the report, writes it to the output file and compares it with the baseline of the same project size
+     *
+     * @param suffix inserted before the file extension of output and baseline, eg "benchmark.doctrine.json"
+     */
+    private void finish(@Nullable String suffix) throws IOException {
+        for (BenchmarkReport.Result result : report.getResults()) {
+            System.out.println(result);
+        }
+
+        String output = System.getProperty("symfony2plugin.benchmark.output");
+        if(output != null) {
+            FileUtil.writeToFile(new File(withSuffix(output, suffix)), report.toJson());
+        }
+
+        String baseline = System.getProperty("symfony2plugin.benchmark.baseline");
+        if(baseline != null && new File(withSuffix(baseline, suffix)).isFile()) {
+            BenchmarkReport baselineReport = BenchmarkReport.fromJson(FileUtil.loadFile(new File(withSuffix(baseline, suffix))));
+            if(!report.isComparable(baselineReport)) {
+                System.out.println(String.format("baseline skipped: different size, scale %s with %d entities", baselineReport.getScale(), baselineReport.getEntities()));
+                return;
+            }
+
+            double tolerance = Double.parseDouble(System.getProperty("symfony2plugin.benchmark.tolerance", "0.5"));
+
+            List<String> regressions = report.getRegressions(baselineReport, tolerance, MIN_REGRESSION_MS);
+            assertTrue("Regressions against baseline: " + regressions, regressions.isEmpty());
+        }
+    }
+
+    @NotNull
+    private static String withSuffix(@NotNull String file, @Nullable String suffix) {
+        if(suffix == null) {
+            return file;
+        }
+
+        int extension = file.lastIndexOf('.');
+        if(extension <= file.lastIndexOf(File.separatorChar)) {
+            return file + "." + suffix;
+        }
+
+        return file.substring(0, extension) + "." + suffix + file.substring(extension);
+    }
+
+    /**
+     * Files are added first; every index is updated lazily on its first query
+     */
+    private void benchmarkIndexing() {
+        long start = System.currentTimeMillis();
+        addFiles();
+        report.add("indexing.addFiles", single(start));
+
+        benchmarkIndex("indexing.services", ServicesDefinitionStubIndex.KEY);
+        benchmarkIndex("indexing.serviceTags", ServicesTagStubIndex.KEY);
+        benchmarkIndex("indexing.routes", RoutesStubIndex.KEY);
+        benchmarkIndex("indexing.templates", TwigTemplateGraphIndex.KEY);
+        benchmarkIndex("indexing.translations", YamlTranslationStubIndex.KEY);
+        benchmarkIndex("indexing.doctrine", DoctrineMetadataFileStubIndex.KEY);
+    }
+
+    private void benchmarkIndex(@NotNull String name, @NotNull ID<String, ?> id) {
+        long start = System.currentTimeMillis();
+        Collection<String> keys = FileBasedIndex.getInstance().getAllKeys(id, getProject());
+        report.add(name, single(start));
+
+        assertFalse(name, keys.isEmpty());
+    }
+
+    private void benchmarkCompletion() {
+        measureCompletion("completion.service", PhpFileType.INSTANCE, "<?php\n" +
+            "/** @var $c \\Symfony\\Component\\DependencyInjection\\ContainerInterface */\n" +
+            "$c->get('<caret>');"
+        );
+
+        measureCompletion("completion.route", PhpFileType.INSTANCE, "<?php\n" +
+            "/** @var $g \\Symfony\\Component\\Routing\\Generator\\UrlGeneratorInterface */\n" +
+            "$g->generate('<caret>');"
+        );
+
+        measureCompletion("completion.translation", PhpFileType.INSTANCE, "<?php\n" +
+            "/** @var $t \\Symfony\\Component\\Translation\\TranslatorInterface */\n" +
+            "$t->trans('<caret>', [], 'domain_0');"
+        );
+
+        measureCompletion("completion.repository", PhpFileType.INSTANCE, "<?php\n" +
+            "/** @var $em \\Doctrine\\Common\\Persistence\\ObjectManager */\n" +
+            "$em->getRepository('<caret>');"
+        );
+
+        measureCompletion("completion.template", TwigFileType.INSTANCE, "{% extends '<caret>' %}");
+
+        measureCompletion("completion.block", TwigFileType.INSTANCE,
+            "{% extends '" + SyntheticProject.getTemplateName(0, project.getTemplateDepth() - 1) + "' %}{% block <caret> %}"
+        );
+    }
+
+    private void addFiles() {
+        Map<String, String> files = project.generate();
+
+        ApplicationManager.getApplication().runWriteAction(() -> {
+            for (Map.Entry<String, String> entry : files.entrySet()) {
+                myFixture.addFileToProject(entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    /**
+     * Models are collected once per php structure change; so every iteration of "afterChange" starts with a new class
+     */
+    private void benchmarkDoctrineModels() {
+        measureCompletion("completion.repository", PhpFileType.INSTANCE, "<?php\n" +
+            "/** @var $em \\Doctrine\\Common\\Persistence\\ObjectManager */\n" +
+            "$em->getRepository('<caret>');"
+        );
+
+        List<Long> timings = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            myFixture.addFileToProject("src/AppBundle/Entity/Changed" + i + ".php", "<?php\nnamespace AppBundle\\Entity;\n\nclass Changed" + i + " {}\n");
+            myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+                "/** @var $em \\Doctrine\\Common\\Persistence\\ObjectManager */\n" +
+                "$em->getRepository('<caret>');"
+            );
+
+            long start = System.currentTimeMillis();
+            myFixture.completeBasic();
+            timings.add(System.currentTimeMillis() - start);
+        }
+
+        report.add("completion.repository.afterChange", timings);
+
+        timings = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.currentTimeMillis();
+            for (int entity = 0; entity < project.getEntities(); entity++) {
+                EntityHelper.getEntityRepositoryClass(getProject(), "AppBundle:Entity" + entity);
+                EntityHelper.getModelFields(PhpElementsUtil.getClass(getProject(), "AppBundle\\Entity\\Entity" + entity));
+            }
+            timings.add(System.currentTimeMillis() - start);
+        }
+
+        report.add("doctrine.repositoryAndFields", timings);
+
+        // entity class line markers had to visit all models
+        PsiFile entityFile = PsiManager.getInstance(getProject()).findFile(myFixture.findFileInTempDir("src/AppBundle/Entity/Entity0.php"));
+        assertNotNull(entityFile);
+
+        timings = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.currentTimeMillis();
+            collectLineMarkers(entityFile);
+            timings.add(System.currentTimeMillis() - start);
+        }
+
+        report.add("linemarker.entityClass", timings);
+    }
+
+    /**
+     * Containing bundle of files in every bundle; "linear" is the former scan over all bundle directories
+     */
+    private void benchmarkBundleLookup() {
+        List<VirtualFile> files = new ArrayList<>();
+        for (int i = 0; i < project.getBundles(); i++) {
+            VirtualFile file = myFixture.findFileInTempDir(SyntheticProject.getBundleDirectory(i) + "/Resources/views/Default/index.html.twig");
+            assertNotNull(file);
+            files.add(file);
+        }
+
+        SymfonyBundleUtil bundleUtil = new SymfonyBundleUtil(getProject());
+        assertEquals(project.getBundles() + 1, bundleUtil.getBundles().size());
+
+        List<Long> timings = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.currentTimeMillis();
+            for (int round = 0; round < BUNDLE_LOOKUP_ROUNDS; round++) {
+                for (VirtualFile file : files) {
+                    assertNotNull(bundleUtil.getContainingBundle(file));
+                }
+            }
+            timings.add(System.currentTimeMillis() - start);
+        }
+
+        report.add("bundle.containingBundle", timings);
+
+        timings = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.currentTimeMillis();
+            for (int round = 0; round < BUNDLE_LOOKUP_ROUNDS; round++) {
+                for (VirtualFile file : files) {
+                    assertNotNull(getContainingBundleLinear(bundleUtil, file));
+                }
+            }
+            timings.add(System.currentTimeMillis() - start);
+        }
+
+        report.add("bundle.containingBundle.linear", timings);
+    }
+
+    @Nullable
+    private static SymfonyBundle getContainingBundleLinear(@NotNull SymfonyBundleUtil bundleUtil, @NotNull VirtualFile virtualFile) {
+        for (SymfonyBundle bundle : bundleUtil.getBundles()) {
+            if(bundle.isInBundle(virtualFile)) {
+                return bundle;
+            }
+        }
+
+        return null;
+    }
+
+    private void measureCompletion(@NotNull String name, @NotNull LanguageFileType fileType, @NotNull String content) {
+        List<Long> timings = new ArrayList<>();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            myFixture.configureByText(fileType, content);
+
+            long start = System.currentTimeMillis();
+            myFixture.completeBasic();
+            timings.add(System.currentTimeMillis() - start);
+        }
+
+        report.add(name, timings);
+    }
+
+    /**
+     * Every plugin annotator on every element of files referencing services, routes and templates
+     */
+    private void benchmarkAnnotator() {
+        StringBuilder php = new StringBuilder("<?php\n" +
+            "/** @var $c \\Symfony\\Component\\DependencyInjection\\ContainerInterface */\n" +
+            "/** @var $g \\Symfony\\Component\\Routing\\Generator\\UrlGeneratorInterface */\n"
+        );
+
+        for (int i = 0; i < 200; i++) {
+            php.append("$c->get('app.yml_service_").append(i % project.getServices()).append("');\n");
+            php.append("$g->generate('app_route_").append(i % project.getRoutes()).append("');\n");
+        }
+
+        measure("annotator.php", "benchmark.php", php.toString(), this::annotate);
+
+        StringBuilder twig = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            twig.append("{% include '").append(SyntheticProject.getTemplateName(i % project.getTemplateChains(), 0)).append("' %}\n");
+            twig.append("{{ path('app_route_").append(i % project.getRoutes()).append("') }}\n");
+        }
+
+        measure("annotator.twig", "benchmark.html.twig", twig.toString(), this::annotate);
+    }
+
+    /**
+     * Line markers of the deepest template of a chain, block markers need to visit every parent
+     */
+    private void benchmarkLineMarker() {
+        String templateName = SyntheticProject.getTemplateName(0, project.getTemplateDepth() - 1);
+        StringBuilder template = new StringBuilder("{% extends '" + templateName + "' %}\n");
+        for (int i = 0; i < project.getTemplateDepth(); i++) {
+            template.append("{% block block_").append(i).append(" %}{% endblock %}\n");
+        }
+
+        measure("linemarker.twig", "benchmark.html.twig", template.toString(), this::collectLineMarkers);
+
+        StringBuilder php = new StringBuilder("<?php\nnamespace AppBundle\\Service;\n\n");
+        for (int i = 0; i < Math.min(100, project.getServices()); i++) {
+            php.append("class BenchmarkService").append(i).append(" extends Service").append(i).append(" {}\n");
+        }
+
+        measure("linemarker.php", "BenchmarkServices.php", php.toString(), this::collectLineMarkers);
+
+        // service classes itself are targets of service definitions
+        PsiFile servicesFile = PsiManager.getInstance(getProject()).findFile(myFixture.findFileInTempDir("src/AppBundle/Service/Services0.php"));
+        assertNotNull(servicesFile);
+
+        List<Long> timings = new ArrayList<>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.currentTimeMillis();
+            collectLineMarkers(servicesFile);
+            timings.add(System.currentTimeMillis() - start);
+        }
+
+        report.add("linemarker.serviceClass", timings);
+    }
+
+    private void measure(@NotNull String name, @NotNull String fileName, @NotNull String content, @NotNull PsiFileAction action) {
+        List<Long> timings = new ArrayList<>();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            PsiFile psiFile = myFixture.configureByText(fileName, content);
+
+            long start = System.currentTimeMillis();
+            action.run(psiFile);
+            timings.add(System.currentTimeMillis() - start);
+        }
+
+        report.add(name, timings);
+    }
+
+    private void annotate(@NotNull PsiFile psiFile) {
+        AnnotationHolderImpl annotations = new AnnotationHolderImpl(new AnnotationSession(psiFile));
+        List<Annotator> annotators = LanguageAnnotators.INSTANCE.allForLanguage(psiFile.getLanguage());
+
+        for (PsiElement psiElement : collectElements(psiFile)) {
+            for (Annotator annotator : annotators) {
+                annotator.annotate(psiElement, annotations);
+            }
+        }
+    }
+
+    private void collectLineMarkers(@NotNull PsiFile psiFile) {
+        List<PsiElement> elements = collectElements(psiFile);
+
+        for (LineMarkerProvider lineMarkerProvider : LineMarkerProviders.INSTANCE.allForLanguage(psiFile.getLanguage())) {
+            Collection<LineMarkerInfo> lineMarkerInfos = new ArrayList<>();
+            lineMarkerProvider.collectSlowLineMarkers(elements, lineMarkerInfos);
+        }
+    }
+
+    @NotNull
+    private static List<PsiElement> collectElements(@NotNull PsiFile psiFile) {
+        List<PsiElement> elements = new ArrayList<>();
+        elements.add(psiFile);
+
+        psiFile.acceptChildren(new PsiRecursiveElementVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                elements.add(element);
+                super.visitElement(element);
+            }
+        });
+
+        return elements;
+    }
+
+    @NotNull
+    private static List<Long> single(long start) {
+        List<Long> timings = new ArrayList<>();
+        timings.add(System.currentTimeMillis() - start);
+        return timings;
+    }
+
+    private interface PsiFileAction {
+        void run(@NotNull PsiFile psiFile);
+    }
+}
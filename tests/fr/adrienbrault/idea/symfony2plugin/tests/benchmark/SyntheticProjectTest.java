@@ -0,0 +1,96 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.benchmark;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see SyntheticProject
+ */
+public class SyntheticProjectTest extends Assert {
+
+    @Test
+    public void testConfiguredCountsAreGenerated() {
+        Map<String, String> files = new SyntheticProject()
+            .setServices(250)
+            .setRoutes(150)
+            .setTemplates(3, 4)
+            .setTranslations(2, 10)
+            .setEntities(5)
+            .setBundles(4)
+            .generate();
+
+        // 125 services each in 2 yaml and 2 xml files
+        assertEquals(250, countOccurrences(files, ".yml", "class: AppBundle\\Service\\Service") + countOccurrences(files, ".xml", "<service id="));
+        assertTrue(files.get("src/AppBundle/Resources/config/services_1.yml").contains("app.yml_service_124:"));
+        assertTrue(files.get("src/AppBundle/Resources/config/services_1.xml").contains("id=\"app.xml_service_124\""));
+        assertFalse(files.containsKey("src/AppBundle/Resources/config/services_2.yml"));
+
+        assertEquals(150, countOccurrences(files, ".yml", "    path: /app/"));
+
+        // template chains and one template per bundle
+        assertEquals(12 + 4, countFiles(files, ".html.twig"));
+        assertEquals(2 * 2, countFiles(files, "/translations/"));
+        assertEquals(5, countFiles(files, "/Entity/"));
+        assertEquals(3, countFiles(files, ".orm.yml"));
+
+        assertTrue(files.containsKey("src/Acme/Foo0Bundle/Foo0Bundle.php"));
+        assertTrue(files.containsKey("vendor/acme/foo3-bundle/Foo3Bundle/Resources/views/Default/index.html.twig"));
+        assertEquals(4, countFiles(files, "/Resources/views/Default/"));
+    }
+
+    @Test
+    public void testTemplatesExtendTheirPredecessor() {
+        Map<String, String> files = new SyntheticProject().setTemplates(2, 3).generate();
+
+        String layout = files.get("app/Resources/views/" + SyntheticProject.getTemplateName(0, 0));
+        assertFalse(layout.contains("extends"));
+
+        String deepest = files.get("app/Resources/views/" + SyntheticProject.getTemplateName(1, 2));
+        assertTrue(deepest.startsWith("{% extends 'template_1_1.html.twig' %}"));
+        assertTrue(deepest.contains("{% block block_2 %}"));
+        assertTrue(deepest.contains("{% include 'template_0_0.html.twig' %}"));
+    }
+
+    @Test
+    public void testScaleMultipliesCounts() {
+        SyntheticProject project = new SyntheticProject().setServices(100).setRoutes(10).scale(2.5);
+
+        assertEquals(250, project.getServices());
+        assertEquals(25, project.getRoutes());
+
+        // optional elements stay disabled
+        assertEquals(0, project.getBundles());
+
+        // depth is a shape, not a size
+        assertEquals(10, project.getTemplateDepth());
+    }
+
+    private static int countFiles(Map<String, String> files, String path) {
+        int count = 0;
+        for (String file : files.keySet()) {
+            if(file.contains(path)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static int countOccurrences(Map<String, String> files, String extension, String needle) {
+        int count = 0;
+        for (Map.Entry<String, String> entry : files.entrySet()) {
+            if(!entry.getKey().endsWith(extension)) {
+                continue;
+            }
+
+            for (int i = entry.getValue().indexOf(needle); i >= 0; i = entry.getValue().indexOf(needle, i + 1)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
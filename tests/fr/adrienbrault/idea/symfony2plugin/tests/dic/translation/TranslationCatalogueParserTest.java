@@ -0,0 +1,89 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.dic.translation;
+
+import fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationCatalogueParser;
+import fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationStringMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * @see fr.adrienbrault.idea.symfony2plugin.translation.parser.TranslationCatalogueParser
+ */
+public class TranslationCatalogueParserTest extends Assert {
+
+    @Test
+    public void testParseCatalogueFile() throws IOException {
+        File testFile = new File(this.getClass().getResource("translations/catalogue.de.php").getFile());
+        TranslationStringMap map = TranslationCatalogueParser.parse(new String(Files.readAllBytes(testFile.toPath()), StandardCharsets.UTF_8));
+
+        assertTrue(map.getDomainList().contains("validators"));
+        assertTrue(map.getDomainList().contains("FOSUserBundle"));
+        assertFalse(map.getDomainList().contains("NotInList"));
+
+        assertTrue(map.getDomainMap("validators").contains("This value should be false."));
+        assertTrue(map.getDomainMap("validators").contains("foo.escape"));
+        assertTrue(map.getDomainMap("validators").contains("foo.bar"));
+        assertTrue(map.getDomainMap("validators").contains("foo.baz"));
+        assertTrue(map.getDomainMap("FOSUserBundle").contains("registration.email.message"));
+
+        // translation values must not be taken as keys
+        assertFalse(map.getDomainMap("validators").contains("Dieser Wert sollte false sein."));
+        assertFalse(map.getDomainList().contains("de"));
+    }
+
+    @Test
+    public void testParseEscapingAndShortArraySyntax() {
+        TranslationStringMap map = TranslationCatalogueParser.parse("<?php\n" +
+            "// new MessageCatalogue('en', array('comment' => array('foo' => 'bar')))\n" +
+            "$catalogue = new \\Symfony\\Component\\Translation\\MessageCatalogue('de', [\n" +
+            "  'messages' => [\n" +
+            "    'it\\'s' => 'value with ) and ]',\n" +
+            "    \"double\\\"quote\" => \"foo\",\n" +
+            "    # 'commented' => 'foo',\n" +
+            "    'nested' => array('not' => 'a key'),\n" +
+            "    'after.nested' => 'foo',\n" +
+            "  ],\n" +
+            "  'empty' => array(),\n" +
+            "]);\n" +
+            "$catalogueEn = new MessageCatalogue('en', array (\n" +
+            "  'fallback' => array ('fallback.key' => 'foo'),\n" +
+            "));\n" +
+            "$catalogue->addFallbackCatalogue($catalogueEn);\n"
+        );
+
+        // keys are raw literal contents
+        assertTrue(map.getDomainMap("messages").contains("it\\'s"));
+        assertTrue(map.getDomainMap("messages").contains("double\\\"quote"));
+        assertTrue(map.getDomainMap("messages").contains("nested"));
+        assertTrue(map.getDomainMap("messages").contains("after.nested"));
+        assertFalse(map.getDomainMap("messages").contains("not"));
+        assertFalse(map.getDomainMap("messages").contains("commented"));
+
+        assertNotNull(map.getDomainMap("empty"));
+        assertTrue(map.getDomainMap("empty").isEmpty());
+
+        assertTrue(map.getDomainMap("fallback").contains("fallback.key"));
+        assertNull(map.getDomainMap("comment"));
+    }
+
+    @Test
+    public void testEscapedKeysAreKeptAsLiteralContents() {
+        TranslationStringMap map = TranslationCatalogueParser.parse("<?php\n" +
+            "$catalogue = new MessageCatalogue('de', array (\n" +
+            "  'messages' => array (\n" +
+            "    'don\\'t' => 'foo',\n" +
+            "    'back\\\\slash' => 'foo',\n" +
+            "  ),\n" +
+            "));\n"
+        );
+
+        assertTrue(map.getDomainMap("messages").contains("don\\'t"));
+        assertTrue(map.getDomainMap("messages").contains("back\\\\slash"));
+        assertFalse(map.getDomainMap("messages").contains("don't"));
+        assertFalse(map.getDomainMap("messages").contains("back\\slash"));
+    }
+}
@@ -0,0 +1,94 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.doctrine;
+
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.DoctrineModelRegistry;
+import fr.adrienbrault.idea.symfony2plugin.doctrine.dict.DoctrineModelField;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import fr.adrienbrault.idea.symfony2plugin.util.PhpElementsUtil;
+import fr.adrienbrault.idea.symfony2plugin.util.dict.DoctrineModel;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.doctrine.DoctrineModelRegistry
+ */
+public class DoctrineModelRegistryTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+        myFixture.copyFileToProject("entity_helper.php");
+        myFixture.copyFileToProject("doctrine.orm.yml");
+        myFixture.copyFileToProject("Car.Bar.orm.yml");
+    }
+
+    public String getTestDataPath() {
+        return new File(this.getClass().getResource("fixtures").getFile()).getAbsolutePath();
+    }
+
+    public void testModelsAreKeyedByClassName() {
+        DoctrineModelRegistry registry = DoctrineModelRegistry.getInstance(getProject());
+
+        Collection<DoctrineModel> models = registry.getModels("\\FooBundle\\CouchDocument\\Couch");
+        assertEquals(1, models.size());
+        assertEquals("FooBundle:Couch", models.iterator().next().getRepositoryName());
+
+        assertEquals(models, registry.getModels("FooBundle\\CouchDocument\\Couch"));
+        assertEmpty(registry.getModels("FooBundle\\Entity\\BarRepository"));
+    }
+
+    public void testClassNameFallbackIsOnlyAddedForUnknownClasses() {
+        DoctrineModelRegistry registry = DoctrineModelRegistry.getInstance(getProject());
+
+        Collection<DoctrineModel> models = registry.getModels("FooBundle\\Entity\\Yaml");
+        assertEquals(1, models.size());
+        assertEquals("FooBundle\\Entity\\Yaml", models.iterator().next().getRepositoryName());
+    }
+
+    public void testModelByShortcutName() {
+        DoctrineModelRegistry registry = DoctrineModelRegistry.getInstance(getProject());
+
+        assertEquals("FooBundle\\CouchDocument\\Couch", registry.getModel("FooBundle:Couch").getPhpClass().getPresentableFQN());
+        assertEquals("FooBundle\\Entity\\Yaml", registry.getModel("FooBundle\\Entity\\Yaml").getPhpClass().getPresentableFQN());
+        assertNull(registry.getModel("FooBundle:Unknown"));
+    }
+
+    public void testRepositoryClassIsMemoizedPerModel() {
+        DoctrineModelRegistry registry = DoctrineModelRegistry.getInstance(getProject());
+
+        PhpClass repositoryClass = registry.getRepositoryClass("FooBundle:Bar");
+        assertEquals("FooBundle\\BarRepository", repositoryClass.getPresentableFQN());
+
+        assertSame(repositoryClass, registry.getRepositoryClass("\\FooBundle\\Entity\\Bar"));
+        assertNull(registry.getRepositoryClass("FooBundle:Unknown"));
+    }
+
+    public void testModelFieldsAndRelations() {
+        DoctrineModelRegistry registry = DoctrineModelRegistry.getInstance(getProject());
+        PhpClass phpClass = PhpElementsUtil.getClass(getProject(), "FooBundle\\Entity\\Car\\Bar");
+
+        Collection<DoctrineModelField> fields = registry.getModelFields(phpClass);
+        assertEquals(2, fields.size());
+        assertSame(fields, registry.getModelFields(phpClass));
+
+        Collection<DoctrineModelField> relations = registry.getModelRelations(phpClass);
+        assertEquals(1, relations.size());
+
+        DoctrineModelField relation = relations.iterator().next();
+        assertEquals("bar", relation.getName());
+        assertEquals("manyToOne", relation.getRelationType());
+        assertEquals("\\FooBundle\\Entity\\Bar", relation.getRelation());
+    }
+
+    public void testRegistryIsRebuildOnStructureChange() {
+        DoctrineModelRegistry registry = DoctrineModelRegistry.getInstance(getProject());
+        assertSame(registry, DoctrineModelRegistry.getInstance(getProject()));
+
+        myFixture.configureByText("Bike.php", "<?php\nnamespace FooBundle\\CouchDocument;\nclass Bike {}");
+
+        DoctrineModelRegistry changed = DoctrineModelRegistry.getInstance(getProject());
+        assertNotSame(registry, changed);
+        assertNotNull(changed.getModel("FooBundle:Bike"));
+    }
+}
@@ -0,0 +1,53 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.metrics;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricStatistics;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricsJsonExporter;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.metrics.MetricsJsonExporter
+ */
+public class MetricsJsonExporterTest extends Assert {
+
+    @Test
+    public void testSnapshotContainsMetricsAndCaches() {
+        String json = MetricsJsonExporter.toJson(
+            "foo",
+            Arrays.asList(
+                new MetricStatistics("TwigHelper.getTemplateMap", 4, 3000000, 2500000, 3, 1),
+                new MetricStatistics("index.RoutesStubIndex", 2, 1000000, 600000, 0, 0)
+            ),
+            Collections.singletonList(new CacheStatistics("TranslationIndex.TRANSLATIONS", 1, 0, 10, 100, 5, 0, 1, 0))
+        );
+
+        JsonObject jsonObject = new JsonParser().parse(json).getAsJsonObject();
+        assertEquals("foo", jsonObject.get("project").getAsString());
+
+        JsonArray metrics = jsonObject.getAsJsonArray("metrics");
+        assertEquals(2, metrics.size());
+
+        JsonObject templateMap = metrics.get(0).getAsJsonObject();
+        assertEquals("TwigHelper.getTemplateMap", templateMap.get("name").getAsString());
+        assertEquals(4, templateMap.get("calls").getAsLong());
+        assertEquals(3.0, templateMap.get("totalMs").getAsDouble(), 0.0001);
+        assertEquals(2.5, templateMap.get("maxMs").getAsDouble(), 0.0001);
+        assertEquals(0.75, templateMap.get("hitRatio").getAsDouble(), 0.0001);
+
+        // no lookups, no cache ratio
+        assertFalse(metrics.get(1).getAsJsonObject().has("hitRatio"));
+
+        JsonObject cache = jsonObject.getAsJsonArray("caches").get(0).getAsJsonObject();
+        assertEquals("TranslationIndex.TRANSLATIONS", cache.get("name").getAsString());
+        assertEquals(5, cache.get("hits").getAsLong());
+        assertEquals(1, cache.get("misses").getAsLong());
+    }
+}
@@ -0,0 +1,151 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.metrics;
+
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricStatistics;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricsClock;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricsRegistry;
+import fr.adrienbrault.idea.symfony2plugin.metrics.MetricsSample;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.metrics.MetricsRegistry
+ */
+public class MetricsRegistryTest extends Assert {
+
+    @Test
+    public void testCallsCumulativeAndMaxTime() {
+        FakeClock clock = new FakeClock();
+        MetricsRegistry registry = new MetricsRegistry(clock);
+
+        MetricsSample sample = registry.start("foo");
+        clock.advance(30);
+        sample.stop();
+
+        sample = registry.start("foo");
+        clock.advance(10);
+        sample.stop();
+
+        MetricStatistics statistics = getStatistics(registry, "foo");
+        assertEquals(2, statistics.getCalls());
+        assertEquals(40, statistics.getTotalNanos());
+        assertEquals(30, statistics.getMaxNanos());
+        assertEquals(20, statistics.getAverageNanos());
+        assertEquals(0, statistics.getHits());
+        assertEquals(0, statistics.getMisses());
+        assertEquals(-1, statistics.getHitRatio(), 0);
+    }
+
+    @Test
+    public void testLookupCountsHitsAndMisses() {
+        FakeClock clock = new FakeClock();
+        MetricsRegistry registry = new MetricsRegistry(clock);
+
+        MetricsSample sample = registry.startLookup("cache");
+        sample.miss();
+        clock.advance(100);
+        sample.stop();
+
+        for (int i = 0; i < 3; i++) {
+            sample = registry.startLookup("cache");
+            clock.advance(1);
+            sample.stop();
+        }
+
+        MetricStatistics statistics = getStatistics(registry, "cache");
+        assertEquals(4, statistics.getCalls());
+        assertEquals(103, statistics.getTotalNanos());
+        assertEquals(100, statistics.getMaxNanos());
+        assertEquals(3, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(0.75, statistics.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void testSampleIsOnlyRecordedOnce() {
+        FakeClock clock = new FakeClock();
+        MetricsRegistry registry = new MetricsRegistry(clock);
+
+        MetricsSample sample = registry.start("foo");
+        clock.advance(5);
+        sample.stop();
+        clock.advance(5);
+        sample.stop();
+
+        assertEquals(1, getStatistics(registry, "foo").getCalls());
+        assertEquals(5, getStatistics(registry, "foo").getTotalNanos());
+    }
+
+    @Test
+    public void testStatisticsAreOrderedByCumulativeTime() {
+        FakeClock clock = new FakeClock();
+        MetricsRegistry registry = new MetricsRegistry(clock);
+
+        for (String name : new String[] {"fast", "slow", "medium"}) {
+            MetricsSample sample = registry.start(name);
+            clock.advance(name.length());
+            sample.stop();
+        }
+
+        List<MetricStatistics> statistics = registry.getStatistics();
+        assertEquals("medium", statistics.get(0).getName());
+        assertEquals("fast", statistics.get(1).getName());
+        assertEquals("slow", statistics.get(2).getName());
+
+        registry.reset();
+        assertEquals(0, registry.getStatistics().size());
+    }
+
+    @Test
+    public void testComputedValueIsMissOfRunningLookupsOnly() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        MetricsSample outer = registry.startLookup("outer");
+        MetricsSample inner = registry.startLookup("inner");
+        MetricsSample.computed();
+        inner.stop();
+
+        // provider of a cached value is not called again on a hit
+        MetricsSample hit = registry.startLookup("hit");
+        hit.stop();
+        outer.stop();
+
+        assertEquals(1, getStatistics(registry, "inner").getMisses());
+        assertEquals(1, getStatistics(registry, "outer").getMisses());
+        assertEquals(0, getStatistics(registry, "hit").getMisses());
+        assertEquals(1, getStatistics(registry, "hit").getHits());
+    }
+
+    @Test
+    public void testNoopSampleDoesNotRecord() {
+        MetricsSample.NOOP.miss();
+        MetricsSample.NOOP.stop();
+        MetricsSample.NOOP.stop();
+    }
+
+    private static MetricStatistics getStatistics(MetricsRegistry registry, String name) {
+        for (MetricStatistics statistics : registry.getStatistics()) {
+            if(statistics.getName().equals(name)) {
+                return statistics;
+            }
+        }
+
+        fail("metric not found: " + name);
+        return null;
+    }
+
+    private static class FakeClock implements MetricsClock {
+        private long nanos = 1000;
+
+        void advance(long nanos) {
+            this.nanos += nanos;
+        }
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+    }
+}
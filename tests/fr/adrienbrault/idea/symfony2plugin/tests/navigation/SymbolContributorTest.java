@@ -0,0 +1,104 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.navigation;
+
+import com.intellij.navigation.ChooseByNameContributorEx;
+import com.intellij.navigation.NavigationItem;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FindSymbolParameters;
+import fr.adrienbrault.idea.symfony2plugin.navigation.RouteSymbolContributor;
+import fr.adrienbrault.idea.symfony2plugin.navigation.ServiceSymbolContributor;
+import fr.adrienbrault.idea.symfony2plugin.navigation.TemplateFileContributor;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.navigation.RouteSymbolContributor
+ * @see fr.adrienbrault.idea.symfony2plugin.navigation.ServiceSymbolContributor
+ * @see fr.adrienbrault.idea.symfony2plugin.navigation.TemplateFileContributor
+ */
+public class SymbolContributorTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.addFileToProject("src/AppBundle/Controller/SymbolController.php", "<?php\n" +
+            "namespace AppBundle\\Controller;\n" +
+            "class SymbolController { public function indexAction() {} }\n"
+        );
+
+        myFixture.addFileToProject("src/AppBundle/Resources/config/routing.yml", "" +
+            "symbol_route:\n" +
+            "    path: /symbol\n" +
+            "    defaults: { _controller: 'AppBundle\\Controller\\SymbolController::indexAction' }\n"
+        );
+
+        myFixture.addFileToProject("src/AppBundle/Resources/config/services.yml", "" +
+            "services:\n" +
+            "    symbol_service:\n" +
+            "        class: AppBundle\\Controller\\SymbolController\n"
+        );
+
+        myFixture.addFileToProject("app/Resources/views/symbol.html.twig", "{% block content %}{% endblock %}");
+    }
+
+    public void testRouteNamesAreStreamedAndResolved() {
+        RouteSymbolContributor contributor = new RouteSymbolContributor();
+
+        assertContainsElements(processNames(contributor), "symbol_route");
+
+        Collection<NavigationItem> items = processElements(contributor, "symbol_route");
+        assertEquals(1, items.size());
+        assertEquals("symbol_route", items.iterator().next().getName());
+
+        assertEmpty(processElements(contributor, "unknown_route"));
+    }
+
+    public void testServiceNamesAreStreamedAndResolved() {
+        ServiceSymbolContributor contributor = new ServiceSymbolContributor();
+
+        assertContainsElements(processNames(contributor), "symbol_service");
+
+        Collection<NavigationItem> items = processElements(contributor, "symbol_service");
+        assertEquals(1, items.size());
+        assertEquals("symbol_service", items.iterator().next().getName());
+
+        assertEmpty(processElements(contributor, "unknown_service"));
+    }
+
+    public void testTemplateNamesAreStreamedAndResolved() {
+        if(System.getenv("PHPSTORM_ENV") != null) return;
+
+        TemplateFileContributor contributor = new TemplateFileContributor();
+
+        String templateName = ContainerUtil.find(processNames(contributor), name -> name.endsWith("symbol.html.twig"));
+        assertNotNull(templateName);
+
+        assertEquals(1, processElements(contributor, templateName).size());
+        assertEmpty(processElements(contributor, "unknown.html.twig"));
+    }
+
+    public void testNameProcessingCanBeStopped() {
+        CommonProcessors.FindFirstProcessor<String> processor = new CommonProcessors.FindFirstProcessor<>();
+        new ServiceSymbolContributor().processNames(processor, GlobalSearchScope.allScope(getProject()), null);
+
+        assertTrue(processor.isFound());
+    }
+
+    @NotNull
+    private Collection<String> processNames(@NotNull ChooseByNameContributorEx contributor) {
+        CommonProcessors.CollectUniquesProcessor<String> processor = new CommonProcessors.CollectUniquesProcessor<>();
+        contributor.processNames(processor, GlobalSearchScope.allScope(getProject()), null);
+        return processor.getResults();
+    }
+
+    @NotNull
+    private Collection<NavigationItem> processElements(@NotNull ChooseByNameContributorEx contributor, @NotNull String name) {
+        CommonProcessors.CollectProcessor<NavigationItem> processor = new CommonProcessors.CollectProcessor<>();
+        contributor.processElementsWithName(name, processor, new FindSymbolParameters(name, name, GlobalSearchScope.allScope(getProject()), null));
+        return processor.getResults();
+    }
+}
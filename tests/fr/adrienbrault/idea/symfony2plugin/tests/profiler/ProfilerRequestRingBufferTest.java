@@ -0,0 +1,92 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.profiler;
+
+import fr.adrienbrault.idea.symfony2plugin.profiler.ProfilerRequestRingBuffer;
+import fr.adrienbrault.idea.symfony2plugin.profiler.dict.LocalProfilerRequest;
+import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.profiler.ProfilerRequestRingBuffer
+ */
+public class ProfilerRequestRingBufferTest extends Assert {
+
+    @Test
+    public void testRequestsAreNewestFirstAndUnique() {
+        ProfilerRequestRingBuffer buffer = new ProfilerRequestRingBuffer(10);
+
+        assertEquals(2, buffer.addAll(createRequests("b", "a")));
+        assertEquals(1, buffer.addAll(createRequests("c", "b", "a")));
+        assertEquals(0, buffer.addAll(createRequests("c", "b")));
+
+        assertEquals(Arrays.asList("c", "b", "a"), getHashes(buffer));
+    }
+
+    @Test
+    public void testOldestRequestsAreDropped() {
+        ProfilerRequestRingBuffer buffer = new ProfilerRequestRingBuffer(3);
+
+        buffer.addAll(createRequests("c", "b", "a"));
+        assertEquals(2, buffer.addAll(createRequests("e", "d", "c")));
+
+        assertEquals(Arrays.asList("e", "d", "c"), getHashes(buffer));
+    }
+
+    @Test
+    public void testRereadRequestReplacesKnownToken() {
+        ProfilerRequestRingBuffer buffer = new ProfilerRequestRingBuffer(3);
+
+        List<ProfilerRequestInterface> partial = createRequests("b", "a");
+        buffer.addAll(partial);
+
+        List<ProfilerRequestInterface> same = new ArrayList<>(partial);
+        assertEquals(0, buffer.addAll(same));
+        assertSame(partial.get(1), buffer.getRequests().get(1));
+
+        List<ProfilerRequestInterface> reread = createRequests("c", "b", "a");
+        assertEquals(1, buffer.addAll(reread));
+
+        assertEquals(Arrays.asList("c", "b", "a"), getHashes(buffer));
+        assertSame(reread.get(1), buffer.getRequests().get(1));
+        assertSame(reread.get(2), buffer.getRequests().get(2));
+    }
+
+    @Test
+    public void testSnapshotIsNotChangedByLaterUpdates() {
+        ProfilerRequestRingBuffer buffer = new ProfilerRequestRingBuffer(3);
+
+        buffer.addAll(createRequests("a"));
+        List<ProfilerRequestInterface> snapshot = buffer.getRequests();
+
+        buffer.addAll(createRequests("b"));
+        buffer.clear();
+
+        assertEquals(1, snapshot.size());
+        assertEquals(0, buffer.getRequests().size());
+    }
+
+    private static List<ProfilerRequestInterface> createRequests(String... hashes) {
+        List<ProfilerRequestInterface> requests = new ArrayList<>();
+
+        for (String hash : hashes) {
+            requests.add(new LocalProfilerRequest((hash + ",127.0.0.1,GET,http://127.0.0.1:8000/" + hash).split(",")));
+        }
+
+        return requests;
+    }
+
+    private static List<String> getHashes(ProfilerRequestRingBuffer buffer) {
+        List<String> hashes = new ArrayList<>();
+
+        for (ProfilerRequestInterface request : buffer.getRequests()) {
+            hashes.add(request.getHash());
+        }
+
+        return hashes;
+    }
+}
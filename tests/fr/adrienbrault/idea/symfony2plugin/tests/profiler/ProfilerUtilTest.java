@@ -9,7 +9,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,7 +33,7 @@ public class ProfilerUtilTest extends SymfonyLightCodeInsightFixtureTestCase {
      */
     public void testCreateRequestsFromIndexHtml() {
         PsiFile psiFile = myFixture.configureByFile("profiler-index.html");
-        Collection<ProfilerRequestInterface> requests = ProfilerUtil.createRequestsFromIndexHtml(getProject(), psiFile.getText(), "http://127.0.0.1:8000/");
+        Collection<ProfilerRequestInterface> requests = ProfilerUtil.createRequestsFromIndexHtml(psiFile.getText(), "http://127.0.0.1:8000/");
 
         ProfilerRequestInterface request = requests.iterator().next();
 
@@ -47,7 +49,7 @@ public class ProfilerUtilTest extends SymfonyLightCodeInsightFixtureTestCase {
      */
     public void testGetRequestValues() {
         PsiFile psiFile = myFixture.configureByFile("profiler-request.html");
-        Map<String, String> requests = ProfilerUtil.getRequestAttributes(getProject(), psiFile.getText());
+        Map<String, String> requests = ProfilerUtil.getRequestAttributes(psiFile.getText());
 
         assertEquals("my.controller:latestAction", requests.get("_controller"));
         assertEquals("foo_route", requests.get("_route"));
@@ -58,12 +60,77 @@ public class ProfilerUtilTest extends SymfonyLightCodeInsightFixtureTestCase {
      */
     public void testGetRenderedElementTwigTemplates() {
         PsiFile psiFile = myFixture.configureByFile("profiler-twig.html");
-        Map<String, Integer> requests = ProfilerUtil.getRenderedElementTwigTemplates(getProject(), psiFile.getText());
+        Map<String, Integer> requests = ProfilerUtil.getRenderedElementTwigTemplates(psiFile.getText());
 
         assertEquals(16, requests.get("@Twig/Exception/trace.html.twig").intValue());
         assertEquals(1, requests.get("@Twig/Exception/traces.html.twig").intValue());
     }
 
+    /**
+     * @see ProfilerUtil#createRequestsFromIndexHtml
+     */
+    public void testCreateRequestsFromIndexHtmlForSymfonyVersions() {
+        PsiFile psiFile = myFixture.configureByFile("profiler-index-2.8.html");
+        List<ProfilerRequestInterface> requests = new ArrayList<>(ProfilerUtil.createRequestsFromIndexHtml(psiFile.getText(), "http://127.0.0.1:8000/"));
+
+        assertEquals(2, requests.size());
+        assertEquals("3c1b2e", requests.get(0).getHash());
+        assertEquals("POST", requests.get(0).getMethod());
+        assertEquals("http://127.0.0.1:8000/app_dev.php/login_check", requests.get(0).getUrl());
+        assertEquals("http://127.0.0.1:8000/app_dev.php/_profiler/3c1b2e", requests.get(0).getProfilerUrl());
+        assertEquals(0, requests.get(0).getStatusCode());
+        assertEquals("8aa4e1", requests.get(1).getHash());
+
+        psiFile = myFixture.configureByFile("profiler-index-4.x.html");
+        requests = new ArrayList<>(ProfilerUtil.createRequestsFromIndexHtml(psiFile.getText(), "http://127.0.0.1:8000"));
+
+        assertEquals(2, requests.size());
+        assertEquals("f0c2a9", requests.get(0).getHash());
+        assertEquals("GET", requests.get(0).getMethod());
+        assertEquals("http://127.0.0.1:8000/en/blog/posts/hello", requests.get(0).getUrl());
+        assertEquals("http://127.0.0.1:8000/_profiler/f0c2a9", requests.get(0).getProfilerUrl());
+        assertEquals(200, requests.get(0).getStatusCode());
+
+        assertEquals("91d3e7", requests.get(1).getHash());
+        assertEquals("POST", requests.get(1).getMethod());
+        assertEquals(500, requests.get(1).getStatusCode());
+    }
+
+    /**
+     * @see ProfilerUtil#getRequestAttributes
+     */
+    public void testGetRequestValuesForSymfonyVersions() {
+        Map<String, String> requests = ProfilerUtil.getRequestAttributes(myFixture.configureByFile("profiler-request-2.8.html").getText());
+        assertEquals("AppBundle\\Controller\\DefaultController::indexAction", requests.get("_controller"));
+        assertEquals("homepage", requests.get("_route"));
+
+        requests = ProfilerUtil.getRequestAttributes(myFixture.configureByFile("profiler-request-3.x.html").getText());
+        assertEquals("AppBundle\\Controller\\BlogController::showAction", requests.get("_controller"));
+        assertEquals("blog_post", requests.get("_route"));
+
+        requests = ProfilerUtil.getRequestAttributes(myFixture.configureByFile("profiler-request-4.x.html").getText());
+        assertEquals("App\\Controller\\BlogController::postShow", requests.get("_controller"));
+        assertEquals("blog_post", requests.get("_route"));
+    }
+
+    /**
+     * @see ProfilerUtil#getRenderedElementTwigTemplates
+     */
+    public void testGetRenderedElementTwigTemplatesForSymfonyVersions() {
+        Map<String, Integer> templates = ProfilerUtil.getRenderedElementTwigTemplates(myFixture.configureByFile("profiler-twig-2.8.html").getText());
+        assertEquals("default/index.html.twig", templates.keySet().iterator().next());
+        assertEquals(3, templates.size());
+
+        templates = ProfilerUtil.getRenderedElementTwigTemplates(myFixture.configureByFile("profiler-twig-3.x.html").getText());
+        assertEquals("blog/show.html.twig", templates.keySet().iterator().next());
+        assertEquals(3, templates.get("blog/_comment_form.html.twig").intValue());
+
+        templates = ProfilerUtil.getRenderedElementTwigTemplates(myFixture.configureByFile("profiler-twig-4.x.html").getText());
+        assertEquals("blog/post_show.html.twig", templates.keySet().iterator().next());
+        assertEquals(1, templates.get("base.html.twig").intValue());
+        assertEquals(2, templates.size());
+    }
+
     /**
      * @see ProfilerUtil#getBaseProfilerUrlFromRequest
      */
@@ -0,0 +1,144 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.profiler.reader;
+
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.LocalDefaultDataCollector;
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.LocalMailCollector;
+import fr.adrienbrault.idea.symfony2plugin.profiler.reader.SerializedProfileScanner;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.profiler.reader.SerializedProfileScanner
+ */
+public class SerializedProfileScannerTest extends Assert {
+
+    private static final String PROFILE = "a:2:{s:7:\"request\";O:8:\"stdClass\":1:{s:10:\"attributes\";a:3:{" +
+        "s:6:\"_route\";s:11:\"caf\u00e9_route\";" +
+        "s:5:\"_fake\";s:21:\"s:11:\"_controller\";s:\";" +
+        "s:11:\"_controller\";s:27:\"Foo\\Controller::indexAction\";}}" +
+        "s:4:\"twig\";s:38:\"\"template.twig (foo/bar.html.twig)\"\";" +
+        "s:41:\"\u0000Swift_Mime_SimpleMimeEntity\u0000_body\";s:7:\"Outside\";" +
+        "s:11:\"swiftmailer\";O:67:\"Symfony\\Bundle\\SwiftmailerBundle\\DataCollector\\MessageDataCollector\":1:{" +
+        "s:41:\"\u0000Swift_Mime_SimpleMimeEntity\u0000_body\";s:5:\"Hello\";" +
+        "s:41:\"\u0000Swift_Mime_SimpleMimeEntity\u0000_body\";s:3:\"Bye\";}" +
+        "s:4:\"time\";O:57:\"Symfony\\Component\\HttpKernel\\DataCollector\\TimeDataCollector\":1:{" +
+        "s:41:\"\u0000Swift_Mime_SimpleMimeEntity\u0000_body\";s:5:\"Later\";}}";
+
+    @Test
+    public void testStringValuesAreDecodedByByteLength() {
+        LocalDefaultDataCollector collector = new LocalDefaultDataCollector(PROFILE);
+
+        assertEquals("caf\u00e9_route", collector.getRoute());
+        assertEquals("Foo\\Controller::indexAction", collector.getController());
+        assertEquals("foo/bar.html.twig", collector.getTemplate());
+    }
+
+    @Test
+    public void testMailBodiesAreCollected() {
+        LocalMailCollector collector = new LocalMailCollector(PROFILE);
+
+        assertEquals(2, collector.getMessages().size());
+        assertEquals("Hello", collector.getMessages().iterator().next().getMessage());
+    }
+
+    @Test
+    public void testPlainAndCompressedProfileFiles() throws IOException {
+        File plain = File.createTempFile("profile", "");
+        File compressed = File.createTempFile("profile", "");
+
+        try {
+            try (OutputStream outputStream = new FileOutputStream(plain)) {
+                outputStream.write(PROFILE.getBytes(StandardCharsets.UTF_8));
+            }
+
+            try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(compressed))) {
+                outputStream.write(PROFILE.getBytes(StandardCharsets.UTF_8));
+            }
+
+            for (File file : new File[] {plain, compressed}) {
+                Map<SerializedProfileScanner.Field, List<String>> values = SerializedProfileScanner.scan(file, LocalDefaultDataCollector.FIELDS);
+                LocalDefaultDataCollector collector = new LocalDefaultDataCollector(values);
+
+                assertEquals("caf\u00e9_route", collector.getRoute());
+                assertEquals("Foo\\Controller::indexAction", collector.getController());
+                assertEquals("foo/bar.html.twig", collector.getTemplate());
+            }
+        } finally {
+            plain.delete();
+            compressed.delete();
+        }
+    }
+
+    @Test
+    public void testScanningStopsWhenAllFieldsAreFound() throws IOException {
+        String profile = "s:6:\"_route\";s:3:\"foo\";s:11:\"_controller\";s:3:\"bar\";\"template.twig (foo.html.twig)\"";
+
+        // mail bodies are not part of the request fields, so they must not delay the early exit
+        Map<SerializedProfileScanner.Field, List<String>> values = SerializedProfileScanner.scan(
+            createStreamFailingAfter(profile),
+            LocalDefaultDataCollector.FIELDS,
+            null
+        );
+
+        LocalDefaultDataCollector collector = new LocalDefaultDataCollector(values);
+        assertEquals("foo", collector.getRoute());
+        assertEquals("bar", collector.getController());
+        assertEquals("foo.html.twig", collector.getTemplate());
+    }
+
+    @Test
+    public void testMailScanningIsLimitedToMessageCollectorSection() throws IOException {
+        String profile = "s:41:\"\u0000Swift_Mime_SimpleMimeEntity\u0000_body\";s:7:\"Outside\";" +
+            "O:67:\"Symfony\\Bundle\\SwiftmailerBundle\\DataCollector\\MessageDataCollector\":1:{" +
+            "s:41:\"\u0000Swift_Mime_SimpleMimeEntity\u0000_body\";s:5:\"Hello\";}" +
+            "O:57:\"Symfony\\Component\\HttpKernel\\DataCollector\\TimeDataCollector\":";
+
+        Map<SerializedProfileScanner.Field, List<String>> values = SerializedProfileScanner.scan(
+            createStreamFailingAfter(profile),
+            LocalMailCollector.FIELDS,
+            LocalMailCollector.SECTION
+        );
+
+        assertEquals(Collections.singletonList("Hello"), values.values().iterator().next());
+    }
+
+    @Test
+    public void testMailsOfProfileFileAreScannedOnDemand() throws IOException {
+        File file = File.createTempFile("profile", "");
+
+        try {
+            try (OutputStream outputStream = new FileOutputStream(file)) {
+                outputStream.write(PROFILE.getBytes(StandardCharsets.UTF_8));
+            }
+
+            LocalMailCollector collector = new LocalMailCollector(file);
+            assertEquals("Hello", collector.getMessages().iterator().next().getMessage());
+
+            file.delete();
+            assertEquals(2, collector.getMessages().size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Stream fails on any read after given content, so a test fails if scanning does not stop there
+     */
+    @NotNull
+    private static InputStream createStreamFailingAfter(@NotNull String content) {
+        return new SequenceInputStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("read after last needed byte");
+            }
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.profiler.utils;
+
+import fr.adrienbrault.idea.symfony2plugin.profiler.utils.ProfilerExecutor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.profiler.utils.ProfilerExecutor
+ */
+public class ProfilerExecutorTest extends Assert {
+
+    private ExecutorService executor;
+    private CountDownLatch hanging;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        hanging = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        hanging.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testResultsAreInTaskOrder() {
+        List<Callable<String>> tasks = Arrays.asList(
+            sleeping("foo", 50),
+            sleeping("bar", 0),
+            sleeping("baz", 20)
+        );
+
+        assertEquals(Arrays.asList("foo", "bar", "baz"), ProfilerExecutor.invokeAll(executor, tasks, 5000, () -> false));
+    }
+
+    @Test
+    public void testPartialResultOnDeadline() {
+        List<Callable<String>> tasks = Arrays.asList(
+            sleeping("foo", 0),
+            hanging(),
+            sleeping("bar", 0)
+        );
+
+        long start = System.currentTimeMillis();
+        List<String> results = ProfilerExecutor.invokeAll(executor, tasks, 300, () -> false);
+
+        assertEquals(Arrays.asList("foo", "bar"), results);
+        assertTrue(System.currentTimeMillis() - start < 3000);
+    }
+
+    @Test
+    public void testCancellation() {
+        AtomicBoolean canceled = new AtomicBoolean(false);
+
+        List<Callable<String>> tasks = new ArrayList<>();
+        tasks.add(sleeping("foo", 0));
+        tasks.add(() -> {
+            canceled.set(true);
+            hanging.await();
+            return "bar";
+        });
+
+        long start = System.currentTimeMillis();
+        List<String> results = ProfilerExecutor.invokeAll(executor, tasks, 60000, canceled::get);
+
+        assertEquals(Collections.singletonList("foo"), results);
+        assertTrue(System.currentTimeMillis() - start < 3000);
+    }
+
+    @Test
+    public void testFailingTasksAreSkipped() {
+        List<Callable<String>> tasks = Arrays.asList(
+            () -> {
+                throw new IllegalStateException();
+            },
+            sleeping("bar", 0),
+            () -> null
+        );
+
+        assertEquals(Collections.singletonList("bar"), ProfilerExecutor.invokeAll(executor, tasks, 5000, () -> false));
+    }
+
+    private static Callable<String> sleeping(String value, long millis) {
+        return () -> {
+            Thread.sleep(millis);
+            return value;
+        };
+    }
+
+    private Callable<String> hanging() {
+        return () -> {
+            hanging.await();
+            return "hanging";
+        };
+    }
+}
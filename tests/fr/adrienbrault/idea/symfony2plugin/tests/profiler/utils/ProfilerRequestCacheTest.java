@@ -0,0 +1,65 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.profiler.utils;
+
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.DefaultDataCollectorInterface;
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.ExtractedDataCollector;
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.LocalDefaultDataCollector;
+import fr.adrienbrault.idea.symfony2plugin.profiler.collector.MailCollectorInterface;
+import fr.adrienbrault.idea.symfony2plugin.profiler.dict.LocalProfilerRequest;
+import fr.adrienbrault.idea.symfony2plugin.profiler.dict.ProfilerRequestInterface;
+import fr.adrienbrault.idea.symfony2plugin.profiler.utils.ProfilerRequestCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.profiler.utils.ProfilerRequestCache
+ */
+public class ProfilerRequestCacheTest extends Assert {
+
+    @Test
+    public void testRequestsAreCachedPerSourceAndToken() {
+        ProfilerRequestInterface request = new LocalProfilerRequest("18e6b8,127.0.0.1,GET,http://127.0.0.1:8000/foobar,1474185112,76c8ab,200".split(","));
+
+        ProfilerRequestCache cache = new ProfilerRequestCache();
+        cache.put("/var/cache/dev/profiler/index.csv", "18e6b8", request);
+
+        assertSame(request, cache.getIfPresent("/var/cache/dev/profiler/index.csv", "18e6b8"));
+        assertNull(cache.getIfPresent("/var/cache/prod/profiler/index.csv", "18e6b8"));
+        assertNull(cache.getIfPresent("/var/cache/dev/profiler/index.csv", "76c8ab"));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        ProfilerRequestCache cache = new ProfilerRequestCache();
+
+        for (int i = 0; i < 500; i++) {
+            cache.put("index.csv", "token" + i, new LocalProfilerRequest(("token" + i + ",127.0.0.1,GET,http://127.0.0.1:8000/foobar").split(",")));
+        }
+
+        assertTrue(cache.size() <= 100);
+        assertNotNull(cache.getIfPresent("index.csv", "token499"));
+    }
+
+    @Test
+    public void testCacheInstancesDoNotShareRequests() {
+        ProfilerRequestCache cache = new ProfilerRequestCache();
+        cache.put("index.csv", "18e6b8", new LocalProfilerRequest("18e6b8,127.0.0.1,GET,http://127.0.0.1:8000/foobar".split(",")));
+
+        assertNotNull(cache.getIfPresent("index.csv", "18e6b8"));
+        assertNull(new ProfilerRequestCache().getIfPresent("index.csv", "18e6b8"));
+    }
+
+    @Test
+    public void testExtractedDataCollectorOnlyKeepsValues() {
+        String content = "a:1:{s:10:\"attributes\";a:2:{s:6:\"_route\";s:9:\"foo_route\";s:11:\"_controller\";s:23:\"Foo\\Controller::indexAction\";}}\"template.twig (foo/bar.html.twig)\"";
+
+        ExtractedDataCollector collector = ExtractedDataCollector.create(new LocalDefaultDataCollector(content));
+
+        assertEquals("foo_route", collector.getRoute());
+        assertEquals("foo/bar.html.twig", collector.getTemplate());
+
+        LocalProfilerRequest request = new LocalProfilerRequest("18e6b8,127.0.0.1,GET,http://127.0.0.1:8000/foobar".split(","), collector);
+        assertSame(collector, request.getCollector(DefaultDataCollectorInterface.class));
+        assertNull(request.getCollector(MailCollectorInterface.class));
+    }
+}
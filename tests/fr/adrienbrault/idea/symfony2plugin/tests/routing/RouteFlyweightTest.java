@@ -0,0 +1,93 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.routing;
+
+import fr.adrienbrault.idea.symfony2plugin.routing.Route;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Structural sharing inside a synthetic 10k route table
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.routing.Route
+ */
+public class RouteFlyweightTest extends Assert {
+
+    private static final int ROUTES = 10000;
+
+    @Test
+    public void testSyntheticRouteTableIsShared() {
+        Map<String, Route> routes = createRouteTable();
+
+        assertEquals(ROUTES, routes.size());
+
+        Route first = routes.get("route_0");
+        Route second = routes.get("route_1");
+
+        // shared empty collections
+        assertSame(first.getRequirements(), routes.get("route_2").getRequirements());
+        assertSame(Collections.emptyMap(), first.getRequirements());
+
+        // repeated strings out of parser results are interned
+        assertSame(second.getRequirements().get("id"), routes.get("route_3").getRequirements().get("id"));
+        assertSame(first.getTokens().get(0).iterator().next(), second.getTokens().get(0).iterator().next());
+        assertSame(new ArrayList<>(first.getTokens().get(0)).get(3), new ArrayList<>(second.getTokens().get(0)).get(3));
+        assertSame(first.getVariables().iterator().next(), second.getVariables().iterator().next());
+
+        assertEquals("Foo\\Bundle\\Controller\\Controller0::indexAction", first.getController());
+        assertEquals(2, first.getTokens().size());
+        assertTrue(routes.get("route_1").getVariables().contains("id"));
+    }
+
+    @Test
+    public void testTokensAreWrappedOnce() {
+        Route route = createRoute(1);
+        assertSame(route.getTokens(), route.getTokens());
+    }
+
+    @Test
+    public void testTokensAreReadOnly() {
+        Route route = createRoute(1);
+
+        try {
+            route.getTokens().get(0).add("foo");
+            fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    private static Map<String, Route> createRouteTable() {
+        Map<String, Route> routes = new HashMap<>();
+
+        for (int i = 0; i < ROUTES; i++) {
+            Route route = createRoute(i);
+            routes.put(route.getName(), route);
+        }
+
+        return routes;
+    }
+
+    /**
+     * Every string is a new instance, like they are created by a parser
+     */
+    private static Route createRoute(int i) {
+        HashSet<String> variables = new HashSet<>();
+        variables.add(new String("id"));
+
+        Map<String, String> defaults = new HashMap<>();
+        defaults.put(new String("_controller"), new String("Foo\\\\Bundle\\\\Controller\\\\Controller" + (i % 50) + "::indexAction"));
+        defaults.put(new String("_format"), new String("html"));
+
+        List<Collection<String>> tokens = new ArrayList<>();
+        tokens.add(Arrays.asList(new String("variable"), new String("/"), new String("[^/]++"), new String("id")));
+        tokens.add(Arrays.asList(new String("text"), "/foo/" + (i % 100)));
+
+        Map<String, String> requirements = new HashMap<>();
+        if(i % 2 == 1) {
+            requirements.put(new String("id"), new String("\\d+"));
+        }
+
+        return new Route("route_" + i, variables, defaults, requirements, tokens);
+    }
+}
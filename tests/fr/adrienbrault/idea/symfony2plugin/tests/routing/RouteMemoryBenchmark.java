@@ -0,0 +1,81 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.routing;
+
+import fr.adrienbrault.idea.symfony2plugin.routing.Route;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Retained heap of a synthetic 10k route table, compared with the same parser results kept as they are.
+ *
+ * Not part of the default test run, use "ant -f build-test.xml benchmark"
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.routing.Route
+ */
+public class RouteMemoryBenchmark extends Assert {
+
+    private static final int ROUTES = 10000;
+
+    @Test
+    public void testSyntheticRouteTableMemory() {
+        long before = usedMemory();
+        List<Object[]> parsed = new ArrayList<>();
+        for (int i = 0; i < ROUTES; i++) {
+            parsed.add(createParserResult(i));
+        }
+        long parsedSize = usedMemory() - before;
+
+        before = usedMemory();
+        Map<String, Route> routes = new HashMap<>();
+        for (int i = 0; i < ROUTES; i++) {
+            Route route = createRoute(createParserResult(i));
+            routes.put(route.getName(), route);
+        }
+        long routesSize = usedMemory() - before;
+
+        System.out.println(String.format("%d routes: parser results ~%d KB, routes ~%d KB (~%d bytes per route)", ROUTES, parsedSize / 1024, routesSize / 1024, routesSize / ROUTES));
+
+        // keep both tables reachable until measured
+        assertEquals(ROUTES, parsed.size());
+        assertEquals(ROUTES, routes.size());
+
+        assertTrue("routes must retain less than their parser results", routesSize < parsedSize);
+    }
+
+    /**
+     * Every string is a new instance, like they are created by a parser: name, variables, defaults, requirements, tokens
+     */
+    private static Object[] createParserResult(int i) {
+        HashSet<String> variables = new HashSet<>();
+        variables.add(new String("id"));
+
+        Map<String, String> defaults = new HashMap<>();
+        defaults.put(new String("_controller"), new String("Foo\\\\Bundle\\\\Controller\\\\Controller" + (i % 50) + "::action" + i + "Action"));
+        defaults.put(new String("_format"), new String("html"));
+
+        Map<String, String> requirements = new HashMap<>();
+        requirements.put(new String("id"), new String("\\d+"));
+
+        List<Collection<String>> tokens = new ArrayList<>();
+        tokens.add(new ArrayList<>(Arrays.asList(new String("variable"), new String("/"), new String("\\d+"), new String("id"))));
+        tokens.add(new ArrayList<>(Arrays.asList(new String("text"), "/foo/" + i)));
+
+        return new Object[] {"route_" + i, variables, defaults, requirements, tokens};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Route createRoute(Object[] parsed) {
+        return new Route((String) parsed[0], (HashSet<String>) parsed[1], (Map<String, String>) parsed[2], (Map<String, String>) parsed[3], (List<Collection<String>>) parsed[4]);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
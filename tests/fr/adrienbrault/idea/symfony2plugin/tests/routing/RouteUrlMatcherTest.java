@@ -0,0 +1,94 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.routing;
+
+import fr.adrienbrault.idea.symfony2plugin.routing.Route;
+import fr.adrienbrault.idea.symfony2plugin.routing.RouteUrlMatcher;
+import fr.adrienbrault.idea.symfony2plugin.routing.UrlGeneratorRouteParser;
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.StubIndexedRoute;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.routing.RouteUrlMatcher
+ */
+public class RouteUrlMatcherTest extends Assert {
+
+    @Test
+    public void testMatchCompiledRoutes() throws IOException {
+        File testFile = new File(this.getClass().getResource("fixtures/appTestUrlGenerator.php").getFile());
+        Map<String, Route> routes = UrlGeneratorRouteParser.parse(new String(Files.readAllBytes(testFile.toPath()), StandardCharsets.UTF_8));
+
+        RouteUrlMatcher matcher = new RouteUrlMatcher(routes.values());
+
+        assertEquals(Collections.singletonList("api_users_getInfo"), getNames(matcher.match("http://api.lol.dev/app_dev.php/api/users/getInfo?foo=bar")));
+        assertTrue(getNames(matcher.match("/en/feedback/")).contains("feedback"));
+        assertTrue(getNames(matcher.match("/en/foo-bar/")).contains("page"));
+        assertTrue(getNames(matcher.match("/api/unknown")).isEmpty());
+    }
+
+    @Test
+    public void testMatchTokensWithRequirementsAndDefaults() {
+        RouteUrlMatcher matcher = new RouteUrlMatcher(Arrays.asList(
+            createRoute("order_items", Collections.emptyMap(), Collections.singletonMap("id", "\\\\d+"),
+                token("text", "/items"),
+                token("variable", "/", "[^/]++", "id"),
+                token("text", "/api/v2/orders")
+            ),
+            createRoute("order_slug", Collections.emptyMap(), Collections.emptyMap(),
+                token("text", "/items"),
+                token("variable", "/", "[^/]++", "slug"),
+                token("text", "/api/v2/orders")
+            ),
+            createRoute("blog", Collections.singletonMap("page", "1"), Collections.emptyMap(),
+                token("variable", "/", "\\\\d+", "page"),
+                token("text", "/blog")
+            )
+        ));
+
+        assertEquals(Arrays.asList("order_items", "order_slug"), getNames(matcher.match("/api/v2/orders/123/items")));
+        assertEquals(Collections.singletonList("order_slug"), getNames(matcher.match("/api/v2/orders/abc/items")));
+
+        assertEquals(Collections.singletonList("blog"), getNames(matcher.match("/blog")));
+        assertEquals(Collections.singletonList("blog"), getNames(matcher.match("/blog/2")));
+        assertTrue(matcher.match("/blog/foo").isEmpty());
+    }
+
+    @Test
+    public void testMatchIndexedRoutesOnPath() {
+        StubIndexedRoute stubIndexedRoute = new StubIndexedRoute("hello");
+        stubIndexedRoute.setPath("/hello/{name}.{_format}");
+
+        RouteUrlMatcher matcher = new RouteUrlMatcher(Collections.singletonList(new Route(stubIndexedRoute)));
+
+        assertEquals(Collections.singletonList("hello"), getNames(matcher.match("/hello/foo.json")));
+        assertTrue(matcher.match("/hello/foo").isEmpty());
+    }
+
+    @Test
+    public void testGetPath() {
+        assertEquals("/foo", RouteUrlMatcher.getPath("http://localhost/app_dev.php/foo?bar=1#foo"));
+        assertEquals("/", RouteUrlMatcher.getPath("http://localhost"));
+        assertEquals("/", RouteUrlMatcher.getPath("/index.php"));
+        assertEquals("/foo/bar", RouteUrlMatcher.getPath("foo/bar"));
+    }
+
+    private static List<String> getNames(List<Route> routes) {
+        return routes.stream().map(Route::getName).collect(Collectors.toList());
+    }
+
+    private static Collection<String> token(String... values) {
+        return Arrays.asList(values);
+    }
+
+    @SafeVarargs
+    private static Route createRoute(String name, Map<String, String> defaults, Map<String, String> requirements, Collection<String>... tokens) {
+        return new Route(name, new HashSet<>(), defaults, requirements, Arrays.asList(tokens));
+    }
+}
@@ -0,0 +1,72 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.routing;
+
+import fr.adrienbrault.idea.symfony2plugin.routing.Route;
+import fr.adrienbrault.idea.symfony2plugin.routing.UrlGeneratorRouteParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * @see fr.adrienbrault.idea.symfony2plugin.routing.UrlGeneratorRouteParser
+ */
+public class UrlGeneratorRouteParserTest extends Assert {
+
+    @Test
+    public void testParseDeclaredRoutesField() throws IOException {
+        Map<String, Route> routes = UrlGeneratorRouteParser.parse(getFixture("appTestUrlGenerator.php"));
+
+        assertEquals("Lol\\CoreBundle\\Controller\\FeedbackController::feedbackAction", routes.get("feedback").getController());
+        assertEquals("Lol\\ApiBundle\\Controller\\UsersController::getInfoAction", routes.get("api_users_getInfo").getController());
+        assertNull(routes.get("ru__RG__page"));
+        assertNull(routes.get("_assetic_91dd2a8"));
+
+        Route page = routes.get("page");
+        assertTrue(page.getVariables().contains("alias"));
+        assertEquals(".[a-zA-Z0-9\\\\-]+", page.getRequirements().get("alias"));
+        assertEquals(3, page.getTokens().size());
+    }
+
+    @Test
+    public void testParseDeclaredRoutesInsideConstructor() throws IOException {
+        Map<String, Route> routes = UrlGeneratorRouteParser.parse(getFixture("appDevUrlGenerator-28.php"));
+
+        Route wdt = routes.get("_wdt");
+        assertEquals("web_profiler.controller.profiler:toolbarAction", wdt.getController());
+        assertEquals(1, wdt.getVariables().size());
+        assertEquals(1, wdt.getDefaults().size());
+        assertEquals(2, wdt.getTokens().size());
+        assertEquals(Arrays.asList("text", "/_wdt"), wdt.getTokens().get(1));
+        assertEquals(Arrays.asList("variable", "/", "[^/]++", "token"), wdt.getTokens().get(0));
+    }
+
+    @Test
+    public void testParseShortArraySyntaxAndUnknownValues() {
+        Map<String, Route> routes = UrlGeneratorRouteParser.parse("<?php\n" +
+            "class appDevUrlGenerator extends Symfony\\Component\\Routing\\Generator\\UrlGenerator {\n" +
+            "    private static $declaredRoutes = [\n" +
+            "        'foo' => [['id'], ['_controller' => 'Foo\\\\Bar::fooAction', 'page' => 1, 'limit' => -1, 'bar' => null], ['id' => '\\\\d+'], [['variable', '/', '\\\\d+', 'id'], ['text', '/foo']], [], []],\n" +
+            "        'bar' => array (  0 =>   array (  ),  1 =>   array (    '_controller' => 'bar:action',  ),  2 =>   array (  ),  3 =>   array (  ),  4 =>   array (  ),),\n" +
+            "    ];\n" +
+            "}\n"
+        );
+
+        Route foo = routes.get("foo");
+        assertEquals("Foo\\Bar::fooAction", foo.getController());
+        assertTrue(foo.getVariables().contains("id"));
+        assertEquals(1, foo.getDefaults().size());
+        assertEquals(2, foo.getTokens().size());
+
+        assertEquals("bar:action", routes.get("bar").getController());
+    }
+
+    private String getFixture(String file) throws IOException {
+        File testFile = new File(this.getClass().getResource("fixtures/" + file).getFile());
+        return new String(Files.readAllBytes(testFile.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.tests.stubs;
 
+import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
@@ -56,6 +57,22 @@ public class ServiceIndexUtilTest extends SymfonyLightCodeInsightFixtureTestCase
         ));
     }
 
+    public void testFindServiceDefinitionsForStringInsideYamlIsCaseSensitive() {
+        assertEmpty(ServiceIndexUtil.findServiceDefinitions(getProject(), "FOO.yml_id"));
+    }
+
+    public void testFindServiceDefinitionsFallbackOnChangedFile() {
+        myFixture.configureFromExistingVirtualFile(ymlVirtualFile);
+        WriteCommandAction.runWriteCommandAction(getProject(), () ->
+            myFixture.getEditor().getDocument().insertString(0, "# moved service definitions\n")
+        );
+
+        assertNotNull(ContainerUtil.find(
+            ServiceIndexUtil.findServiceDefinitions(getProject(), "foo.yml_id"),
+            new MyYamlKeyValueCondition("foo.yml_id")
+        ));
+    }
+
     public void testFindServiceDefinitionsForPhpClassInsideYaml() {
         assertNotNull(ContainerUtil.find(
             ServiceIndexUtil.findServiceDefinitions(PhpElementsUtil.getClass(getProject(), "My\\Foo\\Service\\Targets")),
@@ -0,0 +1,80 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes;
+
+import com.jetbrains.php.lang.PhpFileType;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ConsoleCommandStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+import java.io.File;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ConsoleCommandStubIndex
+ */
+public class ConsoleCommandStubIndexTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.copyFileToProject("console.services.yml");
+        myFixture.copyFileToProject("console.services.xml");
+    }
+
+    public String getTestDataPath() {
+        return new File(this.getClass().getResource("fixtures").getFile()).getAbsolutePath();
+    }
+
+    public void testThatSetNameInConfigureIsInIndex() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "namespace Foo;\n" +
+            "class FooCommand extends Command\n" +
+            "{\n" +
+            "   const NAME = 'foo:const';\n" +
+            "   private $name = 'foo:property';\n" +
+            "   protected function configure() {\n" +
+            "       $this->setName('foo:literal');\n" +
+            "       $this->setName(self::NAME);\n" +
+            "       $this->setName($this->name);\n" +
+            "   }\n" +
+            "}"
+        );
+
+        assertIndexContains(ConsoleCommandStubIndex.KEY, "foo:literal", "foo:const", "foo:property");
+
+        assertIndexContainsKeyWithValue(ConsoleCommandStubIndex.KEY, "foo:literal", value ->
+            "Foo\\FooCommand".equals(value.getClassName()) && value.getStartOffset() > 0 && value.getEndOffset() > value.getStartOffset()
+        );
+    }
+
+    public void testThatAbstractAndTestCommandsAreNotInIndex() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "namespace Foo\\Tests {\n" +
+            "   class FooCommand extends Command {\n" +
+            "       protected function configure() { $this->setName('foo:test'); }\n" +
+            "   }\n" +
+            "}\n" +
+            "namespace Foo {\n" +
+            "   abstract class AbstractCommand extends Command {\n" +
+            "       protected function configure() { $this->setName('foo:abstract'); }\n" +
+            "   }\n" +
+            "}"
+        );
+
+        assertIndexNotContains(ConsoleCommandStubIndex.KEY, "foo:test", "foo:abstract");
+    }
+
+    public void testThatTaggedServicesAreInIndex() {
+        assertIndexContains(ConsoleCommandStubIndex.KEY, "app:yaml", "app:yaml-id", "app:xml");
+
+        assertIndexContainsKeyWithValue(ConsoleCommandStubIndex.KEY, "app:yaml", value ->
+            "AppBundle\\Command\\YamlCommand".equals(value.getClassName())
+        );
+
+        assertIndexContainsKeyWithValue(ConsoleCommandStubIndex.KEY, "app:yaml-id", value ->
+            "AppBundle\\Command\\YamlIdCommand".equals(value.getClassName())
+        );
+
+        assertIndexContainsKeyWithValue(ConsoleCommandStubIndex.KEY, "app:xml", value ->
+            "AppBundle\\Command\\XmlCommand".equals(value.getClassName())
+        );
+    }
+}
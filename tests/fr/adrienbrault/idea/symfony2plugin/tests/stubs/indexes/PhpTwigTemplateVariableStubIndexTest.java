@@ -0,0 +1,77 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes;
+
+import com.jetbrains.php.lang.PhpFileType;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.PhpTwigTemplateVariableStubIndex;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.stubs.indexes.PhpTwigTemplateVariableStubIndex
+ */
+public class PhpTwigTemplateVariableStubIndexTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void testThatRenderArrayVariablesAreInIndex() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "class Foo\n" +
+            "{\n" +
+            "   public function foobar() {\n" +
+            "       $foo->render('foo-render.html.twig', array('date' => new \\DateTime(), 'name' => 'foo'));\n" +
+            "   }\n" +
+            "}"
+        );
+
+        assertIndexContainsKeyWithValue(PhpTwigTemplateVariableStubIndex.KEY, "foo-render.html.twig", value ->
+            value.getScopes().contains("Foo.foobar") &&
+            value.getVariables().containsKey("name") &&
+            value.getVariables().containsKey("date") &&
+            value.getVariables().get("date").getTypes().contains("\\DateTime") &&
+            value.getVariables().get("date").getStartOffset() > 0
+        );
+    }
+
+    public void testThatRenderVariableAssignmentsAreInIndex() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "function foobarFunc()" +
+            "{\n" +
+            "   $vars = array('foo' => 'foo');\n" +
+            "   $vars['date'] = new \\DateTime();\n" +
+            "   $foo->renderView('foo-render-var.html.twig', $vars);\n" +
+            "}\n"
+        );
+
+        assertIndexContainsKeyWithValue(PhpTwigTemplateVariableStubIndex.KEY, "foo-render-var.html.twig", value ->
+            value.getScopes().contains("foobarFunc") &&
+            value.getVariables().containsKey("foo") &&
+            value.getVariables().get("date").getTypes().contains("\\DateTime")
+        );
+    }
+
+    public void testThatTemplateAnnotationReturnIsInIndex() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "use Sensio\\Bundle\\FrameworkExtraBundle\\Configuration\\Template;" +
+            "class Foobar\n" +
+            "{" +
+            "/**\n" +
+            " * @Template(\"foo-annotation.html.twig\")\n" +
+            " */" +
+            "public function foobar() { return array('date' => new \\DateTime()); }" +
+            "}\n"
+        );
+
+        assertIndexContainsKeyWithValue(PhpTwigTemplateVariableStubIndex.KEY, "foo-annotation.html.twig", value ->
+            value.getScopes().contains("Foobar.foobar") &&
+            value.getVariables().get("date").getTypes().contains("\\DateTime")
+        );
+    }
+
+    public void testThatRenderWithoutVariablesIsNotInIndex() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "function foobarFunc()" +
+            "{\n" +
+            "   $foo->render('foo-render-empty.html.twig');\n" +
+            "}\n"
+        );
+
+        assertIndexNotContains(PhpTwigTemplateVariableStubIndex.KEY, "foo-render-empty.html.twig");
+    }
+}
@@ -2,6 +2,7 @@ package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes;
 
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.indexing.FileBasedIndexImpl;
+import fr.adrienbrault.idea.symfony2plugin.dic.container.SerializableService;
 import fr.adrienbrault.idea.symfony2plugin.dic.container.ServiceInterface;
 import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.ServicesDefinitionStubIndex;
 import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
@@ -65,6 +66,16 @@ public class ServicesDefinitionStubIndexTest extends SymfonyLightCodeInsightFixt
         assertEquals("espend.my_bar_customer_inner.inner_foo", getFirstValue("espend.my_bar_customer_inner.inner_foo").getId());
     }
 
+    public void testThatServiceDefinitionTextRangeIsIndexed() {
+        SerializableService yamlService = (SerializableService) getFirstValue("foo.yml_id");
+        assertNotNull(yamlService.getStartOffset());
+        assertTrue(yamlService.getEndOffset() > yamlService.getStartOffset());
+
+        SerializableService xmlService = (SerializableService) getFirstValue("foo.xml_id");
+        assertNotNull(xmlService.getStartOffset());
+        assertTrue(xmlService.getEndOffset() > xmlService.getStartOffset());
+    }
+
     private ServiceInterface getFirstValue(@NotNull String key) {
         return FileBasedIndexImpl.getInstance().getValues(ServicesDefinitionStubIndex.KEY, key, GlobalSearchScope.allScope(getProject())).get(0);
     }
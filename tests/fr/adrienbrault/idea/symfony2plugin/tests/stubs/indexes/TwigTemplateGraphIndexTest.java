@@ -0,0 +1,42 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes;
+
+import com.jetbrains.twig.TwigFileType;
+import fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigTemplateGraphIndex;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+
+import java.util.Arrays;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigTemplateGraphIndex
+ */
+public class TwigTemplateGraphIndexTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.configureByText(TwigFileType.INSTANCE, "" +
+            "{% extends 'FooBundle::layout.html.twig' %}\n" +
+            "{% use 'blocks.html.twig' %}\n" +
+            "{% include 'include.html.twig' %}\n" +
+            "{{ include('include_func.html.twig') }}\n" +
+            "{% embed 'embed.html.twig' %}{% endembed %}\n" +
+            "{% block content %}{% endblock %}\n" +
+            "{% block 'title' %}{% endblock %}\n"
+        );
+    }
+
+    /**
+     * @see fr.adrienbrault.idea.symfony2plugin.stubs.indexes.TwigTemplateGraphIndex#getIndexer()
+     */
+    public void testTemplateGraphIndexer() {
+        assertIndexContains(TwigTemplateGraphIndex.KEY, TwigTemplateGraphIndex.GRAPH_KEY);
+
+        assertIndexContainsKeyWithValue(TwigTemplateGraphIndex.KEY, TwigTemplateGraphIndex.GRAPH_KEY, value ->
+            value.getExtendsTemplates().contains("FooBundle::layout.html.twig") &&
+            value.getUseTemplates().contains("blocks.html.twig") &&
+            value.getIncludeTemplates().containsAll(Arrays.asList("include.html.twig", "include_func.html.twig", "embed.html.twig")) &&
+            value.getBlocks().containsAll(Arrays.asList("content", "title"))
+        );
+    }
+}
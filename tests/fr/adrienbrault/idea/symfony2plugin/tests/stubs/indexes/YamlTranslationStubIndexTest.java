@@ -1,5 +1,6 @@
 package fr.adrienbrault.idea.symfony2plugin.tests.stubs.indexes;
 
+import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.containers.ArrayListSet;
 import com.intellij.util.containers.ContainerUtil;
@@ -9,6 +10,9 @@ import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureT
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -73,12 +77,35 @@ public class YamlTranslationStubIndexTest extends SymfonyLightCodeInsightFixture
         assertIndexNotContains(YamlTranslationStubIndex.KEY, "fr");
     }
 
+    public void testThatKeyOffsetsArePartOfIndex() throws IOException {
+        Map<String, Integer> offsets = getDomainOffsets("apple");
+
+        String content = VfsUtil.loadText(myFixture.findFileInTempDir("Resources/translations/apple.de.yml"));
+        assertEquals(content.indexOf("'YAML Symfony2 is great'"), (int) offsets.get("yaml_weak.symfony.great"));
+        assertEquals(content.indexOf("|"), (int) offsets.get("yaml_weak.symfony.more.lines"));
+
+        offsets = getDomainOffsets("messages");
+        content = VfsUtil.loadText(myFixture.findFileInTempDir("messages.fr.xlf"));
+        assertEquals(content.indexOf("Symfony is great"), (int) offsets.get("Symfony is great"));
+    }
+
+    @NotNull
+    private Map<String, Integer> getDomainOffsets(@NotNull String domain) {
+        Map<String, Integer> offsets = new HashMap<>();
+
+        for(Map<String, Integer> keys: FileBasedIndex.getInstance().getValues(YamlTranslationStubIndex.KEY, domain, GlobalSearchScope.allScope(getProject()))) {
+            offsets.putAll(keys);
+        }
+
+        return offsets;
+    }
+
     @NotNull
     private Set<String> getDomainKeys(@NotNull String domain) {
         Set<String> uniqueKeySet = new ArrayListSet<String>();
 
-        for(Set<String> splits: FileBasedIndex.getInstance().getValues(YamlTranslationStubIndex.KEY, domain, GlobalSearchScope.allScope(getProject()))) {
-            ContainerUtil.addAll(uniqueKeySet, splits);
+        for(Map<String, Integer> splits: FileBasedIndex.getInstance().getValues(YamlTranslationStubIndex.KEY, domain, GlobalSearchScope.allScope(getProject()))) {
+            ContainerUtil.addAll(uniqueKeySet, splits.keySet());
         }
 
         return uniqueKeySet;
@@ -0,0 +1,128 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.templating.dict;
+
+import fr.adrienbrault.idea.symfony2plugin.stubs.dict.TwigTemplateGraphEntry;
+import fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigTemplateGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.templating.dict.TwigTemplateGraph
+ */
+public class TwigTemplateGraphTest extends Assert {
+
+    /**
+     * Synthetic project: "base" with 2.000 templates in a single "extends" chain below it
+     */
+    private static final int TEMPLATES = 2000;
+
+    @Test
+    public void testParentsAndChildren() {
+        TwigTemplateGraph<String> graph = createChainGraph();
+
+        assertEquals(Collections.singletonList("t1"), new ArrayList<>(graph.getParents("t2")));
+        assertEquals(Collections.singletonList("t3"), new ArrayList<>(graph.getChildren("t2")));
+
+        assertEquals(TEMPLATES, graph.getAncestors("t" + TEMPLATES).size());
+        assertEquals(TEMPLATES, graph.getDescendants("base").size());
+        assertEquals("t1999", graph.getAncestors("t2000").iterator().next());
+    }
+
+    @Test
+    public void testBlockTablesOnDeepChain() {
+        TwigTemplateGraph<String> graph = createChainGraph();
+
+        Map<String, String> blocks = graph.getBlocks("t" + TEMPLATES, false);
+        assertEquals("t1500", blocks.get("content"));
+        assertEquals("base", blocks.get("title"));
+        assertEquals("t1999", blocks.get("block_t1999"));
+        assertFalse(blocks.containsKey("block_t2000"));
+        assertTrue(graph.getBlocks("t" + TEMPLATES, true).containsKey("block_t2000"));
+
+        // only templates defining the block, nearest first
+        assertEquals(Arrays.asList("t1500", "t1000", "t500", "base"), new ArrayList<>(graph.getBlockDefinitions("t" + TEMPLATES, "content", false)));
+        assertEquals(Arrays.asList("t1000", "t500", "base"), new ArrayList<>(graph.getBlockDefinitions("t1000", "content", true)));
+        assertEquals(Arrays.asList("t500", "base"), new ArrayList<>(graph.getBlockDefinitions("t1000", "content", false)));
+
+        assertEquals(Arrays.asList("t500", "t1000", "t1500", "t2000"), new ArrayList<>(graph.getBlockImplementations("base", "content")));
+    }
+
+    @Test
+    public void testUseTemplatesAreParentsAfterExtends() {
+        Map<String, TwigTemplateGraphEntry> entries = new HashMap<>();
+        entries.put("layout", createEntry(Collections.emptyList(), Collections.emptyList(), Arrays.asList("content", "sidebar")));
+        entries.put("blocks", createEntry(Collections.emptyList(), Collections.emptyList(), Arrays.asList("sidebar", "form_row")));
+        entries.put("page", createEntry(Collections.singletonList("layout.html.twig"), Collections.singletonList("blocks.html.twig"), Collections.emptyList()));
+
+        TwigTemplateGraph<String> graph = new TwigTemplateGraph<>(entries, createNames(entries.keySet()));
+
+        assertEquals(Arrays.asList("layout", "blocks"), new ArrayList<>(graph.getParents("page")));
+
+        Map<String, String> blocks = graph.getBlocks("page", true);
+        assertEquals("layout", blocks.get("sidebar"));
+        assertEquals("blocks", blocks.get("form_row"));
+    }
+
+    @Test
+    public void testIncludesAreResolvedInReverse() {
+        Map<String, TwigTemplateGraphEntry> entries = new HashMap<>();
+        entries.put("partial", createEntry(Collections.emptyList(), Collections.emptyList(), Collections.emptyList()));
+        entries.put("page", new TwigTemplateGraphEntry(Collections.emptyList(), Collections.emptyList(), Arrays.asList("partial.html.twig", "unknown.html.twig"), Collections.emptyList()));
+
+        TwigTemplateGraph<String> graph = new TwigTemplateGraph<>(entries, createNames(entries.keySet()));
+
+        assertEquals(Collections.singletonList("page"), new ArrayList<>(graph.getIncludingTemplates("partial")));
+        assertEquals(0, graph.getParents("page").size());
+    }
+
+    @Test
+    public void testCyclesAreCut() {
+        Map<String, TwigTemplateGraphEntry> entries = new HashMap<>();
+        entries.put("a", createEntry(Collections.singletonList("b.html.twig"), Collections.emptyList(), Collections.singletonList("content")));
+        entries.put("b", createEntry(Collections.singletonList("a.html.twig"), Collections.emptyList(), Collections.singletonList("content")));
+
+        TwigTemplateGraph<String> graph = new TwigTemplateGraph<>(entries, createNames(entries.keySet()));
+
+        assertEquals(Collections.singletonList("b"), new ArrayList<>(graph.getAncestors("a")));
+        assertEquals(Collections.singletonList("a"), new ArrayList<>(graph.getDescendants("b")));
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(graph.getBlockDefinitions("a", "content", true)));
+    }
+
+    /**
+     * "t1" extends "base", "t2" extends "t1", ...; every template defines its own block,
+     * every 500th template overwrites "content"
+     */
+    private static TwigTemplateGraph<String> createChainGraph() {
+        Map<String, TwigTemplateGraphEntry> entries = new HashMap<>();
+        entries.put("base", createEntry(Collections.emptyList(), Collections.emptyList(), Arrays.asList("content", "title")));
+
+        for (int i = 1; i <= TEMPLATES; i++) {
+            String parent = i == 1 ? "base" : "t" + (i - 1);
+
+            List<String> blocks = new ArrayList<>();
+            blocks.add("block_t" + i);
+            if(i % 500 == 0) {
+                blocks.add("content");
+            }
+
+            entries.put("t" + i, createEntry(Collections.singletonList(parent + ".html.twig"), Collections.emptyList(), blocks));
+        }
+
+        return new TwigTemplateGraph<>(entries, createNames(entries.keySet()));
+    }
+
+    private static TwigTemplateGraphEntry createEntry(Collection<String> extendsTemplates, Collection<String> useTemplates, Collection<String> blocks) {
+        return new TwigTemplateGraphEntry(extendsTemplates, useTemplates, Collections.emptyList(), blocks);
+    }
+
+    private static Map<String, Collection<String>> createNames(Collection<String> files) {
+        Map<String, Collection<String>> names = new HashMap<>();
+        for (String file : files) {
+            names.put(file + ".html.twig", Collections.singleton(file));
+        }
+
+        return names;
+    }
+}
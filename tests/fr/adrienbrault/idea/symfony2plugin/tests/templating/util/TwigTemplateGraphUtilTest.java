@@ -0,0 +1,89 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.templating.util;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.jetbrains.twig.TwigFileType;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Block completion and line markers on a deep "extends" chain, resolved through the template graph index
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.templating.util.TwigTemplateGraphUtil
+ */
+public class TwigTemplateGraphUtilTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    /**
+     * "base.html.twig" with "t1.html.twig" up to "t200.html.twig" in a single "extends" chain below it
+     */
+    private static final int TEMPLATES = 200;
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        if(System.getenv("PHPSTORM_ENV") != null) return;
+
+        createTemplate("base.html.twig", "{% block content %}{% endblock %}{% block title %}{% endblock %}");
+
+        for (int i = 1; i <= TEMPLATES; i++) {
+            String parent = i == 1 ? "base" : "t" + (i - 1);
+            String content = i == TEMPLATES / 2 ? "{% block content %}{% endblock %}" : "";
+
+            createTemplate("t" + i + ".html.twig", "{% extends '::" + parent + ".html.twig' %}{% block block_t" + i + " %}{% endblock %}" + content);
+        }
+    }
+
+    public void testBlockCompletionOnDeepChain() {
+        if(System.getenv("PHPSTORM_ENV") != null) return;
+
+        assertCompletionContains(
+            TwigFileType.INSTANCE,
+            "{% extends '::t" + TEMPLATES + ".html.twig' %}{% block <caret> %}",
+            "content", "title", "block_t1", "block_t" + (TEMPLATES / 2), "block_t" + TEMPLATES
+        );
+    }
+
+    public void testBlockOverwriteLineMarkerOnDeepChain() {
+        if(System.getenv("PHPSTORM_ENV") != null) return;
+
+        PsiFile psiFile = myFixture.configureByText(
+            TwigFileType.INSTANCE,
+            "{% extends '::t" + TEMPLATES + ".html.twig' %}{% block content %}{% endblock %}{% block title %}{% endblock %}"
+        );
+
+        assertLineMarker(psiFile, markerInfo -> markerInfo.getLineMarkerTooltip() != null && markerInfo.getLineMarkerTooltip().startsWith("Overwrites"));
+    }
+
+    public void testBlockImplementationLineMarkerOnDeepChain() {
+        if(System.getenv("PHPSTORM_ENV") != null) return;
+
+        VirtualFile virtualFile = VfsUtil.findRelativeFile(getProject().getBaseDir(), "app", "Resources", "views", "base.html.twig");
+        assertNotNull(virtualFile);
+
+        PsiFile psiFile = PsiManager.getInstance(getProject()).findFile(virtualFile);
+        assertNotNull(psiFile);
+
+        // "content" is implemented in the middle of the chain
+        assertLineMarker(psiFile, markerInfo -> markerInfo.getLineMarkerTooltip() != null && markerInfo.getLineMarkerTooltip().startsWith("Impl"));
+    }
+
+    private void createTemplate(@NotNull String name, @NotNull String content) throws Exception {
+        String file = "app/Resources/views/" + name;
+        createDummyFiles(file);
+
+        VirtualFile relativeFile = VfsUtil.findRelativeFile(getProject().getBaseDir(), file.split("/"));
+        ApplicationManager.getApplication().runWriteAction(() -> {
+            try {
+                relativeFile.setBinaryContent(content.getBytes());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.translation.collector;
+
+import fr.adrienbrault.idea.symfony2plugin.translation.collector.XliffTranslationVisitor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.translation.collector.XliffTranslationVisitor
+ */
+public class XliffTranslationVisitorTest extends Assert {
+
+    private static final String XLIFF_12 = "<?xml version=\"1.0\"?>\n" +
+        "<xliff version=\"1.2\" xmlns=\"urn:oasis:names:tc:xliff:document:1.2\">\n" +
+        "    <file source-language=\"en\" datatype=\"plaintext\" original=\"file.ext\">\n" +
+        "        <body>\n" +
+        "            <trans-unit id=\"1\">\n" +
+        "                <source>Symfony is great</source>\n" +
+        "                <target>J'aime Symfony</target>\n" +
+        "            </trans-unit>\n" +
+        "            <trans-unit id=\"2\" resname=\"foo.bar\">\n" +
+        "                <source>Foo Bar</source>\n" +
+        "            </trans-unit>\n" +
+        "            <group>\n" +
+        "                <trans-unit id=\"3\"><source>grouped <g id=\"1\">inline</g></source></trans-unit>\n" +
+        "            </group>\n" +
+        "        </body>\n" +
+        "    </file>\n" +
+        "</xliff>";
+
+    private static final String XLIFF_20 = "<xliff xmlns=\"urn:oasis:names:tc:xliff:document:2.0\" version=\"2.0\" srcLang=\"en-US\" trgLang=\"ja-JP\">\r\n" +
+        "    <file id=\"f1\">\r\n" +
+        "        <group id=\"1\">\r\n" +
+        "            <unit id=\"1\">\r\n" +
+        "                <segment>\r\n" +
+        "                    <source>hello xliff v2</source>\r\n" +
+        "                    <target>hello xliff v2 target</target>\r\n" +
+        "                </segment>\r\n" +
+        "            </unit>\r\n" +
+        "        </group>\r\n" +
+        "        <unit id=\"2\">\r\n" +
+        "            <segment><source><![CDATA[hello xliff v2 group less]]></source></segment>\r\n" +
+        "        </unit>\r\n" +
+        "    </file>\r\n" +
+        "</xliff>";
+
+    @Test
+    public void testXliff12Keys() {
+        Set<String> keys = XliffTranslationVisitor.getTranslationKeys(stream(XLIFF_12));
+
+        assertEquals(3, keys.size());
+        assertTrue(keys.contains("Symfony is great"));
+        assertTrue(keys.contains("foo.bar"));
+        assertTrue(keys.contains("grouped inline"));
+    }
+
+    @Test
+    public void testXliff20Keys() {
+        Set<String> keys = XliffTranslationVisitor.getTranslationKeys(stream(XLIFF_20));
+
+        assertEquals(2, keys.size());
+        assertTrue(keys.contains("hello xliff v2"));
+        assertTrue(keys.contains("hello xliff v2 group less"));
+    }
+
+    @Test
+    public void testKeyOffsetsPointsToSourceContent() {
+        Map<String, Integer> offsets = collectOffsets(XLIFF_12);
+
+        assertEquals(XLIFF_12.indexOf("Symfony is great"), (int) offsets.get("Symfony is great"));
+        assertEquals(XLIFF_12.indexOf("Foo Bar"), (int) offsets.get("foo.bar"));
+
+        offsets = collectOffsets(XLIFF_20);
+        assertEquals(XLIFF_20.indexOf("hello xliff v2</source>"), (int) offsets.get("hello xliff v2"));
+        assertEquals(XLIFF_20.indexOf("<![CDATA[hello xliff v2 group less"), (int) offsets.get("hello xliff v2 group less"));
+    }
+
+    @Test
+    public void testStreamOffsetsAreUnknown() {
+        XliffTranslationVisitor.visit(stream(XLIFF_12), (keyName, offset) -> {
+            assertEquals(-1, offset);
+            return true;
+        });
+    }
+
+    @Test
+    public void testVisitingCanBeStopped() {
+        int[] calls = {0};
+
+        XliffTranslationVisitor.visit(XLIFF_12, (keyName, offset) -> {
+            calls[0]++;
+            return false;
+        });
+
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    public void testInvalidOrForeignXmlIsIgnored() {
+        assertTrue(XliffTranslationVisitor.getTranslationKeys(stream("<container><source>foo</source></container>")).isEmpty());
+        assertTrue(XliffTranslationVisitor.getTranslationKeys(stream("<xliff><file><body><trans-unit><source>foo")).isEmpty());
+        assertTrue(XliffTranslationVisitor.getTranslationKeys(stream("<xliff><file><source>foo</source></file></xliff>")).isEmpty());
+    }
+
+    private static Map<String, Integer> collectOffsets(String content) {
+        Map<String, Integer> offsets = new HashMap<>();
+
+        XliffTranslationVisitor.visit(content, (keyName, offset) -> {
+            offsets.put(keyName, offset);
+            return true;
+        });
+
+        return offsets;
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
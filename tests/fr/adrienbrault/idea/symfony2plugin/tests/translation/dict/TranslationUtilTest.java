@@ -1,7 +1,11 @@
 package fr.adrienbrault.idea.symfony2plugin.tests.translation.dict;
 
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
 import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import fr.adrienbrault.idea.symfony2plugin.translation.collector.YamlTranslationVistor;
 import fr.adrienbrault.idea.symfony2plugin.translation.dict.TranslationUtil;
+import org.jetbrains.yaml.psi.YAMLKeyValue;
 
 import java.io.File;
 
@@ -37,4 +41,17 @@ public class TranslationUtilTest extends SymfonyLightCodeInsightFixtureTestCase
 
         assertTrue(TranslationUtil.getTranslationPsiElements(getProject(), "foo_yaml.symfony.great", "car").length > 0);
     }
+
+    public void testGetTranslationPsiElementsTargetsFullKeyPath() {
+        for (String key : new String[] {"yaml_weak.symfony.great", "yaml_weak.symfony.greater than", "yaml_weak.symfony.more.lines"}) {
+            PsiElement[] targets = TranslationUtil.getTranslationPsiElements(getProject(), key, "apple");
+            assertTrue(targets.length > 0);
+
+            for (PsiElement target : targets) {
+                YAMLKeyValue yamlKeyValue = PsiTreeUtil.getParentOfType(target, YAMLKeyValue.class, false);
+                assertNotNull(yamlKeyValue);
+                assertEquals(key, YamlTranslationVistor.getTranslationKey(yamlKeyValue));
+            }
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.util;
+
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import fr.adrienbrault.idea.symfony2plugin.Symfony2InterfacesUtil;
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import fr.adrienbrault.idea.symfony2plugin.util.CallToSignatureTable;
+import fr.adrienbrault.idea.symfony2plugin.util.MethodMatcher;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.util.CallToSignatureRegistry
+ */
+public class CallToSignatureRegistryTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    /**
+     * Synthetic file: 2.500 string literals, every fifth one inside a container call
+     */
+    private static final int LITERALS = 2500;
+
+    private static final MethodMatcher.CallToSignature[] SIGNATURES = new MethodMatcher.CallToSignature[] {
+        new MethodMatcher.CallToSignature("\\Foo\\ContainerInterface", "get"),
+        new MethodMatcher.CallToSignature("\\Foo\\ContainerInterface", "has"),
+        new MethodMatcher.CallToSignature("\\Foo\\Translator", "trans"),
+    };
+
+    public void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.addFileToProject("classes.php", "<?php\n" +
+            "namespace Foo;\n" +
+            "interface ContainerInterface { function get($id); function has($id); }\n" +
+            "class Container implements ContainerInterface { function get($id) {} function has($id) {} }\n" +
+            "class Translator { function trans($id) {} }\n" +
+            "class Other { function get($id) {} function set($id) {} }\n"
+        );
+    }
+
+    public void testDispatchTableKeepsSignatureOrderPerMethodName() {
+        CallToSignatureTable table = new CallToSignatureTable(Arrays.asList(
+            new MethodMatcher.CallToSignature("\\Foo\\A", "get"),
+            new MethodMatcher.CallToSignature("\\Foo\\B", "set"),
+            new MethodMatcher.CallToSignature("\\Foo\\C", "get")
+        ));
+
+        assertEquals(2, table.size());
+        assertEquals("\\Foo\\A", table.get("get").get(0).getInstance());
+        assertEquals("\\Foo\\C", table.get("get").get(1).getInstance());
+        assertNull(table.get("has"));
+    }
+
+    public void testTableIsSharedPerSignatureArray() {
+        assertSame(CallToSignatureTable.of(SIGNATURES), CallToSignatureTable.of(SIGNATURES));
+        assertNotSame(CallToSignatureTable.of(SIGNATURES), CallToSignatureTable.of(SIGNATURES.clone()));
+    }
+
+    public void testCallToMatchesInstancesAndImplementations() {
+        myFixture.configureByText(PhpFileType.INSTANCE, "<?php\n" +
+            "/** @var \\Foo\\Container $c */\n" +
+            "$c->get('container');\n" +
+            "/** @var \\Foo\\Other $o */\n" +
+            "$o->get('other');\n" +
+            "/** @var \\Foo\\Translator $t */\n" +
+            "$t->trans('trans');\n"
+        );
+
+        assertEquals("get", getMatchedMethod("container"));
+        assertNull(getMatchedMethod("other"));
+        assertEquals("trans", getMatchedMethod("trans"));
+
+        Symfony2InterfacesUtil interfacesUtil = new Symfony2InterfacesUtil();
+        StringLiteralExpression literal = getLiteral("container");
+        assertTrue(interfacesUtil.isCallTo(literal.getParent().getParent(), "\\Foo\\ContainerInterface", "get"));
+        assertFalse(interfacesUtil.isCallTo(literal.getParent().getParent(), "\\Foo\\ContainerInterface", "has"));
+    }
+
+    /**
+     * Compares matching of all string literals of a large file; only literals of known method names need a resolve
+     */
+    public void testManyStringLiteralsInFile() {
+        StringBuilder content = new StringBuilder("<?php\n/** @var \\Foo\\Container $c */\n/** @var \\Foo\\Other $o */\n");
+        for (int i = 0; i < LITERALS; i++) {
+            if(i % 5 == 0) {
+                content.append("$c->get('service_").append(i).append("');\n");
+            } else if(i % 5 == 1) {
+                content.append("$o->get('other_").append(i).append("');\n");
+            } else {
+                content.append("$o->set('value_").append(i).append("');\n");
+            }
+        }
+
+        myFixture.configureByText(PhpFileType.INSTANCE, content.toString());
+
+        Collection<StringLiteralExpression> literals = PsiTreeUtil.collectElementsOfType(myFixture.getFile(), StringLiteralExpression.class);
+        assertEquals(LITERALS, literals.size());
+
+        int matches = 0;
+        for (StringLiteralExpression literal : literals) {
+            MethodMatcher.MethodMatchParameter match = new MethodMatcher.StringParameterMatcher(literal, 0)
+                .withSignature(SIGNATURES)
+                .match();
+
+            if(match != null) {
+                assertTrue(literal.getContents().startsWith("service_"));
+                matches++;
+            }
+        }
+
+        assertEquals(LITERALS / 5, matches);
+    }
+
+    private String getMatchedMethod(String contents) {
+        MethodMatcher.MethodMatchParameter match = new MethodMatcher.StringParameterMatcher(getLiteral(contents), 0)
+            .withSignature(SIGNATURES)
+            .match();
+
+        return match != null ? match.getSignature().getMethod() : null;
+    }
+
+    private StringLiteralExpression getLiteral(String contents) {
+        for (StringLiteralExpression literal : PsiTreeUtil.collectElementsOfType(myFixture.getFile(), StringLiteralExpression.class)) {
+            if(contents.equals(literal.getContents())) {
+                return literal;
+            }
+        }
+
+        fail("literal not found: " + contents);
+        return null;
+    }
+}
@@ -36,6 +36,18 @@ public class SymfonyCommandUtilTest extends SymfonyLightCodeInsightFixtureTestCa
         assertNull(ContainerUtil.find(SymfonyCommandUtil.getCommands(getProject()), new SymfonyCommandCondition("unknown")));
     }
 
+    /**
+     * @see SymfonyCommandUtil#getCommandNames
+     * @see SymfonyCommandUtil#getCommandTargets
+     */
+    public void testThatSetNameOfNonCommandClassIsNotACommand() {
+        assertTrue(SymfonyCommandUtil.getCommandNames(getProject()).contains("foo"));
+        assertFalse(SymfonyCommandUtil.getCommandNames(getProject()).contains("options_resolver"));
+
+        assertEquals(0, SymfonyCommandUtil.getCommandTargets(getProject(), "options_resolver").size());
+        assertNull(ContainerUtil.find(SymfonyCommandUtil.getCommands(getProject()), new SymfonyCommandCondition("options_resolver")));
+    }
+
     private static class SymfonyCommandCondition implements Condition<SymfonyCommand> {
         private final String name;
 
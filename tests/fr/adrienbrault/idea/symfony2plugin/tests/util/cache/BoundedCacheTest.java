@@ -0,0 +1,164 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.util.cache;
+
+import fr.adrienbrault.idea.symfony2plugin.util.cache.BoundedCache;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.CacheStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.util.cache.BoundedCache
+ */
+public class BoundedCacheTest extends Assert {
+
+    @Test
+    public void testLeastRecentlyUsedIsEvictedOnBudgetOverflow() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", () -> 10, String::length, false);
+
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+
+        // touch "a", so "b" is the eldest one
+        assertEquals("aaaa", cache.get("a"));
+
+        cache.put("c", "cccc");
+
+        assertNull(cache.get("b"));
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals("cccc", cache.get("c"));
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getSize());
+        assertEquals(8, statistics.getWeight());
+        assertEquals(10, statistics.getBudget());
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(3, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+    }
+
+    @Test
+    public void testEvictedValuesAreKeptSoftReachable() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", () -> 4, String::length, true);
+
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+
+        assertEquals(1, cache.getStatistics().getSoftSize());
+
+        // as long as there is no memory pressure the value survives
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals(1, cache.getStatistics().getSoftHits());
+    }
+
+    @Test
+    public void testLoaderIsOnlyCalledForInvalidValues() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>("test", () -> 100, value -> 1, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(1, (int) cache.get("a", value -> value == 1, key -> calls.incrementAndGet()));
+        assertEquals(1, (int) cache.get("a", value -> value == 1, key -> calls.incrementAndGet()));
+        assertEquals(1, calls.get());
+
+        assertEquals(2, (int) cache.get("a", value -> value == 2, key -> calls.incrementAndGet()));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testInvalidateReleasesWeight() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", () -> 100, String::length, true);
+
+        cache.put("a", "aaaa");
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getWeight());
+
+        cache.put("a", "aaaa");
+        cache.put("b", "bb");
+        cache.invalidateAll();
+
+        assertEquals(0, cache.getWeight());
+        assertTrue(cache.keySet().isEmpty());
+    }
+
+    @Test
+    public void testRetainAllEvictsUnknownKeys() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", () -> 100, String::length, true);
+        cache.put("a", "aaaa");
+        cache.put("b", "bb");
+
+        cache.retainAll(Collections.singleton("b"));
+
+        assertNull(cache.get("a"));
+        assertEquals("bb", cache.get("b"));
+        assertEquals(2, cache.getWeight());
+
+        BoundedCache<String, String> softCache = BoundedCache.soft("test");
+        softCache.put("a", "aaaa");
+        softCache.put("b", "bb");
+
+        softCache.retainAll(Collections.singleton("b"));
+
+        assertEquals(Collections.singleton("b"), softCache.keySet());
+    }
+
+    @Test
+    public void testSoftCacheValuesAreOnlySoftReachable() {
+        BoundedCache<String, String> cache = BoundedCache.soft("test");
+
+        cache.put("a", "aaaa");
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(0, statistics.getSize());
+        assertEquals(1, statistics.getSoftSize());
+        assertEquals(0, statistics.getWeight());
+
+        // a hit must not promote the value to a strong reference
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals(0, cache.getStatistics().getSize());
+        assertEquals(1, cache.getStatistics().getSoftSize());
+        assertEquals(1, cache.getStatistics().getSoftHits());
+    }
+
+    @Test
+    public void testOutdatedValueIsCountedAsMiss() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>("test", () -> 100, value -> 1, false);
+
+        cache.get("a", value -> true, key -> 1);
+        cache.get("a", value -> value == 2, key -> 2);
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(0, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+
+        assertEquals(2, (int) cache.get("a", value -> value == 2, key -> 3));
+        assertEquals(1, cache.getStatistics().getHits());
+    }
+
+    @Test
+    public void testValidityCheckDoesNotHoldCacheLock() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", () -> 100, String::length, false);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+
+        // check with disk access must not block lookups of other threads
+        AtomicReference<String> other = new AtomicReference<>();
+        assertEquals("aaaa", cache.getIfValid("a", value -> {
+            Thread thread = new Thread(() -> other.set(cache.get("b")));
+            thread.start();
+
+            try {
+                thread.join(5000);
+            } catch (InterruptedException ignored) {
+            }
+
+            return true;
+        }));
+
+        assertEquals("bbbb", other.get());
+    }
+}
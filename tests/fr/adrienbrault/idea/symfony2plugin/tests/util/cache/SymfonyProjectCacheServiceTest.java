@@ -0,0 +1,58 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.util.cache;
+
+import fr.adrienbrault.idea.symfony2plugin.tests.SymfonyLightCodeInsightFixtureTestCase;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.ProjectCacheKey;
+import fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.util.cache.SymfonyProjectCacheService
+ */
+public class SymfonyProjectCacheServiceTest extends SymfonyLightCodeInsightFixtureTestCase {
+
+    private static final ProjectCacheKey<List<String>> KEY = ProjectCacheKey.create(
+        "test",
+        project -> new ArrayList<>(),
+        strings -> strings.size() * 10
+    );
+
+    public void testCacheIsSharedUntilRemoved() {
+        SymfonyProjectCacheService service = SymfonyProjectCacheService.getInstance(getProject());
+
+        List<String> strings = service.get(KEY);
+        strings.add("foo");
+
+        assertSame(strings, SymfonyProjectCacheService.getCache(getProject(), KEY));
+
+        service.remove(KEY);
+        assertNull(service.getIfPresent(KEY));
+        assertNotSame(strings, service.get(KEY));
+    }
+
+    public void testRetainedSizesAreReportedPerCache() {
+        SymfonyProjectCacheService service = SymfonyProjectCacheService.getInstance(getProject());
+        service.get(KEY).add("foo");
+        service.get(KEY).add("bar");
+
+        Map<String, Long> sizes = service.getRetainedSizes();
+        assertEquals(20L, (long) sizes.get("test"));
+
+        service.remove(KEY);
+        assertFalse(service.getRetainedSizes().containsKey("test"));
+    }
+
+    public void testDisposeReleasesAllCaches() {
+        SymfonyProjectCacheService service = new SymfonyProjectCacheService(getProject());
+        List<String> strings = service.get(KEY);
+
+        service.dispose();
+
+        assertNull(service.getIfPresent(KEY));
+        assertNotSame(strings, service.get(KEY));
+        assertNull(service.getIfPresent(KEY));
+    }
+}
@@ -0,0 +1,107 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.util.dict;
+
+import fr.adrienbrault.idea.symfony2plugin.util.dict.PathPrefixTrie;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.util.dict.PathPrefixTrie
+ */
+public class PathPrefixTrieTest extends Assert {
+
+    /**
+     * Synthetic project: 300 bundles below "src" and "vendor"
+     */
+    private static final int BUNDLES = 300;
+
+    private static final int LOOKUPS = 20000;
+
+    @Test
+    public void testLongestPrefix() {
+        PathPrefixTrie<String> trie = new PathPrefixTrie<>('/');
+        trie.put("/project/src/FooBundle", "FooBundle");
+        trie.put("/project/src/FooBundle/Tests/Fixtures/TestBundle", "TestBundle");
+
+        assertEquals("FooBundle", trie.findLongestPrefix("/project/src/FooBundle"));
+        assertEquals("FooBundle", trie.findLongestPrefix("/project/src/FooBundle/Resources/views/foo.html.twig"));
+        assertEquals("FooBundle", trie.findLongestPrefix("/project/src/FooBundle/Tests/foo.php"));
+        assertEquals("TestBundle", trie.findLongestPrefix("/project/src/FooBundle/Tests/Fixtures/TestBundle/foo.php"));
+
+        assertNull(trie.findLongestPrefix("/project/src/FooBundleBar/foo.php"));
+        assertNull(trie.findLongestPrefix("/project/src"));
+        assertNull(trie.findLongestPrefix(""));
+    }
+
+    @Test
+    public void testSeparatorAndEmptySegments() {
+        PathPrefixTrie<String> trie = new PathPrefixTrie<>('\\');
+        trie.put("\\Foo\\BarBundle\\", "BarBundle");
+
+        assertEquals("BarBundle", trie.findLongestPrefix("\\Foo\\BarBundle\\Controller\\"));
+        assertEquals("BarBundle", trie.findLongestPrefix("Foo\\\\BarBundle"));
+        assertNull(trie.findLongestPrefix("\\Foo\\BarBundleController\\"));
+    }
+
+    @Test
+    public void testFirstValueWinsAndRootValue() {
+        PathPrefixTrie<String> trie = new PathPrefixTrie<>('/');
+        trie.put("/foo", "first");
+        trie.put("/foo/", "second");
+
+        assertEquals(1, trie.size());
+        assertEquals("first", trie.findLongestPrefix("/foo/bar"));
+        assertNull(trie.findLongestPrefix("/bar"));
+
+        trie.put("/", "root");
+        assertEquals("root", trie.findLongestPrefix("/bar"));
+        assertEquals("first", trie.findLongestPrefix("/foo/bar"));
+    }
+
+    /**
+     * Compares trie lookups with the linear scan over all bundle directories it replaces
+     */
+    @Test
+    public void testManyBundlesMatchLinearScan() {
+        List<String> directories = new ArrayList<>();
+        PathPrefixTrie<String> trie = new PathPrefixTrie<>('/');
+
+        for (int i = 0; i < BUNDLES; i++) {
+            String directory = (i % 2 == 0 ? "/project/src/Acme" : "/project/vendor/acme/bundle" + i + "/src") + "/Foo" + i + "Bundle";
+            directories.add(directory);
+            trie.put(directory, directory);
+        }
+
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < LOOKUPS; i++) {
+            String directory = directories.get(i % BUNDLES);
+            files.add(i % 5 == 0 ? "/project/app/Resources/views/foo" + i + ".html.twig" : directory + "/Resources/views/Default/foo" + i + ".html.twig");
+        }
+
+        List<String> linear = new ArrayList<>();
+        for (String file : files) {
+            linear.add(findLinear(directories, file));
+        }
+
+        List<String> prefix = new ArrayList<>();
+        for (String file : files) {
+            prefix.add(trie.findLongestPrefix(file));
+        }
+
+        assertEquals(linear, prefix);
+        assertEquals(BUNDLES, trie.size());
+    }
+
+    private static String findLinear(List<String> directories, String file) {
+        for (String directory : directories) {
+            if(file.equals(directory) || file.startsWith(directory + "/")) {
+                return directory;
+            }
+        }
+
+        return null;
+    }
+}
@@ -8,6 +8,14 @@ namespace Symfony\Component\Console\Command
     }
 }
 
+namespace Symfony\Component\OptionsResolver
+{
+    class OptionsResolver
+    {
+        function setName($i) {}
+    }
+}
+
 namespace Foo
 {
     use Symfony\Component\Console\Command\Command;
@@ -39,4 +47,12 @@ namespace Foo
             $this->setName(self::FOO);
         }
     }
+
+    class FooOptionsResolver extends \Symfony\Component\OptionsResolver\OptionsResolver
+    {
+        public function configure()
+        {
+            $this->setName('options_resolver');
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package fr.adrienbrault.idea.symfony2plugin.tests.webDeployment.storage;
+
+import fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local files are the remote stand-in; webDeployment only provides a vfs FileObject for the same data
+ *
+ * @author Daniel Espendiller <daniel@espendiller.net>
+ * @see fr.adrienbrault.idea.symfony2plugin.webDeployment.storage.RemoteFileCache
+ */
+public class RemoteFileCacheTest extends Assert {
+
+    private File directory;
+    private File remote;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("remote-cache").toFile();
+        remote = File.createTempFile("appDevDebugProjectContainer", ".xml");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if(files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        directory.delete();
+        remote.delete();
+    }
+
+    @Test
+    public void testUnchangedFileIsNotDownloadedAgain() throws IOException {
+        write("<container/>", 1000);
+
+        RemoteFileCache cache = new RemoteFileCache(directory);
+        AtomicInteger downloads = new AtomicInteger();
+
+        RemoteFileCache.Entry entry = sync(cache, downloads);
+        assertEquals(1, downloads.get());
+        assertEquals("<container/>", read(entry));
+
+        assertSame(entry, sync(cache, downloads));
+        assertEquals(1, downloads.get());
+
+        write("<container><services/></container>", 2000);
+
+        RemoteFileCache.Entry changed = sync(cache, downloads);
+        assertEquals(2, downloads.get());
+        assertFalse(entry.getHash().equals(changed.getHash()));
+        assertEquals("<container><services/></container>", read(changed));
+    }
+
+    @Test
+    public void testTouchedFileWithSameContentKeepsHash() throws IOException {
+        write("<container/>", 1000);
+
+        RemoteFileCache cache = new RemoteFileCache(directory);
+        AtomicInteger downloads = new AtomicInteger();
+
+        RemoteFileCache.Entry entry = sync(cache, downloads);
+        assertTrue(cache.updateSignature(this, Collections.singletonList(entry)));
+
+        write("<container/>", 5000);
+
+        RemoteFileCache.Entry touched = sync(cache, downloads);
+        assertEquals(2, downloads.get());
+        assertEquals(entry.getHash(), touched.getHash());
+        assertFalse(cache.updateSignature(this, Collections.singletonList(touched)));
+    }
+
+    @Test
+    public void testDownloadIsStoredCompressed() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("<service id=\"foo.").append(i).append("\" class=\"Foo\\Bar\"/>\n");
+        }
+
+        write(content.toString(), 1000);
+
+        RemoteFileCache.Entry entry = sync(new RemoteFileCache(directory), new AtomicInteger());
+
+        long stored = 0;
+        for (File file : directory.listFiles()) {
+            stored += file.length();
+        }
+
+        assertEquals(remote.length(), entry.getSize());
+        assertTrue(stored < remote.length() / 5);
+        assertEquals(content.toString(), read(entry));
+    }
+
+    @Test
+    public void testFilesOfFormerSessionAreDropped() throws IOException {
+        write("<container/>", 1000);
+        sync(new RemoteFileCache(directory), new AtomicInteger());
+        assertEquals(1, directory.listFiles().length);
+
+        new RemoteFileCache(directory);
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testClearDeletesDirectory() throws IOException {
+        write("<container/>", 1000);
+
+        RemoteFileCache cache = new RemoteFileCache(directory);
+        AtomicInteger downloads = new AtomicInteger();
+        sync(cache, downloads);
+
+        cache.clear();
+        assertFalse(directory.exists());
+
+        RemoteFileCache.Entry entry = sync(cache, downloads);
+        assertEquals(2, downloads.get());
+        assertEquals("<container/>", read(entry));
+    }
+
+    private RemoteFileCache.Entry sync(RemoteFileCache cache, AtomicInteger downloads) throws IOException {
+        Callable<InputStream> opener = () -> {
+            downloads.incrementAndGet();
+            return new FileInputStream(remote);
+        };
+
+        return cache.sync("/var/www/var/cache/dev/appDevDebugProjectContainer.xml", remote.length(), remote.lastModified(), opener);
+    }
+
+    private void write(String content, long lastModified) throws IOException {
+        Files.write(remote.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        assertTrue(remote.setLastModified(lastModified));
+    }
+
+    private static String read(RemoteFileCache.Entry entry) throws IOException {
+        try (InputStream inputStream = entry.openStream()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}